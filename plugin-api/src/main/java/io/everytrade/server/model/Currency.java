@@ -5,6 +5,7 @@ import lombok.experimental.FieldDefaults;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
@@ -1048,6 +1049,14 @@ public enum Currency {
                     throw new IllegalStateException("Duplicate currency code after normalization: " + a.code());
                 }
             ));
+    private static final List<Currency> FIATS = Arrays.stream(values()).filter(Currency::isFiat).collect(Collectors.toUnmodifiableList());
+    private static final Set<Currency> FIAT_SET = Collections.unmodifiableSet(EnumSet.copyOf(FIATS));
+    private static final Set<Currency> CRYPTOS = Collections.unmodifiableSet(EnumSet.complementOf(EnumSet.copyOf(FIATS)));
+    private static final Set<Currency> STABLE_COINS = Collections.unmodifiableSet(
+        Arrays.stream(values())
+            .filter(Currency::isStableCoin)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(Currency.class)))
+    );
 
     Currency(boolean fiat, Instant introduction, String description) {
         this(null, fiat ? 2 : DECIMAL_DIGITS, fiat, false, introduction, null, description);
@@ -1083,11 +1092,32 @@ public enum Currency {
         return code;
     }
 
+    /**
+     * Returns the fiat currencies in the order of declaration, the list is immutable.
+     */
     public static List<Currency> getFiats() {
-        return Arrays
-            .stream(values())
-            .filter(Currency::isFiat)
-            .collect(Collectors.toList());
+        return FIATS;
+    }
+
+    /**
+     * Returns the immutable set of the fiat currencies.
+     */
+    public static Set<Currency> getFiatSet() {
+        return FIAT_SET;
+    }
+
+    /**
+     * Returns the immutable set of the currencies that are not fiat.
+     */
+    public static Set<Currency> getCryptos() {
+        return CRYPTOS;
+    }
+
+    /**
+     * Returns the immutable set of the stable coins.
+     */
+    public static Set<Currency> getStableCoins() {
+        return STABLE_COINS;
     }
 
     public static Set<Currency> getFiatsExcept(Currency exception) {
@@ -1095,22 +1125,50 @@ public enum Currency {
     }
 
     public static Set<Currency> getFiatsExcept(Set<Currency> exceptions) {
-        return Arrays
-            .stream(values())
-            .filter(Currency::isFiat)
-            .filter(it -> !exceptions.contains(it))
-            .collect(Collectors.toCollection(() -> EnumSet.noneOf(Currency.class)));
+        Set<Currency> fiats = EnumSet.copyOf(FIAT_SET);
+        fiats.removeAll(exceptions);
+        return fiats;
     }
 
     public static Currency fromCode(String code) {
         Objects.requireNonNull(code, "code is null");
-        Currency c = BY_CODE.get(code.trim().toUpperCase(Locale.ROOT));
+        Currency c = findByCode(code);
         if (c == null) {
             throw new IllegalArgumentException("Unknown currency code: " + code);
         }
         return c;
     }
 
+    /**
+     * Same as {@link #fromCode(String)}, but returns null for an unknown code. The code is matched case-insensitively
+     * and trimmed, it is normalized (i.e. copied) only when it is not found as it is.
+     */
+    public static Currency findByCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        Currency c = BY_CODE.get(code);
+        if (c != null || isNormalized(code)) {
+            return c;
+        }
+        return BY_CODE.get(norm(code));
+    }
+
+    private static boolean isNormalized(String code) {
+        int length = code.length();
+        // as trimmed by String#trim
+        if (length > 0 && (code.charAt(0) <= ' ' || code.charAt(length - 1) <= ' ')) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c > 0x7F || (c >= 'a' && c <= 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static String norm(String code) {
         return code == null ? null : code.trim().toUpperCase(Locale.ROOT);
     }
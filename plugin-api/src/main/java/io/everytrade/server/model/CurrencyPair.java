@@ -5,8 +5,10 @@ import lombok.NonNull;
 import lombok.experimental.FieldDefaults;
 
 import java.time.Instant;
+import java.util.AbstractSet;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import static lombok.AccessLevel.PRIVATE;
@@ -18,15 +20,8 @@ public final class CurrencyPair implements Comparable<CurrencyPair> {
     @NonNull Currency base;
     @NonNull Currency quote;
 
-    private static final Set<CurrencyPair> CURRENCY_PAIRS = new HashSet<>();
-
-    static {
-        for (Currency base : Currency.values()) {
-            for (Currency quote : Currency.values()) {
-                CURRENCY_PAIRS.add(new CurrencyPair(base, quote));
-            }
-        }
-    }
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final Set<CurrencyPair> TRADEABLE_PAIRS = new TradeablePairs();
 
     public enum CurrencyPosition {BASE, QUOTE}
     public static final Comparator<CurrencyPair> COMPARATOR =
@@ -63,8 +58,52 @@ public final class CurrencyPair implements Comparable<CurrencyPair> {
         return base.getEndDate().isBefore(quote.getEndDate()) ? base.getEndDate() : quote.getEndDate();
     }
 
+    /**
+     * Returns read-only view of all tradeable pairs. Pairs are not retained, they are created on demand while
+     * iterating. For membership checks prefer {@link #isTradeable(Currency, Currency)}.
+     */
     public static Set<CurrencyPair> getTradeablePairs() {
-        return CURRENCY_PAIRS;
+        return TRADEABLE_PAIRS;
+    }
+
+    /**
+     * Every base/quote combination of known currencies is tradeable.
+     */
+    public static boolean isTradeable(Currency base, Currency quote) {
+        return base != null && quote != null;
+    }
+
+    /**
+     * Finds the tradeable pair of a symbol made of the base and quote codes joined by the separator, e.g. "BTC-USD",
+     * or of the codes joined together when the separator is empty, e.g. "BTCUSD". Returns null for an unknown symbol.
+     * A joined symbol that splits into more pairs (e.g. "USDCZK") resolves to the base declared last, as the symbol
+     * maps built from {@link #getTradeablePairs()} did.
+     */
+    public static CurrencyPair findBySymbol(String symbol, String separator) {
+        if (symbol == null) {
+            return null;
+        }
+        if (!separator.isEmpty()) {
+            int index = symbol.indexOf(separator);
+            if (index < 0) {
+                return null;
+            }
+            return find(symbol.substring(0, index), symbol.substring(index + separator.length()));
+        }
+        CurrencyPair found = null;
+        for (int index = 1; index < symbol.length(); index++) {
+            CurrencyPair pair = find(symbol.substring(0, index), symbol.substring(index));
+            if (pair != null && (found == null || pair.base.compareTo(found.base) > 0)) {
+                found = pair;
+            }
+        }
+        return found;
+    }
+
+    private static CurrencyPair find(String base, String quote) {
+        Currency baseCurrency = Currency.findByCode(base);
+        Currency quoteCurrency = baseCurrency == null ? null : Currency.findByCode(quote);
+        return isTradeable(baseCurrency, quoteCurrency) ? new CurrencyPair(baseCurrency, quoteCurrency) : null;
     }
 
     @Override
@@ -101,6 +140,47 @@ public final class CurrencyPair implements Comparable<CurrencyPair> {
         return String.format("%s/%s", base, quote);
     }
 
+    private static final class TradeablePairs extends AbstractSet<CurrencyPair> {
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof CurrencyPair)) {
+                return false;
+            }
+            CurrencyPair pair = (CurrencyPair) o;
+            return isTradeable(pair.base, pair.quote);
+        }
+
+        @Override
+        public int size() {
+            return CURRENCIES.length * CURRENCIES.length;
+        }
+
+        @Override
+        public Iterator<CurrencyPair> iterator() {
+            return new Iterator<>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size();
+                }
+
+                @Override
+                public CurrencyPair next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int current = index++;
+                    return new CurrencyPair(
+                        CURRENCIES[current / CURRENCIES.length],
+                        CURRENCIES[current % CURRENCIES.length]
+                    );
+                }
+            };
+        }
+    }
+
     public static class FiatCryptoCombinationException extends RuntimeException {
 
         public static final String INVALID_CURRENCY_PAIR = "Invalid currency pair";
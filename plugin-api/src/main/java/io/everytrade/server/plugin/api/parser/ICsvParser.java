@@ -24,5 +24,19 @@ public interface ICsvParser extends AutoCloseable {
     }
 
     ParseResult parse(File file, String header, String profileName);
+
+    /**
+     * Parse the specified file and push the results to the consumer while the file is being read.
+     * The default implementation collects the whole result first, parsers able to stream should override it.
+     * @param file CSV file to be parsed.
+     * @param header CVS file's header that has used to identify this parser.
+     * @param profileName name of the parsing profile or null for default one.
+     * @param consumer receiver of parsed transaction clusters and parsing problems.
+     */
+    default void parse(File file, String header, String profileName, IParseResultConsumer consumer) {
+        var result = parse(file, header, profileName);
+        result.getParsingProblems().forEach(consumer::onParsingProblem);
+        result.getTransactionClusters().forEach(consumer::onTransactionCluster);
+    }
 }
 
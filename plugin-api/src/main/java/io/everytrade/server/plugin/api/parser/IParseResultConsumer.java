@@ -0,0 +1,19 @@
+package io.everytrade.server.plugin.api.parser;
+
+/**
+ * Receives parsing results as soon as they are available, so that the parsed file doesn't have to be held in memory
+ * as a whole.
+ */
+public interface IParseResultConsumer {
+    /**
+     * Called for every successfully parsed transaction cluster.
+     * @param transactionCluster parsed transaction cluster
+     */
+    void onTransactionCluster(TransactionCluster transactionCluster);
+
+    /**
+     * Called for every row that couldn't be parsed or was ignored.
+     * @param parsingProblem problem description
+     */
+    void onParsingProblem(ParsingProblem parsingProblem);
+}
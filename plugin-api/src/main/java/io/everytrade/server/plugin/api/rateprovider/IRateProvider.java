@@ -3,6 +3,8 @@ package io.everytrade.server.plugin.api.rateprovider;
 import io.everytrade.server.model.Currency;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 public interface IRateProvider {
     int DECIMAL_DIGITS = 17;
@@ -52,4 +54,21 @@ public interface IRateProvider {
         return getRate(base, quote, instant);
     }
 
+    /**
+     * Determines rates for conversion of <code>base</code> currency to <code>quote</code> currency at the given time
+     * instants. Providers backed by a remote API should override it to fetch the rates of many instants at once.
+     * @param base base (source) currency
+     * @param quote quote (destination) currency
+     * @param instants time instants
+     * @return Conversion rates in the order of the given instants, the same as returned by
+     * <code>{@link #getRate(Currency, Currency, Instant)}</code> for each of them.
+     */
+    default List<Rate> getRates(Currency base, Currency quote, List<Instant> instants) {
+        final List<Rate> rates = new ArrayList<>(instants.size());
+        for (Instant instant : instants) {
+            rates.add(getRate(base, quote, instant));
+        }
+        return rates;
+    }
+
 }
\ No newline at end of file
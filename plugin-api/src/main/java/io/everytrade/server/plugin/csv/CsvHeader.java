@@ -3,91 +3,115 @@ package io.everytrade.server.plugin.csv;
 
 import lombok.Getter;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 public class CsvHeader {
 
     private static final String DEFAULT_SEPARATOR = ";";
     private static final String REGEX_PREFIX = "^";
     private static final String REGEX_POSTFIX = "$";
-    private static final String QUOTE = "\"";
-    private static final String MAGIC_MARK = "\uFEFF";
+    static final String QUOTE = "\"";
+    static final String MAGIC_MARK = "\uFEFF";
 
     @Getter
     private final List<String> headerValues;
+    @Getter
     private final String separator;
     private boolean ordered = true; // if order of header values matters or not
+    private final List<Template> templates;
 
     public CsvHeader(List<String> headerValues, String separator) {
         this.headerValues = headerValues;
         this.separator = separator;
+        this.templates = compileTemplates(headerValues);
     }
 
     public CsvHeader(List<String> headerValues, String separator, boolean ordered) {
         this.headerValues = headerValues;
         this.separator = separator;
         this.ordered = ordered;
+        this.templates = compileTemplates(headerValues);
+    }
+
+    public boolean isOrdered() {
+        return ordered;
     }
 
     public boolean matching(String headerLine) {
         if (headerLine == null) {
             return false;
         }
+        return matching(CsvHeaderLine.of(headerLine, separator));
+    }
+
+    boolean matching(CsvHeaderLine headerLine) {
         if (headerLine.isEmpty()) {
             return headerValues.size() == 1
                 && isHeaderTemplateRegex(headerValues.get(0))
                 && Pattern.compile(headerValues.get(0)).matcher("").matches();
         }
-        List<String> vals = Arrays.asList(headerLine.split(separator));
-
         if (ordered) {
-            return compareOrdered(vals);
+            return compareOrdered(headerLine);
         } else {
-            return vals.stream().allMatch(val -> headerValues.stream().anyMatch(template -> compareValues(template, val)));
+            for (int i = 0; i < headerLine.size(); i++) {
+                if (!matchesAnyTemplate(headerLine, i)) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
-    private boolean compareOrdered(List<String> currentHeaderValues) {
-        Iterator<String> currentIt = currentHeaderValues.iterator();
+    /**
+     * Returns normalized keys of all non-regex header values or {@code null} when any of the header values is a regex.
+     */
+    Set<String> literalKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Template template : templates) {
+            if (template.key == null) {
+                return null;
+            }
+            keys.add(template.key);
+        }
+        return keys;
+    }
 
-        for (String template : headerValues) {
-            String current = null;
-            while (currentIt.hasNext()) {
-                current = currentIt.next();
-                if (compareValues(template, current)) {
-                    break; // template found move to next
-                }
+    private boolean compareOrdered(CsvHeaderLine headerLine) {
+        int current = 0;
+        for (Template template : templates) {
+            while (current < headerLine.size() && !template.matches(headerLine, current)) {
+                current++;
             }
-            if (template != null && !compareValues(template, current)) {
+            if (current == headerLine.size()) {
                 return false; // not found matching in given order
             }
+            current++; // template found move to next
         }
         return true; // all headers found in template
     }
 
-    private boolean compareValues(String template, String value) {
-        var templateValueCombinations = Stream.of(
-            template,
-            QUOTE + template + QUOTE,
-            MAGIC_MARK + template,
-            MAGIC_MARK + QUOTE + template + QUOTE
-        );
-
-        if (isHeaderTemplateRegex(template)) {
-            return templateValueCombinations
-                // move regex prefix to beginning and postfix to end of the string
-                .map(t -> t.replace(REGEX_PREFIX, "").replace(REGEX_POSTFIX, ""))
-                .map(t -> REGEX_PREFIX + t + REGEX_POSTFIX)
-                .map(Pattern::compile)
-                .anyMatch(pattern -> pattern.matcher(value).find());
-        } else {
-            return templateValueCombinations.anyMatch(it -> it.equalsIgnoreCase(value));
+    private boolean matchesAnyTemplate(CsvHeaderLine headerLine, int index) {
+        for (Template template : templates) {
+            if (template.matches(headerLine, index)) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    private static List<Template> compileTemplates(List<String> headerValues) {
+        List<Template> result = new ArrayList<>(headerValues.size());
+        for (String headerValue : headerValues) {
+            result.add(new Template(headerValue));
+        }
+        return Collections.unmodifiableList(result);
     }
 
     private static boolean isHeaderTemplateRegex(String headerTemplate) {
@@ -110,4 +134,48 @@ public class CsvHeader {
     public CsvHeader withSeparator(String separator) {
         return new CsvHeader(headerValues, separator, ordered);
     }
+
+    /**
+     * Header template value compiled once. Plain values are compared by normalized key, regex values are matched by
+     * patterns for all supported quote/BOM variants.
+     */
+    private static final class Template {
+        private final String key;
+        private final List<Pattern> patterns;
+
+        private Template(String template) {
+            if (isHeaderTemplateRegex(template)) {
+                this.key = null;
+                this.patterns = List.of(
+                    compileVariant(template),
+                    compileVariant(QUOTE + template + QUOTE),
+                    compileVariant(MAGIC_MARK + template),
+                    compileVariant(MAGIC_MARK + QUOTE + template + QUOTE)
+                );
+            } else {
+                this.key = CsvHeaderLine.normalize(template);
+                this.patterns = List.of();
+            }
+        }
+
+        private static Pattern compileVariant(String template) {
+            // move regex prefix to beginning and postfix to end of the string
+            return Pattern.compile(
+                REGEX_PREFIX + template.replace(REGEX_PREFIX, "").replace(REGEX_POSTFIX, "") + REGEX_POSTFIX
+            );
+        }
+
+        private boolean matches(CsvHeaderLine headerLine, int index) {
+            if (key != null) {
+                return headerLine.hasKey(index, key);
+            }
+            String value = headerLine.value(index);
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(value).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
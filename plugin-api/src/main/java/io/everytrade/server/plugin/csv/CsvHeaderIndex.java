@@ -0,0 +1,142 @@
+package io.everytrade.server.plugin.csv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Index of header templates for fast detection of the uploaded file format. Matching is the same as
+ * {@link CsvHeader#matching(String)}: of all matching templates the one with the most columns wins, on equal column
+ * count the template registered first wins.
+ *
+ * <p>Uploaded header line is split and normalized once per separator. Ordered templates without regex values are
+ * looked up by normalized values of the line, only the remaining templates are evaluated one by one.</p>
+ *
+ * @param <T> type of the value registered with the header templates
+ */
+public final class CsvHeaderIndex<T> {
+
+    private final Map<String, SeparatorIndex<T>> bySeparator;
+
+    private CsvHeaderIndex(Map<String, SeparatorIndex<T>> bySeparator) {
+        this.bySeparator = bySeparator;
+    }
+
+    public static <T> CsvHeaderIndex<T> of(List<T> values, Function<T, List<CsvHeader>> headers) {
+        Map<String, List<Entry<T>>> entriesBySeparator = new LinkedHashMap<>();
+        int order = 0;
+        for (T value : values) {
+            for (CsvHeader header : headers.apply(value)) {
+                entriesBySeparator
+                    .computeIfAbsent(header.getSeparator(), s -> new ArrayList<>())
+                    .add(new Entry<>(header, value, order++));
+            }
+        }
+        Map<String, SeparatorIndex<T>> bySeparator = new LinkedHashMap<>();
+        entriesBySeparator.forEach((separator, entries) -> bySeparator.put(separator, new SeparatorIndex<>(separator, entries)));
+        return new CsvHeaderIndex<>(Collections.unmodifiableMap(bySeparator));
+    }
+
+    public T find(String headerLine) {
+        Entry<T> best = findEntry(headerLine);
+        return best == null ? null : best.value;
+    }
+
+    public CsvHeader findHeader(String headerLine) {
+        Entry<T> best = findEntry(headerLine);
+        return best == null ? null : best.header;
+    }
+
+    private Entry<T> findEntry(String headerLine) {
+        if (headerLine == null) {
+            return null;
+        }
+        Entry<T> best = null;
+        for (SeparatorIndex<T> index : bySeparator.values()) {
+            Entry<T> candidate = index.find(headerLine);
+            if (candidate != null && candidate.isBetterThan(best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static final class SeparatorIndex<T> {
+        private final String separator;
+        private final List<Entry<T>> entries;
+        private final Map<String, List<Entry<T>>> byKey = new HashMap<>();
+        private final Map<Entry<T>, Integer> keyCounts = new HashMap<>();
+        private final List<Entry<T>> scanned = new ArrayList<>();
+
+        private SeparatorIndex(String separator, List<Entry<T>> entries) {
+            this.separator = separator;
+            this.entries = entries;
+            for (Entry<T> entry : entries) {
+                Set<String> keys = entry.header.isOrdered() ? entry.header.literalKeys() : null;
+                if (keys == null || keys.isEmpty()) {
+                    scanned.add(entry);
+                    continue;
+                }
+                keyCounts.put(entry, keys.size());
+                keys.forEach(key -> byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(entry));
+            }
+        }
+
+        private Entry<T> find(String headerLine) {
+            CsvHeaderLine line = CsvHeaderLine.of(headerLine, separator);
+            if (line.isEmpty()) {
+                return best(entries, line);
+            }
+
+            Map<Entry<T>, Integer> hits = new HashMap<>();
+            for (String key : line.allKeys()) {
+                for (Entry<T> entry : byKey.getOrDefault(key, List.of())) {
+                    hits.merge(entry, 1, Integer::sum);
+                }
+            }
+            List<Entry<T>> candidates = new ArrayList<>(scanned);
+            hits.forEach((entry, count) -> {
+                if (count.equals(keyCounts.get(entry))) {
+                    candidates.add(entry);
+                }
+            });
+            return best(candidates, line);
+        }
+
+        private Entry<T> best(List<Entry<T>> candidates, CsvHeaderLine line) {
+            Entry<T> best = null;
+            for (Entry<T> candidate : candidates) {
+                if (candidate.isBetterThan(best) && candidate.header.matching(line)) {
+                    best = candidate;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static final class Entry<T> {
+        private final CsvHeader header;
+        private final T value;
+        private final int order;
+        private final int columns;
+
+        private Entry(CsvHeader header, T value, int order) {
+            this.header = header;
+            this.value = value;
+            this.order = order;
+            this.columns = header.getHeaderValues().size();
+        }
+
+        private boolean isBetterThan(Entry<T> other) {
+            if (other == null) {
+                return true;
+            }
+            return columns > other.columns || (columns == other.columns && order < other.order);
+        }
+    }
+}
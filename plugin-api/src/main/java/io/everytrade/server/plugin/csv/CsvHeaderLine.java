@@ -0,0 +1,105 @@
+package io.everytrade.server.plugin.csv;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.everytrade.server.plugin.csv.CsvHeader.MAGIC_MARK;
+import static io.everytrade.server.plugin.csv.CsvHeader.QUOTE;
+
+/**
+ * Header line of an uploaded file split by one separator. Every value is normalized once to the keys it can be
+ * compared with - as is, without surrounding quotes, without BOM and without both.
+ */
+final class CsvHeaderLine {
+
+    private final boolean empty;
+    private final String[] values;
+    private final String[][] keys;
+
+    private CsvHeaderLine(boolean empty, String[] values) {
+        this.empty = empty;
+        this.values = values;
+        this.keys = new String[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = keysOf(values[i]);
+        }
+    }
+
+    static CsvHeaderLine of(String headerLine, String separator) {
+        if (headerLine.isEmpty()) {
+            return new CsvHeaderLine(true, new String[0]);
+        }
+        return new CsvHeaderLine(false, headerLine.split(separator));
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    String value(int index) {
+        return values[index];
+    }
+
+    boolean hasKey(int index, String key) {
+        for (String valueKey : keys[index]) {
+            if (valueKey.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Set<String> allKeys() {
+        Set<String> result = new HashSet<>();
+        for (String[] valueKeys : keys) {
+            for (String key : valueKeys) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Case folding consistent with {@link String#equalsIgnoreCase(String)} - two strings are equal ignoring case
+     * if and only if their normalized forms are equal.
+     */
+    static String normalize(String value) {
+        char[] chars = new char[value.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        return new String(chars);
+    }
+
+    private static String[] keysOf(String value) {
+        String withoutMark = value.startsWith(MAGIC_MARK) ? value.substring(MAGIC_MARK.length()) : null;
+        String unquoted = unquote(value);
+        String withoutMarkUnquoted = withoutMark == null ? null : unquote(withoutMark);
+
+        int count = 1 + (withoutMark == null ? 0 : 1) + (unquoted == null ? 0 : 1) + (withoutMarkUnquoted == null ? 0 : 1);
+        String[] result = new String[count];
+        int i = 0;
+        result[i++] = normalize(value);
+        if (unquoted != null) {
+            result[i++] = normalize(unquoted);
+        }
+        if (withoutMark != null) {
+            result[i++] = normalize(withoutMark);
+        }
+        if (withoutMarkUnquoted != null) {
+            result[i] = normalize(withoutMarkUnquoted);
+        }
+        return result;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 * QUOTE.length() && value.startsWith(QUOTE) && value.endsWith(QUOTE)) {
+            return value.substring(QUOTE.length(), value.length() - QUOTE.length());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import java.time.Duration;
+
+/**
+ * Length of the time windows of a history downloaded window after window, owned by a single download. The window
+ * doubles after a sparse response and halves after a full or failed one, within the bounds given by the API, so an
+ * account with a dense period goes back to long windows once the period is over.
+ */
+final class AdaptiveTimeWindow {
+
+    // responses with less than a quarter of the page limit are sparse
+    private static final int SPARSE_DIVISOR = 4;
+
+    private final Duration min;
+    private final Duration max;
+    private Duration size;
+
+    AdaptiveTimeWindow(Duration min, Duration max) {
+        if (min.isNegative() || min.isZero() || max.compareTo(min) < 0) {
+            throw new IllegalArgumentException(String.format("Illegal time window bounds %s - %s.", min, max));
+        }
+        this.min = min;
+        this.max = max;
+        this.size = max;
+    }
+
+    Duration size() {
+        return size;
+    }
+
+    /**
+     * Adjusts the window to the number of records returned for the last one.
+     */
+    void update(int records, int pageLimit) {
+        if (records >= pageLimit) {
+            shrink();
+        } else if (records < pageLimit / SPARSE_DIVISOR) {
+            Duration doubled = size.multipliedBy(2);
+            size = doubled.compareTo(max) > 0 ? max : doubled;
+        }
+    }
+
+    /**
+     * Halves the window, returns {@code false} when it is at its minimum already.
+     */
+    boolean shrink() {
+        if (size.equals(min)) {
+            return false;
+        }
+        Duration halved = size.dividedBy(2);
+        size = halved.compareTo(min) < 0 ? min : halved;
+        return true;
+    }
+}
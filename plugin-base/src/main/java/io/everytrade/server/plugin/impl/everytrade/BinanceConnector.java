@@ -27,9 +27,9 @@ import static lombok.AccessLevel.PRIVATE;
 @FieldDefaults(level = PRIVATE, makeFinal = true)
 public class BinanceConnector implements IConnector {
 
-    private static final Object LOCK = new Object();
     private static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "binanceApiConnector";
     private static final int MAX_DOWNLOADED_TXS = 7000;
+    private static final int PARALLEL_DOWNLOADS = 4;
 
     private static final ConnectorParameterDescriptor PARAMETER_API_SECRET =
         new ConnectorParameterDescriptor(
@@ -124,17 +124,27 @@ public class BinanceConnector implements IConnector {
 
     @Override
     public DownloadResult getTransactions(String lastTransactionId) {
-        synchronized (LOCK) {
+        return downloads().run(downloadKey(), () -> {
             var binanceDownloader = new BinanceDownloader(exchange, lastTransactionId);
             List<UserTrade> convertedTrades = binanceDownloader.downloadConvertedTrades();
             List<FundingRecord> funding = binanceDownloader.downloadDepositsAndWithdrawals(MAX_DOWNLOADED_TXS);
             List<UserTrade> userTrades = binanceDownloader.downloadTrades(currencyPairs, pairSettings, isPaidSubscription);
             userTrades.addAll(convertedTrades);
             return DownloadResult.builder()
-                .parseResult(parser.getParseResult(userTrades, funding))
+                .parseResult(parser.getParseResultWithProblems(userTrades, funding, binanceDownloader.getParsingProblems()))
                 .downloadStateData(binanceDownloader.serializeState())
                 .build();
-        }
+        });
+    }
+
+    // downloads of one API key run one at a time, downloads of different keys share the IP weight budget
+    private DownloadConcurrencyLimiter downloads() {
+        return DownloadConcurrencyLimiter.of("binance", null, PARALLEL_DOWNLOADS);
+    }
+
+    private Object downloadKey() {
+        var specification = exchange.getExchangeSpecification();
+        return specification == null || specification.getApiKey() == null ? exchange : specification.getApiKey();
     }
 
     private ExchangeSpecification createExchangeSpec(String apiKey, String apiSecret) {
@@ -1,7 +1,10 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
+import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import lombok.experimental.FieldDefaults;
 import org.knowm.xchange.Exchange;
+import org.knowm.xchange.binance.dto.account.BinanceAccountInformation;
+import org.knowm.xchange.binance.dto.account.BinanceBalance;
 import org.knowm.xchange.binance.dto.meta.exchangeinfo.BinanceExchangeInfo;
 import org.knowm.xchange.binance.dto.trade.BinanceTradeHistoryParams;
 import org.knowm.xchange.binance.dto.account.BinanceFundingHistoryParams;
@@ -13,23 +16,35 @@ import org.knowm.xchange.dto.trade.UserTrade;
 import org.knowm.xchange.dto.trade.UserTrades;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import si.mazi.rescu.HttpStatusIOException;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Deque;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
-import static java.time.temporal.ChronoUnit.DAYS;
+import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.partitioningBy;
 import static lombok.AccessLevel.PRIVATE;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
@@ -39,14 +54,31 @@ public class BinanceDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(BinanceDownloader.class);
 
     private static final String STATE_SEPARATOR = "|";
-    private static final Duration TRADE_HISTORY_WAIT_DURATION = Duration.ofMillis(250);
-    private static final Duration FUNDING_HISTORY_WAIT_DURATION = Duration.ofMillis(100);
     private static final int LIMIT = 1000;
 
+    // https://developers.binance.com/docs/binance-spot-api-docs/rest-api/limits - request weight is limited per IP,
+    // convert history per account (UID) and funding history by request count
+    private static final int IP_WEIGHT_PER_MINUTE = 6000;
+    // a burst of a few requests, the refill rate keeps the weight within the minute limit with a margin of the burst
+    private static final int IP_WEIGHT_BURST = 300;
+    private static final int EXCHANGE_INFO_WEIGHT = 20;
+    private static final int ACCOUNT_WEIGHT = 20;
+    private static final int TRADE_HISTORY_WEIGHT = 20;
+    private static final int UID_WEIGHT_PER_MINUTE = 180000;
+    private static final int CONVERT_HISTORY_WEIGHT = 3000;
+    private static final int FUNDING_REQUESTS_PER_SECOND = 10;
+    private static final int HTTP_SERVER_ERROR = 500;
+    // symbols downloaded at once, the request weight limiter keeps them within the limit of the IP address
+    private static final int PARALLEL_SYMBOLS = 8;
+    // all the symbols are downloaded once in the period, the symbols of currencies never seen in the account are
+    // skipped in between
+    private static final Duration FULL_SCAN_PERIOD = Duration.ofDays(7);
+
     //Funding
     private static final int FUNDING_PER_REQUEST = 1000;
     private static final Date EXCHANGE_OPENING_DATE = new GregorianCalendar(2017,06,01).getTime();
-    private static long FUNDING_PERIOD_REQUEST = 88;
+    // API limit is 90 day window
+    private static final long FUNDING_PERIOD_REQUEST = 88;
     private static final int MAX_FUNDING_REQUESTS = 25;
 
     //Convert
@@ -54,83 +86,219 @@ public class BinanceDownloader {
         new GregorianCalendar(2017, 06, 1, 0, 0).getTime();
     private static final int CONVERT_MAX_REQUESTS = 12;
     private static final int CONVERT_MAX_TX_LIMIT = 1000;
+    // API limit is 30 day window
     private static final long CONVERT_RANGE_OF_DAYS = 30L;
+    private static final Duration MIN_WINDOW = Duration.ofDays(1);
     private long convertStartTimestamp;
     private long convertEndTimestamp;
 
     Map<String, String> currencyPairLastIds = new HashMap<>();
+    // per download, the connector runs downloads of different accounts in parallel
+    AdaptiveTimeWindow fundingWindow = new AdaptiveTimeWindow(MIN_WINDOW, Duration.ofDays(FUNDING_PERIOD_REQUEST));
+    AdaptiveTimeWindow convertWindow = new AdaptiveTimeWindow(MIN_WINDOW, Duration.ofDays(CONVERT_RANGE_OF_DAYS));
     Date lastFundingDownloadedTimestamp = null;
     Date lastConvertDownloadedTimestamp = null;
+    Date lastFullScanTimestamp = null;
+    // currencies the account is known to have held, symbols of other currencies can't have any trades
+    Set<String> activeCurrencies = new TreeSet<>();
+    // records of the history that can't be downloaded completely
+    List<ParsingProblem> parsingProblems = new ArrayList<>();
     Exchange exchange;
+    int parallelism;
+    RequestRateLimiter requestWeight;
+    RequestRateLimiter convertWeight;
+    RequestRateLimiter fundingRequests;
 
     public BinanceDownloader(Exchange exchange, String downloadState) {
+        this(
+            exchange,
+            downloadState,
+            RequestRateLimiter.of(
+                "binance", null, IP_WEIGHT_PER_MINUTE - IP_WEIGHT_BURST, Duration.ofMinutes(1), IP_WEIGHT_BURST
+            ),
+            PARALLEL_SYMBOLS
+        );
+    }
+
+    BinanceDownloader(Exchange exchange, String downloadState, RequestRateLimiter requestWeight, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Illegal download parallelism %d.", parallelism));
+        }
         this.exchange = exchange;
+        this.parallelism = parallelism;
+        String apiKey = exchange.getExchangeSpecification() == null ? null : exchange.getExchangeSpecification().getApiKey();
+        this.requestWeight = requestWeight;
+        this.convertWeight = RequestRateLimiter.of(
+            "binance-uid", apiKey, UID_WEIGHT_PER_MINUTE, Duration.ofMinutes(1), CONVERT_HISTORY_WEIGHT
+        );
+        this.fundingRequests = RequestRateLimiter.of("binance-funding", apiKey, FUNDING_REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1);
         deserializeState(downloadState);
     }
 
     public List<UserTrade> downloadTrades(String currencyPairs, boolean pairSettings, boolean isPaidSubscription) {
-        BinanceTradeService tradeServices = (BinanceTradeService) exchange.getTradeService();
         BinanceAccountService accountService = (BinanceAccountService) exchange.getAccountService();
-        BinanceTradeHistoryParams params = (BinanceTradeHistoryParams) exchange.getTradeService().createTradeHistoryParams();
 
         List<CurrencyPair> tradingSymbols = new ArrayList<>();
 
         if (!pairSettings && isPaidSubscription) {
             BinanceExchangeInfo allSymbols;
             try {
-                allSymbols = accountService.getExchangeInfo();
+                allSymbols = requestWeight.call(EXCHANGE_INFO_WEIGHT, accountService::getExchangeInfo);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
             Arrays.stream(allSymbols.getSymbols()).filter(x -> x.getStatus().equals("TRADING")).forEach(x -> {
                 tradingSymbols.add(new CurrencyPair(x.getBaseAsset(), x.getQuoteAsset()));
             });
+            return downloadActiveSymbols(tradingSymbols);
         } else {
             tradingSymbols.addAll(ConnectorUtils.toCurrencyPairs(currencyPairs));
         }
+        return downloadSymbols(tradingSymbols);
+    }
+
+    /**
+     * Downloads trades of the symbols of the active currencies only, unless the last download of all the symbols is older
+     * than {@link #FULL_SCAN_PERIOD}. The currencies are active when held now, deposited, withdrawn or converted (the
+     * funding and the convert history have to be downloaded first) or traded before. Every currency traded in a round
+     * makes its symbols active in the next one, until no new currency is found.
+     */
+    private List<UserTrade> downloadActiveSymbols(List<CurrencyPair> symbols) {
+        Date now = new Date();
+        if (lastFullScanTimestamp == null || lastFullScanTimestamp.toInstant().plus(FULL_SCAN_PERIOD).isBefore(now.toInstant())) {
+            List<UserTrade> trades = downloadSymbols(symbols);
+            addTradedCurrencies(trades);
+            lastFullScanTimestamp = now;
+            return trades;
+        }
+        addBalanceCurrencies();
+        currencyPairLastIds.keySet().forEach(pair -> addCurrencies(new CurrencyPair(pair)));
 
-        params.setLimit(LIMIT);
         List<UserTrade> trades = new ArrayList<>();
+        List<CurrencyPair> remaining = symbols;
+        while (true) {
+            Map<Boolean, List<CurrencyPair>> active = remaining.stream()
+                .collect(partitioningBy(symbol -> activeCurrencies.contains(symbol.base.getCurrencyCode())
+                    || activeCurrencies.contains(symbol.counter.getCurrencyCode())));
+            if (active.get(true).isEmpty()) {
+                break;
+            }
+            remaining = active.get(false);
+            List<UserTrade> roundTrades = downloadSymbols(active.get(true));
+            addTradedCurrencies(roundTrades);
+            trades.addAll(roundTrades);
+        }
+        LOG.debug("Downloaded {} of {} symbols of active currencies.", symbols.size() - remaining.size(), symbols.size());
+        return trades;
+    }
 
-        for (CurrencyPair symbol : tradingSymbols) {
-            String lastDownloadedTx = currencyPairLastIds.get(symbol.toString());
-            long lastTradeId = isEmpty(lastDownloadedTx) ? 0L : Long.parseLong(lastDownloadedTx);
-            params.setInstrument(symbol);
-            params.setStartId(String.valueOf(lastTradeId));
-
-            List<UserTrade> fetchedTrades;
-            do {
-                sleepBetweenRequests(TRADE_HISTORY_WAIT_DURATION);
-                if (lastTradeId > 0) {
-                    params.setStartId(String.valueOf(lastTradeId + 1));
-                }
+    private void addBalanceCurrencies() {
+        BinanceAccountService accountService = (BinanceAccountService) exchange.getAccountService();
+        BinanceAccountInformation account;
+        try {
+            account = requestWeight.call(ACCOUNT_WEIGHT, accountService::account);
+        } catch (IOException e) {
+            throw new IllegalStateException("User account download failed. " + e.getMessage(), e);
+        }
+        account.balances.stream()
+            .filter(balance -> balance.getTotal().signum() > 0)
+            .map(BinanceBalance::getCurrency)
+            .forEach(currency -> activeCurrencies.add(currency.getCurrencyCode()));
+    }
 
-                UserTrades userTrades;
-                try {
-                    userTrades = tradeServices.getTradeHistory(params);
-                } catch (IOException e) {
-                    throw new IllegalStateException("User trade history download failed. " + e.getMessage() , e);
-                }
-                fetchedTrades = userTrades.getUserTrades();
+    private void addTradedCurrencies(List<UserTrade> trades) {
+        trades.stream()
+            .filter(trade -> trade.getInstrument() instanceof CurrencyPair)
+            .forEach(trade -> addCurrencies((CurrencyPair) trade.getInstrument()));
+    }
 
-                if (fetchedTrades.isEmpty()) {
+    private void addCurrencies(CurrencyPair pair) {
+        activeCurrencies.add(pair.base.getCurrencyCode());
+        activeCurrencies.add(pair.counter.getCurrencyCode());
+    }
+
+    /**
+     * Downloads trades of up to {@link #parallelism} symbols at once, the requests are paced by the request weight
+     * limit of the IP address only. The trades and the last trade IDs of the symbols are merged on the calling thread
+     * in the order of the symbols.
+     */
+    private List<UserTrade> downloadSymbols(List<CurrencyPair> symbols) {
+        List<UserTrade> trades = new ArrayList<>();
+        Deque<Future<SymbolTrades>> running = new ArrayDeque<>();
+        Iterator<CurrencyPair> nextSymbols = symbols.iterator();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            while (true) {
+                // the downloaded symbols wait for the merge, their number is bounded to keep the memory flat
+                while (running.size() < 2 * parallelism && nextSymbols.hasNext()) {
+                    CurrencyPair symbol = nextSymbols.next();
+                    String lastDownloadedTx = currencyPairLastIds.get(symbol.toString());
+                    running.add(executor.submit(() -> downloadSymbol(symbol, lastDownloadedTx)));
+                }
+                Future<SymbolTrades> symbolTrades = running.poll();
+                if (symbolTrades == null) {
                     break;
                 }
-
-                trades.addAll(fetchedTrades);
-
-                String lastFetchedId = fetchedTrades.get(fetchedTrades.size() - 1).getId();
-                lastTradeId = Long.parseLong(lastFetchedId);
-                currencyPairLastIds.put(symbol.toString(), lastFetchedId);
-            } while (fetchedTrades.size() == LIMIT);
+                SymbolTrades downloaded = symbolTrades.get();
+                trades.addAll(downloaded.trades());
+                if (downloaded.lastTradeId() != null) {
+                    currencyPairLastIds.put(downloaded.symbol().toString(), downloaded.lastTradeId());
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("User trade history download failed. " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("User trade history download interrupted. ", e);
+        } finally {
+            executor.shutdownNow();
         }
         return trades;
     }
 
+    private SymbolTrades downloadSymbol(CurrencyPair symbol, String lastDownloadedTx) {
+        BinanceTradeService tradeServices = (BinanceTradeService) exchange.getTradeService();
+        BinanceTradeHistoryParams params = (BinanceTradeHistoryParams) tradeServices.createTradeHistoryParams();
+        params.setLimit(LIMIT);
+        params.setInstrument(symbol);
+
+        long lastTradeId = isEmpty(lastDownloadedTx) ? 0L : Long.parseLong(lastDownloadedTx);
+        params.setStartId(String.valueOf(lastTradeId));
+
+        List<UserTrade> trades = new ArrayList<>();
+        String lastFetchedId = null;
+        List<UserTrade> fetchedTrades;
+        do {
+            if (lastTradeId > 0) {
+                params.setStartId(String.valueOf(lastTradeId + 1));
+            }
+
+            UserTrades userTrades;
+            try {
+                userTrades = requestWeight.call(TRADE_HISTORY_WEIGHT, () -> tradeServices.getTradeHistory(params));
+            } catch (IOException e) {
+                throw new IllegalStateException("User trade history download failed. " + e.getMessage() , e);
+            }
+            fetchedTrades = userTrades.getUserTrades();
+
+            if (fetchedTrades.isEmpty()) {
+                break;
+            }
+
+            trades.addAll(fetchedTrades);
+
+            lastFetchedId = fetchedTrades.get(fetchedTrades.size() - 1).getId();
+            lastTradeId = Long.parseLong(lastFetchedId);
+        } while (fetchedTrades.size() == LIMIT);
+        return new SymbolTrades(symbol, trades, lastFetchedId);
+    }
 
     private void setNextConvertDates(long startId) {
         this.convertStartTimestamp = startId;
-        this.convertEndTimestamp = startId + (1000L * 60 * 60 * 24 * CONVERT_RANGE_OF_DAYS);
+        this.convertEndTimestamp = startId + convertWindow.size().toMillis();
     }
 
     public List<UserTrade> downloadConvertedTrades() {
@@ -149,14 +317,21 @@ public class BinanceDownloader {
         while (request < CONVERT_MAX_REQUESTS) {
             params.setStartTime(new Date(convertStartTimestamp));
             params.setEndTime(new Date(convertEndTimestamp));
-            sleepBetweenRequests(TRADE_HISTORY_WAIT_DURATION);
             final List<UserTrade> convertBlock;
             try {
-                UserTrades convertHistory = service.getConvertHistory(params);
+                UserTrades convertHistory = convertWeight.call(CONVERT_HISTORY_WEIGHT, () -> service.getConvertHistory(params));
                 convertBlock = convertHistory.getUserTrades();
+            } catch (IOException e) {
+                if (isWindowTooLong(e) && convertWindow.shrink()) {
+                    setNextConvertDates(convertStartTimestamp);
+                    request++;
+                    continue;
+                }
+                throw new IllegalStateException("User trade history download failed. ", e);
             } catch (Exception e) {
                 throw new IllegalStateException("User trade history download failed. ", e);
             }
+            convertWindow.update(convertBlock.size(), CONVERT_MAX_TX_LIMIT);
             if (convertBlock.isEmpty()) {
                 if (convertEndTimestamp > now) {
                     lastConvertDownloadedTimestamp = new Date(now);
@@ -191,6 +366,7 @@ public class BinanceDownloader {
                 }
             }
         }
+        addTradedCurrencies(converts);
         return converts;
     }
 
@@ -201,54 +377,80 @@ public class BinanceDownloader {
         List<FundingRecord> result = new ArrayList<>();
         int requests = 0;
         while (result.size() + FUNDING_PER_REQUEST < maxCount && requests < MAX_FUNDING_REQUESTS) {
-            sleepBetweenRequests(FUNDING_HISTORY_WAIT_DURATION);
             Date lastRequestTime = new Date();
             lastFundingDownloadedTimestamp = Objects.requireNonNullElse(lastFundingDownloadedTimestamp, EXCHANGE_OPENING_DATE);
 
             params.setStartTime(lastFundingDownloadedTimestamp);
-            // API limit is 90 day window
-            Date endDate = Date.from(lastFundingDownloadedTimestamp.toInstant().plus(FUNDING_PERIOD_REQUEST, DAYS));
+            Date endDate = Date.from(lastFundingDownloadedTimestamp.toInstant().plus(fundingWindow.size()));
             params.setEndTime(endDate);
+            requests++;
 
             final List<FundingRecord> response;
             try {
-                response = accountService.getFundingHistory(params);
+                response = fundingRequests.call(() -> accountService.getFundingHistory(params));
             } catch (IOException e) {
+                if (isWindowTooLong(e) && fundingWindow.shrink()) {
+                    continue;
+                }
                 throw new IllegalStateException("User funding history download failed. ", e);
             }
-            if (response.size() < FUNDING_PER_REQUEST) {
-                lastFundingDownloadedTimestamp = lastRequestTime.after(endDate) ? endDate : lastRequestTime;
-                result.addAll(response);
-                if (lastFundingDownloadedTimestamp == lastRequestTime) {
-                    break;
+            if (response.size() >= FUNDING_PER_REQUEST) {
+                if (fundingWindow.shrink()) {
+                    continue; // too many results, the window is requested again shorter
                 }
-            } else {
-                FUNDING_PERIOD_REQUEST = Long.divideUnsigned(FUNDING_PERIOD_REQUEST,2); // too many results halve the period
+                // a full page of the shortest window, the API has no further page of the window
+                reportIncompleteFunding(lastFundingDownloadedTimestamp, endDate, response.size());
+            }
+            fundingWindow.update(response.size(), FUNDING_PER_REQUEST);
+            lastFundingDownloadedTimestamp = lastRequestTime.after(endDate) ? endDate : lastRequestTime;
+            result.addAll(response);
+            if (lastFundingDownloadedTimestamp == lastRequestTime) {
+                break;
             }
-            requests++;
         }
+        result.forEach(funding -> activeCurrencies.add(funding.getCurrency().getCurrencyCode()));
         return result;
     }
 
-    private void sleepBetweenRequests(Duration duration) {
-        try {
-            Thread.sleep(duration.toMillis());
-        } catch (InterruptedException e) {
-            LOG.warn("Sleep between binance API requests interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
+    // a shorter window may succeed when the request timed out or the server failed, client errors (e.g. invalid API
+    // key, or 429 still returned after the retries of the rate limiter) fail the same for any window
+    private static boolean isWindowTooLong(IOException e) {
+        if (e instanceof SocketTimeoutException) {
+            return true;
+        }
+        if (e instanceof HttpStatusIOException) {
+            return ((HttpStatusIOException) e).getHttpStatusCode() >= HTTP_SERVER_ERROR;
         }
+        return false;
+    }
+
+    public List<ParsingProblem> getParsingProblems() {
+        return parsingProblems;
+    }
+
+    private void reportIncompleteFunding(Date startDate, Date endDate, int records) {
+        String window = String.format("Funding history %s - %s", startDate.toInstant(), endDate.toInstant());
+        String message = String.format(
+            "%d deposits and withdrawals returned for the shortest window, some of them may be missing.", records
+        );
+        LOG.warn("{}: {}", window, message);
+        parsingProblems.add(new ParsingProblem(window, message, ROW_PARSING_FAILED));
     }
 
     // deserialize current state to String so it can be used next time
     public String serializeState() {
-        // PAIR=TRADE_ID:PAIR2=TRADE_ID2[..]|LAST_FUNDING_DATE
+        // PAIR=TRADE_ID:PAIR2=TRADE_ID2[..]|LAST_FUNDING_DATE|LAST_CONVERT_DATE|LAST_FULL_SCAN_DATE|CURRENCY,CURRENCY2[..]
         return currencyPairLastIds.keySet().stream()
             .filter(key -> currencyPairLastIds.get(key) != null)
             .map(key -> key + "=" + currencyPairLastIds.get(key))
             .collect(joining(":")) + STATE_SEPARATOR
             + (lastFundingDownloadedTimestamp == null ? EXCHANGE_OPENING_DATE.getTime() : lastFundingDownloadedTimestamp.getTime())
             + STATE_SEPARATOR
-            + (lastConvertDownloadedTimestamp == null ? EXCHANGE_CONVERT_START_DATE.getTime() : lastConvertDownloadedTimestamp.getTime());
+            + (lastConvertDownloadedTimestamp == null ? EXCHANGE_CONVERT_START_DATE.getTime() : lastConvertDownloadedTimestamp.getTime())
+            + STATE_SEPARATOR
+            + (lastFullScanTimestamp == null ? 0 : lastFullScanTimestamp.getTime())
+            + STATE_SEPARATOR
+            + String.join(",", activeCurrencies);
     }
 
     // deserialize last downloaded IDs and timestamps to be able to continue where left off
@@ -273,5 +475,14 @@ public class BinanceDownloader {
         } else {
             this.lastConvertDownloadedTimestamp = EXCHANGE_CONVERT_START_DATE;
         }
+        if (array.length > 3 && Long.parseLong(array[3]) > 0) {
+            this.lastFullScanTimestamp = new Date(Long.parseLong(array[3]));
+        }
+        if (array.length > 4) {
+            Arrays.stream(array[4].split(",")).filter(currency -> !currency.isEmpty()).forEach(activeCurrencies::add);
+        }
+    }
+
+    private record SymbolTrades(CurrencyPair symbol, List<UserTrade> trades, String lastTradeId) {
     }
 }
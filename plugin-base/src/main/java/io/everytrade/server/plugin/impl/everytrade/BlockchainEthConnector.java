@@ -8,6 +8,7 @@ import io.everytrade.server.plugin.api.connector.ConnectorParameterDescriptor;
 import io.everytrade.server.plugin.api.connector.ConnectorParameterType;
 import io.everytrade.server.plugin.api.connector.DownloadResult;
 import io.everytrade.server.plugin.api.connector.IConnector;
+import io.everytrade.server.plugin.impl.everytrade.etherscan.EtherScanClient;
 import lombok.AllArgsConstructor;
 import lombok.Value;
 
@@ -17,7 +18,8 @@ import java.util.Map;
 @Value
 @AllArgsConstructor
 public class BlockchainEthConnector implements IConnector {
-    private static final Object LOCK = new Object();
+    // addresses of one API key download in parallel, within the Etherscan request rate of the key
+    private static final int PARALLEL_DOWNLOADS = BlockchainEthDownloader.REQUESTS_PER_SECOND;
     private static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "blockchainEthApiConnector";
 
     private static final ConnectorParameterDescriptor PARAMETER_ADDRESS =
@@ -153,8 +155,13 @@ public class BlockchainEthConnector implements IConnector {
     String sourcesLabel;
     String importNormalTxs;
     String importErc20Txs;
+    EtherScanClient api;
 
     public BlockchainEthConnector(Map<String, String> parameters) {
+        this(parameters, new EtherScanClient());
+    }
+
+    BlockchainEthConnector(Map<String, String> parameters, EtherScanClient api) {
         this(
             parameters.get(PARAMETER_ADDRESS.getId()),
             parameters.get(ETHERSCAN_API_KEY_PARAM),
@@ -167,7 +174,8 @@ public class BlockchainEthConnector implements IConnector {
             parameters.get(PARAMETER_IMPORT_FEES_FROM_WITHDRAWALS.getId()),
             parameters.get(SOURCES_LABEL.getId()),
             parameters.get(PARAMETER_IMPORT_NORMAL_TXS.getId()),
-            parameters.get(PARAMETER_IMPORT_ERC20_TXS.getId())
+            parameters.get(PARAMETER_IMPORT_ERC20_TXS.getId()),
+            api
         );
     }
 
@@ -178,7 +186,7 @@ public class BlockchainEthConnector implements IConnector {
 
     @Override
     public DownloadResult getTransactions(String downloadState) {
-        synchronized (LOCK) {
+        return downloads().run(address, () -> {
             final var blockchainEthDownloader = new BlockchainEthDownloader(
                 address,
                 apiKeyToken,
@@ -188,9 +196,14 @@ public class BlockchainEthConnector implements IConnector {
                 importFeesFromDeposits,
                 importFeesFromWithdrawals,
                 Boolean.parseBoolean(importNormalTxs),
-                Boolean.parseBoolean(importErc20Txs)
+                Boolean.parseBoolean(importErc20Txs),
+                api
             );
             return blockchainEthDownloader.download(downloadState);
-        }
+        });
+    }
+
+    private DownloadConcurrencyLimiter downloads() {
+        return DownloadConcurrencyLimiter.of("etherscan", apiKeyToken, PARALLEL_DOWNLOADS);
     }
 }
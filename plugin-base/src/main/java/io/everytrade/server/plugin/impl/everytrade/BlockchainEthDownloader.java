@@ -19,12 +19,15 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static io.everytrade.server.plugin.api.parser.ParsingProblemType.PARSED_ROW_IGNORED;
 import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
 import static java.time.Instant.now;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 import static lombok.AccessLevel.PRIVATE;
 
@@ -33,8 +36,8 @@ import static lombok.AccessLevel.PRIVATE;
 public class BlockchainEthDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(BlockchainEthDownloader.class);
 
-    //maximum rate limit of up to 5 calls per sec/IP https://info.etherscan.com/api-return-errors/
-    private static final Duration MIN_TIME_BETWEEN_REQUESTS = Duration.ofMillis(200);
+    //maximum rate limit of up to 5 calls per sec/API key https://info.etherscan.com/api-return-errors/
+    static final int REQUESTS_PER_SECOND = 5;
     private static final int CONFIRMATIONS = 6;
     private static final long FIRST_BLOCK = 0L;
     // Etherscan free-tier cap; doubles as the page-full threshold, so the supplementary last-block fetch fires.
@@ -61,6 +64,32 @@ public class BlockchainEthDownloader {
             @NonNull String importFeesFromWithdrawals,
             boolean importNormalTxs,
             boolean importErc20Txs
+    ) {
+        this(
+            address,
+            apiKeyToken,
+            fiatCurrency,
+            importDepositsAsBuys,
+            importWithdrawalsAsSells,
+            importFeesFromDeposits,
+            importFeesFromWithdrawals,
+            importNormalTxs,
+            importErc20Txs,
+            new EtherScanClient()
+        );
+    }
+
+    BlockchainEthDownloader(
+            @NonNull String address,
+            @NonNull String apiKeyToken,
+            @NonNull String fiatCurrency,
+            @NonNull String importDepositsAsBuys,
+            @NonNull String importWithdrawalsAsSells,
+            @NonNull String importFeesFromDeposits,
+            @NonNull String importFeesFromWithdrawals,
+            boolean importNormalTxs,
+            boolean importErc20Txs,
+            @NonNull EtherScanClient api
     ) {
         this.address = address.toLowerCase();
         this.apiKeyToken = apiKeyToken;
@@ -71,7 +100,7 @@ public class BlockchainEthDownloader {
         this.importFeesFromWithdrawals = Boolean.parseBoolean(importFeesFromWithdrawals);
         this.importNormalTxs = importNormalTxs;
         this.importErc20Txs = importErc20Txs;
-        this.api = new EtherScanClient();
+        this.api = api;
     }
 
     public DownloadResult download(String lastDownloadState) {
@@ -92,8 +121,7 @@ public class BlockchainEthDownloader {
 
     private List<EtherScanErc20TransactionDto> downloadErc20Txs(long currentBlock, DownloadState state) {
         try {
-            sleepBetweenRequests();
-            var etherscanErc20Txs = api
+            var etherscanErc20Txs = rateLimiter().call(() -> api
                 .getErc20TxsByAddress(
                     address,
                     null,
@@ -102,7 +130,7 @@ public class BlockchainEthDownloader {
                     1,
                     TRANSACTIONS_PER_PAGE,
                     "asc",
-                    apiKeyToken)
+                    apiKeyToken))
                 .getResult();
 
             if (etherscanErc20Txs == null || etherscanErc20Txs.isEmpty()) {
@@ -114,13 +142,9 @@ public class BlockchainEthDownloader {
 
             if (etherscanErc20Txs.size() >= TRANSACTIONS_PER_PAGE) {
                 // ensure all tx from last downloaded block
-                api.getErc20TxsByAddress(
+                addMissing(etherscanErc20Txs, rateLimiter().call(() -> api.getErc20TxsByAddress(
                     address, null, lastReachedBlock, lastReachedBlock, 1, TRANSACTIONS_PER_PAGE, "asc", apiKeyToken
-                ).getResult().forEach(lastBlockTx -> {
-                    if (!etherscanErc20Txs.contains(lastBlockTx)) {
-                        etherscanErc20Txs.add(lastBlockTx);
-                    }
-                });
+                )).getResult());
             }
 
             return etherscanErc20Txs;
@@ -131,15 +155,14 @@ public class BlockchainEthDownloader {
 
     private List<EtherScanTransactionDto> downloadEthTxs(long currentBlock, DownloadState state) {
         try {
-            sleepBetweenRequests();
-            var etherscanTxs = api
+            var etherscanTxs = rateLimiter().call(() -> api
                 .getNormalTxsByAddress(
                     address,
                     state.getLastNormalTxBlock() == null ? FIRST_BLOCK : state.getLastNormalTxBlock() + 1,
                     currentBlock,
                     1,
                     TRANSACTIONS_PER_PAGE, "asc",
-                    apiKeyToken)
+                    apiKeyToken))
                 .getResult();
 
             if (etherscanTxs == null || etherscanTxs.isEmpty()) {
@@ -151,13 +174,9 @@ public class BlockchainEthDownloader {
 
             if (etherscanTxs.size() >= TRANSACTIONS_PER_PAGE) {
                 // ensure all tx from last downloaded block
-                api.getNormalTxsByAddress(
+                addMissing(etherscanTxs, rateLimiter().call(() -> api.getNormalTxsByAddress(
                     address, lastReachedBlock, lastReachedBlock, 1, TRANSACTIONS_PER_PAGE, "asc", apiKeyToken
-                ).getResult().forEach(lastBlockTx -> {
-                    if (!etherscanTxs.contains(lastBlockTx)) {
-                        etherscanTxs.add(lastBlockTx);
-                    }
-                });
+                )).getResult());
             }
 
             return etherscanTxs.stream()
@@ -172,6 +191,15 @@ public class BlockchainEthDownloader {
         }
     }
 
+    /**
+     * Adds the transactions of the last block missing in the downloaded ones. ERC20 transfers are told apart by the log
+     * index and the token contract too, one transaction can make several transfers.
+     */
+    static <T extends EtherScanTransactionDto> void addMissing(List<T> txs, List<T> lastBlockTxs) {
+        Set<TransferKey> downloaded = txs.stream().map(TransferKey::of).collect(toCollection(HashSet::new));
+        lastBlockTxs.stream().filter(tx -> downloaded.add(TransferKey.of(tx))).forEach(txs::add);
+    }
+
     private ParseResult parseTransactions(Collection<EtherScanTransactionDto> txs) {
         var transactionClusters = new ArrayList<TransactionCluster>();
         var parsingProblems = new ArrayList<ParsingProblem>();
@@ -206,19 +234,25 @@ public class BlockchainEthDownloader {
 
     private long downloadLastBlock() {
         try {
-            sleepBetweenRequests();
-            return api.getBlockNumberByTimestamp(String.valueOf(now().getEpochSecond()), "before", apiKeyToken).getResult();
+            return rateLimiter().call(
+                () -> api.getBlockNumberByTimestamp(String.valueOf(now().getEpochSecond()), "before", apiKeyToken)
+            ).getResult();
         } catch (Exception e) {
             throw new IllegalStateException("Last block number download failed.", e);
         }
     }
 
-    private void sleepBetweenRequests() {
-        try {
-            Thread.sleep(MIN_TIME_BETWEEN_REQUESTS.toMillis());
-        } catch (InterruptedException e) {
-            LOG.warn("Sleep between EtherScan API requests interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
+    private RequestRateLimiter rateLimiter() {
+        return RequestRateLimiter.of("etherscan", apiKeyToken, REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1);
+    }
+
+    private record TransferKey(String hash, Integer logIndex, String contractAddress) {
+        static TransferKey of(EtherScanTransactionDto tx) {
+            if (tx instanceof EtherScanErc20TransactionDto) {
+                var transfer = (EtherScanErc20TransactionDto) tx;
+                return new TransferKey(tx.getHash(), transfer.getLogIndex(), transfer.getContractAddress());
+            }
+            return new TransferKey(tx.getHash(), null, null);
         }
     }
 
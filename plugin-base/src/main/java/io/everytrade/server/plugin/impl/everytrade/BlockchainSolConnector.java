@@ -8,6 +8,7 @@ import io.everytrade.server.plugin.api.connector.ConnectorParameterDescriptor;
 import io.everytrade.server.plugin.api.connector.ConnectorParameterType;
 import io.everytrade.server.plugin.api.connector.DownloadResult;
 import io.everytrade.server.plugin.api.connector.IConnector;
+import io.everytrade.server.plugin.impl.everytrade.helius.HeliusClient;
 import lombok.AllArgsConstructor;
 import lombok.Value;
 
@@ -17,7 +18,8 @@ import java.util.Map;
 @Value
 @AllArgsConstructor
 public class BlockchainSolConnector implements IConnector {
-    private static final Object LOCK = new Object();
+    // addresses of one API key download in parallel, within the Helius request rate of the key
+    private static final int PARALLEL_DOWNLOADS = BlockchainSolDownloader.REQUESTS_PER_SECOND;
     private static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "blockchainSolApiConnector";
 
     private static final ConnectorParameterDescriptor PARAMETER_ADDRESS =
@@ -118,8 +120,13 @@ public class BlockchainSolConnector implements IConnector {
     String importWithdrawalsAsSells;
     String importFeesFromDeposits;
     String importFeesFromWithdrawals;
+    HeliusClient api;
 
     public BlockchainSolConnector(Map<String, String> parameters) {
+        this(parameters, new HeliusClient());
+    }
+
+    BlockchainSolConnector(Map<String, String> parameters, HeliusClient api) {
         this(
             parameters.get(PARAMETER_ADDRESS.getId()),
             parameters.get(HELIUS_API_KEY_PARAM),
@@ -127,7 +134,8 @@ public class BlockchainSolConnector implements IConnector {
             parameters.get(PARAMETER_IMPORT_DEPOSITS_AS_BUYS.getId()),
             parameters.get(PARAMETER_IMPORT_WITHDRAWALS_AS_SELLS.getId()),
             parameters.get(PARAMETER_IMPORT_FEES_FROM_DEPOSITS.getId()),
-            parameters.get(PARAMETER_IMPORT_FEES_FROM_WITHDRAWALS.getId())
+            parameters.get(PARAMETER_IMPORT_FEES_FROM_WITHDRAWALS.getId()),
+            api
         );
     }
 
@@ -138,7 +146,7 @@ public class BlockchainSolConnector implements IConnector {
 
     @Override
     public DownloadResult getTransactions(String downloadState) {
-        synchronized (LOCK) {
+        return downloads().run(address, () -> {
             final var downloader = new BlockchainSolDownloader(
                 address,
                 apiKey,
@@ -146,9 +154,14 @@ public class BlockchainSolConnector implements IConnector {
                 importDepositsAsBuys,
                 importWithdrawalsAsSells,
                 importFeesFromDeposits,
-                importFeesFromWithdrawals
+                importFeesFromWithdrawals,
+                api
             );
             return downloader.download(downloadState);
-        }
+        });
+    }
+
+    private DownloadConcurrencyLimiter downloads() {
+        return DownloadConcurrencyLimiter.of("helius", apiKey, PARALLEL_DOWNLOADS);
     }
 }
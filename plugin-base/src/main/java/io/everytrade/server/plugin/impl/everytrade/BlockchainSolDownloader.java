@@ -28,7 +28,8 @@ import static lombok.AccessLevel.PRIVATE;
 public class BlockchainSolDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(BlockchainSolDownloader.class);
 
-    private static final Duration MIN_TIME_BETWEEN_REQUESTS = Duration.ofMillis(500);
+    // Helius free plan allows 2 enhanced API requests per second and API key, HeliusClient retries rejected requests
+    static final int REQUESTS_PER_SECOND = 2;
     private static final int TRANSACTIONS_PER_PAGE = 100;
 
     String address;
@@ -48,6 +49,28 @@ public class BlockchainSolDownloader {
         @NonNull String importWithdrawalsAsSells,
         @NonNull String importFeesFromDeposits,
         @NonNull String importFeesFromWithdrawals
+    ) {
+        this(
+            address,
+            apiKey,
+            fiatCurrency,
+            importDepositsAsBuys,
+            importWithdrawalsAsSells,
+            importFeesFromDeposits,
+            importFeesFromWithdrawals,
+            new HeliusClient()
+        );
+    }
+
+    BlockchainSolDownloader(
+        @NonNull String address,
+        @NonNull String apiKey,
+        @NonNull String fiatCurrency,
+        @NonNull String importDepositsAsBuys,
+        @NonNull String importWithdrawalsAsSells,
+        @NonNull String importFeesFromDeposits,
+        @NonNull String importFeesFromWithdrawals,
+        @NonNull HeliusClient api
     ) {
         this(
             address,
@@ -57,7 +80,7 @@ public class BlockchainSolDownloader {
             Boolean.parseBoolean(importWithdrawalsAsSells),
             Boolean.parseBoolean(importFeesFromDeposits),
             Boolean.parseBoolean(importFeesFromWithdrawals),
-            new HeliusClient()
+            api
         );
     }
 
@@ -74,7 +97,7 @@ public class BlockchainSolDownloader {
 
         try {
             do {
-                sleepBetweenRequests();
+                rateLimiter().acquire();
                 var response = api.getTransactionHistory(address, apiKey, TRANSACTIONS_PER_PAGE, cursor);
                 if (response.getData() == null || response.getData().isEmpty()) {
                     break;
@@ -141,13 +164,8 @@ public class BlockchainSolDownloader {
             .build();
     }
 
-    private void sleepBetweenRequests() {
-        try {
-            Thread.sleep(MIN_TIME_BETWEEN_REQUESTS.toMillis());
-        } catch (InterruptedException e) {
-            LOG.warn("Sleep between Helius API requests interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
-        }
+    private RequestRateLimiter rateLimiter() {
+        return RequestRateLimiter.of("helius", apiKey, REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1);
     }
 
     static class DownloadState {
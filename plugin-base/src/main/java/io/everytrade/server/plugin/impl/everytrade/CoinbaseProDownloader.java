@@ -13,6 +13,7 @@ import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.dto.account.FundingRecord;
 import org.knowm.xchange.dto.trade.UserTrade;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -25,19 +26,23 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 @FieldDefaults(makeFinal = false, level = PRIVATE)
 public class CoinbaseProDownloader {
-    //https://docs.pro.coinbase.com/#rate-limits - max 5 request per user per second --> 200 ms between requests
+    //https://docs.pro.coinbase.com/#rate-limits - max 5 request per user per second
     private static final int TX_PER_REQUEST = 100;
     private static final int FUNDINGS_PER_REQUEST = 100;
     private static final int MAX_REQUEST_COUNT = 3000;
-    private static final int SLEEP_BETWEEN_REQUESTS_MS = 200;
+    private static final int REQUESTS_PER_SECOND = 5;
     public static final int FIRST_COINBASE_TX_ID = 1;
     public static final String EXCHANGE_OPENING_DATE = "2012-01-01 23:59:59.909298+00";
     private DownloadState state;
 
     Exchange exchange;
+    RequestRateLimiter rateLimiter;
 
     public CoinbaseProDownloader(Exchange exchange, String downloadState) {
         this.exchange = exchange;
+        this.rateLimiter = RequestRateLimiter.of(
+            "coinbasepro", exchange.getExchangeSpecification().getApiKey(), REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1
+        );
         this.state = DownloadState.deserialize(downloadState);
     }
 
@@ -68,12 +73,7 @@ public class CoinbaseProDownloader {
                 params.setBeforeTradeId(lastDownloadedTx);
                 final List<UserTrade> userTradesBlock;
                 try {
-                    Thread.sleep(SLEEP_BETWEEN_REQUESTS_MS);
-                } catch (InterruptedException e) {
-                    throw new IllegalStateException("User trade history download sleep interrupted.", e);
-                }
-                try {
-                    userTradesBlock = tradeService.getTradeHistory(params).getUserTrades();
+                    userTradesBlock = rateLimiter.call(() -> tradeService.getTradeHistory(params)).getUserTrades();
                 } catch (Exception e) {
                     throw new IllegalStateException("User trade history download failed. ", e);
                 }
@@ -105,12 +105,7 @@ public class CoinbaseProDownloader {
         final CoinbaseProTransfersWithHeader depositRecords;
 
         try {
-            Thread.sleep(SLEEP_BETWEEN_REQUESTS_MS);
-        } catch (InterruptedException e) {
-            throw new IllegalStateException("Funding deposit record history download sleep interrupted.", e);
-        }
-        try {
-            depositRecords = accountService.getTransfersWithPagination(params);
+            depositRecords = rateLimiter.call(() -> accountService.getTransfersWithPagination(params));
         } catch (Exception e) {
             throw new IllegalStateException("Funding deposit record history download failed. ", e);
         }
@@ -130,12 +125,7 @@ public class CoinbaseProDownloader {
 
         final CoinbaseProTransfersWithHeader withdrawalRecords;
         try {
-            Thread.sleep(SLEEP_BETWEEN_REQUESTS_MS);
-        } catch (InterruptedException e) {
-            throw new IllegalStateException("Funding withdrawal record history download sleep interrupted.", e);
-        }
-        try {
-            withdrawalRecords = accountService.getTransfersWithPagination(params);
+            withdrawalRecords = rateLimiter.call(() -> accountService.getTransfersWithPagination(params));
         } catch (Exception e) {
             throw new IllegalStateException("Funding withdrawal record history download failed. ", e);
         }
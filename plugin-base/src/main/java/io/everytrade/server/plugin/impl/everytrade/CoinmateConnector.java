@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -44,9 +45,7 @@ public class CoinmateConnector implements IConnector {
     private static final String SORT_DESC = "DESC";
     private static final int MAX_ITERATIONS = 200;
 
-    private static final long REQUEST_SLEEP_MS = 650;
-    private static final long MIN_INTERVAL_MS = 750;
-    private long nextAllowedRequestAtMs = 0;
+    private static final int REQUESTS_PER_MINUTE = 100;
 
     private static final ConnectorParameterDescriptor PARAMETER_API_USERNAME =
         new ConnectorParameterDescriptor(
@@ -179,32 +178,12 @@ public class CoinmateConnector implements IConnector {
                     break;
                 }
                 to = newTo;
-
-                sleepQuietly(REQUEST_SLEEP_MS);
             }
         }
 
         return all;
     }
 
-    private static void sleepQuietly(long ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            throw new IllegalStateException("Interrupted while throttling Coinmate requests.", ie);
-        }
-    }
-
-    private void throttle() {
-        long now = System.currentTimeMillis();
-        long wait = nextAllowedRequestAtMs - now;
-        if (wait > 0) {
-            sleepQuietly(wait);
-        }
-        nextAllowedRequestAtMs = System.currentTimeMillis() + MIN_INTERVAL_MS;
-    }
-
     private List<CoinmateTransactionHistoryEntry> fetchWithRetry(
         CoinmateTradeServiceRaw raw,
         long from,
@@ -214,9 +193,12 @@ public class CoinmateConnector implements IConnector {
 
         int attempts = 0;
         long backoff = 1_000;
+        var rateLimiter = RequestRateLimiter.of(
+            "coinmate", exchange.getExchangeSpecification().getUserName(), REQUESTS_PER_MINUTE, Duration.ofMinutes(1), 1
+        );
 
         while (true) {
-            throttle();
+            rateLimiter.acquire();
             try {
                 var resp = raw.getCoinmateTransactionHistory(
                     0, TX_PER_REQUEST, SORT_DESC, from, to, null, archived
@@ -229,7 +211,8 @@ public class CoinmateConnector implements IConnector {
                     if (attempts >= 8) {
                         throw e;
                     }
-                    sleepQuietly(backoff);
+                    // Coinmate reports the limit in the response body, the request is repeated after the pause
+                    rateLimiter.pause(Duration.ofMillis(backoff));
                     backoff = Math.min(backoff * 2, 30_000);
                     continue;
                 }
@@ -0,0 +1,85 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Limits concurrent downloads of one connector type within the JVM. Downloads with the same key (typically the API
+ * key of the account) run one at a time, downloads with different keys run in parallel up to the given total
+ * parallelism, which bounds the load generated from the shared IP address or API key.
+ */
+public final class DownloadConcurrencyLimiter {
+
+    private static final SharedLimiters<DownloadConcurrencyLimiter> LIMITERS = new SharedLimiters<>(DownloadConcurrencyLimiter::isIdle);
+
+    private final int parallelism;
+    private final Semaphore permits;
+    private final ConcurrentHashMap<Object, KeyLock> keyLocks = new ConcurrentHashMap<>();
+
+    public DownloadConcurrencyLimiter(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Illegal download parallelism %d.", parallelism));
+        }
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism, true);
+    }
+
+    /**
+     * Returns the limiter shared by all downloads of the given connector type and credential; the parallelism of the
+     * first call wins. Pass {@code null} credential for downloads limited per IP address.
+     */
+    public static DownloadConcurrencyLimiter of(String name, String credential, int parallelism) {
+        return LIMITERS.get(name, credential, () -> new DownloadConcurrencyLimiter(parallelism));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public <T> T run(Object key, Supplier<T> download) {
+        Objects.requireNonNull(key);
+        KeyLock keyLock = keyLocks.compute(key, (k, current) -> {
+            KeyLock lock = current == null ? new KeyLock() : current;
+            lock.users++;
+            return lock;
+        });
+        try {
+            keyLock.lock.lockInterruptibly();
+            try {
+                permits.acquire();
+                try {
+                    return download.get();
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                keyLock.lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a download slot.", e);
+        } finally {
+            keyLocks.computeIfPresent(key, (k, current) -> --current.users == 0 ? null : current);
+        }
+    }
+
+    int activeKeys() {
+        return keyLocks.size();
+    }
+
+    int queuedDownloads() {
+        return permits.getQueueLength() + keyLocks.values().stream().mapToInt(keyLock -> keyLock.lock.getQueueLength()).sum();
+    }
+
+    private boolean isIdle() {
+        return keyLocks.isEmpty() && permits.availablePermits() == parallelism;
+    }
+
+    private static final class KeyLock {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int users;
+    }
+}
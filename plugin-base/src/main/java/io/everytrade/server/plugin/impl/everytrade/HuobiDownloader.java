@@ -28,8 +28,7 @@ import static org.knowm.xchange.dto.account.FundingRecord.Type.WITHDRAWAL;
 @FieldDefaults(makeFinal = true, level = PRIVATE)
 public class HuobiDownloader {
     // huobiapi.github.io/docs/spot/v1/en/#overview-2 --> 10 requests per API_KEY per second
-    // 200 ms = 50% API_KEY capacity
-    private static final Duration SLEEP_BETWEEN_REQUESTS = Duration.ofMillis(200);
+    private static final int REQUESTS_PER_SECOND = 10;
     // txs count in request = 100, max 5 sec, 2.500 txs per cycle --> 25 requests
     private static final int MAX_REQUEST_COUNT = 25;
     private static final String FUNDING_STATE_KEY = "funding";
@@ -57,12 +56,11 @@ public class HuobiDownloader {
         for (String pair : pairs) {
             final HuobiDownloadState downloadState = state.getOrDefault(pair, HuobiDownloadState.parseFrom(null));
             do {
-                waitBetweenRequests();
                 params.setStartTime(downloadState.getWindowStart());
                 params.setStartId(downloadState.getLastTxIdAfterGap());
                 final List<UserTrade> userTradesBlock;
                 try {
-                    userTradesBlock = tradeService.getTradeHistory(params, pair).getUserTrades();
+                    userTradesBlock = rateLimiter().call(() -> tradeService.getTradeHistory(params, pair)).getUserTrades();
                     if (userTradesBlock.isEmpty()) {
                         break;
                     }
@@ -92,13 +90,12 @@ public class HuobiDownloader {
 
         for (FundingRecord.Type type : List.of(WITHDRAWAL, DEPOSIT)) {
             while (sentRequests < MAX_REQUEST_COUNT) {
-                waitBetweenRequests();
                 params.setType(type);
                 params.setStartId(fundingState.getLastTxIdAfterGap());
 
                 final List<FundingRecord> fundingBlock;
                 try {
-                    fundingBlock = accountService.getFundingHistory(params);
+                    fundingBlock = rateLimiter().call(() -> accountService.getFundingHistory(params));
                     if (fundingBlock.isEmpty()) {
                         break;
                     }
@@ -261,11 +258,10 @@ public class HuobiDownloader {
         return -1;
     }
 
-    private void waitBetweenRequests() {
-        try {
-            Thread.sleep(SLEEP_BETWEEN_REQUESTS.toMillis());
-        } catch (InterruptedException e) {
-            throw new IllegalStateException("User funding history download sleep interrupted.", e);
-        }
+    private RequestRateLimiter rateLimiter() {
+        var specification = exchange.getExchangeSpecification();
+        return RequestRateLimiter.of(
+            "huobi", specification == null ? null : specification.getApiKey(), REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1
+        );
     }
 }
@@ -9,6 +9,7 @@ import io.everytrade.server.plugin.api.connector.ConnectorParameterType;
 import io.everytrade.server.plugin.api.connector.DownloadResult;
 import io.everytrade.server.plugin.api.connector.IConnector;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.impl.everytrade.parser.DateTimeFormatters;
 import io.everytrade.server.util.KrakenCurrencyUtil;
 import io.everytrade.server.util.serialization.ConnectorSerialization;
 import io.everytrade.server.util.serialization.SequenceIdentifierType;
@@ -25,7 +26,6 @@ import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.dto.Order;
 import org.knowm.xchange.dto.account.FundingRecord;
 import org.knowm.xchange.dto.trade.UserTrade;
-import org.knowm.xchange.exceptions.RateLimitExceededException;
 import org.knowm.xchange.kraken.KrakenAdapters;
 import org.knowm.xchange.kraken.KrakenExchange;
 import org.knowm.xchange.kraken.dto.account.DepostitStatus;
@@ -43,10 +43,13 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
@@ -85,14 +88,24 @@ public class KrakenConnector implements IConnector {
     private static final String WRONG_NUMBER_OF_TRANSACTIONS = "wrong number of txs - expected (1x RECEIVE and 1x SEND)";
     private static final String SPEND_POSITIVE_NUMBER = "Spend - transaction amount must be negative";
     private static final String RECEIVE_POSITIVE_NUMBER = "Receive - transaction amount must be positive";
-    private static final Duration SLEEP_BETWEEN_FUNDING_REQUESTS = Duration.ofMillis(6 * 1000);
+    // https://docs.kraken.com/api/docs/guides/spot-rest-ratelimits - the counter of an account (starter tier) holds 15
+    // points and decays by 0.33 per second, ledger query costs 2 points
+    private static final int API_COUNTER_MAX = 15;
+    private static final Duration API_COUNTER_DECAY = Duration.ofSeconds(3);
+    private static final int LEDGER_REQUEST_COST = 2;
 
     private static final int MAX_REQUESTS_COUNT = 7;
+    // the unfiltered ledger holds entries of all five types, so one pass gets the request budget of all of them
+    private static final int MAX_LEDGER_REQUESTS_COUNT = 5 * MAX_REQUESTS_COUNT;
     public static final String UID_TRADES_ID = "1";
     public static final String UID_SALE_ID = "2";
     public static final String UID_DEPOSIT_ID = "3";
     public static final String UID_WITHDRAWAL_ID = "4";
     public static final String UID_STAKING_ID = "5";
+    public static final String UID_LEDGER_ID = "6";
+    private static final List<String> LEDGER_TYPE_UIDS =
+        List.of(UID_TRADES_ID, UID_SALE_ID, UID_DEPOSIT_ID, UID_WITHDRAWAL_ID, UID_STAKING_ID);
+    private static final Set<String> SPEND_RECEIVE_LEDGER_TYPES = Set.of("sale", "spend", "receive");
     public static final String EXCEPTION_PAIR = "Invalid value of pairs: ";
     public static final String EXCEPTION_CURRENCY = "Invalid currencies: ";
     public static final String EXCEPTION_AMOUNT = "Invalid transactionAmounts: ";
@@ -162,48 +175,27 @@ public class KrakenConnector implements IConnector {
         }
         var userTrades = new ArrayList<UserTrade>();
         var funding = new ArrayList<FundingRecord>();
-        funding.addAll(withdrawal(state));
-        userTrades.addAll(trades(state));
-        funding.addAll(staking(state));
-        funding.addAll(deposit(state));
-        userTrades.addAll(SpendAndReceive(state));
+        if (isLedgerTypeDownloadPending(state)) {
+            // state saved by the download of ledger types one by one, it is finished the same way
+            funding.addAll(withdrawal(state));
+            userTrades.addAll(trades(state));
+            funding.addAll(staking(state));
+            funding.addAll(deposit(state));
+            userTrades.addAll(SpendAndReceive(state));
+        } else {
+            ledger(state, userTrades, funding);
+        }
         return getResult(userTrades, funding, state);
     }
 
     private static Uids getDefaultUids() {
         Uids state = ConnectorSerialization.createDefaultUidMap();
-        String start = getDefaultStart();
-        String end = getDefaultEnd();
-        Map<SequenceIdentifierType, String> trade = new TreeMap<>();
-        trade.put(START, start);
-        trade.put(END, end);
-        trade.put(OFFSET, "0");
-        trade.put(STATUS, PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> sale = new TreeMap<>();
-        sale.put(START, start);
-        sale.put(END, end);
-        sale.put(OFFSET, "0");
-        sale.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> deposit = new TreeMap<>();
-        deposit.put(START, start);
-        deposit.put(END, end);
-        deposit.put(OFFSET, "0");
-        deposit.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> withdrawal = new TreeMap<>();
-        withdrawal.put(START, start);
-        withdrawal.put(END, end);
-        withdrawal.put(OFFSET, "0");
-        withdrawal.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> staking = new TreeMap<>();
-        staking.put(START, start);
-        staking.put(END, end);
-        staking.put(OFFSET, "0");
-        staking.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        state.addUid(UID_TRADES_ID, new Uid(trade));
-        state.addUid(UID_SALE_ID, new Uid(sale));
-        state.addUid(UID_DEPOSIT_ID, new Uid(deposit));
-        state.addUid(UID_WITHDRAWAL_ID, new Uid(withdrawal));
-        state.addUid(UID_STAKING_ID, new Uid(staking));
+        Map<SequenceIdentifierType, String> ledger = new TreeMap<>();
+        ledger.put(START, getDefaultStart());
+        ledger.put(END, getDefaultEnd());
+        ledger.put(OFFSET, "0");
+        ledger.put(STATUS, PARTIAL_DATA_DOWNLOADED.getCode());
+        state.addUid(UID_LEDGER_ID, new Uid(ledger));
         return state;
     }
 
@@ -232,9 +224,11 @@ public class KrakenConnector implements IConnector {
             downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_DEPOSIT_ID, LedgerType.DEPOSIT);
         } catch (IOException e) {
             throw new IllegalStateException("Download user trade history failed.", e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
         }
+        return convertDeposits(blocks);
+    }
+
+    private List<FundingRecord> convertDeposits(List<KrakenLedger> blocks) {
         return createFundings(blocks, DEPOSIT, null);
     }
 
@@ -247,12 +241,14 @@ public class KrakenConnector implements IConnector {
         List<KrakenLedger> blocks = new ArrayList<>();
         try {
             downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_WITHDRAWAL_ID, LedgerType.WITHDRAWAL);
-            validateWithdrawals(blocks);
         } catch (IOException e) {
             throw new IllegalStateException("Download user trade history failed.", e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
         }
+        return convertWithdrawals(blocks);
+    }
+
+    private List<FundingRecord> convertWithdrawals(List<KrakenLedger> blocks) {
+        validateWithdrawals(blocks);
         return createFundings(blocks, WITHDRAWAL, null);
     }
 
@@ -319,85 +315,175 @@ public class KrakenConnector implements IConnector {
         List<KrakenLedger> blocks = new ArrayList<>();
         try {
             downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_SALE_ID, SALE);
-            Map<String, List<KrakenLedger>> pairsReceiveSend = new HashMap<>();
-            blocks.forEach(leger -> {
-                    try {
-                        if (pairsReceiveSend.get(leger.getRefId()) == null) {
-                            List<KrakenLedger> list = new ArrayList<>();
-                            list.add(leger);
-                            pairsReceiveSend.put(leger.getRefId(), list);
-                        } else {
-                            List<KrakenLedger> krakenLedgers = pairsReceiveSend.get(leger.getRefId());
-                            krakenLedgers.add(leger);
-                        }
-                    } catch (Exception e) {
-                        parsingProblems.add(new ParsingProblem(leger.toString(), e.getMessage(), ROW_PARSING_FAILED));
-                    }
-                }
-            );
-            var resultsKeys = pairsReceiveSend.keySet();
-            List<UserTrade> result = new ArrayList<>();
+        } catch (IOException e) {
+            throw new IllegalStateException("Download receive spend history failed.", e);
+        }
+        return convertSpendAndReceive(blocks);
+    }
 
-            for (String key : resultsKeys) {
-                var receiveSpendPair = pairsReceiveSend.get(key);
+    private List<UserTrade> convertSpendAndReceive(List<KrakenLedger> blocks) {
+        Map<String, List<KrakenLedger>> pairsReceiveSend = new HashMap<>();
+        blocks.forEach(leger -> {
                 try {
-                    validateReceiveSendPair(receiveSpendPair);
-                    result.add(convertSpendReceivePairToTrade(receiveSpendPair));
+                    if (pairsReceiveSend.get(leger.getRefId()) == null) {
+                        List<KrakenLedger> list = new ArrayList<>();
+                        list.add(leger);
+                        pairsReceiveSend.put(leger.getRefId(), list);
+                    } else {
+                        List<KrakenLedger> krakenLedgers = pairsReceiveSend.get(leger.getRefId());
+                        krakenLedgers.add(leger);
+                    }
                 } catch (Exception e) {
-                    parsingProblems.add(new ParsingProblem(receiveSpendPair.toString(), e.getMessage(), ROW_PARSING_FAILED));
+                    parsingProblems.add(new ParsingProblem(leger.toString(), e.getMessage(), ROW_PARSING_FAILED));
                 }
             }
-            return result;
+        );
+        var resultsKeys = pairsReceiveSend.keySet();
+        List<UserTrade> result = new ArrayList<>();
+
+        for (String key : resultsKeys) {
+            var receiveSpendPair = pairsReceiveSend.get(key);
+            try {
+                validateReceiveSendPair(receiveSpendPair);
+                result.add(convertSpendReceivePairToTrade(receiveSpendPair));
+            } catch (Exception e) {
+                parsingProblems.add(new ParsingProblem(receiveSpendPair.toString(), e.getMessage(), ROW_PARSING_FAILED));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pages through the unfiltered ledger once and routes its entries by type to the same conversions as the download
+     * of ledger types one by one. Entries of types already downloaded by that older download (state saved before the
+     * single ledger cursor) up to its start are skipped.
+     */
+    private void ledger(Uids state, List<UserTrade> userTrades, List<FundingRecord> funding) {
+        if (!state.getUidS().containsKey(UID_LEDGER_ID)) {
+            state.addUid(UID_LEDGER_ID, new Uid(Map.of(START, getLedgerTypesStart(state), OFFSET, "0")));
+        }
+        var accountService = (KrakenAccountService) exchange.getAccountService();
+        String startUnixId = getStartState(state, UID_LEDGER_ID);
+        String endUnixId = getEndState(state, UID_LEDGER_ID);
+        Long offset = getOffsetState(state, UID_LEDGER_ID);
+        List<KrakenLedger> blocks = new ArrayList<>();
+        try {
+            downloadLedgers(
+                state, accountService, startUnixId, endUnixId, offset, blocks, UID_LEDGER_ID, null, MAX_LEDGER_REQUESTS_COUNT
+            );
         } catch (IOException e) {
-            throw new IllegalStateException("Download receive spend history failed.", e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            throw new IllegalStateException("Download ledger history failed.", e);
         }
+
+        Map<String, List<KrakenLedger>> blocksByType = new HashMap<>();
+        for (KrakenLedger ledger : blocks) {
+            String uidType = getLedgerTypeUid(ledger);
+            if (uidType != null && !isDownloadedByLedgerType(state, uidType, ledger)) {
+                blocksByType.computeIfAbsent(uidType, k -> new ArrayList<>()).add(ledger);
+            }
+        }
+        funding.addAll(convertWithdrawals(blocksByType.getOrDefault(UID_WITHDRAWAL_ID, new ArrayList<>())));
+        userTrades.addAll(convertLedgerPairsToTrade(getPairsFromBlocks(blocksByType.getOrDefault(UID_TRADES_ID, List.of()))));
+        funding.addAll(createFundings(blocksByType.getOrDefault(UID_STAKING_ID, List.of()), OTHER_INFLOW, "reward"));
+        funding.addAll(convertDeposits(blocksByType.getOrDefault(UID_DEPOSIT_ID, List.of())));
+        userTrades.addAll(convertSpendAndReceive(blocksByType.getOrDefault(UID_SALE_ID, List.of())));
+
+        if (ALL_DATA_DOWNLOADED.getCode().equals(state.getUidS().get(UID_LEDGER_ID).getUid().get(STATUS))) {
+            LEDGER_TYPE_UIDS.forEach(state.getUidS()::remove);
+        }
+    }
+
+    private static String getLedgerTypeUid(KrakenLedger ledger) {
+        LedgerType type = ledger.getLedgerType();
+        if (type == null) {
+            return null;
+        }
+        if (SPEND_RECEIVE_LEDGER_TYPES.contains(type.toString().toLowerCase())) {
+            return UID_SALE_ID;
+        }
+        switch (type) {
+            case TRADE:
+                return UID_TRADES_ID;
+            case DEPOSIT:
+                return UID_DEPOSIT_ID;
+            case WITHDRAWAL:
+                return UID_WITHDRAWAL_ID;
+            case STAKING:
+                return UID_STAKING_ID;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isLedgerTypeDownloadPending(Uids state) {
+        return !state.getUidS().containsKey(UID_LEDGER_ID) && LEDGER_TYPE_UIDS.stream()
+            .map(uidType -> state.getUidS().get(uidType))
+            .filter(Objects::nonNull)
+            .anyMatch(uid -> !ALL_DATA_DOWNLOADED.getCode().equals(uid.getUid().get(STATUS)));
+    }
+
+    private static boolean isDownloadedByLedgerType(Uids state, String uidType, KrakenLedger ledger) {
+        Uid uid = state.getUidS().get(uidType);
+        String start = uid == null ? null : uid.getUid().get(START);
+        return start != null && !start.isEmpty() && ledger.getUnixTime() <= Long.parseLong(start);
     }
 
-    private static void downloadLedgers(Uids state, KrakenAccountService accountService, String startUnixId,
-                                        String endUnixId, Long offset, List<KrakenLedger> blocks, String uidType,
-                                        LedgerType ledgerType) throws IOException, InterruptedException {
+    private static String getLedgerTypesStart(Uids state) {
+        return LEDGER_TYPE_UIDS.stream()
+            .map(uidType -> state.getUidS().get(uidType))
+            .map(uid -> uid == null ? null : uid.getUid().get(START))
+            .map(start -> start == null || start.isEmpty() ? getDefaultStart() : start)
+            .min(Comparator.comparingLong(Long::parseLong))
+            .orElse(getDefaultStart());
+    }
+
+    private void downloadLedgers(Uids state, KrakenAccountService accountService, String startUnixId,
+                                 String endUnixId, Long offset, List<KrakenLedger> blocks, String uidType,
+                                 LedgerType ledgerType) throws IOException {
+        downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, uidType, ledgerType, MAX_REQUESTS_COUNT);
+    }
+
+    private void downloadLedgers(Uids state, KrakenAccountService accountService, String startUnixId,
+                                 String endUnixId, Long offset, List<KrakenLedger> blocks, String uidType,
+                                 LedgerType ledgerType, int maxRequests) throws IOException {
         int requests = 0;
-        int retryCount = 0;
-        int maxRetries = 5;
+        var rateLimiter = rateLimiter();
 
-        while (requests < MAX_REQUESTS_COUNT) {
-            try {
-                Thread.sleep(SLEEP_BETWEEN_FUNDING_REQUESTS.toMillis());
-                var block = accountService.getKrakenPartialLedgerInfo(ledgerType, startUnixId, endUnixId, offset);
+        while (requests < maxRequests) {
+            long requestOffset = offset;
+            var block = rateLimiter.call(
+                LEDGER_REQUEST_COST,
+                () -> accountService.getKrakenPartialLedgerInfo(ledgerType, startUnixId, endUnixId, requestOffset)
+            );
+
+            if (block.isEmpty()) {
+                String start = getNewStart(state, uidType);
+                updateStateForCompletion(state, uidType, start);
+                break;
+            } else {
+                List<KrakenLedger> values = List.copyOf(block.values());
+                blocks.addAll(values);
 
-                if (block.isEmpty()) {
+                if (values.size() < DEFAULT_BLOCK_SIZE) {
                     String start = getNewStart(state, uidType);
                     updateStateForCompletion(state, uidType, start);
                     break;
                 } else {
-                    List<KrakenLedger> values = List.copyOf(block.values());
-                    blocks.addAll(values);
-
-                    if (values.size() < DEFAULT_BLOCK_SIZE) {
-                        String start = getNewStart(state, uidType);
-                        updateStateForCompletion(state, uidType, start);
-                        break;
-                    } else {
-                        offset += DEFAULT_BLOCK_SIZE;
-                        updateStateForContinuation(state, uidType, offset, startUnixId, endUnixId);
-                        requests++;
-                        retryCount = 0;
-                    }
-                }
-            } catch (RateLimitExceededException e) {
-                if (retryCount >= maxRetries) {
-                    throw new IOException("Exceeded maximum retry attempts due to rate limiting.", e);
+                    offset += DEFAULT_BLOCK_SIZE;
+                    updateStateForContinuation(state, uidType, offset, startUnixId, endUnixId);
+                    requests++;
                 }
-                retryCount++;
-                long backoffTime = (long) Math.pow(2, retryCount) * 1000;
-                LOG.info("Rate limit exceeded. Retrying after {} ms.", backoffTime);
-                Thread.sleep(backoffTime);
             }
         }
     }
 
+    private RequestRateLimiter rateLimiter() {
+        var specification = exchange.getExchangeSpecification();
+        return RequestRateLimiter.of(
+            "kraken", specification == null ? null : specification.getApiKey(), 1, API_COUNTER_DECAY, API_COUNTER_MAX
+        );
+    }
+
     private static void updateStateForCompletion(Uids state, String uidType, String start) {
         state.getUidS().get(uidType).setUid(END, null);
         state.getUidS().get(uidType).setUid(OFFSET, "0");
@@ -614,8 +700,6 @@ public class KrakenConnector implements IConnector {
             downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_TRADES_ID, TRADE);
         } catch (IOException e) {
             throw new IllegalStateException("Download user trade history failed.", e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
         }
         Map<String, List<KrakenLedger>> pairs = getPairsFromBlocks(blocks);
         return convertLedgerPairsToTrade(pairs);
@@ -631,8 +715,6 @@ public class KrakenConnector implements IConnector {
             downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_STAKING_ID, STAKING);
         } catch (IOException e) {
             throw new IllegalStateException("Download funding records history failed.", e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
         }
         return createFundings(blocks, OTHER_INFLOW, "reward");
     }
@@ -791,8 +873,7 @@ public class KrakenConnector implements IConnector {
         long secondsPart = (long) unix;
         int nanosPart = (int) ((unix - secondsPart) * 1_000_000_000);
         Instant instant = Instant.ofEpochSecond(secondsPart, nanosPart);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
-            .withZone(ZoneId.systemDefault());
+        DateTimeFormatter formatter = DateTimeFormatters.of("yyyy-MM-dd HH:mm:ss.SSS", Locale.US, ZoneId.systemDefault());
         return formatter.format(instant);
     }
 
@@ -12,11 +12,21 @@ import org.knowm.xchange.kucoin.KucoinTradeHistoryParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static lombok.AccessLevel.PRIVATE;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -26,19 +36,43 @@ public class KuCoinDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(KuCoinConnector.class);
 
     private DownloadState state;
-    private long now = Instant.now().toEpochMilli();
+    private final long now;
+    private final int parallelism;
     Exchange exchange;
+    RequestRateLimiter rateLimiter;
     private static final Date EXCHANGE_START_DATE =
         new GregorianCalendar(2019, 02, 18, 0, 0).getTime();
 
     private static final int MAX_TRADE_REQUEST_COUNT = 500;
-    private static final int SLEEP_BETWEEN_REQUESTS = 350;
+    // The history APIs are restricted for each account, the request rate limit is 9 times/3s.
+    private static final int REQUESTS_PER_PERIOD = 9;
+    private static final Duration REQUEST_PERIOD = Duration.ofSeconds(3);
+    // windows downloaded at once, the rate limiter keeps them within the limit of the account
+    private static final int PARALLEL_WINDOWS = 3;
     private static final int PAGE = 1; // txs from next page is downloaded by new start/end date
     private static final int PAGE_LIMIT = 500; // pageLimit set by xChange - TRADE_HISTORIES_TO_FETCH = 500;
     private static final long WEEK = 7 * 24 * 60 * 60 * 1000L;
 
     public KuCoinDownloader(Exchange exchange, String downloadState) {
+        this(
+            exchange,
+            downloadState,
+            RequestRateLimiter.of(
+                "kucoin", exchange.getExchangeSpecification().getApiKey(), REQUESTS_PER_PERIOD, REQUEST_PERIOD, 1
+            ),
+            PARALLEL_WINDOWS,
+            Instant.now().toEpochMilli()
+        );
+    }
+
+    KuCoinDownloader(Exchange exchange, String downloadState, RequestRateLimiter rateLimiter, int parallelism, long now) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Illegal download parallelism %d.", parallelism));
+        }
         this.exchange = exchange;
+        this.rateLimiter = rateLimiter;
+        this.parallelism = parallelism;
+        this.now = now;
         this.state = DownloadState.deserialize(downloadState);
     }
 
@@ -64,192 +98,29 @@ public class KuCoinDownloader {
      * Once this is done, the method only downloads the new data in the next update;
      *
      * @return List<UserTrade>
-     * @throws InterruptedException
      */
-    public List<UserTrade> downloadTrades() throws InterruptedException {
+    public List<UserTrade> downloadTrades() {
         LOG.info("KuCoin - starting trade download");
         var tradeService = exchange.getTradeService();
-        int sentRequests = 0;
-
-        final List<UserTrade> userTrades = new ArrayList<>();
-        var params = (KucoinTradeHistoryParams) tradeService.createTradeHistoryParams();
-
-        // When all old trades are downloaded, old dates are set to EXCHANGE_START_DATE
-        if (state.oldLastTradeStartDate == EXCHANGE_START_DATE.getTime()
-            && state.oldLastTradeEndDate == EXCHANGE_START_DATE.getTime()) {
-            long newStartDate;
-            long newEndDate;
-            // case very first download
-            if (state.newLastTradeEndDate == 0 && state.newLastTradeStartDate == 0) {
-                newEndDate = now;
-                newStartDate = newEndDate - WEEK;
-                if (newStartDate < state.oldFirstTradeDate) {
-                    newStartDate = state.oldFirstTradeDate;
-                }
-            // case first download has finished and start new one
-            } else if (state.newLastTradeStartDate == state.newLastTradeEndDate) {
-                state.oldFirstTradeDate = state.newLastTradeStartDate;
-                newEndDate = now;
-                newStartDate = newEndDate - WEEK;
-                if (newStartDate < state.oldFirstTradeDate) {
-                    newStartDate = state.oldFirstTradeDate;
-                }
-                // case not finished download
-            } else if (state.newLastTradeStartDate > 0 && state.newLastTradeEndDate > 0
-                && state.newLastTradeStartDate != state.newLastTradeEndDate) {
-                newEndDate = state.newLastTradeStartDate;
-                newStartDate = newEndDate - WEEK;
-                if (newStartDate < state.oldFirstTradeDate) {
-                    newStartDate = state.oldFirstTradeDate;
-                }
-            } else {
-                throw new IllegalStateException("User trade history download failed. ");
-            }
-
-            while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
-                ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
-                final List<UserTrade> userTradesBlock;
-                try {
-                    params.setEndTime(new Date(newEndDate));
-                    params.setStartTime(new Date(newStartDate));
-                    params.setNextPageCursor(String.valueOf(PAGE));
-                    userTradesBlock = tradeService.getTradeHistory(params).getUserTrades();
-                } catch (Exception e) {
-                    throw new IllegalStateException("User trade history download failed. ", e);
-                }
-                // case too much txs
-                if (userTradesBlock.size() == PAGE_LIMIT) {
-                    state.newLastTradeEndDate = newEndDate;
-                    state.newLastTradeStartDate = newStartDate;
-                    newEndDate = userTradesBlock.get(0).getTimestamp().getTime();
-                    userTrades.addAll(userTradesBlock);
-                    continue;
-                }
-                // case too much txs
-                if (userTradesBlock.size() > PAGE_LIMIT) {
-                    throw new IllegalStateException(
-                        String.format("User trade history download failed.  Txs in response exceeds limit %s", PAGE_LIMIT));
-                }
-                // case standard empty response
-                if (userTradesBlock.isEmpty() && newStartDate != state.oldFirstTradeDate) {
-                    state.newLastTradeEndDate = newEndDate;
-                    state.newLastTradeStartDate = newStartDate;
-                    newEndDate = newStartDate;
-                    newStartDate = newEndDate - WEEK;
-                    if (newStartDate < state.oldFirstTradeDate) {
-                        newStartDate = state.oldFirstTradeDate;
-                    }
-                    continue;
-                }
-
-                // case standard response
-                if (userTradesBlock.size() > 0 && userTradesBlock.size() < PAGE_LIMIT) {
-                    state.newLastTradeEndDate = newEndDate;
-                    state.newLastTradeStartDate = newStartDate;
-                    newEndDate = newStartDate;
-                    newStartDate = newEndDate - WEEK;
-                    if (newStartDate < state.oldFirstTradeDate) {
-                        newStartDate = state.oldFirstTradeDate;
-                    }
-                    userTrades.addAll(userTradesBlock);
-                    continue;
-                }
-
-                // case last response in EXCHANGE_START_DATE
-                if (newStartDate == state.oldFirstTradeDate && state.newLastTradeEndDate < now) {
-                    state.newLastTradeStartDate = state.oldFirstTradeDate;
-                    state.newLastTradeEndDate = now;
-                    userTrades.addAll(userTradesBlock);
-                    break;
-                }
-                LOG.error("KuCoin old trade downloader - Exceptional statement");
-            }
-            // Old Trades are not downloaded
-
-        } else {
-            long oldStartDate;
-            long oldEndDate;
-
-            // case very first start
-            if (state.oldLastTradeStartDate == 0 && state.oldLastTradeEndDate == 0) {
-                oldStartDate = now - WEEK;
-                oldEndDate = now;
-                state.oldFirstTradeDate = now;
-                // case not finished download
-            } else if (state.oldLastTradeStartDate > 0 && state.oldLastTradeEndDate > 0
-                && state.oldLastTradeStartDate != state.oldLastTradeEndDate) {
-                oldEndDate = state.oldLastTradeStartDate;
-                oldStartDate = oldEndDate - WEEK;
-                if (oldStartDate < EXCHANGE_START_DATE.getTime()) {
-                    oldStartDate = EXCHANGE_START_DATE.getTime();
-                }
-            } else {
-                throw new IllegalStateException("User trade history download failed. ");
-            }
-
-            while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
-                ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
-                final List<UserTrade> userTradesBlock;
-                try {
-                    params.setEndTime(new Date(oldEndDate));
-                    params.setStartTime(new Date(oldStartDate));
-                    params.setNextPageCursor(String.valueOf(PAGE));
-                    userTradesBlock = tradeService.getTradeHistory(params).getUserTrades();
-                } catch (Exception e) {
-                    throw new IllegalStateException("User trade history download failed. ", e);
-                }
-                // case too much txs
-                if (userTradesBlock.size() == PAGE_LIMIT) {
-                    state.oldLastTradeEndDate = oldEndDate;
-                    state.oldLastTradeStartDate = oldStartDate;
-                    oldEndDate = userTradesBlock.get(0).getTimestamp().getTime();
-                    userTrades.addAll(userTradesBlock);
-                    continue;
-                }
-
-                // case too much txs
-                if (userTradesBlock.size() > PAGE_LIMIT) {
-                    throw new IllegalStateException(
-                        String.format("User trade history download failed.  Txs in response exceeds limit %s", PAGE_LIMIT));
-                }
-
-                // case standard empty response
-                if (userTradesBlock.isEmpty() && oldStartDate != EXCHANGE_START_DATE.getTime()) {
-                    state.oldLastTradeEndDate = oldEndDate;
-                    state.oldLastTradeStartDate = oldStartDate;
-                    oldEndDate = oldStartDate;
-                    oldStartDate = oldEndDate - WEEK;
-                    if (oldStartDate < EXCHANGE_START_DATE.getTime()) {
-                        oldStartDate = EXCHANGE_START_DATE.getTime();
-                    }
-                    continue;
-                }
-                // case standard not empty response
-                if (userTradesBlock.size() > 0 && userTradesBlock.size() < PAGE_LIMIT) {
-                    state.oldLastTradeEndDate = oldEndDate;
-                    state.oldLastTradeStartDate = oldStartDate;
-                    oldEndDate = oldStartDate;
-                    oldStartDate = oldEndDate - WEEK;
-                    if (oldStartDate < EXCHANGE_START_DATE.getTime()) {
-                        oldStartDate = EXCHANGE_START_DATE.getTime();
-                    }
-                    userTrades.addAll(userTradesBlock);
-                    continue;
-                }
-                // case last response in EXCHANGE_START_DATE
-                if (oldStartDate == EXCHANGE_START_DATE.getTime()) {
-                    state.oldLastTradeEndDate = EXCHANGE_START_DATE.getTime();
-                    state.oldLastTradeStartDate = EXCHANGE_START_DATE.getTime();
-                    userTrades.addAll(userTradesBlock);
-                    break;
-                }
-                LOG.error("KuCoin old trade downloader - Exceptional statement");
-            }
-        }
+        var progress = new Progress(
+            state.oldFirstTradeDate,
+            state.oldLastTradeEndDate,
+            state.oldLastTradeStartDate,
+            state.newLastTradeEndDate,
+            state.newLastTradeStartDate
+        );
+        List<UserTrade> userTrades = download(progress, now, UserTrade::getTimestamp, (start, end) -> {
+            var params = (KucoinTradeHistoryParams) tradeService.createTradeHistoryParams();
+            params.setEndTime(new Date(end));
+            params.setStartTime(new Date(start));
+            params.setNextPageCursor(String.valueOf(PAGE));
+            return rateLimiter.call(() -> tradeService.getTradeHistory(params)).getUserTrades();
+        });
+        state.oldFirstTradeDate = progress.oldFirstDate;
+        state.oldLastTradeEndDate = progress.oldLastEndDate;
+        state.oldLastTradeStartDate = progress.oldLastStartDate;
+        state.newLastTradeEndDate = progress.newLastEndDate;
+        state.newLastTradeStartDate = progress.newLastStartDate;
         return userTrades;
     }
 
@@ -261,217 +132,210 @@ public class KuCoinDownloader {
      * To avoid duplicities with fresh txs in state PROCESSING/COMPLETED...We have decided to  download only 1 day old txs
      *
      * @return List<UserTrade>
-     * @throws InterruptedException
      */
-    public List<FundingRecord> downloadFundings(FundingRecord.Type type) throws InterruptedException {
+    public List<FundingRecord> downloadFundings(FundingRecord.Type type) {
         long now = this.now - 24 * 60 * 60 * 1000L;
         LOG.info("KuCoin - starting funding type {} download", type);
         var accountService = exchange.getAccountService();
-        int sentRequests = 0;
-        var oldLastFundingStartDate = type.equals(FundingRecord.Type.WITHDRAWAL) ? state.oldLastWithdrawalStartDate :
-            state.oldLastDepositStartDate;
-        var oldLastFundingEndDate = type.equals(FundingRecord.Type.WITHDRAWAL) ? state.oldLastWithdrawalEndDate :
-            state.oldLastDepositEndDate;
-        var newLastFundingStartDate = type.equals(FundingRecord.Type.WITHDRAWAL) ? state.newLastWithdrawalStartDate :
-            state.newLastDepositStartDate;
-        var newLastFundingEndDate = type.equals(FundingRecord.Type.WITHDRAWAL) ? state.newLastWithdrawalEndDate :
-            state.newLastDepositEndDate;
-        var oldFirstFundingDate = type.equals(FundingRecord.Type.WITHDRAWAL) ? state.oldFirstWithdrawalDate :
-            state.oldFirstDepositDate;
-
-        final List<FundingRecord> userDeposits = new ArrayList<>();
-        var params = (KucoinTradeHistoryParams) accountService.createFundingHistoryParams();
-        // When all old deposits are downloaded - old dates are set to EXCHANGE_START_DATE
-        if (oldLastFundingStartDate == EXCHANGE_START_DATE.getTime() && oldLastFundingEndDate == EXCHANGE_START_DATE.getTime()) {
-            long newStartDate;
-            long newEndDate;
-            // case very first download
-            if (newLastFundingEndDate == 0 && newLastFundingStartDate == 0) {
-                newEndDate = now;
-                newStartDate = newEndDate - WEEK;
-                if (newStartDate < oldFirstFundingDate) {
-                    newStartDate = oldFirstFundingDate;
-                }
-            // case first download has finished and start new one
-            } else if (newLastFundingStartDate == newLastFundingEndDate) {
-                oldFirstFundingDate = newLastFundingStartDate;
-                newEndDate = now;
-                newStartDate = newEndDate - WEEK;
-                if (newStartDate < oldFirstFundingDate) {
-                    newStartDate = oldFirstFundingDate;
-                }
-                // case not finished download
-            } else if (newLastFundingStartDate > 0 && newLastFundingEndDate > 0
-                && newLastFundingStartDate != newLastFundingEndDate) {
-                newEndDate = newLastFundingStartDate;
-                newStartDate = newEndDate - WEEK;
-                if (newStartDate < oldFirstFundingDate) {
-                    newStartDate = oldFirstFundingDate;
-                }
-            } else {
-                throw new IllegalStateException("Funding history download failed. ");
-            }
-
-            while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
-                ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
-                final List<FundingRecord> userDepositsBlock;
-                try {
-                    params.setEndTime(new Date(newEndDate));
-                    params.setStartTime(new Date(newStartDate));
-                    params.setNextPageCursor(String.valueOf(PAGE));
-                    params.setType(type);
-                    userDepositsBlock = accountService.getFundingHistory(params);
-                } catch (Exception e) {
-                    throw new IllegalStateException("Funding history download failed. ", e);
-                }
-                // case too much txs
-                if (userDepositsBlock.size() == PAGE_LIMIT) {
-                    newLastFundingEndDate = newEndDate;
-                    newLastFundingStartDate = newStartDate;
-                    newEndDate = userDepositsBlock.get(0).getDate().getTime();
-                    userDeposits.addAll(userDepositsBlock);
-                    continue;
-                }
-                // case too much txs
-                if (userDepositsBlock.size() > PAGE_LIMIT) {
-                    throw new IllegalStateException(
-                        String.format("User trade history download failed.  Txs in response exceed limit %s", PAGE_LIMIT));
-                }
-                // case standard empty response
-                if (userDepositsBlock.isEmpty() && newStartDate != oldFirstFundingDate) {
-                    newLastFundingEndDate = newEndDate;
-                    newLastFundingStartDate = newStartDate;
-                    newEndDate = newStartDate;
-                    newStartDate = newEndDate - WEEK;
-                    if (newStartDate < oldFirstFundingDate) {
-                        newStartDate = oldFirstFundingDate;
-                    }
-                    continue;
-                }
-
-                // case standard response
-                if (userDepositsBlock.size() > 0 && userDepositsBlock.size() < PAGE_LIMIT) {
-                    newLastFundingEndDate = newEndDate;
-                    newLastFundingStartDate = newStartDate;
-                    newEndDate = newStartDate;
-                    newStartDate = newEndDate - WEEK;
-                    if (newStartDate < oldFirstFundingDate) {
-                        newStartDate = oldFirstFundingDate;
-                    }
-                    userDeposits.addAll(userDepositsBlock);
-                    continue;
-                }
-
-                // case last response in EXCHANGE_START_DATE
-                if (newStartDate == oldFirstFundingDate && newLastFundingEndDate < now) {
-                    newLastFundingStartDate = oldFirstFundingDate;
-                    newLastFundingEndDate = now;
-                    userDeposits.addAll(userDepositsBlock);
-                    break;
-                }
-                LOG.error("KuCoin old trade downloader - Exceptional statement");
-            }
-            // Old Deposits are not downloaded
-
+        boolean withdrawal = type.equals(FundingRecord.Type.WITHDRAWAL);
+        var progress = withdrawal
+            ? new Progress(
+                state.oldFirstWithdrawalDate,
+                state.oldLastWithdrawalEndDate,
+                state.oldLastWithdrawalStartDate,
+                state.newLastWithdrawalEndDate,
+                state.newLastWithdrawalStartDate
+            )
+            : new Progress(
+                state.oldFirstDepositDate,
+                state.oldLastDepositEndDate,
+                state.oldLastDepositStartDate,
+                state.newLastDepositEndDate,
+                state.newLastDepositStartDate
+            );
+
+        List<FundingRecord> userDeposits = download(progress, now, FundingRecord::getDate, (start, end) -> {
+            var params = (KucoinTradeHistoryParams) accountService.createFundingHistoryParams();
+            params.setEndTime(new Date(end));
+            params.setStartTime(new Date(start));
+            params.setNextPageCursor(String.valueOf(PAGE));
+            params.setType(type);
+            return rateLimiter.call(() -> accountService.getFundingHistory(params));
+        });
+        if (withdrawal) {
+            state.oldFirstWithdrawalDate = progress.oldFirstDate;
+            state.oldLastWithdrawalEndDate = progress.oldLastEndDate;
+            state.oldLastWithdrawalStartDate = progress.oldLastStartDate;
+            state.newLastWithdrawalEndDate = progress.newLastEndDate;
+            state.newLastWithdrawalStartDate = progress.newLastStartDate;
         } else {
-            long oldStartDate;
-            long oldEndDate;
+            state.oldFirstDepositDate = progress.oldFirstDate;
+            state.oldLastDepositEndDate = progress.oldLastEndDate;
+            state.oldLastDepositStartDate = progress.oldLastStartDate;
+            state.newLastDepositEndDate = progress.newLastEndDate;
+            state.newLastDepositStartDate = progress.newLastStartDate;
+        }
+        userDeposits.stream().filter(f -> f.getStatus().equals(FundingRecord.Status.COMPLETE)); // only completed
+        return userDeposits;
+    }
 
+    /**
+     * Old data are downloaded from the first download time back to EXCHANGE_START_DATE, when all of them are downloaded,
+     * new data are downloaded from now back to the time downloaded before. Both are downloaded in windows going back
+     * from the last downloaded window.
+     */
+    private <T> List<T> download(Progress progress, long now, Function<T, Date> timestamp, IWindowRequest<T> request) {
+        final long exchangeStart = EXCHANGE_START_DATE.getTime();
+        // When all old data are downloaded, old dates are set to EXCHANGE_START_DATE
+        if (progress.oldLastStartDate != exchangeStart || progress.oldLastEndDate != exchangeStart) {
+            long oldEndDate;
             // case very first start
-            if (oldLastFundingStartDate == 0 && oldLastFundingEndDate == 0) {
-                oldStartDate = now - WEEK;
+            if (progress.oldLastStartDate == 0 && progress.oldLastEndDate == 0) {
                 oldEndDate = now;
-                oldFirstFundingDate = now;
+                progress.oldFirstDate = now;
             // case not finished download
-            } else if (oldLastFundingStartDate > 0 && oldLastFundingEndDate > 0 && oldLastFundingStartDate != oldLastFundingEndDate) {
-                oldEndDate = oldLastFundingStartDate;
-                oldStartDate = oldEndDate - WEEK;
-                if (oldStartDate < EXCHANGE_START_DATE.getTime()) {
-                    oldStartDate = EXCHANGE_START_DATE.getTime();
-                }
+            } else if (progress.oldLastStartDate > 0 && progress.oldLastEndDate > 0
+                && progress.oldLastStartDate != progress.oldLastEndDate) {
+                oldEndDate = progress.oldLastStartDate;
             } else {
                 throw new IllegalStateException("User trade history download failed. ");
             }
+            var windows = downloadWindows(exchangeStart, oldEndDate, timestamp, request);
+            if (windows.finished()) {
+                progress.oldLastStartDate = exchangeStart;
+                progress.oldLastEndDate = exchangeStart;
+            } else if (windows.lastStartDate() != oldEndDate) {
+                progress.oldLastStartDate = windows.lastStartDate();
+                progress.oldLastEndDate = windows.lastEndDate();
+            }
+            return windows.records();
+        }
 
-            while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
-                ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
-                final List<FundingRecord> userDepositsBlock;
-                try {
-                    params.setEndTime(new Date(oldEndDate));
-                    params.setStartTime(new Date(oldStartDate));
-                    params.setNextPageCursor(String.valueOf(PAGE));
-                    params.setType(type);
-                    userDepositsBlock = accountService.getFundingHistory(params);
-                } catch (Exception e) {
-                    throw new IllegalStateException("User trade history download failed. ", e);
-                }
-                // case too much txs
-                if (userDepositsBlock.size() == PAGE_LIMIT) {
-                    oldLastFundingEndDate = oldEndDate;
-                    oldLastFundingStartDate = oldStartDate;
-                    oldEndDate = userDepositsBlock.get(0).getDate().getTime();
-                    userDeposits.addAll(userDepositsBlock);
-                    continue;
-                }
-
-                // case too much txs
-                if (userDepositsBlock.size() > PAGE_LIMIT) {
-                    throw new IllegalStateException(
-                        String.format("User trade history download failed.  Txs in response exceeds limit %s", PAGE_LIMIT));
-                }
+        long newStartDate;
+        long newEndDate;
+        // case very first download
+        if (progress.newLastEndDate == 0 && progress.newLastStartDate == 0) {
+            newEndDate = now;
+            newStartDate = now;
+        // case first download has finished and start new one
+        } else if (progress.newLastStartDate == progress.newLastEndDate) {
+            progress.oldFirstDate = progress.newLastStartDate;
+            newEndDate = now;
+            newStartDate = now;
+        // case not finished download, new end date is kept until the download finishes
+        } else if (progress.newLastStartDate > 0 && progress.newLastEndDate > 0) {
+            newEndDate = progress.newLastEndDate;
+            newStartDate = progress.newLastStartDate;
+        } else {
+            throw new IllegalStateException("User trade history download failed. ");
+        }
+        var windows = downloadWindows(progress.oldFirstDate, newStartDate, timestamp, request);
+        if (windows.finished()) {
+            progress.newLastStartDate = newEndDate;
+            progress.newLastEndDate = newEndDate;
+        } else if (windows.lastStartDate() != newStartDate) {
+            progress.newLastStartDate = windows.lastStartDate();
+            progress.newLastEndDate = newEndDate;
+        }
+        return windows.records();
+    }
 
-                // case standard empty response
-                if (userDepositsBlock.isEmpty() && oldStartDate != EXCHANGE_START_DATE.getTime()) {
-                    oldLastFundingEndDate = oldEndDate;
-                    oldLastFundingStartDate = oldStartDate;
-                    oldEndDate = oldStartDate;
-                    oldStartDate = oldEndDate - WEEK;
-                    if (oldStartDate < EXCHANGE_START_DATE.getTime()) {
-                        oldStartDate = EXCHANGE_START_DATE.getTime();
-                    }
-                    continue;
-                }
-                // case standard not empty response
-                if (userDepositsBlock.size() > 0 && userDepositsBlock.size() < PAGE_LIMIT) {
-                    oldLastFundingEndDate = oldEndDate;
-                    oldLastFundingStartDate = oldStartDate;
-                    oldEndDate = oldStartDate;
-                    oldStartDate = oldEndDate - WEEK;
-                    if (oldStartDate < EXCHANGE_START_DATE.getTime()) {
-                        oldStartDate = EXCHANGE_START_DATE.getTime();
-                    }
-                    userDeposits.addAll(userDepositsBlock);
-                    continue;
+    /**
+     * Downloads week windows from the end date back to the start date. Up to {@link #parallelism} windows are
+     * downloaded at once, their records are merged in the order of windows and a failed window stops the download, so
+     * the last merged window always continues the downloaded ones. The pages of all windows count to
+     * {@link #MAX_TRADE_REQUEST_COUNT}, a window not downloaded within it is left for the next run.
+     */
+    private <T> Windows<T> downloadWindows(long startDate, long endDate, Function<T, Date> timestamp, IWindowRequest<T> request) {
+        final List<T> records = new ArrayList<>();
+        final Deque<Window<T>> running = new ArrayDeque<>();
+        final AtomicInteger sentRequests = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        long nextEndDate = endDate;
+        Window<T> last = null;
+        try {
+            while (true) {
+                while (running.size() < parallelism && nextEndDate > startDate
+                    && sentRequests.incrementAndGet() <= MAX_TRADE_REQUEST_COUNT) {
+                    final long windowEnd = nextEndDate;
+                    final long windowStart = Math.max(windowEnd - WEEK, startDate);
+                    running.add(new Window<>(
+                        windowStart,
+                        windowEnd,
+                        executor.submit(() -> downloadWindow(windowStart, windowEnd, timestamp, request, sentRequests))
+                    ));
+                    nextEndDate = windowStart;
+                }
+                final Window<T> window = running.poll();
+                if (window == null) {
+                    break;
                 }
-                // case last response in EXCHANGE_START_DATE
-                if (oldStartDate == EXCHANGE_START_DATE.getTime()) {
-                    oldLastFundingEndDate = EXCHANGE_START_DATE.getTime();
-                    oldLastFundingStartDate = EXCHANGE_START_DATE.getTime();
-                    userDeposits.addAll(userDepositsBlock);
+                final List<T> windowRecords = window.records().get();
+                if (windowRecords == null) {
                     break;
                 }
-                LOG.error("KuCoin old trade downloader - Exceptional statement");
+                records.addAll(windowRecords);
+                last = window;
             }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("User trade history download failed. ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("User trade history download interrupted. ", e);
+        } finally {
+            executor.shutdownNow();
         }
-        if (type.equals(FundingRecord.Type.WITHDRAWAL)) {
-            state.oldFirstWithdrawalDate = oldFirstFundingDate;
-            state.oldLastWithdrawalEndDate = oldLastFundingEndDate;
-            state.oldLastWithdrawalStartDate = oldLastFundingStartDate;
-            state.newLastWithdrawalEndDate = newLastFundingEndDate;
-            state.newLastWithdrawalStartDate = newLastFundingStartDate;
-        } else {
-            state.oldFirstDepositDate = oldFirstFundingDate;
-            state.oldLastDepositEndDate = oldLastFundingEndDate;
-            state.oldLastDepositStartDate = oldLastFundingStartDate;
-            state.newLastDepositEndDate = newLastFundingEndDate;
-            state.newLastDepositStartDate = newLastFundingStartDate;
+        return last == null
+            ? new Windows<>(records, endDate, endDate, endDate <= startDate)
+            : new Windows<>(records, last.startDate(), last.endDate(), last.startDate() == startDate);
+    }
+
+    private <T> List<T> downloadWindow(
+        long startDate, long endDate, Function<T, Date> timestamp, IWindowRequest<T> request, AtomicInteger sentRequests
+    ) throws IOException {
+        final List<T> records = new ArrayList<>();
+        long pageEndDate = endDate;
+        while (true) {
+            final List<T> block = request.download(startDate, pageEndDate);
+            // case too much txs
+            if (block.size() > PAGE_LIMIT) {
+                throw new IllegalStateException(
+                    String.format("User trade history download failed.  Txs in response exceeds limit %s", PAGE_LIMIT));
+            }
+            records.addAll(block);
+            if (block.size() < PAGE_LIMIT) {
+                return records;
+            }
+            // case too much txs, the rest of the window is downloaded up to the oldest downloaded tx, excluded so
+            // that the next page never repeats this one
+            pageEndDate = block.stream().map(timestamp).mapToLong(Date::getTime).min().orElseThrow() - 1;
+            if (pageEndDate < startDate) {
+                return records;
+            }
+            if (sentRequests.incrementAndGet() > MAX_TRADE_REQUEST_COUNT) {
+                return null; // the window is downloaded again by the next run
+            }
         }
-        userDeposits.stream().filter(f -> f.getStatus().equals(FundingRecord.Status.COMPLETE)); // only completed
-        return userDeposits;
+    }
+
+    private interface IWindowRequest<T> {
+        List<T> download(long startDate, long endDate) throws IOException;
+    }
+
+    private record Window<T>(long startDate, long endDate, Future<List<T>> records) {
+    }
+
+    private record Windows<T>(List<T> records, long lastStartDate, long lastEndDate, boolean finished) {
+    }
+
+    @AllArgsConstructor
+    @FieldDefaults(level = PRIVATE)
+    private static class Progress {
+        long oldFirstDate;
+        long oldLastEndDate;
+        long oldLastStartDate;
+        long newLastEndDate;
+        long newLastStartDate;
     }
 
     @Data
@@ -14,6 +14,7 @@ import org.knowm.xchange.okex.service.OkexAccountServiceRaw;
 import org.knowm.xchange.okex.service.OkexTradeServiceRaw;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -22,18 +23,35 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-// https://www.okex.com/docs/en/#spot-account_information - limit 20 requests per second
 public class OkxDownloader {
+    // https://www.okx.com/docs-v5/en/#rest-api-rate-limit - limits of the history endpoints per user
+    private static final int ORDER_HISTORY_REQUESTS_PER_2_SECONDS = 40;
+    private static final int FUNDING_HISTORY_REQUESTS_PER_SECOND = 6;
+
     private final Exchange exchange;
     private final OkexAccountServiceRaw accountRaw;
     private final OkexTradeServiceRaw tradeRaw;
 
+    private final RequestRateLimiter orderHistoryLimiter;
+    private final RequestRateLimiter withdrawalHistoryLimiter;
+    private final RequestRateLimiter depositHistoryLimiter;
+
     private final DownloadState state;
 
     public OkxDownloader(String downloadState, Exchange exchange) {
         this.exchange = exchange;
         this.accountRaw = (OkexAccountServiceRaw) exchange.getAccountService();
         this.tradeRaw = (OkexTradeServiceRaw) exchange.getTradeService();
+        String apiKey = exchange.getExchangeSpecification().getApiKey();
+        this.orderHistoryLimiter = RequestRateLimiter.of(
+            "okx-orders-history", apiKey, ORDER_HISTORY_REQUESTS_PER_2_SECONDS, Duration.ofSeconds(2), 1
+        );
+        this.withdrawalHistoryLimiter = RequestRateLimiter.of(
+            "okx-withdrawal-history", apiKey, FUNDING_HISTORY_REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1
+        );
+        this.depositHistoryLimiter = RequestRateLimiter.of(
+            "okx-deposit-history", apiKey, FUNDING_HISTORY_REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1
+        );
         this.state = DownloadState.from(downloadState);
     }
 
@@ -53,23 +71,15 @@ public class OkxDownloader {
             boolean reachedLastTrade = false;
 
             for (; ; ) {
-                OkexResponse<List<OkexOrderDetails>> resp;
-                try {
-                    resp = tradeRaw.getOrderHistory(
-                        "SPOT",
-                        null,
-                        null,
-                        afterOrdId, // after
-                        null,       // before
-                        "100"
-                    );
-                } catch (IOException e) {
-                    if (is429(e)) {
-                        sleepQuietly(300);
-                        continue;
-                    }
-                    throw e;
-                }
+                String after = afterOrdId;
+                OkexResponse<List<OkexOrderDetails>> resp = orderHistoryLimiter.call(() -> tradeRaw.getOrderHistory(
+                    "SPOT",
+                    null,
+                    null,
+                    after,      // after
+                    null,       // before
+                    "100"
+                ));
 
                 List<OkexOrderDetails> page = resp.getData();
                 if (page == null || page.isEmpty()) {
@@ -97,9 +107,6 @@ public class OkxDownloader {
                 }
 
                 afterOrdId = page.get(page.size() - 1).getOrderId();
-
-                // OKX rate limiting
-                sleepQuietly(80);
             }
 
         } catch (IOException e) {
@@ -134,14 +141,11 @@ public class OkxDownloader {
         boolean reachedLast = false;
 
         for (; ; ) {
+            String cursor = after;
             OkexResponse<List<OkexWithdrawal>> resp;
             try {
-                resp = accountRaw.getWithdrawalHistory(null, after, null);
+                resp = withdrawalHistoryLimiter.call(() -> accountRaw.getWithdrawalHistory(null, cursor, null));
             } catch (IOException e) {
-                if (is429(e)) {
-                    sleepQuietly(300);
-                    continue;
-                }
                 throw new RuntimeException(e);
             }
 
@@ -172,7 +176,6 @@ public class OkxDownloader {
             }
 
             after = page.get(page.size() - 1).getTs();
-            sleepQuietly(80);
         }
 
         results.sort(Comparator.comparing(FundingRecord::getDate).reversed());
@@ -189,14 +192,11 @@ public class OkxDownloader {
         boolean reachedLast = false;
 
         for (; ; ) {
+            String cursor = after;
             OkexResponse<List<OkexDeposit>> resp;
             try {
-                resp = accountRaw.getDepositHistory(null, after, null);
+                resp = depositHistoryLimiter.call(() -> accountRaw.getDepositHistory(null, cursor, null));
             } catch (IOException e) {
-                if (is429(e)) {
-                    sleepQuietly(300);
-                    continue;
-                }
                 throw new RuntimeException(e);
             }
 
@@ -226,30 +226,16 @@ public class OkxDownloader {
             }
 
             after = page.get(page.size() - 1).getTs();
-            sleepQuietly(80);
         }
 
         results.sort(Comparator.comparing(FundingRecord::getDate).reversed());
         return results;
     }
 
-    private static boolean is429(IOException e) {
-        String msg = e.getMessage();
-        return msg != null && msg.contains("429");
-    }
-
     private static Long parseLongOrNull(String v) {
         if (v == null || v.isBlank()) {
             return null;
         }
         return Long.parseLong(v);
     }
-
-    private static void sleepQuietly(long ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import org.knowm.xchange.exceptions.FrequencyLimitExceededException;
+import org.knowm.xchange.exceptions.RateLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.mazi.rescu.HttpResponseAware;
+import si.mazi.rescu.HttpStatusException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Token bucket limiting requests to one rate limit of an exchange API. Limiters are shared within the JVM by name of
+ * the limit and credential (API key), so that parallel downloads of one account, or of all accounts for limits
+ * counted per IP address, draw from the same bucket.
+ *
+ * <p>Every request takes permits of its weight. The bucket holds at most {@code burst} permits and is refilled with
+ * {@code permits} per {@code period}; a request that does not find enough permits waits until they are refilled, so
+ * requests go out as soon as the published limit allows and their latency overlaps with the refill. When the API
+ * responds with HTTP 429 (or an XChange rate limit exception) the whole bucket pauses for the Retry-After time.</p>
+ */
+public final class RequestRateLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestRateLimiter.class);
+
+    static final int MAX_RETRIES = 5;
+    static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(1);
+    static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(2);
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_IP_BANNED = 418; // Binance answers 418 to IPs ignoring 429
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final SharedLimiters<RequestRateLimiter> LIMITERS = new SharedLimiters<>(RequestRateLimiter::isIdle);
+
+    private final String name;
+    private final double burst;
+    private final double nanosPerPermit;
+    private final LongSupplier nanoClock;
+    private double permits;
+    private long refilledAt;
+    private long pausedUntil;
+
+    RequestRateLimiter(String name, int permits, Duration period, int burst, LongSupplier nanoClock) {
+        if (permits < 1 || burst < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException(
+                String.format("Illegal rate limit %s: %d permits per %s, burst %d.", name, permits, period, burst)
+            );
+        }
+        this.name = name;
+        this.burst = burst;
+        this.nanosPerPermit = (double) period.toNanos() / permits;
+        this.nanoClock = nanoClock;
+        this.permits = burst;
+        this.refilledAt = nanoClock.getAsLong();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * Returns the limiter shared by all requests to the given limit and credential; the limit parameters of the first
+     * call win. Pass {@code null} credential for limits counted per IP address.
+     */
+    public static RequestRateLimiter of(String name, String credential, int permits, Duration period, int burst) {
+        return LIMITERS.get(name, credential, () -> new RequestRateLimiter(name, permits, period, burst, System::nanoTime));
+    }
+
+    public void acquire() {
+        acquire(1);
+    }
+
+    public void acquire(int weight) {
+        long wait = reserve(weight);
+        while (wait > 0) {
+            sleep(wait);
+            wait = remainingPause();
+        }
+    }
+
+    /**
+     * Executes the request once permits of its weight are available. Requests rejected by the rate limit of the API
+     * pause the bucket and are retried at most {@link #MAX_RETRIES} times, other failures are rethrown.
+     */
+    public <T> T call(int weight, IRequest<T> request) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            acquire(weight);
+            try {
+                return request.execute();
+            } catch (IOException | RuntimeException e) {
+                Optional<Duration> retryAfter = findRateLimitRejection(e);
+                if (retryAfter.isEmpty() || attempt > MAX_RETRIES) {
+                    throw e;
+                }
+                Duration pause = retryAfter.get().isZero() ? DEFAULT_BACKOFF.multipliedBy(1L << (attempt - 1)) : retryAfter.get();
+                if (pause.compareTo(MAX_RETRY_AFTER) > 0) {
+                    throw e;
+                }
+                LOG.warn("Rate limit {} exceeded, retrying after {} ms (attempt {}/{}).", name, pause.toMillis(), attempt, MAX_RETRIES);
+                pause(pause);
+            }
+        }
+    }
+
+    public <T> T call(IRequest<T> request) throws IOException {
+        return call(1, request);
+    }
+
+    /**
+     * Stops admitting requests for the given time, requests already waiting for permits wait at least as long.
+     */
+    public synchronized void pause(Duration duration) {
+        long now = nanoClock.getAsLong();
+        long until = now + duration.toNanos();
+        refill(now);
+        permits = Math.min(permits, 0);
+        refilledAt = Math.max(refilledAt, until);
+        pausedUntil = Math.max(pausedUntil, until);
+    }
+
+    /**
+     * Takes permits of the given weight, returns nanoseconds to wait until they are refilled. Missing permits are
+     * borrowed, so that concurrent requests queue up one after another.
+     */
+    synchronized long reserve(int weight) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        permits -= weight;
+        long refillWait = refilledAt - now;
+        return permits >= 0 ? Math.max(0, refillWait) : refillWait + (long) Math.ceil(-permits * nanosPerPermit);
+    }
+
+    private synchronized long remainingPause() {
+        return pausedUntil - nanoClock.getAsLong();
+    }
+
+    private synchronized boolean isIdle() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        return permits >= burst && pausedUntil <= now;
+    }
+
+    private void refill(long now) {
+        if (now > refilledAt) {
+            permits = Math.min(burst, permits + (now - refilledAt) / nanosPerPermit);
+            refilledAt = now;
+        }
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the API rate limit.", e);
+        }
+    }
+
+    /**
+     * Returns the Retry-After time of a rate limit rejection anywhere in the cause chain, zero when the response does
+     * not specify it, or empty when the failure is not a rate limit rejection.
+     */
+    static Optional<Duration> findRateLimitRejection(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof RateLimitExceededException || t instanceof FrequencyLimitExceededException) {
+                return Optional.of(Duration.ZERO);
+            }
+            if (t instanceof HttpStatusException) {
+                int status = ((HttpStatusException) t).getHttpStatusCode();
+                if (status == HTTP_TOO_MANY_REQUESTS || status == HTTP_IP_BANNED) {
+                    return Optional.of(t instanceof HttpResponseAware ? retryAfter((HttpResponseAware) t) : Duration.ZERO);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Duration retryAfter(HttpResponseAware response) {
+        Map<String, List<String>> headers = response.getResponseHeaders();
+        if (headers == null) {
+            return Duration.ZERO;
+        }
+        String value = headers.entrySet().stream()
+            .filter(header -> RETRY_AFTER_HEADER.equalsIgnoreCase(header.getKey()))
+            .flatMap(header -> header.getValue() == null ? Stream.<String>empty() : header.getValue().stream())
+            .findFirst()
+            .map(String::trim)
+            .orElse(null);
+        if (value == null || value.isEmpty()) {
+            return Duration.ZERO;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            try {
+                var date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration untilDate = Duration.between(ZonedDateTime.now(), date);
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            } catch (DateTimeParseException ignored) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    public interface IRequest<T> {
+        T execute() throws IOException;
+    }
+}
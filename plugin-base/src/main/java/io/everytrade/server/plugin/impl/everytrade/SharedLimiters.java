@@ -0,0 +1,76 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Limiters shared within the JVM by name of the limit and credential (API key). Once the registry holds
+ * {@code maxLimiters}, the limiters that are idle and were not handed out for {@code minIdle} are evicted. Every
+ * limiter is evicted under its key, atomically with handing it out, so a limiter just handed out is never replaced by
+ * a second one of the same credential.
+ */
+final class SharedLimiters<T> {
+
+    private static final int MAX_LIMITERS = 1024;
+    private static final Duration MIN_IDLE = Duration.ofMinutes(10);
+
+    private final ConcurrentHashMap<String, Shared<T>> limiters = new ConcurrentHashMap<>();
+    private final int maxLimiters;
+    private final long minIdleNanos;
+    private final Predicate<T> idle;
+    private final LongSupplier nanoClock;
+
+    SharedLimiters(Predicate<T> idle) {
+        this(MAX_LIMITERS, MIN_IDLE, idle, System::nanoTime);
+    }
+
+    SharedLimiters(int maxLimiters, Duration minIdle, Predicate<T> idle, LongSupplier nanoClock) {
+        this.maxLimiters = maxLimiters;
+        this.minIdleNanos = minIdle.toNanos();
+        this.idle = idle;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the limiter of the name and credential, created by the factory when there is none. Pass {@code null}
+     * credential for limits counted per IP address.
+     */
+    T get(String name, String credential, Supplier<T> factory) {
+        Objects.requireNonNull(name);
+        String key = credential == null ? name : name + ":" + credential;
+        if (limiters.size() >= maxLimiters) {
+            evictIdle();
+        }
+        return limiters.compute(key, (k, current) -> {
+            Shared<T> shared = current == null ? new Shared<>(factory.get()) : current;
+            shared.handedOutAt = nanoClock.getAsLong();
+            return shared;
+        }).limiter;
+    }
+
+    int size() {
+        return limiters.size();
+    }
+
+    private void evictIdle() {
+        for (String key : limiters.keySet()) {
+            limiters.computeIfPresent(key, (k, shared) -> {
+                boolean evicted = nanoClock.getAsLong() - shared.handedOutAt >= minIdleNanos && idle.test(shared.limiter);
+                return evicted ? null : shared;
+            });
+        }
+    }
+
+    private static final class Shared<T> {
+        private final T limiter;
+        private long handedOutAt;
+
+        private Shared(T limiter) {
+            this.limiter = limiter;
+        }
+    }
+}
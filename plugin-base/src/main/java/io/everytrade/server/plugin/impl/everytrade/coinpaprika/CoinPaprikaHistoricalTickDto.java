@@ -0,0 +1,15 @@
+package io.everytrade.server.plugin.impl.everytrade.coinpaprika;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoinPaprikaHistoricalTickDto {
+    private String timestamp;
+    private BigDecimal price;
+}
@@ -0,0 +1,26 @@
+package io.everytrade.server.plugin.impl.everytrade.coinpaprika;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.util.List;
+
+@Produces(MediaType.APPLICATION_JSON)
+@Path("/v1")
+public interface CoinPaprikaV1API {
+
+    @GET
+    @Path("/tickers/{coinId}/historical")
+    List<CoinPaprikaHistoricalTickDto> getHistorical(
+        @PathParam("coinId") String coinId,
+        @QueryParam("start") String start,
+        @QueryParam("end") String end,
+        @QueryParam("limit") Integer limit,
+        @QueryParam("quote") String quote,
+        @QueryParam("interval") String interval
+    ) throws IOException;
+}
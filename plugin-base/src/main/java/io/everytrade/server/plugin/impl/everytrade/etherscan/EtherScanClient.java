@@ -11,7 +11,11 @@ public class EtherScanClient {
     EtherScanV1API api;
 
     public EtherScanClient() {
-        this.api = RestProxyFactory.createProxy(EtherScanV1API.class, ETHERSCAN_URL);
+        this(ETHERSCAN_URL);
+    }
+
+    public EtherScanClient(String apiUrl) {
+        this.api = RestProxyFactory.createProxy(EtherScanV1API.class, apiUrl);
     }
 
     public EtherScanDto<List<EtherScanTransactionDto>> getNormalTxsByAddress(
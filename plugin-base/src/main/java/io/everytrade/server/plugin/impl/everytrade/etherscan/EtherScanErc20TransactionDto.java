@@ -19,4 +19,5 @@ public class EtherScanErc20TransactionDto extends EtherScanTransactionDto {
     String tokenName;
     String tokenSymbol;
     int tokenDecimal;
+    int logIndex;
 }
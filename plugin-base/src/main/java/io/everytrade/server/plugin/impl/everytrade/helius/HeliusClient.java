@@ -24,7 +24,11 @@ public class HeliusClient {
     private final HeliusWalletAPI api;
 
     public HeliusClient() {
-        this.api = RestProxyFactory.createProxy(HeliusWalletAPI.class, HELIUS_URL);
+        this(HELIUS_URL);
+    }
+
+    public HeliusClient(String apiUrl) {
+        this.api = RestProxyFactory.createProxy(HeliusWalletAPI.class, apiUrl);
     }
 
     public HeliusResponseDto getTransactionHistory(String address, String apiKey, int limit, String before)
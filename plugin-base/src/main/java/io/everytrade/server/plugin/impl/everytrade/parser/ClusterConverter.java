@@ -0,0 +1,196 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.IParseResultConsumer;
+import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.ClusterValidator;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.ImportValidation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static io.everytrade.server.plugin.api.parser.ParsingProblemType.PARSED_ROW_IGNORED;
+import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
+
+/**
+ * Converts the parsed beans to validated transaction clusters. With a parallelism greater than one the beans are
+ * converted in batches on the given executor while the next rows are parsed, at most {@code 2 * parallelism} batches
+ * of one parse at once. The results of the batches are passed to the
+ * consumer in the order of the rows, the parsing problems reported by the parser in between the beans included, so the
+ * consumer gets the same results in the same order as from the sequential conversion.
+ *
+ * <p>Files fitting a single batch are converted on the calling thread. The executor is shared by the parses, the
+ * batches of a parse that failed are cancelled when the converter is closed.
+ * The beans carry their {@link ParseContext}, so they are converted the same way on any thread.</p>
+ */
+final class ClusterConverter implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterConverter.class);
+
+    static final int BATCH_SIZE = 1024;
+
+    private final IParseResultConsumer consumer;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final Deque<Future<Batch>> running = new ArrayDeque<>();
+    private boolean submitted;
+    private Batch batch = new Batch();
+
+    ClusterConverter(IParseResultConsumer consumer, int parallelism, ExecutorService executor) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Illegal parsing parallelism %d.", parallelism));
+        }
+        this.consumer = consumer;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    void onBean(ExchangeBean bean) {
+        if (parallelism == 1) {
+            convert(bean, consumer);
+            return;
+        }
+        batch.add(bean);
+        if (batch.beans == BATCH_SIZE) {
+            submit();
+        }
+    }
+
+    void onParsingProblem(ParsingProblem parsingProblem) {
+        if (parallelism == 1) {
+            consumer.onParsingProblem(parsingProblem);
+        } else {
+            batch.add(parsingProblem);
+        }
+    }
+
+    /**
+     * Passes the results of all the beans to the consumer, waits for the batches still converted.
+     */
+    void finish() {
+        if (!submitted) {
+            batch.convert().replay(consumer);
+        } else {
+            submit();
+            while (!running.isEmpty()) {
+                take().replay(consumer);
+            }
+        }
+        batch = new Batch();
+    }
+
+    @Override
+    public void close() {
+        running.forEach(future -> future.cancel(true));
+        running.clear();
+    }
+
+    private void submit() {
+        submitted = true;
+        // the converted batches wait for the consumer, their number is bounded to keep the memory flat
+        while (running.size() >= 2 * parallelism) {
+            take().replay(consumer);
+        }
+        running.add(executor.submit(batch::convert));
+        batch = new Batch();
+    }
+
+    private Batch take() {
+        try {
+            return running.poll().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Transaction cluster conversion failed. ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transaction cluster conversion interrupted. ", e);
+        }
+    }
+
+    static void convert(ExchangeBean bean, IParseResultConsumer consumer) {
+        TransactionCluster cluster;
+        try {
+            cluster = bean.toTransactionCluster();
+            if (cluster == null) {
+                return;
+            }
+            ImportValidation.validateClusterOrThrow(cluster);
+            ClusterValidator.clusterValidator(cluster);
+        } catch (DataIgnoredException e) {
+            consumer.onParsingProblem(new ParsingProblem(bean.rowToString(), e.getMessage(), PARSED_ROW_IGNORED));
+            return;
+        } catch (Exception e) {
+            // the beans created from groups of rows without a row of their own are not reported
+            if (bean.hasRowValues()) {
+                consumer.onParsingProblem(new ParsingProblem(bean.rowToString(), e.getMessage(), ROW_PARSING_FAILED));
+            } else {
+                LOG.debug("Transaction cluster of row {} without row values failed. {}", bean.getRowId(), e.getMessage());
+            }
+            return;
+        }
+        consumer.onTransactionCluster(cluster);
+    }
+
+    /**
+     * Beans, clusters and parsing problems in the order of the rows.
+     */
+    private static final class Batch implements IParseResultConsumer {
+        private final List<Object> items = new ArrayList<>();
+        private int beans;
+
+        private void add(ExchangeBean bean) {
+            items.add(bean);
+            beans++;
+        }
+
+        private void add(ParsingProblem parsingProblem) {
+            items.add(parsingProblem);
+        }
+
+        private Batch convert() {
+            var converted = new Batch();
+            for (Object item : items) {
+                if (item instanceof ExchangeBean) {
+                    ClusterConverter.convert((ExchangeBean) item, converted);
+                } else {
+                    converted.items.add(item);
+                }
+            }
+            return converted;
+        }
+
+        private void replay(IParseResultConsumer target) {
+            for (Object item : items) {
+                if (item instanceof TransactionCluster) {
+                    target.onTransactionCluster((TransactionCluster) item);
+                } else {
+                    target.onParsingProblem((ParsingProblem) item);
+                }
+            }
+        }
+
+        @Override
+        public void onTransactionCluster(TransactionCluster transactionCluster) {
+            items.add(transactionCluster);
+        }
+
+        @Override
+        public void onParsingProblem(ParsingProblem parsingProblem) {
+            items.add(parsingProblem);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled date-time formatters shared by all parsers, so that the formatter of a pattern is not built again for every
+ * row. Formatters are immutable and thread-safe. The registry is bounded, it starts over when the limit of patterns is
+ * reached (patterns are constants of the parsers, so the limit is reached only by misuse).
+ */
+public final class DateTimeFormatters {
+
+    static final int MAX_FORMATTERS = 512;
+    private static final ConcurrentHashMap<Key, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private DateTimeFormatters() {
+    }
+
+    /**
+     * Same as {@link DateTimeFormatter#ofPattern(String)}, i.e. with the default locale.
+     */
+    public static DateTimeFormatter of(String pattern) {
+        return of(pattern, Locale.getDefault(Locale.Category.FORMAT), null);
+    }
+
+    public static DateTimeFormatter of(String pattern, Locale locale) {
+        return of(pattern, locale, null);
+    }
+
+    /**
+     * Same as {@link DateTimeFormatter#ofPattern(String, Locale)} with the zone override, {@code null} zone means no
+     * override.
+     */
+    public static DateTimeFormatter of(String pattern, Locale locale, ZoneId zone) {
+        var key = new Key(Objects.requireNonNull(pattern), Objects.requireNonNull(locale), zone);
+        DateTimeFormatter formatter = FORMATTERS.get(key);
+        if (formatter != null) {
+            return formatter;
+        }
+        formatter = DateTimeFormatter.ofPattern(pattern, locale);
+        if (zone != null) {
+            formatter = formatter.withZone(zone);
+        }
+        if (FORMATTERS.size() >= MAX_FORMATTERS) {
+            FORMATTERS.clear();
+        }
+        DateTimeFormatter registered = FORMATTERS.putIfAbsent(key, formatter);
+        return registered == null ? formatter : registered;
+    }
+
+    static int size() {
+        return FORMATTERS.size();
+    }
+
+    private record Key(String pattern, Locale locale, ZoneId zone) {
+    }
+}
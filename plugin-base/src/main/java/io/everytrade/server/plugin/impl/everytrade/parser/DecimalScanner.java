@@ -0,0 +1,101 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Single pass scanner of the plain decimal numbers of the exports, e.g. {@code 2100}, {@code -0.5}, {@code 2,100.00}
+ * or {@code 2100,00}. The number is built from the scanned digits directly, without normalizing the string first.
+ *
+ * <p>A value is scanned when it has an optional leading sign, at most 18 significant digits and a single decimal
+ * separator. The separator is the dot, commas are thousands separators then; without a dot a single comma is the
+ * separator. Other values (exponents, blanks, several separators, too many digits, ...) are not scanned, null is
+ * returned and the caller parses them the general way.</p>
+ */
+public final class DecimalScanner {
+
+    private static final int MAX_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private DecimalScanner() {
+    }
+
+    /**
+     * Returns the number with the scale as written, or null when the value is not a plain decimal number.
+     */
+    public static BigDecimal scan(String value) {
+        return scan(value, false, -1, null);
+    }
+
+    /**
+     * Returns the absolute value of the number set to the scale, or null when the value is not a plain decimal number.
+     */
+    public static BigDecimal scanAbsolute(String value, int scale, RoundingMode roundingMode) {
+        if (scale < 0) {
+            throw new IllegalArgumentException("Negative scale " + scale + ".");
+        }
+        return scan(value, true, scale, roundingMode);
+    }
+
+    private static BigDecimal scan(String value, boolean absolute, int newScale, RoundingMode roundingMode) {
+        int length = value.length();
+        int start = 0;
+        boolean negative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            start = 1;
+        }
+        long unscaled = 0;
+        boolean hasDigits = false;
+        int digits = 0;
+        int dots = 0;
+        int commas = 0;
+        int digitsAfterDot = 0;
+        int digitsAfterComma = 0;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigits = true;
+                // leading zeros are not significant
+                if ((unscaled != 0 || c != '0') && ++digits > MAX_DIGITS) {
+                    return null;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (dots > 0) {
+                    digitsAfterDot++;
+                }
+                if (commas > 0) {
+                    digitsAfterComma++;
+                }
+            } else if (c == '.') {
+                dots++;
+            } else if (c == ',') {
+                commas++;
+            } else {
+                return null;
+            }
+        }
+        if (!hasDigits || dots > 1 || (dots == 0 && commas > 1)) {
+            return null;
+        }
+        int scale = dots > 0 ? digitsAfterDot : digitsAfterComma;
+        if (negative && !absolute) {
+            unscaled = -unscaled;
+        }
+        if (newScale < 0 || newScale == scale) {
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+        int shift = newScale - scale;
+        if (shift > 0 && shift < POWERS_OF_TEN.length && Math.abs(unscaled) <= Long.MAX_VALUE / POWERS_OF_TEN[shift]) {
+            return BigDecimal.valueOf(unscaled * POWERS_OF_TEN[shift], newScale);
+        }
+        return BigDecimal.valueOf(unscaled, scale).setScale(newScale, roundingMode);
+    }
+}
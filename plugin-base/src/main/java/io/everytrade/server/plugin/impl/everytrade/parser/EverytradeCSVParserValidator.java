@@ -27,6 +27,10 @@ public class EverytradeCSVParserValidator {
         if(value == null) {
             return null;
         }
+        BigDecimal scanned = DecimalScanner.scan(value);
+        if (scanned != null) {
+            return scanned;
+        }
         // e.g. 2,100.00
         if (value.contains(",") && value.contains(".")) {
             value = value.replace(",", "");
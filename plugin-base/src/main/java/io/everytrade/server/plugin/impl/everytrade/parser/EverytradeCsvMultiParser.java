@@ -2,13 +2,15 @@ package io.everytrade.server.plugin.impl.everytrade.parser;
 
 import io.everytrade.server.plugin.api.IPlugin;
 import io.everytrade.server.plugin.api.parser.ICsvParser;
+import io.everytrade.server.plugin.api.parser.IParseResultConsumer;
 import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.ParseResultCollector;
 import io.everytrade.server.plugin.api.parser.ParserDescriptor;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.csv.CsvHeader;
+import io.everytrade.server.plugin.csv.CsvHeaderIndex;
 import io.everytrade.server.plugin.impl.everytrade.WhaleBooksPlugin;
-import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.UnknownHeaderException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.AnycoinExchangeSpecificParserV1;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.BinanceExchangeSpecificParserV4;
@@ -20,7 +22,6 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.CoinbankExcha
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.CoinbaseExchangeSpecificParser;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.CoinbaseUnivocitySpecificParserV1;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.DefaultUnivocityExchangeSpecificParser;
-import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IMultiExchangeSpecificParser;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.KrakenDoubleQuotesUnivocitySpecificParserV1;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.KrakenExchangeSpecificParser;
@@ -107,24 +108,21 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.okx.OkxWdrlDe
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.simplecoin.SimplecoinBeanV2;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.trezorSuite.TrezorSuiteBeanV1;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.trezorSuite.TrezorSuiteExchangeSpecificParser;
-import io.everytrade.server.plugin.impl.everytrade.parser.utils.ClusterValidator;
-import io.everytrade.server.plugin.impl.everytrade.parser.utils.ImportValidation;
-import io.everytrade.server.plugin.impl.everytrade.parser.utils.ProfileContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.FileInputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static io.everytrade.server.model.SupportedExchange.ANYCOIN;
 import static io.everytrade.server.model.SupportedExchange.AQUANOW;
@@ -164,8 +162,6 @@ import static io.everytrade.server.model.SupportedExchange.SHAKEPAY;
 import static io.everytrade.server.model.SupportedExchange.SIMPLECOIN;
 import static io.everytrade.server.model.SupportedExchange.TREZOR_SUITE;
 import static io.everytrade.server.model.SupportedExchange.WALLET_OF_SATOSHI;
-import static io.everytrade.server.plugin.api.parser.ParsingProblemType.PARSED_ROW_IGNORED;
-import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
 import static java.util.Map.entry;
 import static java.util.stream.Collectors.toMap;
 
@@ -173,9 +169,16 @@ public class EverytradeCsvMultiParser implements ICsvParser {
     private static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "everytradeParser";
     private static final String DELIMITER_COMMA = ",";
     private static final String DELIMITER_SEMICOLON = ";";
-    private static final String LINE_SEPARATOR = "\n";
     private static final List<String> DELIMITERS = List.of(DELIMITER_COMMA,DELIMITER_SEMICOLON);
     private static final int MAX_PREFIX_ROWS_TO_SCAN = 10;
+    // threads converting the parsed beans to transaction clusters, 1 converts them on the parsing thread
+    private static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // shared by all the parses, so parallel imports don't start threads of their own
+    private static final ExecutorService CONVERSION_EXECUTOR = Executors.newFixedThreadPool(DEFAULT_PARALLELISM, runnable -> {
+        Thread thread = new Thread(runnable, "everytrade-cluster-converter");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private static final List<ExchangeParseDetail> EXCHANGE_PARSE_DETAILS = new ArrayList<>();
 
@@ -931,7 +934,7 @@ public class EverytradeCsvMultiParser implements ICsvParser {
                         .of("Order ID", "Trade ID", "Trade Time", "Pairs", "Amount", "Price", "Total", "taker/maker", "Fee", "unit")
                         .withSeparator(delimiter)
                 ))
-                .parserFactory(() -> new DefaultUnivocityExchangeSpecificParser(OkxBeanV1.class, delimiter, LINE_SEPARATOR))
+                .parserFactory(() -> new DefaultUnivocityExchangeSpecificParser(OkxBeanV1.class, delimiter))
                 .supportedExchange(OKX)
                 .build());
 
@@ -1376,7 +1379,28 @@ public class EverytradeCsvMultiParser implements ICsvParser {
             .collect(toMap(Map.Entry::getKey, Map.Entry::getValue))
     );
 
+    private static final CsvHeaderIndex<ExchangeParseDetail> HEADER_INDEX =
+        CsvHeaderIndex.of(EXCHANGE_PARSE_DETAILS, ExchangeParseDetail::getHeaders);
+
     private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final int parallelism;
+    private final ParseContext.FileOpener fileOpener;
+
+    public EverytradeCsvMultiParser() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    public EverytradeCsvMultiParser(int parallelism) {
+        this(parallelism, ParseContext.DEFAULT.getFileOpener());
+    }
+
+    EverytradeCsvMultiParser(int parallelism, ParseContext.FileOpener fileOpener) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Illegal parsing parallelism %d.", parallelism));
+        }
+        this.parallelism = parallelism;
+        this.fileOpener = fileOpener;
+    }
 
     @Override
     public String getId() {
@@ -1390,63 +1414,59 @@ public class EverytradeCsvMultiParser implements ICsvParser {
 
     @Override
     public ParseResult parse(File file, String header, String profileName) {
+        var collector = new ParseResultCollector();
+        parse(file, header, profileName, collector);
+        return collector.toParseResult();
+    }
+
+    /**
+     * Single-row parsers push every transaction cluster to the consumer as soon as its row is parsed, so memory
+     * doesn't grow with the file size. Multi-row parsers need all the rows to group them, their beans are collected
+     * first; the Binance v4 parser groups the rows as they are read, see {@link BinanceExchangeSpecificParserV4}. The
+     * beans are converted to transaction clusters and validated in up to {@link #parallelism} batches at once on the
+     * threads shared by all the parses, the results are passed to the consumer in the order of the rows.
+     */
+    @Override
+    public void parse(File file, String header, String profileName, IParseResultConsumer consumer) {
         var exchangeParseDetail = findCsvDetailByHeader(header);
         if (exchangeParseDetail == null) {
             throw new UnknownHeaderException(String.format("Unknown header: '%s'", header));
         }
 
-        ProfileContext.set(profileName);
-
-        File fileToProcess = skipPrefixRows(file, exchangeParseDetail);
-        boolean usingTempFile = !file.equals(fileToProcess);
-
-        try {
+        var parseContext = ParseContext.of(profileName)
+            .withFileOpener(fileOpener)
+            .withPrefixRows(countPrefixRows(file, exchangeParseDetail));
+        var counter = new CountingConsumer(consumer);
+        try (var converter = new ClusterConverter(counter, parallelism, CONVERSION_EXECUTOR)) {
             var exchangeParser = exchangeParseDetail.getParserFactory().get();
-            var listBeans = exchangeParser.parse(fileToProcess);
-            var parsingProblems = new ArrayList<>(exchangeParser.getParsingProblems());
-
             if (exchangeParser instanceof IMultiExchangeSpecificParser) {
+                var listBeans = exchangeParser.parse(file, parseContext);
+                exchangeParser.getParsingProblems().forEach(converter::onParsingProblem);
                 listBeans = ((IMultiExchangeSpecificParser) exchangeParser).convertMultipleRowsToTransactions(listBeans);
+                // the beans created from the groups of rows too
+                listBeans.forEach(bean -> bean.setParseContext(parseContext));
+                listBeans.forEach(converter::onBean);
+            } else {
+                exchangeParser.parse(file, parseContext, converter::onBean, converter::onParsingProblem);
             }
-
-            List<TransactionCluster> transactionClusters = new ArrayList<>();
-            for (ExchangeBean p : listBeans) {
-                try {
-                    var cluster = p.toTransactionCluster();
-                    if (cluster != null) {
-                        ImportValidation.validateClusterOrThrow(cluster);
-                        ClusterValidator.clusterValidator(cluster);
-                        transactionClusters.add(cluster);
-                    }
-                } catch (DataIgnoredException e) {
-                    parsingProblems.add(new ParsingProblem(p.rowToString(), e.getMessage(), PARSED_ROW_IGNORED));
-                } catch (Exception e) {
-                    if (p.getRowValues() != null) {
-                        parsingProblems.add(new ParsingProblem(p.rowToString(), e.getMessage(), ROW_PARSING_FAILED));
-                    }
-                }
-            }
+            converter.finish();
 
             log.info(
                 "{} transaction cluster(s) with {} transactions parsed successfully.",
-                transactionClusters.size(),
-                countTransactions(transactionClusters)
+                counter.transactionClusters,
+                counter.transactions
             );
-            if (!parsingProblems.isEmpty()) {
-                log.warn("{} row(s) not parsed.", parsingProblems.size());
-            }
-
-            return new ParseResult(transactionClusters, parsingProblems);
-        } finally {
-            if (usingTempFile) {
-                fileToProcess.delete();
+            if (counter.parsingProblems > 0) {
+                log.warn("{} row(s) not parsed.", counter.parsingProblems);
             }
-            ProfileContext.clear();
         }
     }
 
-
-    private File skipPrefixRows(File file, ExchangeParseDetail detail) {
+    /**
+     * Finds the known header within the first rows of the file. The rows preceding it are skipped by the exchange
+     * parser in the stream it parses the file from, see {@link ParseContext#openReader}.
+     */
+    private int countPrefixRows(File file, ExchangeParseDetail detail) {
         try (var reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
             for (int i = 0; i <= MAX_PREFIX_ROWS_TO_SCAN; i++) {
                 String line = reader.readLine();
@@ -1455,20 +1475,7 @@ public class EverytradeCsvMultiParser implements ICsvParser {
                 }
                 boolean lineMatchesHeader = detail.getHeaders().stream().anyMatch(h -> h.matching(line));
                 if (lineMatchesHeader) {
-                    if (i == 0) {
-                        return file;
-                    }
-                    File tempFile = File.createTempFile("everytrade_prefix_stripped_", ".csv");
-                    try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
-                        writer.write(line);
-                        writer.newLine();
-                        String dataLine;
-                        while ((dataLine = reader.readLine()) != null) {
-                            writer.write(dataLine);
-                            writer.newLine();
-                        }
-                    }
-                    return tempFile;
+                    return i;
                 }
             }
         } catch (IOException e) {
@@ -1479,24 +1486,35 @@ public class EverytradeCsvMultiParser implements ICsvParser {
                 MAX_PREFIX_ROWS_TO_SCAN + 1, file.getName()));
     }
 
-    private ExchangeParseDetail findCsvDetailByHeader(String header) {
-        return EXCHANGE_PARSE_DETAILS.stream()
-            .flatMap(detail ->
-                detail.getHeaders().stream()
-                    .filter(h -> h.matching(header))
-                    .map(h -> Map.entry(detail, h))
-            )
-            .max(Comparator.comparingInt(e -> e.getValue().getHeaderValues().size()))
-            .map(Map.Entry::getKey)
-            .orElse(null);
+    static ExchangeParseDetail findCsvDetailByHeader(String header) {
+        return HEADER_INDEX.find(header);
     }
 
-    private int countTransactions(List<TransactionCluster> transactionClusters) {
-        int counter = 0;
-        for (TransactionCluster transactionCluster : transactionClusters) {
-            counter = counter + 1 + transactionCluster.getRelated().size();
-        }
-        return counter;
+    static List<ExchangeParseDetail> getExchangeParseDetails() {
+        return Collections.unmodifiableList(EXCHANGE_PARSE_DETAILS);
     }
 
+    private static final class CountingConsumer implements IParseResultConsumer {
+        private final IParseResultConsumer delegate;
+        private int transactionClusters;
+        private int transactions;
+        private int parsingProblems;
+
+        private CountingConsumer(IParseResultConsumer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onTransactionCluster(TransactionCluster transactionCluster) {
+            transactionClusters++;
+            transactions = transactions + 1 + transactionCluster.getRelated().size();
+            delegate.onTransactionCluster(transactionCluster);
+        }
+
+        @Override
+        public void onParsingProblem(ParsingProblem parsingProblem) {
+            parsingProblems++;
+            delegate.onParsingProblem(parsingProblem);
+        }
+    }
 }
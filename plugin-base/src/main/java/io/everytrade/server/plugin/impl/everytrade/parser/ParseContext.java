@@ -0,0 +1,119 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.DateTimeFormatDetector;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.StatusRulesRegistry;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Settings of a single parse of a file. It's passed to the exchange specific parser and set to every parsed bean, so
+ * that files with different settings can be parsed concurrently and the beans can be converted on any thread.
+ */
+@Value
+public class ParseContext {
+
+    public static final String DEFAULT_PROFILE = "default";
+    private static final FileOpener UTF_8_FILE = file -> new FileReader(file, StandardCharsets.UTF_8);
+    public static final ParseContext DEFAULT = new ParseContext(DEFAULT_PROFILE, 0, UTF_8_FILE, null);
+
+    /**
+     * Profile of the import, e.g. selecting the rules of the imported General Bytes statuses in
+     * {@link StatusRulesRegistry}.
+     */
+    @NonNull
+    String profile;
+
+    /**
+     * Number of the rows preceding the header of the file (e.g. a title of the report), see {@link #openReader}.
+     */
+    int prefixRows;
+
+    /**
+     * Opens the parsed file, see {@link #openReader}. The tests count the reads of the file with it.
+     */
+    @NonNull
+    FileOpener fileOpener;
+
+    /**
+     * Date format detectors of the parse, see {@link #dateFormatDetector}. It's null in {@link #DEFAULT}, which is
+     * shared by all parses without a context of their own.
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<Supplier<DateTimeFormatDetector>, DateTimeFormatDetector> dateFormatDetectors;
+
+    /**
+     * Creates the context of a new parse, the parse has its own date format detectors.
+     */
+    public static ParseContext of(String profileName) {
+        return new ParseContext(
+            profileName == null ? DEFAULT_PROFILE : profileName, 0, UTF_8_FILE, new ConcurrentHashMap<>()
+        );
+    }
+
+    public ParseContext withPrefixRows(int prefixRows) {
+        if (prefixRows < 0) {
+            throw new IllegalArgumentException(String.format("Illegal number of prefix rows %d.", prefixRows));
+        }
+        return prefixRows == this.prefixRows
+            ? this
+            : new ParseContext(profile, prefixRows, fileOpener, dateFormatDetectors);
+    }
+
+    ParseContext withFileOpener(FileOpener fileOpener) {
+        return fileOpener == this.fileOpener
+            ? this
+            : new ParseContext(profile, prefixRows, fileOpener, dateFormatDetectors);
+    }
+
+    /**
+     * Returns the detector created by the factory for this parse, so that the detected date format is reused by the
+     * following rows of the file only. A new detector is returned every time for {@link #DEFAULT}.
+     */
+    public DateTimeFormatDetector dateFormatDetector(Supplier<DateTimeFormatDetector> factory) {
+        if (dateFormatDetectors == null) {
+            return factory.get();
+        }
+        return dateFormatDetectors.computeIfAbsent(factory, key -> factory.get());
+    }
+
+    /**
+     * Opens the file to be read from its header, the prefix rows are skipped in the stream the parser continues from.
+     */
+    public Reader openReader(File file) throws IOException {
+        Reader reader = fileOpener.open(file);
+        if (prefixRows == 0) {
+            return reader;
+        }
+        var bufferedReader = new BufferedReader(reader);
+        try {
+            for (int i = 0; i < prefixRows && bufferedReader.readLine() != null; i++) {
+                // the prefix row is skipped
+            }
+        } catch (IOException e) {
+            bufferedReader.close();
+            throw e;
+        }
+        return bufferedReader;
+    }
+
+    @FunctionalInterface
+    public interface FileOpener {
+        Reader open(File file) throws IOException;
+    }
+}
@@ -15,8 +15,7 @@ public class ParserUtils {
     }
 
     public static Instant parse(String dateTimePattern, String dateTime) {
-        final DateTimeFormatter dateTimeFormatter =
-            DateTimeFormatter.ofPattern(dateTimePattern, Locale.US).withZone(ZoneOffset.UTC);
+        final DateTimeFormatter dateTimeFormatter = DateTimeFormatters.of(dateTimePattern, Locale.US, ZoneOffset.UTC);
 
         return dateTimeFormatter.parse(dateTime, Instant::from);
     }
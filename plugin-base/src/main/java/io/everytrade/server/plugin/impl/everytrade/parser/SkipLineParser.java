@@ -12,9 +12,7 @@ import lombok.experimental.FieldDefaults;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.List;
 
 import static lombok.AccessLevel.PRIVATE;
@@ -31,12 +29,16 @@ public class SkipLineParser implements IExchangeSpecificParser {
 
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
-        File tempFile = skipLines(inputFile);
-        try {
-            return delegate.parse(tempFile);
-        } finally {
-            tempFile.delete();
-        }
+        return parse(inputFile, ParseContext.DEFAULT);
+    }
+
+    /**
+     * The skipped lines are passed to the delegate as prefix rows of the context, it reads the file from the header.
+     */
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, ParseContext parseContext) {
+        int skippedLines = expectedHeader != null ? scanForExpectedHeader(inputFile, parseContext) : linesToSkip;
+        return delegate.parse(inputFile, parseContext.withPrefixRows(parseContext.getPrefixRows() + skippedLines));
     }
 
     @Override
@@ -44,41 +46,19 @@ public class SkipLineParser implements IExchangeSpecificParser {
         return delegate.getParsingProblems();
     }
 
-    private File skipLines(File file) {
-        File tempFile = new File(file.getAbsolutePath() + ".skipped");
-        try (
-            var bufferedReader = new BufferedReader(new FileReader(file));
-            var printWriter = new PrintWriter(tempFile)
-        ) {
-            String headerLine;
-            if (expectedHeader != null) {
-                headerLine = scanForExpectedHeader(bufferedReader);
-            } else {
-                for (int i = 0; i < linesToSkip; i++) {
-                    bufferedReader.readLine(); // skip line
+    private int scanForExpectedHeader(File file, ParseContext parseContext) {
+        try (var bufferedReader = new BufferedReader(parseContext.openReader(file))) {
+            for (int i = 0; i <= linesToSkip; i++) {
+                String line = bufferedReader.readLine();
+                if (line == null) {
+                    break;
+                }
+                if (expectedHeader.matching(line)) {
+                    return i;
                 }
-                headerLine = bufferedReader.readLine();
-            }
-            printWriter.println(headerLine);
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                printWriter.println(line);
             }
         } catch (IOException e) {
-            throw new ParsingProcessException("s");
-        }
-        return tempFile;
-    }
-
-    private String scanForExpectedHeader(BufferedReader bufferedReader) throws IOException {
-        for (int i = 0; i <= linesToSkip; i++) {
-            String line = bufferedReader.readLine();
-            if (line == null) {
-                break;
-            }
-            if (expectedHeader.matching(line)) {
-                return line;
-            }
+            throw new ParsingProcessException(String.format("Unable to read file '%s'. %s", file.getName(), e.getMessage()));
         }
         throw new ParsingProcessException(
             String.format("Expected header not found within the first %d lines", linesToSkip + 1)
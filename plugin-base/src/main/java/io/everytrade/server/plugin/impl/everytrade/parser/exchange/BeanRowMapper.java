@@ -0,0 +1,315 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
+
+import com.univocity.parsers.annotations.Parsed;
+import com.univocity.parsers.annotations.helpers.AnnotationHelper;
+import com.univocity.parsers.annotations.helpers.FieldMapping;
+import com.univocity.parsers.annotations.helpers.MethodFilter;
+import com.univocity.parsers.common.DataProcessingException;
+import com.univocity.parsers.common.NormalizedString;
+import com.univocity.parsers.conversions.Conversion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Maps parsed rows to beans annotated by univocity's {@link Parsed}. The setters and the constructor of the bean are
+ * resolved once per bean class and called through generated lambdas, the columns and the conversions of the values
+ * once per header - the same ones univocity's bean processor would apply, so that the beans are filled the same way
+ * without reflection per cell.
+ *
+ * <p>Not thread-safe, the conversions (e.g. of dates) keep state. Beans whose mapping can't be compiled (e.g. with
+ * annotated fields or primitive setters, which univocity handles specially) are left to univocity.</p>
+ */
+public final class BeanRowMapper<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BeanRowMapper.class);
+    private static final int NOT_FOUND = -1;
+    private static final int AMBIGUOUS = -2;
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<BeanType> BEAN_TYPES = new ClassValue<>() {
+        @Override
+        protected BeanType computeValue(Class<?> beanClass) {
+            return BeanType.of(beanClass);
+        }
+    };
+
+    private final Supplier<T> constructor;
+    private final Column[] columns;
+    private final Missing[] missing;
+    private final int propertyCount;
+    private final boolean reordered;
+    private int mappedLength;
+
+    private BeanRowMapper(Supplier<T> constructor, Column[] columns, Missing[] missing, int propertyCount, boolean reordered,
+                          int mappedLength) {
+        this.constructor = constructor;
+        this.columns = columns;
+        this.missing = missing;
+        this.propertyCount = propertyCount;
+        this.reordered = reordered;
+        this.mappedLength = mappedLength;
+    }
+
+    /**
+     * Returns the mapper of rows with the given header, or null when the bean is not supported or the header is
+     * ambiguous for it.
+     *
+     * @param extractedIndexes indexes of the header columns selected for parsing, null when all columns are parsed
+     * @param reordered        whether a row has the values of the selected columns only (in their order)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanRowMapper<T> compile(Class<T> beanClass, String[] headers, int[] extractedIndexes, boolean reordered) {
+        BeanType beanType = BEAN_TYPES.get(beanClass);
+        if (beanType.constructor == null || headers == null || (reordered && extractedIndexes == null)) {
+            return null;
+        }
+        try {
+            NormalizedString[] normalizedHeaders = NormalizedString.toIdentifierGroupArray(headers);
+            List<Column> columns = new ArrayList<>();
+            List<Missing> missing = new ArrayList<>();
+            Set<Integer> mappedIndexes = new HashSet<>();
+            int mappedLength = headers.length;
+            for (Property property : beanType.properties) {
+                var mapping = new FieldMapping(beanClass, property.method, null, null, normalizedHeaders);
+                int index = mapping.isMappedToIndex() ? mapping.getIndex() : indexOf(normalizedHeaders, mapping.getFieldName());
+                if (index == AMBIGUOUS || (index >= 0 && !mappedIndexes.add(index))) {
+                    return null;
+                }
+                mappedLength = Math.max(mappedLength, index + 1);
+                if (index >= 0 && extractedIndexes != null) {
+                    int position = indexOf(extractedIndexes, index);
+                    index = position < 0 || reordered ? position : index;
+                }
+                Conversion<Object, Object>[] conversions = conversions(property.method);
+                if (index >= 0) {
+                    columns.add(new Column(index, conversions, property.setter, mapping.toString()));
+                } else {
+                    Object value = convert(conversions, null);
+                    if (value != null) {
+                        missing.add(new Missing(value, property.setter));
+                    }
+                }
+            }
+            columns.sort(Comparator.comparingInt(Column::index));
+            return new BeanRowMapper<>(
+                (Supplier<T>) beanType.constructor,
+                columns.toArray(Column[]::new),
+                missing.toArray(Missing[]::new),
+                beanType.properties.size(),
+                reordered,
+                reordered ? extractedIndexes.length : mappedLength
+            );
+        } catch (RuntimeException e) {
+            LOG.debug("Rows of {} are mapped by univocity: {}", beanClass.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fills a new bean by the values of the row. Conversion errors and exceptions of the setters are thrown as they
+     * are (data processing exceptions of the setters with the details univocity adds), the problem reported for the row
+     * is left to univocity.
+     */
+    public T map(String[] row) {
+        return map(row, bean -> { });
+    }
+
+    /**
+     * Fills a new bean by the values of the row, the initializer is called on the bean before its values are set.
+     */
+    public T map(String[] row, Consumer<? super T> initializer) {
+        T bean = constructor.get();
+        initializer.accept(bean);
+        for (Column column : columns) {
+            String value = column.index < row.length ? row[column.index] : null;
+            Object converted = convert(column.conversions, value);
+            try {
+                column.setter.accept(bean, converted);
+            } catch (DataProcessingException e) {
+                e.markAsNonFatal();
+                e.setValue(converted);
+                e.setDetails(converted == null
+                    ? "Unable to set value 'null' to " + column.description
+                    : "Unable to set value '{value}' of type '" + converted.getClass().getName() + "' to " + column.description);
+                throw e;
+            }
+        }
+        // as univocity, the properties not in the row get the (shared) value of an empty cell only while the longest
+        // row seen so far has fewer columns than the bean has properties
+        if (!reordered && row.length > mappedLength) {
+            mappedLength = row.length;
+        }
+        if (mappedLength < propertyCount) {
+            for (Missing property : missing) {
+                property.setter.accept(bean, property.value);
+            }
+        }
+        return bean;
+    }
+
+    private static int indexOf(int[] indexes, int index) {
+        for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i] == index) {
+                return i;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private static int indexOf(NormalizedString[] headers, NormalizedString name) {
+        int index = NOT_FOUND;
+        for (int i = 0; name != null && i < headers.length; i++) {
+            if (name.equals(headers[i])) {
+                if (index != NOT_FOUND) {
+                    return AMBIGUOUS;
+                }
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static Object convert(Conversion<Object, Object>[] conversions, Object value) {
+        for (Conversion<Object, Object> conversion : conversions) {
+            value = conversion.execute(value);
+        }
+        return value;
+    }
+
+    /**
+     * The conversions univocity's bean processor applies to the values of the property: those of the annotations
+     * followed by the default conversion to the type of the property, unless the last one converts to it already.
+     */
+    @SuppressWarnings("unchecked")
+    private static Conversion<Object, Object>[] conversions(Method method) {
+        List<Conversion<Object, Object>> conversions = new ArrayList<>();
+        for (Annotation annotation : AnnotationHelper.findAllAnnotationsInPackage(method, Parsed.class.getPackage())) {
+            Conversion<Object, Object> conversion = AnnotationHelper.getConversion(method, annotation);
+            if (conversion != null) {
+                conversions.add(conversion);
+            }
+        }
+        Parsed parsed = AnnotationHelper.findAnnotation(method, Parsed.class);
+        if (parsed.applyDefaultConversion()) {
+            Conversion<Object, Object> defaultConversion = AnnotationHelper.getDefaultConversion(method);
+            Conversion<Object, Object> last = conversions.isEmpty() ? null : conversions.get(conversions.size() - 1);
+            if (applyDefaultConversion(last, defaultConversion)) {
+                conversions.add(defaultConversion);
+            }
+        }
+        return conversions.toArray(Conversion[]::new);
+    }
+
+    private static boolean applyDefaultConversion(Conversion<?, ?> last, Conversion<?, ?> defaultConversion) {
+        if (defaultConversion == null) {
+            return false;
+        }
+        if (last == null) {
+            return true;
+        }
+        if (last.getClass() == defaultConversion.getClass()) {
+            return false;
+        }
+        return conversionMethod(last, "execute").getReturnType() != conversionMethod(defaultConversion, "execute").getReturnType()
+            || conversionMethod(last, "revert").getReturnType() != conversionMethod(defaultConversion, "revert").getReturnType();
+    }
+
+    private static Method conversionMethod(Conversion<?, ?> conversion, String name) {
+        Method found = null;
+        for (Method method : conversion.getClass().getMethods()) {
+            if (method.getName().equals(name) && !method.isSynthetic() && !method.isBridge()
+                && Modifier.isPublic(method.getModifiers()) && method.getParameterCount() == 1 && method.getReturnType() != void.class
+            ) {
+                if (found != null) {
+                    throw new IllegalStateException(String.format("Multiple '%s' methods in %s.", name, conversion.getClass()));
+                }
+                found = method;
+            }
+        }
+        if (found == null) {
+            throw new IllegalStateException(String.format("No '%s' method in %s.", name, conversion.getClass()));
+        }
+        return found;
+    }
+
+    private record Column(int index, Conversion<Object, Object>[] conversions, BiConsumer<Object, Object> setter,
+                          String description) {
+    }
+
+    private record Missing(Object value, BiConsumer<Object, Object> setter) {
+    }
+
+    private record Property(Method method, BiConsumer<Object, Object> setter) {
+    }
+
+    /**
+     * The annotated setters of a bean class, the constructor is null when rows of the bean can't be mapped.
+     */
+    private record BeanType(Supplier<?> constructor, List<Property> properties) {
+
+        static BeanType of(Class<?> beanClass) {
+            try {
+                if (!AnnotationHelper.getAnnotatedFields(beanClass, Parsed.class).isEmpty()) {
+                    throw new IllegalStateException("Annotated fields are not supported.");
+                }
+                List<Property> properties = new ArrayList<>();
+                for (Method method : AnnotationHelper.getAllMethods(beanClass, MethodFilter.ONLY_SETTERS)) {
+                    if (AnnotationHelper.findAnnotation(method, Parsed.class) == null) {
+                        continue;
+                    }
+                    if (method.getParameterCount() != 1 || method.getParameterTypes()[0].isPrimitive()) {
+                        throw new IllegalStateException(String.format("Setter %s is not supported.", method));
+                    }
+                    properties.add(new Property(method, setter(method)));
+                }
+                return new BeanType(constructor(beanClass), List.copyOf(properties));
+            } catch (Throwable e) {
+                LOG.debug("Rows of {} are mapped by univocity: {}", beanClass.getName(), e.getMessage());
+                return new BeanType(null, List.of());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Object, Object> setter(Method method) throws Throwable {
+            MethodHandle target = LOOKUP.unreflect(method);
+            CallSite callSite = LambdaMetafactory.metafactory(
+                LOOKUP,
+                "accept",
+                MethodType.methodType(BiConsumer.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                target,
+                MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0])
+            );
+            return (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+        }
+
+        private static Supplier<?> constructor(Class<?> beanClass) throws Throwable {
+            MethodHandle target = LOOKUP.findConstructor(beanClass, MethodType.methodType(void.class));
+            CallSite callSite = LambdaMetafactory.metafactory(
+                LOOKUP,
+                "get",
+                MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class),
+                target,
+                MethodType.methodType(beanClass)
+            );
+            return (Supplier<?>) callSite.getTarget().invokeExact();
+        }
+    }
+}
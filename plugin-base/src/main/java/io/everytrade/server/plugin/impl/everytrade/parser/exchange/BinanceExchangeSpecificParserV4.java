@@ -1,22 +1,22 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import com.univocity.parsers.common.DataValidationException;
+import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceBeanV4;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceGroupWindowV4;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceSortedGroupV4;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.Reader;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static io.everytrade.server.model.TransactionType.AIRDROP;
@@ -30,7 +30,6 @@ import static io.everytrade.server.model.TransactionType.STAKING_REWARD;
 import static io.everytrade.server.model.TransactionType.UNSTAKE;
 import static io.everytrade.server.model.TransactionType.WITHDRAWAL;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_BINANCE_CARD_SPENDING;
-import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_BUY_CRYPTO;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_CASHBACK_VOUCHER;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_ETH2_0_STAKING_REWARDS;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_SAVING_DISTRIBUTION;
@@ -38,38 +37,23 @@ import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binanc
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_SIMPLE_EARN_FLEXIBLE_SUBSCRIPTION;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_SIMPLE_EARN_LOCKED_SUBSCRIPTION;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_SMALL_ASSETS_EXCHANGE_BNB;
-import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_TRANSACTION_REVENUE;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_TRANSFER_BETWEEN_MAIN_ACC_AND_SUB_ACC;
 import static java.math.BigDecimal.ZERO;
 import static java.util.stream.Collectors.groupingBy;
 
-public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpecificParser implements IExchangeSpecificParser,
-    IMultiExchangeSpecificParser<BinanceBeanV4> {
+public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpecificParser implements IExchangeSpecificParser {
 
     private static final long TRANSACTION_MERGE_TOLERANCE_MS = 1000;
-    List<BinanceBeanV4> originalRows;
     List<BinanceBeanV4> unSupportedRows = new ArrayList<>();
     List<BinanceBeanV4> rowsWithOneRowTransactionType = new ArrayList<>();
-    List<BinanceBeanV4> rowsWithMultipleRowTransactionType = new ArrayList<>();
 
     public BinanceExchangeSpecificParserV4(Class<? extends ExchangeBean> exchangeBean, String delimiter, boolean isRowInsideQuotes) {
         super(exchangeBean, delimiter);
     }
 
     @Override
-    protected void correctFile(File file) {
-        try {
-            // Load the entire content of the file into a String
-            String content = Files.lines(file.toPath(), StandardCharsets.UTF_8).collect(Collectors.joining("\n"));
-
-            // Remove all double quotes from the content
-            content = content.replace("\"", "");
-
-            // rewrite the file with the new content
-            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    protected Reader correctReader(Reader reader) {
+        return CsvCorrectingReader.stripQuotes(reader);
     }
 
     /**
@@ -150,26 +134,6 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
         return result;
     }
 
-    private void filterRowsByType(List<BinanceBeanV4> rows) {
-        rows.forEach(r -> {
-            if (!r.isUnsupportedRow() && !r.getOperationType().isMultiRowType) {
-                rowsWithOneRowTransactionType.add(r);
-            } else {
-                rowsWithMultipleRowTransactionType.add(r);
-            }
-        });
-    }
-
-    private List<BinanceBeanV4> prepareBeansForTransactions(List<BinanceBeanV4> rowsWithMultipleRowTransactionType,
-                                                            List<BinanceBeanV4> rowsWithOneRowTransactionType) {
-        List<BinanceBeanV4> result;
-        List<BinanceBeanV4> oneRowTxs = prepareBeansForTransactionsFromOneRowTypes(rowsWithOneRowTransactionType);
-        List<BinanceBeanV4> multiRowsTxs = prepareBeansForTransactionsFromMultiRows(rowsWithMultipleRowTransactionType);
-        result = multiRowsTxs;
-        result.addAll(oneRowTxs);
-        return result;
-    }
-
     private List<BinanceBeanV4> prepareBeansForTransactionsFromOneRowTypes(List<BinanceBeanV4> rows) {
         List<BinanceBeanV4> result = new ArrayList<>();
         for (BinanceBeanV4 row : rows) {
@@ -240,50 +204,105 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
         return row;
     }
 
-    private List<BinanceBeanV4> prepareBeansForTransactionsFromMultiRows(List<BinanceBeanV4> rows) {
-        var groupedRowsByTime = createGroupsFromRows(rowsWithMultipleRowTransactionType);
-        Map<Instant, List<BinanceBeanV4>> sortedGroupsByDate = new TreeMap<>(groupedRowsByTime);
-        // clean groups of rows from unsupported rubbish
-        var cleanGroups = removeGroupsWithUnsupportedRows(sortedGroupsByDate);
-        // merging rows nearly in the same time
-        var mergedGroups = mergeGroupsInTimeWithinTolerance((Map<Instant, List<BinanceBeanV4>>) cleanGroups);
-        // creating transaction
-        return createTransactionFromGroupOfRows(mergedGroups);
+    /**
+     * The multi-row operations are grouped as they are read while the rows of the file are ordered by time, only the
+     * rows of the open groups are held. The transactions of the groups are passed to the consumer as the groups are
+     * closed, the one-row operations and the unsupported rows follow when the whole file is read.
+     *
+     * <p>The rows of a file not ordered by time are grouped when the whole file is read, sorted by time. The groups
+     * closed before the first row out of order are not merged with the rows sorted later.</p>
+     */
+    @Override
+    public void parse(
+        File inputFile,
+        ParseContext parseContext,
+        Consumer<ExchangeBean> beanConsumer,
+        Consumer<ParsingProblem> problemConsumer
+    ) {
+        parsingProblems = List.of();
+        var rows = new StreamedRows(transactions -> transactions.forEach(transaction -> {
+            // the transactions created from the groups of rows too
+            transaction.setParseContext(parseContext);
+            beanConsumer.accept(transaction);
+        }));
+        parse(
+            inputFile,
+            parseContext,
+            createParserSettings(problemConsumer, lineSeparator),
+            true,
+            bean -> rows.add((BinanceBeanV4) bean)
+        );
+        rows.finish();
     }
 
-    public List<? extends ExchangeBean> convertMultipleRowsToTransactions(List<BinanceBeanV4> rows) {
-        List<BinanceBeanV4> result;
-        this.originalRows = rows;
-        filterRowsByType(rows);
-        List<BinanceBeanV4> beans = prepareBeansForTransactions(rowsWithMultipleRowTransactionType, rowsWithOneRowTransactionType);
-        result = beans;
-        unSupportedRows.forEach(r -> {
-            r.setRowNumber(r.getRowId());
-        });
-        result.addAll(unSupportedRows);
-        return beans;
+    private BinanceGroupWindowV4 createWindow(Consumer<List<BinanceBeanV4>> transactionConsumer) {
+        return new BinanceGroupWindowV4(
+            TRANSACTION_MERGE_TOLERANCE_MS,
+            this::isSupportedGroup,
+            (time, group) -> transactionConsumer.accept(createTransactionFromGroupOfRows(Map.of(time, group)))
+        );
     }
 
-    @Override
-    public Map<?, List<BinanceBeanV4>> removeGroupsWithUnsupportedRows(Map<?, List<BinanceBeanV4>> rowGroups) {
-        Map<Object, List<BinanceBeanV4>> result = new HashMap<>();
-        for (Map.Entry<?, List<BinanceBeanV4>> entry : rowGroups.entrySet()) {
-            var rowsInGroup = entry.getValue();
-            List<BinanceBeanV4> unSupportedRow = rowsInGroup.stream()
-                .filter(r -> r.isUnsupportedRow() == true)
-                .collect(Collectors.toList());
-            var isOneOrMoreUnsupportedRows =
-                !unSupportedRow.isEmpty();
-            if (!isOneOrMoreUnsupportedRows) {
-                result.put(entry.getKey(), entry.getValue());
+    private final class StreamedRows {
+        private final Consumer<List<BinanceBeanV4>> transactionConsumer;
+        private final BinanceGroupWindowV4 window;
+        private List<BinanceBeanV4> unorderedRows;
+
+        private StreamedRows(Consumer<List<BinanceBeanV4>> transactionConsumer) {
+            this.transactionConsumer = transactionConsumer;
+            this.window = createWindow(transactionConsumer);
+        }
+
+        private void add(BinanceBeanV4 row) {
+            if (!row.isUnsupportedRow() && !row.getOperationType().isMultiRowType) {
+                rowsWithOneRowTransactionType.add(row);
+            } else if (unorderedRows != null) {
+                unorderedRows.add(row);
+            } else if (window.isInOrder(row)) {
+                window.add(row);
             } else {
-                var mess = unSupportedRow.get(0).getMessage();
-                var ids = rowsInGroup.stream().map(r -> r.getRowId()).collect(Collectors.toList());
-                var s = BinanceSortedGroupV4.parseIds(ids);
-                setRowsAsUnsupported(rowsInGroup, "One or more rows in group " + "\"rows:" + s + "\" is unsupported;" + mess);
+                unorderedRows = new ArrayList<>();
+                List<BinanceBeanV4> openRows = window.removeRowsIfNoGroupClosed();
+                if (openRows == null) {
+                    window.finish();
+                } else {
+                    unorderedRows.addAll(openRows);
+                }
+                unorderedRows.add(row);
             }
         }
-        return result;
+
+        private void finish() {
+            if (unorderedRows == null) {
+                window.finish();
+            } else {
+                unorderedRows.sort(Comparator.comparing(BinanceBeanV4::getDate));
+                var sortedWindow = createWindow(transactionConsumer);
+                unorderedRows.forEach(sortedWindow::add);
+                sortedWindow.finish();
+            }
+            transactionConsumer.accept(prepareBeansForTransactionsFromOneRowTypes(rowsWithOneRowTransactionType));
+            unSupportedRows.forEach(r -> {
+                r.setRowNumber(r.getRowId());
+            });
+            transactionConsumer.accept(unSupportedRows);
+        }
+    }
+
+    private boolean isSupportedGroup(List<BinanceBeanV4> rowsInGroup) {
+        List<BinanceBeanV4> unSupportedRow = rowsInGroup.stream()
+            .filter(r -> r.isUnsupportedRow() == true)
+            .collect(Collectors.toList());
+        var isOneOrMoreUnsupportedRows =
+            !unSupportedRow.isEmpty();
+        if (!isOneOrMoreUnsupportedRows) {
+            return true;
+        }
+        var mess = unSupportedRow.get(0).getMessage();
+        var ids = rowsInGroup.stream().map(r -> r.getRowId()).collect(Collectors.toList());
+        var s = BinanceSortedGroupV4.parseIds(ids);
+        setRowsAsUnsupported(rowsInGroup, "One or more rows in group " + "\"rows:" + s + "\" is unsupported;" + mess);
+        return false;
     }
 
     private void setRowsAsUnsupported(List<BinanceBeanV4> rowsInGroup, String message) {
@@ -294,50 +313,6 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
         unSupportedRows.addAll(rowsInGroup);
     }
 
-    private Map<Instant, List<BinanceBeanV4>> mergeGroupsInTimeWithinTolerance(Map<Instant, List<BinanceBeanV4>> groups) {
-        Map<Instant, List<BinanceBeanV4>> result = new HashMap<>();
-        Map<Instant, List<BinanceBeanV4>> sortedMap = groups.entrySet()
-            .stream()
-            .sorted(Comparator.comparing(Map.Entry::getKey))
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
-                (oldValue, newValue) -> oldValue, LinkedHashMap::new));
-
-        Instant previousKey = Instant.EPOCH;
-        List<BinanceBeanV4> previousValues = new ArrayList<>();
-        for (Map.Entry<Instant, List<BinanceBeanV4>> entry : sortedMap.entrySet()) {
-            var currentKey = entry.getKey();
-            var currentValues = entry.getValue();
-            if (currentValues.stream().anyMatch(op -> op.getOperationType().equals(OPERATION_TYPE_TRANSACTION_REVENUE))){
-                result.put(currentKey, currentValues);
-                continue;
-            } else if ((currentKey.minusMillis(TRANSACTION_MERGE_TOLERANCE_MS).equals(previousKey)
-                || currentKey.minusMillis(TRANSACTION_MERGE_TOLERANCE_MS).isBefore(previousKey))) {
-
-                if (currentValues.get(0).getCoin().isFiat()
-                    && previousValues.get(0).getCoin().isFiat()
-                    && currentValues.get(0).getOperationType().equals(OPERATION_TYPE_BUY_CRYPTO)
-                ) {
-                    previousValues = currentValues;
-                    previousKey = currentKey;
-                    previousValues.forEach(r -> r.setDate((Instant) null));
-                    continue;
-                }
-                List<BinanceBeanV4> all = currentValues;
-                all.addAll(previousValues);
-                all.forEach(r -> r.setMergedWithAnotherGroup(true));
-                result.put(previousKey, all);
-                currentKey = previousKey;
-                currentValues = all;
-            } else {
-                result.put(currentKey, currentValues);
-            }
-            previousKey = currentKey;
-            previousValues = currentValues;
-        }
-        return result;
-    }
-
-    @Override
     public List<BinanceBeanV4> createTransactionFromGroupOfRows(Map<?, List<BinanceBeanV4>> groups) {
         List<BinanceBeanV4> result = new ArrayList<>();
         for (Map.Entry<?, List<BinanceBeanV4>> entry : groups.entrySet()) {
@@ -368,7 +343,6 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
         return result;
     }
 
-    @Override
     public Map<Instant, List<BinanceBeanV4>> createGroupsFromRows(List<BinanceBeanV4> rows) {
         return rows.stream().collect(groupingBy(BinanceBeanV4::getDate));
     }
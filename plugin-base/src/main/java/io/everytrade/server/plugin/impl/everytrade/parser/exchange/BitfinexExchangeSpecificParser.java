@@ -1,6 +1,7 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.BitfinexBeanV1;
@@ -22,9 +23,14 @@ public class BitfinexExchangeSpecificParser implements IExchangeSpecificParser {
     }
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
+        return parse(inputFile, ParseContext.DEFAULT);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, ParseContext parseContext) {
         final DefaultUnivocityExchangeSpecificParser parser
             = new DefaultUnivocityExchangeSpecificParser(BitfinexBeanV1.class, delimiter);
-        final List<? extends ExchangeBean> exchangeBeans = parser.parse(inputFile);
+        final List<? extends ExchangeBean> exchangeBeans = parser.parse(inputFile, parseContext);
         final List<BitfinexBeanV1> bitfinexBeans = new ArrayList<>();
         for (ExchangeBean exchangeBean : exchangeBeans) {
             if (!(exchangeBean instanceof BitfinexBeanV1)){
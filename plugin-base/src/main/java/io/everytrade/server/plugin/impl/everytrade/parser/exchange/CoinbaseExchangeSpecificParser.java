@@ -1,15 +1,11 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
-import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.CoinbaseBeanV1;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
+import java.io.Reader;
 import java.util.List;
 
 public class CoinbaseExchangeSpecificParser implements IExchangeSpecificParser {
@@ -23,18 +19,20 @@ public class CoinbaseExchangeSpecificParser implements IExchangeSpecificParser {
     }
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
-        final File tempFile = generalizeHeader(inputFile);
+        return parse(inputFile, ParseContext.DEFAULT);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, ParseContext parseContext) {
         final DefaultUnivocityExchangeSpecificParser parser
-            = new DefaultUnivocityExchangeSpecificParser(CoinbaseBeanV1.class, delimiter);
-        final List<? extends ExchangeBean> exchangeBeans = parser.parse(tempFile);
+            = new DefaultUnivocityExchangeSpecificParser(CoinbaseBeanV1.class, delimiter) {
+                @Override
+                protected Reader correctReader(Reader reader) {
+                    return CsvCorrectingReader.replaceHeader(reader, GENERALIZED_HEADER);
+                }
+            };
+        final List<? extends ExchangeBean> exchangeBeans = parser.parse(inputFile, parseContext);
         parsingProblems = parser.getParsingProblems();
-        try {
-            Files.delete(tempFile.toPath());
-        } catch (IOException e) {
-            throw new ParsingProcessException(String.format(
-                "Temp file '%s' cannot by deleted: %s", tempFile.getAbsolutePath(), e.getMessage())
-            );
-        }
         return exchangeBeans;
     }
 
@@ -42,22 +40,4 @@ public class CoinbaseExchangeSpecificParser implements IExchangeSpecificParser {
     public List<ParsingProblem> getParsingProblems() {
         return parsingProblems;
     }
-
-    private File generalizeHeader(File file) {
-        File tempFile = new File(file.getAbsolutePath() + ".tmp");
-        try (
-            final BufferedReader bufferedReader = new BufferedReader(new FileReader(file));
-            final PrintWriter printWriter = new PrintWriter(tempFile)
-        ) {
-            bufferedReader.readLine(); // skip file header
-            printWriter.println(GENERALIZED_HEADER);
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                printWriter.println(line);
-            }
-        } catch (IOException e) {
-            throw new ParsingProcessException("s");
-        }
-        return tempFile;
-    }
 }
@@ -0,0 +1,55 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
+
+import com.univocity.parsers.common.Context;
+import com.univocity.parsers.common.processor.BeanProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bean processor filling the beans by {@link BeanRowMapper} compiled for the header of the parsed input. A row the
+ * compiled mapping fails on is mapped again by univocity, so that the parsing problem reported for it stays the same.
+ *
+ * <p>Every new bean is passed to {@link #initializeBean} - before the values of the row are set when the mapping is
+ * compiled, after them when univocity maps the row. The setters of the beans therefore must not depend on what the
+ * initialization sets.</p>
+ */
+public abstract class CompiledBeanProcessor<T> extends BeanProcessor<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompiledBeanProcessor.class);
+
+    private final Class<T> beanClass;
+    private BeanRowMapper<T> mapper;
+    private boolean compiled;
+
+    public CompiledBeanProcessor(Class<T> beanClass) {
+        super(beanClass);
+        this.beanClass = beanClass;
+    }
+
+    @Override
+    public T createBean(String[] row, Context context) {
+        if (!compiled) {
+            mapper = BeanRowMapper.compile(beanClass, context.headers(), context.extractedFieldIndexes(), context.columnsReordered());
+            compiled = true;
+        }
+        if (mapper != null) {
+            try {
+                return mapper.map(row, this::initializeBean);
+            } catch (RuntimeException e) {
+                // mapped by univocity below, which reports the problem of an invalid row
+                LOG.debug("Record {} of {} is mapped by univocity: {}", context.currentRecord(), beanClass.getName(), e.getMessage());
+            }
+        }
+        T bean = super.createBean(row, context);
+        if (bean != null) {
+            initializeBean(bean);
+        }
+        return bean;
+    }
+
+    /**
+     * Initializes a new bean, e.g. sets the context of the parse to it.
+     */
+    protected void initializeBean(T bean) {
+    }
+}
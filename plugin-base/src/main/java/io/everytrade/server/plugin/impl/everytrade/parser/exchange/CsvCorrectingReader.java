@@ -0,0 +1,161 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * Applies corrections of malformed CSV exports to the input while it is read by the parser, so that neither the whole
+ * file is loaded to the memory nor the uploaded file is rewritten.
+ *
+ * <p>Line separators are normalized to {@code \n} and the separator ending the last line is dropped, the output is
+ * the same as of the input lines joined by {@code \n}.</p>
+ */
+public final class CsvCorrectingReader extends FilterReader {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final boolean stripQuotes;
+    private final String header;
+    private int headerPosition;
+    private boolean skipFirstLine;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private boolean afterCarriageReturn;
+    private boolean pendingLineSeparator;
+
+    private CsvCorrectingReader(Reader in, boolean stripQuotes, String header) {
+        super(in);
+        this.stripQuotes = stripQuotes;
+        this.header = header == null ? "" : header;
+        this.skipFirstLine = header != null;
+    }
+
+    /**
+     * Removes all double quotes, e.g. of rows wrapped in quotes as a whole.
+     */
+    public static Reader stripQuotes(Reader in) {
+        return new CsvCorrectingReader(in, true, null);
+    }
+
+    /**
+     * Replaces the first line of the input by the given header.
+     */
+    public static Reader replaceHeader(Reader in, String header) {
+        return new CsvCorrectingReader(in, false, Objects.requireNonNull(header));
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] c = new char[1];
+        return read(c, 0, 1) < 0 ? -1 : c[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, cbuf.length);
+        if (len == 0) {
+            return 0;
+        }
+        synchronized (lock) {
+            int count = 0;
+            while (count < len) {
+                if (headerPosition < header.length()) {
+                    cbuf[off + count++] = header.charAt(headerPosition++);
+                    continue;
+                }
+                if (position == limit && !fill(count)) {
+                    break;
+                }
+                char c = buffer[position];
+                if (c == '\n' && afterCarriageReturn) {
+                    position++;
+                    afterCarriageReturn = false;
+                    continue;
+                }
+                afterCarriageReturn = c == '\r';
+                if (c == '\r' || c == '\n') {
+                    position++;
+                    skipFirstLine = false;
+                    if (pendingLineSeparator) {
+                        cbuf[off + count++] = LINE_SEPARATOR;
+                    }
+                    pendingLineSeparator = true;
+                    continue;
+                }
+                if (pendingLineSeparator) {
+                    // the line separator is written only when another line follows
+                    cbuf[off + count++] = LINE_SEPARATOR;
+                    pendingLineSeparator = false;
+                    continue;
+                }
+                position++;
+                if (!skipFirstLine && !(stripQuotes && c == '"')) {
+                    cbuf[off + count++] = c;
+                }
+            }
+            return count == 0 && eof ? -1 : count;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Skip value is negative.");
+        }
+        char[] skipped = new char[(int) Math.min(n, BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        synchronized (lock) {
+            return headerPosition < header.length() || position < limit || in.ready();
+        }
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("Mark is not supported.");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("Reset is not supported.");
+    }
+
+    /**
+     * Refills the buffer, does not block when some characters were read already. Returns false when no character is
+     * available for now.
+     */
+    private boolean fill(int count) throws IOException {
+        if (eof || (count > 0 && !in.ready())) {
+            return false;
+        }
+        int read = in.read(buffer, 0, buffer.length);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
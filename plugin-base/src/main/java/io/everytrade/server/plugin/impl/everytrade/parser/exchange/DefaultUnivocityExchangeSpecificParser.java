@@ -1,32 +1,30 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import com.univocity.parsers.common.Context;
-import com.univocity.parsers.common.processor.BeanListProcessor;
+import com.univocity.parsers.common.ParsingContext;
 import com.univocity.parsers.csv.CsvParserSettings;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.ParsingProblemType;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static io.everytrade.server.plugin.api.parser.ParsingProblemType.PARSED_ROW_IGNORED;
 import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
-import static java.util.stream.Collectors.toList;
 
 public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecificParser {
     protected static final Logger LOG = LoggerFactory.getLogger(DefaultUnivocityExchangeSpecificParser.class);
     protected static final String DEFAULT_DELIMITER = ",";
-    protected static final List<String> LINE_SEPARATORS = List.of("\n", "\r", "\r\n");
 
     protected final Class<? extends ExchangeBean> exchangeBean;
     protected final String delimiter;
@@ -57,27 +55,34 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
 
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
-        parsingProblems = new ArrayList<>();
-        correctFile(inputFile);
+        return parse(inputFile, ParseContext.DEFAULT);
+    }
 
-        if (lineSeparator != null) {
-            return parse(inputFile, createParserSettings(parsingProblems, lineSeparator), exchangeBean);
-        }
+    /**
+     * The beans are held until the whole file is parsed, they keep their rows compacted, see
+     * {@link ExchangeBean#setCompactRowValues}.
+     */
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, ParseContext parseContext) {
+        parsingProblems = new ArrayList<>();
+        List<ExchangeBean> beans = new ArrayList<>();
+        parse(inputFile, parseContext, createParserSettings(parsingProblems::add, lineSeparator), true, beans::add);
+        return beans;
+    }
 
-        var settings = LINE_SEPARATORS.stream()
-            .map(separator -> createParserSettings(parsingProblems, separator))
-            .collect(toList());
-
-        Exception lastException = null;
-        for (CsvParserSettings s : settings) {
-            try {
-                return parse(inputFile, s, exchangeBean);
-            } catch (Exception e) {
-                lastException = e;
-                LOG.error("Failed to parse file. Trying another config...");
-            }
-        }
-        throw new RuntimeException(lastException);
+    /**
+     * Streams beans to the consumer as the rows are read, parsing problems are passed to the problem consumer and are
+     * not kept in {@link #getParsingProblems()}. The beans keep their rows, they're converted soon after they're read.
+     */
+    @Override
+    public void parse(
+        File inputFile,
+        ParseContext parseContext,
+        Consumer<ExchangeBean> beanConsumer,
+        Consumer<ParsingProblem> problemConsumer
+    ) {
+        parsingProblems = List.of();
+        parse(inputFile, parseContext, createParserSettings(problemConsumer, lineSeparator), false, beanConsumer);
     }
 
     @Override
@@ -85,45 +90,80 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
         return parsingProblems;
     }
 
-    private <T extends ExchangeBean> List<T> parse(File file, CsvParserSettings parserSettings, Class<T> exchangeBean) {
-        try (Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
-            BeanListProcessor<T> rowProcessor = new BeanListProcessor<>(exchangeBean) {
-                @Override
-                public T createBean(String[] row, Context context) {
-                    rowId++;
-                        row = correctRow(row);
-                    T bean = super.createBean(row, context);
-                    if (bean == null) {
-                        return null;
-                    }
-                    bean.setRowValues(row);
-                    int rowNumber = context.currentColumn();
-                    bean.setRowNumber(rowNumber);
-                    bean.setRowId(rowId);
-                    return bean;
-                }
-            };
+    /**
+     * Parses the rows of the file to the beans passed to the consumer, the beans keep their rows compacted when
+     * {@code compactRows} is set.
+     */
+    protected void parse(
+        File file,
+        ParseContext parseContext,
+        CsvParserSettings parserSettings,
+        boolean compactRows,
+        Consumer<ExchangeBean> beanConsumer
+    ) {
+        try (Reader reader = correctReader(parseContext.openReader(file))) {
+            var rowProcessor = createRowProcessor(exchangeBean, parseContext, compactRows, beanConsumer);
             parserSettings.setProcessor(rowProcessor);
             com.univocity.parsers.csv.CsvParser parser = new com.univocity.parsers.csv.CsvParser(parserSettings);
             parser.parse(reader);
-            return rowProcessor.getBeans();
         } catch (Exception e) {
             throw new ParsingProcessException(String.format("Parsing error. %s", e.getMessage()));
         }
     }
 
-    protected CsvParserSettings createParserSettings(List<ParsingProblem> parsingProblems, String lineSeparator) {
+    private <T extends ExchangeBean> CompiledBeanProcessor<T> createRowProcessor(
+        Class<T> exchangeBean,
+        ParseContext parseContext,
+        boolean compactRows,
+        Consumer<ExchangeBean> beanConsumer
+    ) {
+        return new CompiledBeanProcessor<>(exchangeBean) {
+
+            @Override
+            protected void initializeBean(T bean) {
+                bean.setParseContext(parseContext);
+            }
+
+            @Override
+            public T createBean(String[] row, Context context) {
+                rowId++;
+                row = correctRow(row);
+                T bean = super.createBean(row, context);
+                if (bean == null) {
+                    return null;
+                }
+                if (compactRows) {
+                    bean.setCompactRowValues(row);
+                } else {
+                    bean.setRowValues(row);
+                }
+                int rowNumber = context.currentColumn();
+                bean.setRowNumber(rowNumber);
+                bean.setRowId(rowId);
+                return bean;
+            }
+
+            @Override
+            public void beanProcessed(T bean, ParsingContext context) {
+                beanConsumer.accept(bean);
+            }
+        };
+    }
+
+    protected CsvParserSettings createParserSettings(Consumer<ParsingProblem> problemConsumer, String lineSeparator) {
         var parserSettings = new CsvParserSettings();
         parserSettings.setHeaderExtractionEnabled(true);
         parserSettings.setProcessorErrorHandler((error, inputRow, context) -> {
             ParsingProblemType parsingProblemType = error instanceof DataIgnoredException ? PARSED_ROW_IGNORED : ROW_PARSING_FAILED;
             String errorMessage = transformErrorMessage(error.getMessage());
-            parsingProblems.add(new ParsingProblem(Arrays.toString(inputRow), errorMessage, parsingProblemType));
+            problemConsumer.accept(new ParsingProblem(Arrays.toString(inputRow), errorMessage, parsingProblemType));
         });
         parserSettings.getFormat().setDelimiter(delimiter);
-        //default setting is autodetect
         if (lineSeparator != null) {
             parserSettings.getFormat().setLineSeparator(lineSeparator);
+        } else {
+            // detected from the first buffered block of the input, so that the file is parsed in a single pass
+            parserSettings.setLineSeparatorDetectionEnabled(true);
         }
         parserSettings.getFormat().setComment('\0'); // No symbol for comments
 
@@ -145,7 +185,11 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
     protected String[] correctRow(String[] rows){
         return rows;
     }
-    protected void correctFile(File file){
+    /**
+     * Wraps the reader of the input file to correct the content while it is parsed, e.g. by {@link CsvCorrectingReader}. The
+     * reader starts at the header of the file, the prefix rows of the {@link ParseContext} are already skipped.
+     */
+    protected Reader correctReader(Reader reader) {
+        return reader;
     }
-
 }
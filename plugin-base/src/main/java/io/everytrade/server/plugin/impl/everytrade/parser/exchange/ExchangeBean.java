@@ -4,7 +4,9 @@ import com.univocity.parsers.common.DataValidationException;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.CurrencyPair;
 import io.everytrade.server.model.TransactionType;
+import io.everytrade.server.plugin.impl.everytrade.parser.DecimalScanner;
 import io.everytrade.server.plugin.impl.everytrade.parser.IImportableBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 
@@ -25,13 +27,33 @@ public abstract class ExchangeBean implements IImportableBean {
     public static final String REBATE_UID_PART = "-rebate";
     public static final String ILLEGAL_NEGATIVE_VALUES = "Illegal negative value(s) at index(es): ";
     public static final String WRONG_TRANSACTION_DATE = "Wrong transaction date";
+    // separates the values of a compacted row, a control character not expected in the exported values
+    private static final char COMPACT_SEPARATOR = '\u001F';
+    private static final String COMPACT_NULL = "\u0000";
 
-    protected List<String> rowValues;
+    private String[] rowValues;
+    private String compactRowValues;
     private long rowNumber;
     protected int rowId;
+    private ParseContext parseContext = ParseContext.DEFAULT;
 
     public void setRowValues(String[] row) {
-        rowValues = Arrays.asList(row);
+        rowValues = row;
+    }
+
+    /**
+     * Keeps the values of the row in a single string instead of an array of strings, for the beans held until the
+     * whole file is parsed. The row values set by {@link #setRowValues} take precedence.
+     */
+    public void setCompactRowValues(String[] row) {
+        var compact = new StringBuilder();
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                compact.append(COMPACT_SEPARATOR);
+            }
+            compact.append(row[i] == null ? COMPACT_NULL : row[i]);
+        }
+        compactRowValues = compact.toString();
     }
 
     public void setRowId(int rowId) {
@@ -46,15 +68,45 @@ public abstract class ExchangeBean implements IImportableBean {
         this.rowNumber = rowNumber;
     }
 
+    /**
+     * Sets the context of the parse. The parsers set it before the values of the row when the row is mapped to the
+     * bean by {@link CompiledBeanProcessor}, after them when the processor leaves the row to univocity - the setters of
+     * the row values must not depend on it, it's used when the bean is converted to its transaction cluster.
+     */
+    public void setParseContext(ParseContext parseContext) {
+        this.parseContext = parseContext;
+    }
+
+    public ParseContext getParseContext() {
+        return parseContext;
+    }
+
     public String rowToString() {
-        return "line="
-            .concat(String.valueOf(rowNumber))
-            .concat(", ")
-            .concat(String.join(", ", rowValues));
+        String[] row = rowValues();
+        String line = "line=".concat(String.valueOf(rowNumber));
+        return row == null ? line : line.concat(", ").concat(String.join(", ", row));
+    }
+
+    public boolean hasRowValues() {
+        return rowValues != null || compactRowValues != null;
     }
 
     public List<String> getRowValues() {
-        return this.rowValues;
+        String[] row = rowValues();
+        return row == null ? null : Arrays.asList(row);
+    }
+
+    private String[] rowValues() {
+        if (rowValues != null || compactRowValues == null) {
+            return rowValues;
+        }
+        String[] row = compactRowValues.split(String.valueOf(COMPACT_SEPARATOR), -1);
+        for (int i = 0; i < row.length; i++) {
+            if (COMPACT_NULL.equals(row[i])) {
+                row[i] = null;
+            }
+        }
+        return row;
     }
 
     protected BigDecimal evalUnitPrice(BigDecimal transactionPrice, BigDecimal baseQuantity) {
@@ -62,24 +114,22 @@ public abstract class ExchangeBean implements IImportableBean {
     }
 
     public static void validateCurrencyPair(Currency base, Currency quote) {
-        try {
-            var currencyPair = new CurrencyPair(base, quote);
-            if (!CurrencyPair.getTradeablePairs().contains(currencyPair)) {
-                throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(currencyPair.toString()));
-            }
-        } catch (CurrencyPair.FiatCryptoCombinationException | DataValidationException e) {
-            throw new DataValidationException(e.getMessage());
+        if (!CurrencyPair.isTradeable(base, quote)) {
+            throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(pairToString(base, quote)));
         }
     }
 
     public static void validateCurrencyPair(Currency base, Currency quote, TransactionType type) {
-        var currencyPair = new CurrencyPair(base, quote);
         if (type.isBuyOrSell() && base.equals(quote)) {
-            throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(currencyPair.toString()));
+            throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(pairToString(base, quote)));
         }
         validateCurrencyPair(base, quote);
     }
 
+    private static String pairToString(Currency base, Currency quote) {
+        return String.format("%s/%s", base, quote);
+    }
+
     protected void validatePositivity(BigDecimal... values) {
         List<Integer> negativeValues = new ArrayList<>();
         for (int i = 0; i < values.length; i++) {
@@ -103,12 +153,10 @@ public abstract class ExchangeBean implements IImportableBean {
     }
 
     protected TransactionType detectTransactionType(Currency fromCurrency, Currency toCurrency) {
-        var pair = findTradablePair(toCurrency, fromCurrency);
-        if (pair != null && !pair.getBase().isFiat()) {
+        if (CurrencyPair.isTradeable(toCurrency, fromCurrency) && !toCurrency.isFiat()) {
             return TransactionType.BUY;
         }
-        pair = findTradablePair(fromCurrency, toCurrency);
-        if (pair != null && !pair.getBase().isFiat()) {
+        if (CurrencyPair.isTradeable(fromCurrency, toCurrency) && !fromCurrency.isFiat()) {
             return TransactionType.SELL;
         }
         throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(fromCurrency.code()).concat("/").concat(toCurrency.code()));
@@ -124,27 +172,22 @@ public abstract class ExchangeBean implements IImportableBean {
         return type;
     }
 
-    private CurrencyPair findTradablePair(Currency baseCurrency, Currency quoteCurrency) {
-        try {
-            final CurrencyPair currencyPair = new CurrencyPair(baseCurrency, quoteCurrency);
-            return CurrencyPair.getTradeablePairs().contains(currencyPair) ? currencyPair : null;
-        } catch (CurrencyPair.FiatCryptoCombinationException e) {
+    protected static BigDecimal setAmountFromString(String value) {
+        if (value == null) {
             return null;
         }
-    }
-
-    protected static BigDecimal setAmountFromString(String value) {
+        BigDecimal scanned = DecimalScanner.scanAbsolute(value, ParserUtils.DECIMAL_DIGITS, ParserUtils.ROUNDING_MODE);
+        if (scanned != null) {
+            return scanned;
+        }
+        // e.g. exponents or misplaced signs
         try {
-            if (value != null) {
-                if (value.contains(",") && value.contains(".")) {
-                    String amount = value.replace(",", "");
-                    return new BigDecimal(amount).abs().setScale(ParserUtils.DECIMAL_DIGITS, ParserUtils.ROUNDING_MODE);
-                }
-                String amount = value.replace("-", "").replace(",", ".");
+            if (value.contains(",") && value.contains(".")) {
+                String amount = value.replace(",", "");
                 return new BigDecimal(amount).abs().setScale(ParserUtils.DECIMAL_DIGITS, ParserUtils.ROUNDING_MODE);
-            } else {
-                return null;
             }
+            String amount = value.replace("-", "").replace(",", ".");
+            return new BigDecimal(amount).abs().setScale(ParserUtils.DECIMAL_DIGITS, ParserUtils.ROUNDING_MODE);
         } catch (NumberFormatException e) {
             throw new DataIgnoredException(String.format("Value %s is unsupported. ", value));
         }
@@ -1,11 +1,42 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 
 import java.io.File;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IExchangeSpecificParser {
     List<? extends ExchangeBean> parse(File inputFile);
     List<ParsingProblem> getParsingProblems();
+
+    /**
+     * Parses the file with the context of the parse set to every bean. Parsers whose beans depend on the context while
+     * their rows are mapped (e.g. on the profile) override it.
+     */
+    default List<? extends ExchangeBean> parse(File inputFile, ParseContext parseContext) {
+        var beans = parse(inputFile);
+        beans.forEach(bean -> bean.setParseContext(parseContext));
+        return beans;
+    }
+
+    default void parse(File inputFile, Consumer<ExchangeBean> beanConsumer, Consumer<ParsingProblem> problemConsumer) {
+        parse(inputFile, ParseContext.DEFAULT, beanConsumer, problemConsumer);
+    }
+
+    /**
+     * Parses the file and passes every bean and parsing problem to the consumers. Parsers that are able to read the
+     * file row by row override it so that the beans don't have to be held in memory.
+     */
+    default void parse(
+        File inputFile,
+        ParseContext parseContext,
+        Consumer<ExchangeBean> beanConsumer,
+        Consumer<ParsingProblem> problemConsumer
+    ) {
+        var beans = parse(inputFile, parseContext);
+        getParsingProblems().forEach(problemConsumer);
+        beans.forEach(beanConsumer);
+    }
 }
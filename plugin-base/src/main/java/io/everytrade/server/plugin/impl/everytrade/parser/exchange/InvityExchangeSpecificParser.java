@@ -1,10 +1,6 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.util.stream.Collectors;
+import java.io.Reader;
 
 /**
  * Base class for Invity Finance exchange-specific parsers.
@@ -20,14 +16,8 @@ public abstract class InvityExchangeSpecificParser extends DefaultUnivocityExcha
      * Strips all double-quote characters from a CSV file.
      * Used for preprocessing Invity CSV exports that have escaped quotes.
      */
-    protected void stripQuotesFromFile(File file) {
-        try {
-            String content = Files.lines(file.toPath(), StandardCharsets.UTF_8)
-                .collect(Collectors.joining("\n"));
-            content = content.replace("\"", "");
-            Files.writeString(file.toPath(), content);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to preprocess Invity CSV file", e);
-        }
+    @Override
+    protected Reader correctReader(Reader reader) {
+        return CsvCorrectingReader.stripQuotes(reader);
     }
 }
@@ -2,7 +2,6 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.InvityFinanceBuySellBeanV1;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -24,11 +23,6 @@ public class InvityFinanceBuySellExchangeSpecificParser extends InvityExchangeSp
         this.noncustodialMode = noncustodialMode;
     }
 
-    @Override
-    protected void correctFile(File file) {
-        stripQuotesFromFile(file);
-    }
-
     @Override
     public List<? extends ExchangeBean> convertMultipleRowsToTransactions(List<InvityFinanceBuySellBeanV1> rows) {
         List<InvityFinanceBuySellBeanV1> result = new ArrayList<>();
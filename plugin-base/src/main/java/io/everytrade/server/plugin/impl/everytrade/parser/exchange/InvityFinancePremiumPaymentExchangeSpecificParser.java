@@ -2,7 +2,6 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.InvityFinancePremiumPaymentBeanV1;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -17,11 +16,6 @@ public class InvityFinancePremiumPaymentExchangeSpecificParser
         super(exchangeBean, delimiter);
     }
 
-    @Override
-    protected void correctFile(File file) {
-        stripQuotesFromFile(file);
-    }
-
     @Override
     public List<? extends ExchangeBean> convertMultipleRowsToTransactions(
         List<InvityFinancePremiumPaymentBeanV1> rows) {
@@ -2,7 +2,6 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.InvityFinanceTurboBeanV1;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -18,11 +17,6 @@ public class InvityFinanceTurboExchangeSpecificParser extends InvityExchangeSpec
         super(exchangeBean, delimiter);
     }
 
-    @Override
-    protected void correctFile(File file) {
-        stripQuotesFromFile(file);
-    }
-
     @Override
     public List<? extends ExchangeBean> convertMultipleRowsToTransactions(
         List<InvityFinanceTurboBeanV1> rows) {
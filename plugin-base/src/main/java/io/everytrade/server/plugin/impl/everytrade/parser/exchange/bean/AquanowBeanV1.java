@@ -18,11 +18,8 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import static io.everytrade.server.model.CurrencyPair.getTradeablePairs;
 import static java.util.Collections.emptyList;
 
 @Headers(
@@ -44,11 +41,6 @@ public class AquanowBeanV1  extends ExchangeBean {
     private BigDecimal price;
     private BigDecimal fee;
 
-    private static Map<String, CurrencyPair> fastCurrencyPair = new HashMap<>();
-    static {
-        getTradeablePairs().forEach(t -> fastCurrencyPair.put(t.toString().replace("/", "-"), t));
-    }
-
     @Parsed(field = "Trade date")
     @Format(formats = {"yyyy-MM-dd HH:mm:ss"}, options = {"locale=EN", "timezone=UTC"})
     public void setDate(Date value) {
@@ -57,7 +49,7 @@ public class AquanowBeanV1  extends ExchangeBean {
 
     @Parsed(field = "Pair")
     public void setPair(String value) {
-        final CurrencyPair currencyPair = fastCurrencyPair.get(value);
+        final CurrencyPair currencyPair = CurrencyPair.findBySymbol(value, "-");
         if (currencyPair == null) {
             throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(value));
         }
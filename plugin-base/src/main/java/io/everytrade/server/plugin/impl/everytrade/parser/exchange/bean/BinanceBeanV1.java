@@ -18,11 +18,8 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import static io.everytrade.server.model.CurrencyPair.getTradeablePairs;
 import static io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils.equalsToZero;
 import static io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils.nullOrZero;
 
@@ -30,7 +27,6 @@ import static io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils.nul
 //FULL> BIN-001:|^Date\(.*\)$|Market|Type|Price|Amount|Total|Fee|Fee Coin|
 @Headers(sequence = {"Market", "Type", "Amount", "Total", "Fee", "Fee Coin"}, extract = true)
 public class BinanceBeanV1 extends ExchangeBean {
-    private static Map<String, CurrencyPair> fastCurrencyPair = new HashMap<>();
     private Instant date;
     private Currency marketBase;
     private Currency marketQuote;
@@ -40,10 +36,6 @@ public class BinanceBeanV1 extends ExchangeBean {
     private BigDecimal fee;
     private Currency feeCoin;
 
-    static {
-        getTradeablePairs().forEach(t -> fastCurrencyPair.put(t.toString().replace("/", "").replace("_",""), t));
-    }
-
     //Date
     @Parsed(index = 0)
     @Format(formats = {"yyyy-MM-dd HH:mm:ss"}, options = {"locale=EN", "timezone=UTC"})
@@ -53,7 +45,7 @@ public class BinanceBeanV1 extends ExchangeBean {
 
     @Parsed(field = "Market")
     public void setMarket(String value) {
-        final CurrencyPair currencyPair = fastCurrencyPair.get(value);
+        final CurrencyPair currencyPair = CurrencyPair.findBySymbol(value, "");
         if (currencyPair == null) {
             throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(value));
         }
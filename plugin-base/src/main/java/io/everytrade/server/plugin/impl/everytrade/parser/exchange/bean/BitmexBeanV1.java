@@ -24,7 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import static io.everytrade.server.model.CurrencyPair.getTradeablePairs;
 
 @Headers(sequence = {"transactTime", "symbol", "execType", "side", "lastQty", "lastPx", "execComm", "orderID"},
     extract = true)
@@ -41,11 +40,9 @@ public class BitmexBeanV1 extends ExchangeBean {
 
     private static final BigDecimal SATOSHIS_BY_BTC = BigDecimal.valueOf(100_000_000L);
     private static final Map<String, Currency> CURRENCIES = new HashMap<>() {};
-    private static final Map<String, CurrencyPair> TRADABLE_CURRENCY_PAIRS = new HashMap<>();
 
     static {
         CURRENCIES.put("XBT", Currency.BTC);
-        getTradeablePairs().forEach(t -> TRADABLE_CURRENCY_PAIRS.put(t.toString().replace("/", ""), t));
     }
 
     @Parsed(field = "transactTime")
@@ -69,7 +66,7 @@ public class BitmexBeanV1 extends ExchangeBean {
         } else {
             mappedPair = value;
         }
-        final CurrencyPair tradablePair = TRADABLE_CURRENCY_PAIRS.get(mappedPair);
+        final CurrencyPair tradablePair = CurrencyPair.findBySymbol(mappedPair, "");
         if (tradablePair == null) {
             throw new DataValidationException(String.format("Can not parse pair symbol %s.", value));
         }
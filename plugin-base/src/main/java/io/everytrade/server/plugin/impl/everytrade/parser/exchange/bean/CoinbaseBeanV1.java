@@ -7,6 +7,7 @@ import io.everytrade.server.model.TransactionType;
 import io.everytrade.server.plugin.api.parser.FeeRebateImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.DateTimeFormatters;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
@@ -16,10 +17,11 @@ import lombok.ToString;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
-import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 import static io.everytrade.server.model.TransactionType.BUY;
@@ -69,8 +71,7 @@ public class CoinbaseBeanV1 extends ExchangeBean {
         try {
             timeStamp = Instant.parse(value);
         } catch (DateTimeParseException e) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'")
-                .withZone(ZoneId.of("UTC"));
+            DateTimeFormatter formatter = DateTimeFormatters.of("yyyy-MM-dd HH:mm:ss 'UTC'", Locale.US, ZoneOffset.UTC);
             timeStamp = Instant.from(formatter.parse(value));
         }
     }
@@ -2,6 +2,7 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
 
 import com.univocity.parsers.common.DataValidationException;
 import com.univocity.parsers.conversions.Conversion;
+import io.everytrade.server.plugin.impl.everytrade.parser.DateTimeFormatters;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -24,14 +25,14 @@ public class DateTimeConverterWithSecondsFraction implements Conversion<String,
             if (pattern.endsWith("s")) {
                 dateTimeFormatters.add(
                     new DateTimeFormatterBuilder()
-                        .append(DateTimeFormatter.ofPattern(pattern))
+                        .append(DateTimeFormatters.of(pattern))
                         .appendFraction(ChronoField.NANO_OF_SECOND, 0, 4, true)
                         .toFormatter(Locale.US)
                 );
             } else {
                 dateTimeFormatters.add(
                     new DateTimeFormatterBuilder()
-                        .append(DateTimeFormatter.ofPattern(pattern))
+                        .append(DateTimeFormatters.of(pattern))
                         .toFormatter(Locale.US)
                 );
             }
@@ -0,0 +1,95 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.DateTimeFormatters;
+
+import java.text.ParsePosition;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalQuery;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Parses dates of a column whose format is not known in advance. The formatter that matched the last row is tried
+ * first, the candidate formatters are tried only when the row does not match it, i.e. once per file with one date
+ * format. Candidates are matched by the shape of the value without throwing an exception, so that rows don't pay for
+ * the stack traces of the formats that do not match.
+ *
+ * <p>The detector is meant to be shared by the rows of a single parse, see
+ * {@link io.everytrade.server.plugin.impl.everytrade.parser.ParseContext#dateFormatDetector}, it is thread-safe. The
+ * candidates must not be ambiguous, every value may match at most one of them.</p>
+ */
+public final class DateTimeFormatDetector {
+
+    private final Function<String, List<DateTimeFormatter>> candidates;
+    private volatile DateTimeFormatter lastMatch;
+
+    /**
+     * @param candidates formatters to try for the value of a row that does not match the last detected format
+     */
+    public DateTimeFormatDetector(Function<String, List<DateTimeFormatter>> candidates) {
+        this.candidates = Objects.requireNonNull(candidates);
+    }
+
+    public static DateTimeFormatDetector of(List<DateTimeFormatter> formatters) {
+        List<DateTimeFormatter> candidates = List.copyOf(formatters);
+        return new DateTimeFormatDetector(value -> candidates);
+    }
+
+    /**
+     * Detector of the format found by {@link DateTimeFormatFinder}, the value is parsed as by
+     * {@link io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils#parse(String, String)}.
+     */
+    public static DateTimeFormatDetector ofFormatFinder() {
+        return new DateTimeFormatDetector(value -> {
+            try {
+                String pattern = new DateTimeFormatFinder().findFormatPattern(value);
+                return List.of(DateTimeFormatters.of(pattern, Locale.US, ZoneOffset.UTC));
+            } catch (IllegalArgumentException e) {
+                return List.of();
+            }
+        });
+    }
+
+    /**
+     * Returns the result of the query of the value parsed by the matching formatter, or null when no formatter matches
+     * the value or the query fails for it.
+     */
+    public <T> T parse(String value, TemporalQuery<T> query) {
+        if (value == null) {
+            return null;
+        }
+        DateTimeFormatter formatter = lastMatch;
+        T result = formatter == null ? null : tryParse(formatter, value, query);
+        if (result != null) {
+            return result;
+        }
+        for (DateTimeFormatter candidate : candidates.apply(value)) {
+            if (candidate == formatter) {
+                continue;
+            }
+            result = tryParse(candidate, value, query);
+            if (result != null) {
+                lastMatch = candidate;
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private static <T> T tryParse(DateTimeFormatter formatter, String value, TemporalQuery<T> query) {
+        var position = new ParsePosition(0);
+        if (formatter.parseUnresolved(value, position) == null || position.getIndex() != value.length()) {
+            return null;
+        }
+        try {
+            return formatter.parse(value, query);
+        } catch (DateTimeParseException e) {
+            // the value has the shape of the format but is not a valid date (e.g. month 13) or misses a field
+            return null;
+        }
+    }
+}
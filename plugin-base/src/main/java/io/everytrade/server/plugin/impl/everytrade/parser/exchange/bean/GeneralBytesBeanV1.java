@@ -7,20 +7,23 @@ import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
-import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static io.everytrade.server.plugin.impl.generalbytes.GbPlugin.parseGbCurrency;
 
 @Headers(sequence = {"Server Time","Local Transaction Id","Remote Transaction Id","Type","Cash Amount","Cash Currency",
     "Crypto Amount","Crypto Currency","Status"}, extract = true)
 public class GeneralBytesBeanV1 extends ExchangeBean {
+
+    private static final Supplier<DateTimeFormatDetector> DATE_FORMATS = DateTimeFormatDetector::ofFormatFinder;
+
+    private String serverTimeValue;
     private Instant serverTime;
     private String localTransactionId;
     private String remoteTransactionId;
@@ -32,12 +35,17 @@ public class GeneralBytesBeanV1 extends ExchangeBean {
 
     @Parsed(field = "Server Time")
     public void setDate(String value) {
-        final String formatPattern = new DateTimeFormatFinder().findFormatPattern(value);
-        try {
-            serverTime = ParserUtils.parse(formatPattern, value);
-        } catch (IllegalArgumentException | NullPointerException | DateTimeParseException e) {
-            throw new DataValidationException(String.format("Unknown dateTime format for value %s.", value));
+        serverTimeValue = value;
+    }
+
+    private Instant parseServerTime() {
+        Instant time = getParseContext().dateFormatDetector(DATE_FORMATS).parse(serverTimeValue, Instant::from);
+        if (time == null) {
+            throw new DataValidationException(
+                String.format("Unknown dateTime format for value %s.", serverTimeValue)
+            );
         }
+        return time;
     }
 
     @Parsed(field = "Local Transaction Id")
@@ -98,6 +106,7 @@ public class GeneralBytesBeanV1 extends ExchangeBean {
 
     @Override
     public TransactionCluster toTransactionCluster() {
+        serverTime = parseServerTime();
         validateCurrencyPair(cryptoCurrency, cashCurrency);
 
         return new TransactionCluster(
@@ -15,9 +15,9 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
-import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static io.everytrade.server.model.TransactionType.FEE;
 import static io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils.nullOrZero;
@@ -26,6 +26,10 @@ import static io.everytrade.server.plugin.impl.generalbytes.GbPlugin.parseGbCurr
 @Headers(sequence = {"Server Time","Local Transaction Id","Remote Transaction Id","Type","Cash Amount","Cash Currency",
     "Crypto Amount","Crypto Currency","Status", "Expense", "Expense Currency"}, extract = true)
 public class GeneralBytesBeanV2 extends ExchangeBean {
+
+    private static final Supplier<DateTimeFormatDetector> DATE_FORMATS = DateTimeFormatDetector::ofFormatFinder;
+
+    private String serverTimeValue;
     private Instant serverTime;
     private String localTransactionId;
     private String remoteTransactionId;
@@ -39,12 +43,17 @@ public class GeneralBytesBeanV2 extends ExchangeBean {
 
     @Parsed(field = "Server Time")
     public void setDate(String value) {
-        final String formatPattern = new DateTimeFormatFinder().findFormatPattern(value);
-        try {
-            serverTime = ParserUtils.parse(formatPattern, value);
-        } catch (IllegalArgumentException | NullPointerException | DateTimeParseException e) {
-            throw new DataValidationException(String.format("Unknown dateTime format for value %s.", value));
+        serverTimeValue = value;
+    }
+
+    private Instant parseServerTime() {
+        Instant time = getParseContext().dateFormatDetector(DATE_FORMATS).parse(serverTimeValue, Instant::from);
+        if (time == null) {
+            throw new DataValidationException(
+                String.format("Unknown dateTime format for value %s.", serverTimeValue)
+            );
         }
+        return time;
     }
 
     @Parsed(field = "Local Transaction Id")
@@ -115,6 +124,7 @@ public class GeneralBytesBeanV2 extends ExchangeBean {
 
     @Override
     public TransactionCluster toTransactionCluster() {
+        serverTime = parseServerTime();
         validateCurrencyPair(cryptoCurrency, cashCurrency);
         List<ImportedTransactionBean> related;
         final boolean isIncorrectFee = !(expenseCurrency.equals(cryptoCurrency) || expenseCurrency.equals(cashCurrency));
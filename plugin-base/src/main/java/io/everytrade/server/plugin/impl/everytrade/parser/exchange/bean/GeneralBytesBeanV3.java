@@ -11,17 +11,16 @@ import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
-import io.everytrade.server.plugin.impl.everytrade.parser.utils.ProfileContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.utils.StatusRulesRegistry;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
-import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import static io.everytrade.server.model.TransactionType.BUY;
 import static io.everytrade.server.model.TransactionType.SELL;
@@ -32,6 +31,7 @@ import static io.everytrade.server.plugin.impl.generalbytes.GbPlugin.parseGbCurr
     "Crypto Amount","Crypto Currency","Status", "Expense", "Expense Currency", "Destination Address"}, extract = true)
 public class GeneralBytesBeanV3 extends ExchangeBean {
 
+    private String serverTimeValue;
     private Instant serverTime;
     private String localTransactionId;
     private String remoteTransactionId;
@@ -46,18 +46,24 @@ public class GeneralBytesBeanV3 extends ExchangeBean {
     private String labelsFromStatus;
     private TransactionType originalType;
 
+    private static final Supplier<DateTimeFormatDetector> DATE_FORMATS = DateTimeFormatDetector::ofFormatFinder;
     private static final Map<Currency, Integer> CURRENCY_SCALE_MAP = Map.of(
         Currency.ADA, 6
     );
 
     @Parsed(field = "Server Time")
     public void setDate(String value) {
-        final String formatPattern = new DateTimeFormatFinder().findFormatPattern(value);
-        try {
-            serverTime = ParserUtils.parse(formatPattern, value);
-        } catch (IllegalArgumentException | NullPointerException | DateTimeParseException e) {
-            throw new DataValidationException(String.format("Unknown dateTime format for value %s.", value));
+        serverTimeValue = value;
+    }
+
+    private Instant parseServerTime() {
+        Instant time = getParseContext().dateFormatDetector(DATE_FORMATS).parse(serverTimeValue, Instant::from);
+        if (time == null) {
+            throw new DataValidationException(
+                String.format("Unknown dateTime format for value %s.", serverTimeValue)
+            );
         }
+        return time;
     }
 
     @Parsed(field = "Local Transaction Id")
@@ -114,16 +120,21 @@ public class GeneralBytesBeanV3 extends ExchangeBean {
         if (raw == null) {
             throw new DataIgnoredException(UNSUPPORTED_STATUS_TYPE + "null");
         }
-        final String status = raw.trim();
+        this.labelsFromStatus = raw.trim();
+    }
 
-        final String profile = ProfileContext.get();
-        var rules = StatusRulesRegistry.get("generalbytes", profile);
+    // the rules of the profile, the context of the parse is set to the bean once its row is mapped
+    private void checkStatusOfProfile() {
+        if (labelsFromStatus == null) {
+            // no status column
+            return;
+        }
+        var rules = StatusRulesRegistry.get("generalbytes", getParseContext().getProfile());
 
-        boolean ok = rules.stream().anyMatch(r -> r.test(status, this.originalType));
+        boolean ok = rules.stream().anyMatch(r -> r.test(labelsFromStatus, this.originalType));
         if (!ok) {
-            throw new DataIgnoredException(UNSUPPORTED_STATUS_TYPE + status);
+            throw new DataIgnoredException(UNSUPPORTED_STATUS_TYPE + labelsFromStatus);
         }
-        this.labelsFromStatus = status;
     }
 
     @Parsed(field = "Expense", defaultNullRead = "0")
@@ -145,6 +156,8 @@ public class GeneralBytesBeanV3 extends ExchangeBean {
 
     @Override
     public TransactionCluster toTransactionCluster() {
+        serverTime = parseServerTime();
+        checkStatusOfProfile();
         if (type.isBuyOrSell()) {
             validateCurrencyPair(cryptoCurrency, cashCurrency);
         }
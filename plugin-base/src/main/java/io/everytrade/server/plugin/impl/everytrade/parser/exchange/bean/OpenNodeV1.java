@@ -8,6 +8,7 @@ import io.everytrade.server.model.TransactionType;
 import io.everytrade.server.plugin.api.parser.FeeRebateImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.DateTimeFormatters;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
@@ -84,7 +85,7 @@ public class OpenNodeV1 extends ExchangeBean {
     private Instant combineDateAndTime(String day, String time) {
         try {
             String stringDate = String.format("%s %s", day, time);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a", Locale.US);
+            DateTimeFormatter formatter = DateTimeFormatters.of("MM/dd/yyyy hh:mm a", Locale.US);
             final LocalDateTime localDateTime = LocalDateTime.parse(stringDate, formatter);
             return localDateTime.toInstant(ZoneOffset.UTC);
         } catch (Exception e) {
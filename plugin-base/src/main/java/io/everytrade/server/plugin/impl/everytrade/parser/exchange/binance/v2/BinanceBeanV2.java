@@ -18,12 +18,9 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
-import static io.everytrade.server.model.CurrencyPair.getTradeablePairs;
 import static io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils.equalsToZero;
 import static io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils.nullOrZero;
 
@@ -32,7 +29,6 @@ public class BinanceBeanV2 extends ExchangeBean {
     private static final Logger LOG = LoggerFactory.getLogger(BinanceBeanV2.class);
     private static final String STATUS_FILLED = "Filled";
     private static final String STATUS_PARTIAL_FILL = "Partial Fill";
-    private static Map<String, CurrencyPair> fastCurrencyPair = new HashMap<>();
 
     private Instant date;
     private Currency pairBase;
@@ -43,12 +39,6 @@ public class BinanceBeanV2 extends ExchangeBean {
     private BigDecimal fee;
     private Currency feeCurrency;
 
-    static {
-        getTradeablePairs().forEach(t -> fastCurrencyPair.put(
-            String.format("%s%s", t.getBase().code(), t.getQuote().code()), t)
-        );
-    }
-
     public BinanceBeanV2(
         String date,
         String pair,
@@ -62,7 +52,7 @@ public class BinanceBeanV2 extends ExchangeBean {
             throw new DataIgnoredException(UNSUPPORTED_STATUS_TYPE.concat(status));
         }
         this.date = parseDate(date);
-        final CurrencyPair currencyPair = fastCurrencyPair.get(pair);
+        final CurrencyPair currencyPair = CurrencyPair.findBySymbol(pair, "");
         if (currencyPair == null) {
             throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(pair));
         }
@@ -5,6 +5,7 @@ import com.univocity.parsers.csv.CsvParser;
 import com.univocity.parsers.csv.CsvParserSettings;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.ParsingProblemType;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.UnknownHeaderException;
@@ -12,10 +13,8 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IExchangeSpec
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -44,15 +43,19 @@ public class BinanceExchangeSpecificParser implements IExchangeSpecificParser {
     }
 
     @Override
-    public List<? extends ExchangeBean> parse(
-        File inputFile
-    ) {
+    public List<? extends ExchangeBean> parse(File inputFile) {
+        return parse(inputFile, ParseContext.DEFAULT);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, ParseContext parseContext) {
         parsingProblems = new ArrayList<>();
         final List<BinanceBeanV2> binanceBeans = new ArrayList<>();
-        try (Reader reader = new FileReader(inputFile, StandardCharsets.UTF_8)) {
+        try (Reader reader = parseContext.openReader(inputFile)) {
             final CsvParserSettings csvParserSettings = new CsvParserSettings();
             csvParserSettings.getFormat().setDelimiter(delimiter);
             csvParserSettings.setHeaderExtractionEnabled(false);
+            csvParserSettings.setLineSeparatorDetectionEnabled(true);
             CsvParser parser = new CsvParser(csvParserSettings);
             List<Record> allRecords = parser.parseAllRecords(reader);
             Map<Level2Header, Integer> level2HeaderIndexes = null;
@@ -113,6 +116,7 @@ public class BinanceExchangeSpecificParser implements IExchangeSpecificParser {
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
+        binanceBeans.forEach(bean -> bean.setParseContext(parseContext));
         return binanceBeans;
     }
 
@@ -7,15 +7,14 @@ import com.univocity.parsers.csv.CsvParserSettings;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.CurrencyPair;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IExchangeSpecificParser;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -43,13 +42,19 @@ public class BinanceExchangeSpecificParserV3 implements IExchangeSpecificParser
 
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
+        return parse(inputFile, ParseContext.DEFAULT);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, ParseContext parseContext) {
         parsingProblems = new ArrayList<>();
         final List<BinanceBeanV3> binanceBeans = new ArrayList<>();
 
-        try (Reader reader = new FileReader(inputFile, StandardCharsets.UTF_8)) {
+        try (Reader reader = parseContext.openReader(inputFile)) {
             final CsvParserSettings csvParserSettings = new CsvParserSettings();
             csvParserSettings.getFormat().setDelimiter(delimiter);
             csvParserSettings.setHeaderExtractionEnabled(false);
+            csvParserSettings.setLineSeparatorDetectionEnabled(true);
             CsvParser parser = new CsvParser(csvParserSettings);
             List<Record> allRecords = parser.parseAllRecords(reader);
             // remove row with header
@@ -67,6 +72,7 @@ public class BinanceExchangeSpecificParserV3 implements IExchangeSpecificParser
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
+        binanceBeans.forEach(bean -> bean.setParseContext(parseContext));
         return binanceBeans;
     }
 
@@ -0,0 +1,137 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_BUY_CRYPTO;
+import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_TRANSACTION_REVENUE;
+
+/**
+ * Groups the multi-row operations passed in the order of their time. Rows of the same time make a group, the groups
+ * starting within the tolerance of the first group of a run are merged into it (except the groups of transaction
+ * revenue). A group is passed to the consumer as soon as a later row can't be merged into it anymore, so the window
+ * holds only the rows of its open groups.
+ *
+ * <p>The parser adds the rows as they are read while they are ordered by time, see {@link #isInOrder}.</p>
+ */
+public class BinanceGroupWindowV4 {
+
+    private final long toleranceMs;
+    private final Predicate<List<BinanceBeanV4>> groupFilter;
+    private final BiConsumer<Instant, List<BinanceBeanV4>> groupConsumer;
+
+    private Instant time;
+    private List<BinanceBeanV4> rows = new ArrayList<>();
+    private Instant previousKey = Instant.EPOCH;
+    private List<BinanceBeanV4> previousValues = new ArrayList<>();
+    private boolean previousOpen;
+    private boolean groupClosed;
+
+    /**
+     * @param groupFilter   rejects the groups before they are merged, e.g. groups with an unsupported row
+     * @param groupConsumer receives the time and the rows of every finished group
+     */
+    public BinanceGroupWindowV4(
+        long toleranceMs,
+        Predicate<List<BinanceBeanV4>> groupFilter,
+        BiConsumer<Instant, List<BinanceBeanV4>> groupConsumer
+    ) {
+        this.toleranceMs = toleranceMs;
+        this.groupFilter = Objects.requireNonNull(groupFilter);
+        this.groupConsumer = Objects.requireNonNull(groupConsumer);
+    }
+
+    public void add(BinanceBeanV4 row) {
+        Instant rowTime = Objects.requireNonNull(row.getDate(), "Row without time can't be grouped.");
+        if (time != null && !time.equals(rowTime)) {
+            if (rowTime.isBefore(time)) {
+                throw new IllegalArgumentException(String.format("Rows not ordered by time, %s added after %s.", rowTime, time));
+            }
+            closeGroup();
+        }
+        time = rowTime;
+        rows.add(row);
+    }
+
+    /**
+     * Whether the row may be added, i.e. it isn't older than the rows added before.
+     */
+    public boolean isInOrder(BinanceBeanV4 row) {
+        return time == null || !row.getDate().isBefore(time);
+    }
+
+    /**
+     * Removes and returns the rows added so far when they are all of the same time, i.e. when no group was passed to
+     * the filter yet, so that they can be grouped with rows out of order. Returns null when a group was closed.
+     */
+    public List<BinanceBeanV4> removeRowsIfNoGroupClosed() {
+        if (groupClosed) {
+            return null;
+        }
+        List<BinanceBeanV4> removed = rows;
+        time = null;
+        rows = new ArrayList<>();
+        return removed;
+    }
+
+    /**
+     * Passes the groups still open to the consumer.
+     */
+    public void finish() {
+        if (time != null) {
+            closeGroup();
+        }
+        passPrevious();
+    }
+
+    private void closeGroup() {
+        Instant currentKey = time;
+        List<BinanceBeanV4> currentValues = rows;
+        time = null;
+        rows = new ArrayList<>();
+        groupClosed = true;
+        if (groupFilter.test(currentValues)) {
+            merge(currentKey, currentValues);
+        }
+    }
+
+    private void merge(Instant currentKey, List<BinanceBeanV4> currentValues) {
+        if (currentValues.stream().anyMatch(op -> op.getOperationType().equals(OPERATION_TYPE_TRANSACTION_REVENUE))) {
+            groupConsumer.accept(currentKey, currentValues);
+            return;
+        }
+        if (currentKey.minusMillis(toleranceMs).isAfter(previousKey)) {
+            passPrevious();
+            previousKey = currentKey;
+            previousValues = currentValues;
+            previousOpen = true;
+            return;
+        }
+        if (currentValues.get(0).getCoin().isFiat()
+            && previousValues.get(0).getCoin().isFiat()
+            && currentValues.get(0).getOperationType().equals(OPERATION_TYPE_BUY_CRYPTO)
+        ) {
+            // the group is kept only to be merged with the next one
+            passPrevious();
+            previousKey = currentKey;
+            previousValues = currentValues;
+            previousValues.forEach(r -> r.setDate((Instant) null));
+            return;
+        }
+        currentValues.addAll(previousValues);
+        currentValues.forEach(r -> r.setMergedWithAnotherGroup(true));
+        previousValues = currentValues;
+        previousOpen = true;
+    }
+
+    private void passPrevious() {
+        if (previousOpen) {
+            previousOpen = false;
+            groupConsumer.accept(previousKey, previousValues);
+        }
+    }
+}
@@ -10,20 +10,21 @@ import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.parser.EverytradeCSVParserValidator;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.DateTimeFormatDetector;
 import lombok.ToString;
 import lombok.experimental.FieldDefaults;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static io.everytrade.server.model.TransactionType.AIRDROP;
 import static io.everytrade.server.model.TransactionType.DEPOSIT;
@@ -40,6 +41,7 @@ import static lombok.AccessLevel.PRIVATE;
 public class EveryTradeBeanV3_2 extends ExchangeBean {
 
     String uid;
+    String dateValue;
     Instant date;
     Currency symbolBase;
     Currency symbolQuote;
@@ -95,6 +97,9 @@ public class EveryTradeBeanV3_2 extends ExchangeBean {
         .map(pattern -> DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC))
         .toList();
 
+    private static final Supplier<DateTimeFormatDetector> DATE_FORMATS =
+        () -> DateTimeFormatDetector.of(DATE_FORMATTERS);
+
     @Parsed(field = "UID")
     public void setUid(String value) {
         uid = value;
@@ -102,27 +107,23 @@ public class EveryTradeBeanV3_2 extends ExchangeBean {
 
     @Parsed(field = "DATE")
     public void setDate(String value) {
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                TemporalAccessor temporal = formatter.parseBest(
-                    value,
-                    Instant::from,
-                    LocalDateTime::from,
-                    LocalDate::from
-                );
-                if (temporal instanceof Instant) {
-                    date = (Instant) temporal;
-                } else if (temporal instanceof LocalDateTime) {
-                    date = ((LocalDateTime) temporal).toInstant(ZoneOffset.UTC);
-                } else if (temporal instanceof LocalDate) {
-                    date = ((LocalDate) temporal).atStartOfDay(ZoneOffset.UTC).toInstant();
-                }
-                return;
-            } catch (DateTimeParseException e) {
-                // Continue to next formatter
-            }
+        dateValue = value;
+    }
+
+    private Instant parseDate() {
+        Instant parsed = getParseContext().dateFormatDetector(DATE_FORMATS)
+            .parse(dateValue, EveryTradeBeanV3_2::toInstant);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid date format: " + dateValue);
+        }
+        return parsed;
+    }
+
+    private static Instant toInstant(TemporalAccessor temporal) {
+        if (temporal.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return Instant.from(temporal);
         }
-        throw new IllegalArgumentException("Invalid date format: " + value);
+        return LocalDate.from(temporal).atStartOfDay(ZoneOffset.UTC).toInstant();
     }
 
     @Parsed(field = "SYMBOL")
@@ -236,6 +237,7 @@ public class EveryTradeBeanV3_2 extends ExchangeBean {
 
     @Override
     public TransactionCluster toTransactionCluster() {
+        date = parseDate();
         if (symbolBase != null && symbolQuote != null) {
             validateCurrencyPair(symbolBase, symbolQuote, action);
         }
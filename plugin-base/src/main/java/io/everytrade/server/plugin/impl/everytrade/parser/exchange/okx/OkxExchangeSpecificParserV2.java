@@ -8,9 +8,9 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IExchangeSpecificParser;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IMultiExchangeSpecificParser;
 
-import java.io.File;
+import java.io.BufferedReader;
+import java.io.Reader;
 import java.math.BigDecimal;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedList;
@@ -22,6 +22,8 @@ import java.util.stream.Collectors;
 public class OkxExchangeSpecificParserV2 extends DefaultUnivocityExchangeSpecificParser implements IExchangeSpecificParser,
     IMultiExchangeSpecificParser<OkxBeanV2> {
 
+    private static final int ACCOUNT_INFO_LINE_READ_LIMIT = 64 * 1024;
+
     List<OkxBeanV2> originalRows;
     List<OkxBeanV2> unSupportedRows = new LinkedList<>();
     List<OkxBeanV2> rowsWithMultipleRowTransactionType = new LinkedList<>();
@@ -177,26 +179,27 @@ public class OkxExchangeSpecificParserV2 extends DefaultUnivocityExchangeSpecifi
     }
 
     @Override
-    protected void correctFile(File file) {
-        removeFirstLine(file);
+    protected Reader correctReader(Reader reader) {
+        return skipAccountInfoLine(reader);
     }
 
-    static void removeFirstLine(File file) {
+    /**
+     * Skips the account info line preceding the header of the OKX exports, the rest of the file is read from the same
+     * reader.
+     */
+    static Reader skipAccountInfoLine(Reader reader) {
         try {
-            List<String> lines = Files.readAllLines(file.toPath());
-
-            if (!lines.isEmpty()) {
-                String first = lines.get(0).replace("\uFEFF", "");
-
-                if (first.startsWith("UID:") &&
-                    first.contains("Account Type:") &&
-                    first.contains("Time Zone:")) {
-
-                    lines = lines.subList(1, lines.size());
-                    Files.write(file.toPath(), lines);
-                }
+            var bufferedReader = new BufferedReader(reader);
+            bufferedReader.mark(ACCOUNT_INFO_LINE_READ_LIMIT);
+            String first = bufferedReader.readLine();
+            if (first != null) {
+                first = first.replace("\uFEFF", "");
             }
-
+            if (first == null
+                || !(first.startsWith("UID:") && first.contains("Account Type:") && first.contains("Time Zone:"))) {
+                bufferedReader.reset();
+            }
+            return bufferedReader;
         } catch (Exception e) {
             throw new RuntimeException("Failed to correct file for OKX V2 parser", e);
         }
@@ -4,7 +4,7 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.DefaultUnivoc
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IExchangeSpecificParser;
 
-import java.io.File;
+import java.io.Reader;
 
 public class OkxWdrlDepExchangeSpecificParser extends DefaultUnivocityExchangeSpecificParser implements IExchangeSpecificParser {
 
@@ -14,7 +14,7 @@ public class OkxWdrlDepExchangeSpecificParser extends DefaultUnivocityExchangeSp
     }
 
     @Override
-    protected void correctFile(File file) {
-        OkxExchangeSpecificParserV2.removeFirstLine(file);
+    protected Reader correctReader(Reader reader) {
+        return OkxExchangeSpecificParserV2.skipAccountInfoLine(reader);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange.trezorSuite;
 
 import io.everytrade.server.model.TransactionType;
+import io.everytrade.server.plugin.impl.everytrade.parser.DateTimeFormatters;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -8,13 +9,16 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Locale;
 
 public class TrezorSuiteSortedGroup {
 
+    private static final List<String> DATE_PATTERNS = List.of(
+        "d.M.yyyy", "d. M. yyyy", "d/M/yyyy", "M/d/yyyy", "d-M-yyyy", "yyyy.M.d", "yyyy-M-d", "yyyy/M/d"
+    );
+
     public static TrezorSuiteBeanV1 createWithdrawalTx(TrezorSuiteBeanV1 row) {
         return createTransaction(row, TransactionType.WITHDRAWAL);
     }
@@ -57,22 +61,11 @@ public class TrezorSuiteSortedGroup {
     private static Instant parseDateTime(String date, String time) {
         String normalizedDate = date.trim();
 
-        List<DateTimeFormatter> formatters = List.of(
-            DateTimeFormatter.ofPattern("d.M.yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("d. M. yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("d/M/yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("M/d/yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("d-M-yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("yyyy.M.d", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("yyyy-M-d", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("yyyy/M/d", Locale.ENGLISH)
-        );
-
         LocalDate localDate = null;
 
-        for (DateTimeFormatter formatter : formatters) {
+        for (String datePattern : DATE_PATTERNS) {
             try {
-                localDate = LocalDate.parse(normalizedDate, formatter);
+                localDate = LocalDate.parse(normalizedDate, DateTimeFormatters.of(datePattern, Locale.ENGLISH));
                 break;
             } catch (DateTimeParseException e) {
                 // Try next format
@@ -88,9 +81,9 @@ public class TrezorSuiteSortedGroup {
 
         LocalTime localTime;
         try {
-            localTime = LocalTime.parse(timePart, DateTimeFormatter.ofPattern("H:mm:ss"));
+            localTime = LocalTime.parse(timePart, DateTimeFormatters.of("H:mm:ss"));
         } catch (DateTimeParseException e) {
-            localTime = LocalTime.parse(timePart, DateTimeFormatter.ofPattern("h:mm:ss a", Locale.ENGLISH));
+            localTime = LocalTime.parse(timePart, DateTimeFormatters.of("h:mm:ss a", Locale.ENGLISH));
         }
 
         ZonedDateTime zonedDateTime = ZonedDateTime.of(
@@ -1,7 +1,5 @@
 package io.everytrade.server.plugin.impl.everytrade.rateprovider;
 
-import com.generalbytes.batm.server.extensions.extra.bitcoin.sources.coinpaprika.CoinPaprikaHistoricalTickerResponse;
-import com.generalbytes.batm.server.extensions.extra.bitcoin.sources.coinpaprika.CoinPaprikaV1API;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.CurrencyPair;
 import io.everytrade.server.plugin.api.IPlugin;
@@ -11,7 +9,11 @@ import io.everytrade.server.plugin.api.rateprovider.IRateProvider;
 import io.everytrade.server.plugin.api.rateprovider.Rate;
 import io.everytrade.server.plugin.api.rateprovider.RateSourceType;
 import io.everytrade.server.plugin.api.rateprovider.RateValidity;
+import io.everytrade.server.plugin.impl.everytrade.RequestRateLimiter;
 import io.everytrade.server.plugin.impl.everytrade.WhaleBooksPlugin;
+import io.everytrade.server.plugin.impl.everytrade.coinpaprika.CoinPaprikaHistoricalTickDto;
+import io.everytrade.server.plugin.impl.everytrade.coinpaprika.CoinPaprikaV1API;
+import io.everytrade.server.plugin.utils.ComparableUtils;
 import io.everytrade.server.plugin.utils.TimeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,24 +30,38 @@ import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 public final class CoinPaprikaRateProvider implements IRateProvider {
     private final CoinPaprikaV1API api;
+    // rates are immutable market data, the cache is only bounded to limit memory of long running instances
+    private final Map<RateKey, Rate> cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RateKey, Rate> eldest) {
+            return size() > MAX_CACHED_RATES;
+        }
+    });
 
     private static final Map<Currency, String> COIN_IDS_BY_CURRENCY = new EnumMap<>(Currency.class);
     private static final Map<Currency, Instant> LISTING_START_BY_CURRENCY = new EnumMap<>(Currency.class);
     private static final Set<Currency> SUPPORTED_QUOTES = new HashSet<>();
-    private static final Duration CALL_DELAY = Duration.of(250, ChronoUnit.MILLIS);
+    private static final String API_URL = "https://api.coinpaprika.com/";
+    private static final int REQUESTS_PER_SECOND = 4;
+    // one call fetches ticks of MIN_RATE_VALIDITY interval for ~10 days around the requested instant
+    private static final int TICKS_PER_CALL = 1000;
+    private static final String TICK_INTERVAL = "15m";
+    private static final int MAX_CACHED_RATES = 200_000;
+    private static final RequestRateLimiter RATE_LIMITER =
+        RequestRateLimiter.of("coinpaprika", null, REQUESTS_PER_SECOND, Duration.ofSeconds(1), 1);
     private static final Logger LOG = LoggerFactory.getLogger(CoinPaprikaRateProvider.class);
-    private static Instant LAST_CALL = Instant.now();
 
     public static final RateValidity MIN_RATE_VALIDITY = RateValidity.QUARTER_HOUR;
     public static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "coinPaprika";
@@ -290,110 +306,148 @@ public final class CoinPaprikaRateProvider implements IRateProvider {
     );
 
     public CoinPaprikaRateProvider() {
+        this(API_URL);
+    }
+
+    CoinPaprikaRateProvider(String apiUrl) {
         final ClientConfig config
             = new ClientConfig().addDefaultParam(HeaderParam.class, "User-Agent", "");
 
         Objects.requireNonNull(
-            api = RestProxyFactory.createProxy(CoinPaprikaV1API.class, "https://api.coinpaprika.com/", config)
+            api = RestProxyFactory.createProxy(CoinPaprikaV1API.class, apiUrl, config)
         );
     }
 
     @Override
     public Rate getRate(Currency base, Currency quote, Instant instant) {
+        return getRates(base, quote, List.of(instant)).get(0);
+    }
+
+    /**
+     * Rates are cached by coin, quote and {@link #MIN_RATE_VALIDITY} interval. A cache miss fetches ticks of the
+     * whole surrounding time range in one call, so rates of dense instants cost only a few calls.
+     */
+    @Override
+    public List<Rate> getRates(Currency base, Currency quote, List<Instant> instants) {
         final CurrencyPair pair = new CurrencyPair(base, quote);
         if (!isSupported(pair)) {
             throw new IllegalArgumentException(String.format("Unsupported currency pair: '%s'", pair));
         }
-        if (instant.isAfter(Instant.now())) {
-            throw new IllegalArgumentException(
-                String.format("Can't get rates for instant in the future: '%s'.", instant)
-            );
-        }
+        final Instant now = Instant.now();
         final Instant listingStart = LISTING_START_BY_CURRENCY.get(base);
-        if (instant.isBefore(listingStart)) {
-            return null;
-        }
+        final List<Rate> rates = new ArrayList<>(instants.size());
+        for (Instant instant : instants) {
+            if (instant.isAfter(now)) {
+                throw new IllegalArgumentException(
+                    String.format("Can't get rates for instant in the future: '%s'.", instant)
+                );
+            }
+            if (instant.isBefore(listingStart)) {
+                rates.add(null);
+                continue;
+            }
 
-        final Instant truncated =
-            TimeUtils.truncate(instant, MIN_RATE_VALIDITY.getField(), MIN_RATE_VALIDITY.getCount());
-
-        if (base.equals(quote)) {
-            return new Rate(
-                BigDecimal.ONE,
-                base,
-                quote,
-                truncated,
-                truncated.plus(MIN_RATE_VALIDITY.getDuration()),
-                RateSourceType.FACT,
-                CachingStrategy.DO_NOT_CACHE
-            );
-        }
+            final Instant truncated =
+                TimeUtils.truncate(instant, MIN_RATE_VALIDITY.getField(), MIN_RATE_VALIDITY.getCount());
 
-        final String timeStamp =
-            ZonedDateTime.ofInstant(instant, ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-
-        final String quoteStr = quote.code().toLowerCase();
-        final String coinId = getCoinId(base);
-
-        List<CoinPaprikaHistoricalTickerResponse> historical = null;
-        boolean retry;
-        int tryNo = 0;
-        do {
-            retry = false;
-            try {
-                waitForPossibleCall();
-                tryNo++;
-                historical = api.getHistorical(coinId, timeStamp, null, 1, quoteStr, null);
-            } catch (IOException e) {
-                if (!isTooManyRequests(e)) {
-                    LOG.error(
-                        String.format("Error getting historical rate (pair: '%s', instant: '%s').", pair, instant),
-                        e
-                    );
-                    return null;
-                }
-
-                if (tryNo == 1) {
-                    LOG.warn("Received HTTP status 429 (Too many requests). Retrying after sleep...");
-                    try {
-                        TimeUnit.MILLISECONDS.sleep(2 * CALL_DELAY.toMillis());
-                    } catch (InterruptedException interruptedException) {
-                        LOG.error("Interrupted.", e);
-                        Thread.currentThread().interrupt();
-                    }
-                    retry = true;
-                    continue;
-                }
-
-                LOG.warn("Received HTTP status 429 (Too many requests). Returning non-cacheable zero rate.");
-                return new Rate(
-                    BigDecimal.ZERO,
-                    pair,
+            if (base.equals(quote)) {
+                rates.add(new Rate(
+                    BigDecimal.ONE,
+                    base,
+                    quote,
                     truncated,
                     truncated.plus(MIN_RATE_VALIDITY.getDuration()),
-                    RateSourceType.MISSING,
+                    RateSourceType.FACT,
                     CachingStrategy.DO_NOT_CACHE
-                );
+                ));
+                continue;
             }
-        } while (retry);
 
+            final Rate cached = cache.get(new RateKey(base, quote, truncated));
+            rates.add(cached != null ? cached : fetchRate(pair, instant, truncated, now));
+        }
+        return rates;
+    }
+
+    private Rate fetchRate(CurrencyPair pair, Instant instant, Instant truncated, Instant now) {
+        final Duration range = MIN_RATE_VALIDITY.getDuration().multipliedBy(TICKS_PER_CALL);
+        final Instant end = ComparableUtils.min(truncated.plus(range.dividedBy(2)), now);
+        final Instant start = ComparableUtils.max(end.minus(range), LISTING_START_BY_CURRENCY.get(pair.getBase()));
+
+        final List<CoinPaprikaHistoricalTickDto> ticks;
+        try {
+            ticks = fetchTicks(pair, start, end, TICKS_PER_CALL);
+        } catch (IOException e) {
+            return rateOnFetchError(pair, instant, truncated, e);
+        }
+        for (CoinPaprikaHistoricalTickDto tick : ticks) {
+            final Instant timestamp = Instant.parse(tick.getTimestamp());
+            final Instant tickTruncated =
+                TimeUtils.truncate(timestamp, MIN_RATE_VALIDITY.getField(), MIN_RATE_VALIDITY.getCount());
+            cache.putIfAbsent(new RateKey(pair.getBase(), pair.getQuote(), tickTruncated), toRate(pair, tick, tickTruncated));
+        }
+        final Rate rate = cache.get(new RateKey(pair.getBase(), pair.getQuote(), truncated));
+        return rate != null ? rate : fetchNextRate(pair, instant, truncated);
+    }
+
+    // the range has no tick for the instant's interval, the first tick after the instant is used
+    private Rate fetchNextRate(CurrencyPair pair, Instant instant, Instant truncated) {
+        final List<CoinPaprikaHistoricalTickDto> historical;
+        try {
+            historical = fetchTicks(pair, instant, null, 1);
+        } catch (IOException e) {
+            return rateOnFetchError(pair, instant, truncated, e);
+        }
         if (historical.isEmpty()) {
             LOG.error("Historical rate data is empty (pair: '{}', instant: '{}').", pair, instant);
             return null;
         }
-        final CoinPaprikaHistoricalTickerResponse first = historical.get(0);
-        final Instant timestamp = Instant.parse(first.timestamp);
+        final CoinPaprikaHistoricalTickDto first = historical.get(0);
+        return toRate(pair, first, Instant.parse(first.getTimestamp()));
+    }
+
+    private List<CoinPaprikaHistoricalTickDto> fetchTicks(CurrencyPair pair, Instant start, Instant end, int limit)
+        throws IOException {
+        final String coinId = getCoinId(pair.getBase());
+        final String quoteStr = pair.getQuote().code().toLowerCase();
+        final String interval = limit == 1 ? null : TICK_INTERVAL;
+        return RATE_LIMITER.call(() -> api.getHistorical(coinId, format(start), format(end), limit, quoteStr, interval));
+    }
+
+    private Rate rateOnFetchError(CurrencyPair pair, Instant instant, Instant truncated, IOException e) {
+        if (!isTooManyRequests(e)) {
+            logFetchError(instant, pair, e);
+            return null;
+        }
+        LOG.warn("Received HTTP status 429 (Too many requests). Returning non-cacheable zero rate.");
         return new Rate(
-            first.price,
-            base,
-            quote,
-            timestamp,
-            timestamp.plus(MIN_RATE_VALIDITY.getDuration()),
+            BigDecimal.ZERO,
+            pair,
+            truncated,
+            truncated.plus(MIN_RATE_VALIDITY.getDuration()),
+            RateSourceType.MISSING,
+            CachingStrategy.DO_NOT_CACHE
+        );
+    }
+
+    private static Rate toRate(CurrencyPair pair, CoinPaprikaHistoricalTickDto tick, Instant validityStart) {
+        return new Rate(
+            tick.getPrice(),
+            pair.getBase(),
+            pair.getQuote(),
+            validityStart,
+            validityStart.plus(MIN_RATE_VALIDITY.getDuration()),
             RateSourceType.MARKET,
             CachingStrategy.LONG_TERM
         );
     }
 
+    private static String format(Instant instant) {
+        return instant == null
+            ? null
+            : ZonedDateTime.ofInstant(instant, ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
     public boolean isTooManyRequests(IOException e) {
         return e instanceof HttpStatusIOException
             && ((HttpStatusIOException) e).getHttpStatusCode() == Response.Status.TOO_MANY_REQUESTS.getStatusCode();
@@ -422,24 +476,7 @@ public final class CoinPaprikaRateProvider implements IRateProvider {
         return false;
     }
 
-    private static synchronized void waitForPossibleCall() {
-        final Instant now = Instant.now();
-        final Duration sinceLastCall = Duration.between(LAST_CALL, now);
-        final Duration waitingTime = CALL_DELAY.minus(sinceLastCall);
-        if (!(waitingTime.isNegative() || waitingTime.isZero()) && waitingTime.compareTo(CALL_DELAY) <= 0) {
-            try {
-                final long waitMillis = waitingTime.toMillis();
-                final long realSleepMillis = waitMillis == 0 ? 1 : waitMillis;
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace(String.format("Going to sleep %d ms.", realSleepMillis));
-                }
-                TimeUnit.MILLISECONDS.sleep(realSleepMillis);
-            } catch (InterruptedException e) {
-                LOG.error("waitForPossibleCall", e);
-                Thread.currentThread().interrupt();
-            }
-        }
-        LAST_CALL = now;
+    private record RateKey(Currency base, Currency quote, Instant validityStart) {
     }
 
     public static void main(String[] args) {
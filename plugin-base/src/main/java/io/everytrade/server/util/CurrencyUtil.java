@@ -7,18 +7,29 @@ import java.util.Map;
 public class CurrencyUtil {
 
     private static final Map<String, Currency> CURRENCY_EXCEPTIONS = new HashMap<>();
+    // the codes of the currencies and the exceptions, so that both are resolved by a single lookup
+    private static final Map<String, Currency> CURRENCIES;
 
     static {
         CURRENCY_EXCEPTIONS.put("XDG", Currency.DOGE);
         CURRENCY_EXCEPTIONS.put("RNDR", Currency.RENDER);
         CURRENCY_EXCEPTIONS.put("BEAMX", Currency.BEAM);
+
+        Map<String, Currency> currencies = new HashMap<>();
+        for (Currency currency : Currency.values()) {
+            currencies.put(currency.code(), currency);
+        }
+        currencies.putAll(CURRENCY_EXCEPTIONS);
+        CURRENCIES = Map.copyOf(currencies);
     }
 
     public static Currency fromString(String currencyName) {
-        return CURRENCY_EXCEPTIONS.get(currencyName) != null ? CURRENCY_EXCEPTIONS.get(currencyName) : Currency.fromCode(currencyName);
+        Currency currency = CURRENCIES.get(currencyName);
+        return currency != null ? currency : Currency.fromCode(currencyName);
     }
 
     public static String fromStringToString(String currencyName) {
-        return CURRENCY_EXCEPTIONS.get(currencyName) != null ? CURRENCY_EXCEPTIONS.get(currencyName).getCode() : currencyName;
+        Currency currency = CURRENCY_EXCEPTIONS.get(currencyName);
+        return currency != null ? currency.getCode() : currencyName;
     }
 }
@@ -12,6 +12,8 @@ public class KrakenCurrencyUtil {
     public static final Map<String, Currency> CURRENCY_SHORT_CODES = new HashMap<>();
     public static final Map<String, Currency> CURRENCY_LONG_CODES = new HashMap<>();
     public static final Map<String, Currency> CURRENCY_EXCEPTION_CODES = new HashMap<>();
+    // the codes of the currencies and all the Kraken codes above, so that the code is resolved by a single lookup
+    private static final Map<String, Currency> CURRENCIES;
 
     static {
         CURRENCY_SHORT_CODES.put("XBT", Currency.BTC);
@@ -57,6 +59,16 @@ public class KrakenCurrencyUtil {
         CURRENCY_LONG_CODES.put("XXLTC", Currency.LTC);
         CURRENCY_SHORT_CODES.put("XDG", Currency.DOGE);
         CURRENCY_LONG_CODES.put("EUR.HOLD", Currency.EUR);
+
+        Map<String, Currency> currencies = new HashMap<>();
+        for (Currency currency : Currency.values()) {
+            currencies.put(currency.code(), currency);
+        }
+        // in the reverse order of precedence
+        currencies.putAll(CURRENCY_EXCEPTION_CODES);
+        currencies.putAll(CURRENCY_SHORT_CODES);
+        currencies.putAll(CURRENCY_LONG_CODES);
+        CURRENCIES = Map.copyOf(currencies);
     }
 
     public static Currency findCurrencyByCode(String code) {
@@ -66,56 +78,39 @@ public class KrakenCurrencyUtil {
             .replace(".P", "")
             .replace("ETHW", "ETH");
 
-        final Currency currencyLong = CURRENCY_LONG_CODES.get(code);
-        if (currencyLong != null) {
-            return currencyLong;
-        }
-        final Currency currencyShort = CURRENCY_SHORT_CODES.get(code);
-        if (currencyShort != null) {
-            return currencyShort;
+        Currency currency = CURRENCIES.get(code);
+        if (currency != null) {
+            return currency;
         }
-        final Currency exceptionCurrency = CURRENCY_EXCEPTION_CODES.get(code);
-        if (exceptionCurrency != null) {
-            return exceptionCurrency;
+        currency = Currency.findByCode(code);
+        if (currency != null) {
+            return currency;
         }
-        try {
-            return Currency.fromCode(code);
-        } catch (IllegalArgumentException e) {
-            try {
-                code = removeDigitsFromEndOfString(code);
-                return Currency.fromCode(code);
-
-            } catch (IllegalArgumentException ignore) {
-            }
+        code = removeDigitsFromEndOfString(code);
+        currency = Currency.findByCode(code);
+        if (currency != null) {
+            return currency;
         }
         throw new IllegalStateException(String.format("Currency not found for code %s.", code));
     }
 
     private static String removeDigitsFromEndOfString(String value) {
-        int i;
-        for (i = value.length(); i > 0; --i) {
-            char[] chars = value.substring(0, i).toCharArray();
-            if (Character.isDigit(chars[i-1])) {
-                value = value.substring(0, i - 1);
-            } else {
-                break;
-            }
+        int end = value.length();
+        while (end > 0 && Character.isDigit(value.charAt(end - 1))) {
+            end--;
         }
-        return value;
+        return value.substring(0, end);
     }
 
     public static CurrencyPair findStandardPair(String pair) {
         for (int i = 1; i < pair.length(); i++) {
-            String baseCode = pair.substring(0, i);
-            String quoteCode = pair.substring(i);
-
-            try {
-                Currency base = Currency.fromCode(baseCode);
-                Currency quote = Currency.fromCode(quoteCode);
-
+            Currency base = Currency.findByCode(pair.substring(0, i));
+            if (base == null) {
+                continue;
+            }
+            Currency quote = Currency.findByCode(pair.substring(i));
+            if (quote != null) {
                 return new CurrencyPair(base, quote);
-            } catch (IllegalArgumentException e) {
-                // Ignore exception and continue to next iteration
             }
         }
         throw new DataValidationException(String.format("Can not parse pair %s.", pair));
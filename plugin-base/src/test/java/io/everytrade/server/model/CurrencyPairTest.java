@@ -3,8 +3,12 @@ package io.everytrade.server.model;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CurrencyPairTest {
@@ -28,4 +32,52 @@ class CurrencyPairTest {
             assertTrue(allSupported.contains(f), f.code() + " must be present in supported fiats.");
         });
     }
+
+    @Test
+    public void testTradeablePairsMatchAllCombinations() {
+        var currencies = Currency.values();
+        var tradeablePairs = CurrencyPair.getTradeablePairs();
+
+        assertEquals(currencies.length * currencies.length, tradeablePairs.size());
+        assertEquals(tradeablePairs.size(), new HashSet<>(tradeablePairs).size());
+        for (Currency base : currencies) {
+            for (Currency quote : currencies) {
+                assertTrue(CurrencyPair.isTradeable(base, quote));
+                assertTrue(tradeablePairs.contains(new CurrencyPair(base, quote)));
+            }
+        }
+        assertFalse(CurrencyPair.isTradeable(null, Currency.USD));
+        assertFalse(tradeablePairs.contains(Currency.USD));
+    }
+
+    @Test
+    public void testFindBySymbol() {
+        assertEquals(new CurrencyPair(Currency.BTC, Currency.USD), CurrencyPair.findBySymbol("BTC-USD", "-"));
+        assertEquals(new CurrencyPair(Currency._1INCH, Currency.USDT), CurrencyPair.findBySymbol("1INCH-USDT", "-"));
+        assertEquals(new CurrencyPair(Currency.BTC, Currency.USD), CurrencyPair.findBySymbol("BTCUSD", ""));
+        assertEquals(new CurrencyPair(Currency._1INCH, Currency.USDT), CurrencyPair.findBySymbol("1INCHUSDT", ""));
+        assertEquals(null, CurrencyPair.findBySymbol("BTCUSD", "-"));
+        assertEquals(null, CurrencyPair.findBySymbol("BTC-UNKNOWN", "-"));
+        assertEquals(null, CurrencyPair.findBySymbol("UNKNOWN", ""));
+        assertEquals(null, CurrencyPair.findBySymbol(null, ""));
+    }
+
+    @Test
+    public void testJoinedSymbolResolvesToLastDeclaredBase() {
+        // the pair a map of all pairs keyed by the joined codes held, i.e. the last one put
+        for (Currency base : Currency.values()) {
+            for (Currency quote : List.of(Currency.USD, Currency.CZK, Currency.USDT, Currency.BTC, Currency.ETH)) {
+                String symbol = base.code() + quote.code();
+                CurrencyPair pair = CurrencyPair.findBySymbol(symbol, "");
+                assertEquals(symbol, pair.getBase().code() + pair.getQuote().code());
+                assertTrue(pair.getBase().compareTo(base) >= 0, symbol);
+                for (Currency other : Currency.values()) {
+                    if (other.compareTo(pair.getBase()) > 0 && symbol.startsWith(other.code())) {
+                        assertEquals(null, Currency.findByCode(symbol.substring(other.code().length())), symbol);
+                    }
+                }
+            }
+        }
+    }
+
 }
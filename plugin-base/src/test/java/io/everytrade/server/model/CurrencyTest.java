@@ -3,8 +3,14 @@ package io.everytrade.server.model;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CurrencyTest {
 
@@ -21,4 +27,33 @@ class CurrencyTest {
         assertEquals(Currency._1INCH, Currency.fromCode("1INCH"));
         assertEquals("1INCH", Currency._1INCH.code());
     }
+
+    @Test
+    public void testCodeIsCaseInsensitiveAndTrimmed() {
+        assertEquals(Currency.BTC, Currency.fromCode("btc"));
+        assertEquals(Currency.BTC, Currency.fromCode(" Btc\t"));
+        assertEquals(Currency._1INCH, Currency.fromCode("1inch"));
+        assertNull(Currency.findByCode("BTCX"));
+        assertNull(Currency.findByCode(""));
+        assertNull(Currency.findByCode(null));
+        assertThrows(IllegalArgumentException.class, () -> Currency.fromCode(" btcx "));
+    }
+
+    @Test
+    public void testDerivedSets() {
+        var fiats = Arrays.stream(Currency.values()).filter(Currency::isFiat).collect(Collectors.toList());
+        assertEquals(fiats, Currency.getFiats());
+        assertEquals(Set.copyOf(fiats), Currency.getFiatSet());
+        assertEquals(EnumSet.complementOf(EnumSet.copyOf(fiats)), Currency.getCryptos());
+        assertEquals(
+            Arrays.stream(Currency.values()).filter(Currency::isStableCoin).collect(Collectors.toSet()),
+            Currency.getStableCoins()
+        );
+        assertThrows(UnsupportedOperationException.class, () -> Currency.getFiats().clear());
+        assertThrows(UnsupportedOperationException.class, () -> Currency.getCryptos().add(Currency.USD));
+
+        var fiatsExceptUsd = Currency.getFiatsExcept(Currency.USD);
+        assertEquals(fiats.size() - 1, fiatsExceptUsd.size());
+        assertTrue(fiatsExceptUsd.add(Currency.USD));
+    }
 }
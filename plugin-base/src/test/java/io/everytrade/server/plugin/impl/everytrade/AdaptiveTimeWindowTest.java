@@ -0,0 +1,54 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveTimeWindowTest {
+
+    private static final int PAGE_LIMIT = 1000;
+
+    @Test
+    void testWindowShrinksAfterFullResponsesAndGrowsBackAfterSparseOnes() {
+        var window = new AdaptiveTimeWindow(Duration.ofDays(1), Duration.ofDays(88));
+        assertEquals(Duration.ofDays(88), window.size());
+
+        window.update(PAGE_LIMIT, PAGE_LIMIT);
+        assertEquals(Duration.ofDays(44), window.size());
+        window.update(PAGE_LIMIT, PAGE_LIMIT);
+        assertEquals(Duration.ofDays(22), window.size());
+        // a response with a few records keeps the window
+        window.update(PAGE_LIMIT / 2, PAGE_LIMIT);
+        assertEquals(Duration.ofDays(22), window.size());
+
+        window.update(0, PAGE_LIMIT);
+        assertEquals(Duration.ofDays(44), window.size());
+        window.update(PAGE_LIMIT / 4 - 1, PAGE_LIMIT);
+        assertEquals(Duration.ofDays(88), window.size());
+        window.update(0, PAGE_LIMIT);
+        assertEquals(Duration.ofDays(88), window.size());
+    }
+
+    @Test
+    void testWindowNotShorterThanMinimum() {
+        var window = new AdaptiveTimeWindow(Duration.ofDays(1), Duration.ofDays(3));
+        assertTrue(window.shrink());
+        assertEquals(Duration.ofHours(36), window.size());
+        assertTrue(window.shrink());
+        assertEquals(Duration.ofDays(1), window.size());
+        assertFalse(window.shrink());
+        window.update(PAGE_LIMIT, PAGE_LIMIT);
+        assertEquals(Duration.ofDays(1), window.size());
+    }
+
+    @Test
+    void testIllegalBoundsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveTimeWindow(Duration.ZERO, Duration.ofDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveTimeWindow(Duration.ofDays(2), Duration.ofDays(1)));
+    }
+}
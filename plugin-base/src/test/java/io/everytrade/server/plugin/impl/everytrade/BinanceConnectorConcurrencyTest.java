@@ -0,0 +1,143 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.ExchangeFactory;
+import org.knowm.xchange.ExchangeSpecification;
+import org.knowm.xchange.binance.BinanceExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinanceConnectorConcurrencyTest {
+
+    private static final String MY_TRADES = "/api/v3/myTrades";
+    private static final String API_KEY_HEADER = "X-MBX-APIKEY";
+    private static final int PARALLEL_DOWNLOADS = 4;
+    private static final int API_KEYS = 6;
+
+    WireMockServer wireMockServer;
+    ExecutorService executor;
+    DownloadsInFlight downloadsInFlight;
+
+    @BeforeEach
+    void setUp() {
+        downloadsInFlight = new DownloadsInFlight();
+        wireMockServer = new WireMockServer(wireMockConfig().dynamicPort().containerThreads(20).extensions(downloadsInFlight));
+        wireMockServer.start();
+        long now = System.currentTimeMillis();
+        wireMockServer.stubFor(any(anyUrl()).atPriority(10).willReturn(okJson("[]")));
+        wireMockServer.stubFor(get(urlPathEqualTo("/api/v3/time")).willReturn(okJson("{\"serverTime\":" + now + "}")));
+        wireMockServer.stubFor(get(urlPathEqualTo("/sapi/v1/asset/assetDividend")).willReturn(okJson("{\"rows\":[],\"total\":0}")));
+        wireMockServer.stubFor(get(urlPathEqualTo("/sapi/v1/convert/tradeFlow")).willReturn(okJson(
+            "{\"list\":[],\"startTime\":" + now + ",\"endTime\":" + now + ",\"limit\":1000,\"moreData\":false}"
+        )));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        downloadsInFlight.release.countDown();
+        executor.shutdownNow();
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testAccountsDownloadInParallelUpToLimit() throws InterruptedException {
+        List<CompletableFuture<?>> downloads = new ArrayList<>();
+        // the same account twice, it must never download in parallel with itself
+        downloads.add(download("apiKey-0"));
+        downloads.add(download("apiKey-0"));
+        for (int key = 1; key < API_KEYS; key++) {
+            downloads.add(download("apiKey-" + key));
+        }
+
+        // the last request of a download waits until as many downloads as allowed run at once
+        assertTrue(downloadsInFlight.held.await(30, TimeUnit.SECONDS), "downloads of different accounts don't run in parallel");
+        downloadsInFlight.release.countDown();
+        downloads.forEach(CompletableFuture::join);
+
+        assertEquals(PARALLEL_DOWNLOADS, downloadsInFlight.maxInFlight.get());
+        assertEquals(1, downloadsInFlight.maxInFlightOfKey.get());
+        wireMockServer.verify(API_KEYS + 1, getRequestedFor(urlPathEqualTo(MY_TRADES)));
+    }
+
+    private CompletableFuture<?> download(String apiKey) {
+        ExchangeSpecification specification = new BinanceExchange().getDefaultExchangeSpecification();
+        specification.setSslUri(wireMockServer.baseUrl());
+        specification.setApiKey(apiKey);
+        specification.setSecretKey("apiSecret");
+        specification.setShouldLoadRemoteMetaData(false);
+        var connector = new BinanceConnector(
+            ExchangeFactory.INSTANCE.createExchange(specification), new XChangeConnectorParser(), "BTC/USDT", true, true
+        );
+        // funding and converts downloaded up to now, so every download ends with a single request for the trades
+        long now = System.currentTimeMillis();
+        String state = "|" + now + "|" + now + "|" + now + "|";
+        return CompletableFuture.runAsync(() -> connector.getTransactions(state), executor);
+    }
+
+    /**
+     * Holds the trade requests, the last ones of every download, and counts them per API key while they are held.
+     */
+    private static final class DownloadsInFlight extends ResponseDefinitionTransformer {
+        private final CountDownLatch held = new CountDownLatch(PARALLEL_DOWNLOADS);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final Map<String, AtomicInteger> inFlightOfKey = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlightOfKey = new AtomicInteger();
+
+        @Override
+        public ResponseDefinition transform(
+            Request request, ResponseDefinition responseDefinition, FileSource files, Parameters parameters
+        ) {
+            if (!request.getUrl().startsWith(MY_TRADES)) {
+                return responseDefinition;
+            }
+            var ofKey = inFlightOfKey.computeIfAbsent(request.getHeader(API_KEY_HEADER), key -> new AtomicInteger());
+            maxInFlightOfKey.accumulateAndGet(ofKey.incrementAndGet(), Math::max);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            held.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                ofKey.decrementAndGet();
+            }
+            return responseDefinition;
+        }
+
+        @Override
+        public String getName() {
+            return "downloads-in-flight";
+        }
+    }
+}
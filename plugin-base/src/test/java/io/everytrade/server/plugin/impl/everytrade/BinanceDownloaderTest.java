@@ -0,0 +1,328 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.Exchange;
+import org.knowm.xchange.ExchangeFactory;
+import org.knowm.xchange.ExchangeSpecification;
+import org.knowm.xchange.binance.BinanceExchange;
+import org.knowm.xchange.dto.account.FundingRecord;
+import org.knowm.xchange.dto.trade.UserTrade;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.Comparator.comparing;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinanceDownloaderTest {
+
+    private static final String EXCHANGE_INFO = "/api/v3/exchangeInfo";
+    private static final String MY_TRADES = "/api/v3/myTrades";
+    private static final String ACCOUNT = "/api/v3/account";
+    private static final String DEPOSITS = "/sapi/v1/capital/deposit/hisrec";
+    private static final String API_KEY_HEADER = "X-MBX-APIKEY";
+    private static final int SYMBOLS = 2000;
+    private static final int PARALLELISM = 8;
+
+    WireMockServer wireMockServer;
+    TradesInFlight tradesInFlight;
+    Exchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        tradesInFlight = new TradesInFlight();
+        wireMockServer = new WireMockServer(wireMockConfig().dynamicPort().containerThreads(40).extensions(tradesInFlight));
+        wireMockServer.start();
+        wireMockServer.stubFor(get(urlPathEqualTo("/api/v3/time"))
+            .willReturn(okJson("{\"serverTime\":" + System.currentTimeMillis() + "}")));
+        exchange = exchange("apiKey");
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testSymbolsDownloadedInParallel() {
+        int symbols = 5 * PARALLELISM;
+        wireMockServer.stubFor(get(urlPathEqualTo(EXCHANGE_INFO)).willReturn(okJson(exchangeInfo(symbols))));
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).willReturn(okJson("[]").withTransformers(TradesInFlight.NAME)));
+
+        List<UserTrade> trades = downloader(null, PARALLELISM).downloadTrades(null, false, true);
+
+        assertTrue(trades.isEmpty());
+        wireMockServer.verify(symbols, getRequestedFor(urlPathEqualTo(MY_TRADES)));
+        // the first requests are held until as many run at once as allowed
+        assertEquals(0, tradesInFlight.parallel.getCount(), "symbols not downloaded in parallel");
+        assertEquals(PARALLELISM, tradesInFlight.maxInFlight.get());
+    }
+
+    @Test
+    void testLastTradeIdsMergedInOrderOfSymbols() {
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).withQueryParam("symbol", equalTo("BTCUSDT"))
+            .willReturn(okJson(myTrades("BTCUSDT", 1, 1000)).withFixedDelay(200)));
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).withQueryParam("symbol", equalTo("BTCUSDT"))
+            .withQueryParam("fromId", equalTo("1001"))
+            .willReturn(okJson(myTrades("BTCUSDT", 1001, 1))));
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).withQueryParam("symbol", equalTo("ETHUSDT"))
+            .withQueryParam("fromId", equalTo("6"))
+            .willReturn(okJson(myTrades("ETHUSDT", 6, 2))));
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).withQueryParam("symbol", equalTo("LTCUSDT"))
+            .willReturn(okJson("[]")));
+
+        var downloader = downloader("ETH/USDT=5:LTC/USDT=9|0|0", 4);
+        List<UserTrade> trades = downloader.downloadTrades("BTC/USDT,ETH/USDT,LTC/USDT", true, false);
+
+        List<String> expectedIds = IntStream.rangeClosed(1, 1001).mapToObj(String::valueOf).collect(Collectors.toList());
+        expectedIds.addAll(List.of("6", "7"));
+        assertEquals(expectedIds, trades.stream().map(UserTrade::getId).collect(Collectors.toList()));
+        String pairs = downloader.serializeState().split("\\|")[0];
+        assertEquals(
+            List.of("BTC/USDT=1001", "ETH/USDT=7", "LTC/USDT=9"),
+            List.of(pairs.split(":")).stream().sorted().collect(Collectors.toList())
+        );
+        wireMockServer.verify(getRequestedFor(urlPathEqualTo(MY_TRADES)).withQueryParam("fromId", equalTo("10")));
+    }
+
+    @Test
+    void testOnlySymbolsOfActiveCurrenciesDownloaded() {
+        stubActiveAccount();
+
+        var downloader = downloader("|0|0|" + System.currentTimeMillis() + "|XRP", 8);
+        List<UserTrade> trades = downloader.downloadTrades(null, false, true);
+
+        assertEquals(List.of("1", "2"), trades.stream().map(UserTrade::getId).collect(Collectors.toList()));
+        // BTC held, XRP persisted, ETH traded for BTC and ADA traded for ETH in the next round
+        wireMockServer.verify(4, getRequestedFor(urlPathEqualTo(MY_TRADES)));
+        for (String symbol : List.of("BTCUSDT", "ETHBTC", "ADAETH", "XRPBNB")) {
+            wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(MY_TRADES)).withQueryParam("symbol", equalTo(symbol)));
+        }
+        assertEquals("ADA,BTC,ETH,XRP", downloader.serializeState().split("\\|")[4]);
+    }
+
+    @Test
+    void testAllSymbolsDownloadedAfterFullScanPeriod() {
+        stubActiveAccount();
+        long lastFullScan = System.currentTimeMillis() - Duration.ofDays(8).toMillis();
+
+        var downloader = downloader("|0|0|" + lastFullScan + "|XRP", 8);
+        downloader.downloadTrades(null, false, true);
+
+        wireMockServer.verify(SYMBOLS + 5, getRequestedFor(urlPathEqualTo(MY_TRADES)));
+        wireMockServer.verify(0, getRequestedFor(urlPathEqualTo(ACCOUNT)));
+        String[] state = downloader.serializeState().split("\\|");
+        assertNotEquals(String.valueOf(lastFullScan), state[3]);
+        assertEquals("ADA,BTC,ETH,XRP", state[4]);
+
+        // the next download scans the active currencies only
+        wireMockServer.resetRequests();
+        downloader(downloader.serializeState(), 8).downloadTrades(null, false, true);
+        wireMockServer.verify(4, getRequestedFor(urlPathEqualTo(MY_TRADES)));
+    }
+
+    @Test
+    void testFundingWindowsSizedPerDownload() {
+        long start = System.currentTimeMillis() - Duration.ofDays(400).toMillis();
+        wireMockServer.stubFor(get(urlPathEqualTo(DEPOSITS)).willReturn(okJson("[]")));
+        wireMockServer.stubFor(get(urlPathEqualTo(DEPOSITS)).withHeader(API_KEY_HEADER, equalTo("denseKey"))
+            .withQueryParam("startTime", equalTo(String.valueOf(start)))
+            .withQueryParam("endTime", equalTo(String.valueOf(start + Duration.ofDays(88).toMillis())))
+            .willReturn(okJson(deposits(1000))));
+        wireMockServer.stubFor(get(urlPathEqualTo("/sapi/v1/capital/withdraw/history")).willReturn(okJson("[]")));
+        wireMockServer.stubFor(get(urlPathEqualTo("/sapi/v1/asset/assetDividend")).willReturn(okJson("{\"rows\":[],\"total\":0}")));
+        String state = "|" + start + "|0";
+        var sparse = new BinanceDownloader(exchange("sparseKey"), state);
+        var dense = new BinanceDownloader(exchange("denseKey"), state);
+
+        var sparseFunding = CompletableFuture.supplyAsync(() -> sparse.downloadDepositsAndWithdrawals(100_000));
+        var denseFunding = CompletableFuture.supplyAsync(() -> dense.downloadDepositsAndWithdrawals(100_000));
+        List<FundingRecord> sparseRecords = sparseFunding.join();
+        List<FundingRecord> denseRecords = denseFunding.join();
+
+        assertTrue(sparseRecords.isEmpty());
+        assertTrue(denseRecords.isEmpty());
+        // 400 days in 88 day windows
+        assertEquals(List.of(88L, 88L, 88L, 88L, 88L), windowDays("sparseKey"));
+        // the dense window is requested again halved, then the windows grow back
+        List<Long> denseWindows = windowDays("denseKey");
+        assertEquals(List.of(88L, 44L, 88L, 88L, 88L, 88L, 88L), denseWindows);
+        // the window kept halved for the rest of the download took the full window and 400 days in 44 day windows
+        int halvedWindowRequests = 1 + (int) Math.ceil(400 / 44.0);
+        assertTrue(denseWindows.size() < halvedWindowRequests, denseWindows.toString());
+    }
+
+    @Test
+    void testFullFundingPageOfShortestWindowReported() {
+        long start = System.currentTimeMillis() - Duration.ofDays(2).minusHours(1).toMillis();
+        wireMockServer.stubFor(get(urlPathEqualTo(DEPOSITS)).willReturn(okJson(deposits(1000))));
+        wireMockServer.stubFor(get(urlPathEqualTo("/sapi/v1/capital/withdraw/history")).willReturn(okJson("[]")));
+        wireMockServer.stubFor(get(urlPathEqualTo("/sapi/v1/asset/assetDividend")).willReturn(okJson("{\"rows\":[],\"total\":0}")));
+        var downloader = new BinanceDownloader(exchange("fullKey"), "|" + start + "|0");
+
+        List<FundingRecord> records = downloader.downloadDepositsAndWithdrawals(100_000);
+
+        // the window is halved down to a day, then the full pages of both days are accepted and reported
+        assertEquals(List.of(88L, 44L, 22L, 11L, 5L, 2L, 1L, 1L, 1L), windowDays("fullKey"));
+        assertEquals(2000, records.size());
+        assertEquals(2, downloader.getParsingProblems().size());
+        assertTrue(downloader.getParsingProblems().get(0).getRow().contains(Instant.ofEpochMilli(start).toString()));
+    }
+
+    @Test
+    void testFundingWindowShrunkOnServerError() {
+        long start = System.currentTimeMillis() - Duration.ofDays(400).toMillis();
+        wireMockServer.stubFor(get(urlPathEqualTo(DEPOSITS)).willReturn(aResponse().withStatus(503).withBody("Unavailable")));
+        var downloader = new BinanceDownloader(exchange("failingKey"), "|" + start + "|0");
+
+        assertThrows(IllegalStateException.class, () -> downloader.downloadDepositsAndWithdrawals(100_000));
+        assertEquals(List.of(88L, 44L, 22L, 11L, 5L, 2L, 1L), windowDays("failingKey"));
+    }
+
+    @Test
+    void testFundingWindowNotShrunkOnClientError() {
+        long start = System.currentTimeMillis() - Duration.ofDays(400).toMillis();
+        wireMockServer.stubFor(get(urlPathEqualTo(DEPOSITS)).willReturn(aResponse().withStatus(401).withBody("Unauthorized")));
+        var downloader = new BinanceDownloader(exchange("invalidKey"), "|" + start + "|0");
+
+        assertThrows(IllegalStateException.class, () -> downloader.downloadDepositsAndWithdrawals(100_000));
+        assertEquals(List.of(88L), windowDays("invalidKey"));
+    }
+
+    private List<Long> windowDays(String apiKey) {
+        return wireMockServer.findAll(getRequestedFor(urlPathEqualTo(DEPOSITS)).withHeader(API_KEY_HEADER, equalTo(apiKey))).stream()
+            .sorted(comparing(request -> Long.parseLong(request.queryParameter("timestamp").firstValue())))
+            .map(request -> Long.parseLong(request.queryParameter("endTime").firstValue())
+                - Long.parseLong(request.queryParameter("startTime").firstValue()))
+            .map(window -> Duration.ofMillis(window).toDays())
+            .collect(Collectors.toList());
+    }
+
+    private void stubActiveAccount() {
+        String symbols = exchangeInfo(SYMBOLS);
+        for (String symbol : List.of("BTC-USDT", "ETH-BTC", "ADA-ETH", "XRP-BNB", "DOGE-BNB")) {
+            String[] assets = symbol.split("-");
+            symbols = symbols.replace("\"symbols\":[", "\"symbols\":[" + symbolInfo(assets[0], assets[1]) + ",");
+        }
+        wireMockServer.stubFor(get(urlPathEqualTo(EXCHANGE_INFO)).willReturn(okJson(symbols)));
+        wireMockServer.stubFor(get(urlPathEqualTo(ACCOUNT)).willReturn(okJson(
+            "{\"makerCommission\":15,\"takerCommission\":15,\"buyerCommission\":0,\"sellerCommission\":0,\"canTrade\":true,"
+                + "\"canWithdraw\":true,\"canDeposit\":true,\"updateTime\":123456789,\"accountType\":\"SPOT\",\"balances\":["
+                + "{\"asset\":\"BTC\",\"free\":\"0.5\",\"locked\":\"0\"},"
+                + "{\"asset\":\"USDT\",\"free\":\"0\",\"locked\":\"0\"},"
+                + "{\"asset\":\"BNB\",\"free\":\"0\",\"locked\":\"0\"}],\"permissions\":[\"SPOT\"]}"
+        )));
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).willReturn(okJson("[]")));
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).withQueryParam("symbol", equalTo("ETHBTC"))
+            .withQueryParam("fromId", equalTo("0")).willReturn(okJson(myTrades("ETHBTC", 1, 1))));
+        wireMockServer.stubFor(get(urlPathEqualTo(MY_TRADES)).withQueryParam("symbol", equalTo("ADAETH"))
+            .withQueryParam("fromId", equalTo("0")).willReturn(okJson(myTrades("ADAETH", 2, 1))));
+    }
+
+    private Exchange exchange(String apiKey) {
+        ExchangeSpecification specification = new BinanceExchange().getDefaultExchangeSpecification();
+        specification.setSslUri(wireMockServer.baseUrl());
+        specification.setApiKey(apiKey);
+        specification.setSecretKey("apiSecret");
+        specification.setShouldLoadRemoteMetaData(false);
+        return ExchangeFactory.INSTANCE.createExchange(specification);
+    }
+
+    private BinanceDownloader downloader(String state, int parallelism) {
+        var requestWeight = new RequestRateLimiter("test", 1_000_000, Duration.ofSeconds(1), 100_000, System::nanoTime);
+        return new BinanceDownloader(exchange, state, requestWeight, parallelism);
+    }
+
+    private static String exchangeInfo(int symbols) {
+        return IntStream.range(0, symbols)
+            .mapToObj(i -> symbolInfo("C" + i, "USDT"))
+            .collect(Collectors.joining(
+                ",",
+                "{\"timezone\":\"UTC\",\"serverTime\":1565246363776,\"rateLimits\":[],\"exchangeFilters\":[],\"symbols\":[",
+                "]}"
+            ));
+    }
+
+    private static String symbolInfo(String base, String quote) {
+        return "{\"symbol\":\"" + base + quote + "\",\"status\":\"TRADING\",\"baseAsset\":\"" + base + "\","
+            + "\"baseAssetPrecision\":8,\"quoteAsset\":\"" + quote + "\",\"quotePrecision\":8,\"quoteAssetPrecision\":8,"
+            + "\"orderTypes\":[\"LIMIT\"],\"icebergAllowed\":true,\"filters\":[]}";
+    }
+
+    private static String deposits(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> "{\"amount\":\"1\",\"coin\":\"BTC\",\"network\":\"BTC\",\"status\":1,\"address\":\"address\","
+                + "\"addressTag\":\"\",\"txId\":\"tx" + i + "\",\"insertTime\":1499865549590,\"transferType\":0}")
+            .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String myTrades(String symbol, long firstId, int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> "{\"symbol\":\"" + symbol + "\",\"id\":" + (firstId + i) + ",\"orderId\":" + (firstId + i) + ","
+                + "\"orderListId\":-1,\"price\":\"10000\",\"qty\":\"0.1\",\"quoteQty\":\"1000\",\"commission\":\"1\","
+                + "\"commissionAsset\":\"USDT\",\"time\":1499865549590,\"isBuyer\":true,\"isMaker\":false,\"isBestMatch\":true}")
+            .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    /**
+     * Holds the trade requests until as many of them run at once as the downloader is allowed to run, and counts the
+     * requests in flight. It applies to the stubs naming it only.
+     */
+    private static final class TradesInFlight extends ResponseDefinitionTransformer {
+        private static final String NAME = "trades-in-flight";
+        private final CountDownLatch parallel = new CountDownLatch(PARALLELISM);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public ResponseDefinition transform(
+            Request request, ResponseDefinition responseDefinition, FileSource files, Parameters parameters
+        ) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            parallel.countDown();
+            try {
+                parallel.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return responseDefinition;
+        }
+
+        @Override
+        public boolean applyGlobally() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import io.everytrade.server.plugin.api.connector.IConnector;
+import io.everytrade.server.plugin.impl.everytrade.etherscan.EtherScanClient;
+import io.everytrade.server.plugin.impl.everytrade.helius.HeliusClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.util.Comparator.comparing;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockchainConnectorConcurrencyTest {
+
+    private static final int API_KEYS = 4;
+    private static final int ADDRESSES_PER_KEY = 5;
+
+    WireMockServer wireMockServer;
+    RequestsInFlight requestsInFlight;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        requestsInFlight = new RequestsInFlight();
+        wireMockServer = new WireMockServer(wireMockConfig().dynamicPort().containerThreads(50).extensions(requestsInFlight));
+        wireMockServer.start();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testEthAddressesDownloadInParallelWithinRequestRate() {
+        wireMockServer.stubFor(get(urlPathEqualTo("/api")).withQueryParam("action", equalTo("getblocknobytime"))
+            .willReturn(okJson("{\"status\":\"1\",\"message\":\"OK\",\"result\":20000000}")
+                .withTransformers(RequestsInFlight.NAME)
+                .withTransformerParameter(RequestsInFlight.KEY_PARAMETER, "apikey")));
+        wireMockServer.stubFor(get(urlPathEqualTo("/api")).withQueryParam("action", equalTo("txlist"))
+            .willReturn(okJson("{\"status\":\"0\",\"message\":\"No transactions found\",\"result\":[]}")
+                .withTransformers(RequestsInFlight.NAME)
+                .withTransformerParameter(RequestsInFlight.KEY_PARAMETER, "apikey")));
+        requestsInFlight.parallelism = BlockchainEthDownloader.REQUESTS_PER_SECOND;
+        var api = new EtherScanClient(wireMockServer.baseUrl());
+        List<IConnector> connectors = new ArrayList<>();
+        for (int key = 0; key < API_KEYS; key++) {
+            for (int address = 0; address < ADDRESSES_PER_KEY; address++) {
+                connectors.add(new BlockchainEthConnector(Map.of(
+                    "address", "0x" + key + "eth" + address,
+                    "apiKeyToken", "ethKey" + key,
+                    "fiatCurrency", "USD",
+                    "importDepositsAsBuys", "false",
+                    "importWithdrawalsAsSells", "false",
+                    "importFeesFromDeposits", "false",
+                    "importFeesFromWithdrawals", "false",
+                    "importNormalTxs", "true",
+                    "importErc20Txs", "false"
+                ), api));
+            }
+        }
+
+        downloadAll(connectors);
+
+        // block number and normal transactions of every address
+        assertEquals(2 * API_KEYS * ADDRESSES_PER_KEY, wireMockServer.getAllServeEvents().size());
+        for (int key = 0; key < API_KEYS; key++) {
+            assertEquals(BlockchainEthDownloader.REQUESTS_PER_SECOND, requestsInFlight.maxInFlight("ethKey" + key));
+            assertWithinRequestRate(
+                requestTimes(getRequestedFor(urlPathEqualTo("/api")).withQueryParam("apikey", equalTo("ethKey" + key))),
+                BlockchainEthDownloader.REQUESTS_PER_SECOND
+            );
+        }
+    }
+
+    @Test
+    void testSolAddressesDownloadInParallelWithinRequestRate() {
+        wireMockServer.stubFor(get(urlPathMatching("/v1/wallet/.*/history"))
+            .willReturn(okJson("{\"data\":[],\"pagination\":{\"hasMore\":false}}")
+                .withTransformers(RequestsInFlight.NAME)
+                .withTransformerParameter(RequestsInFlight.KEY_PARAMETER, "api-key")));
+        requestsInFlight.parallelism = BlockchainSolDownloader.REQUESTS_PER_SECOND;
+        var api = new HeliusClient(wireMockServer.baseUrl());
+        List<IConnector> connectors = new ArrayList<>();
+        for (int key = 0; key < API_KEYS; key++) {
+            for (int address = 0; address < ADDRESSES_PER_KEY; address++) {
+                connectors.add(new BlockchainSolConnector(Map.of(
+                    "address", key + "sol" + address,
+                    "apiKey", "solKey" + key,
+                    "fiatCurrency", "USD",
+                    "importDepositsAsBuys", "false",
+                    "importWithdrawalsAsSells", "false",
+                    "importFeesFromDeposits", "false",
+                    "importFeesFromWithdrawals", "false"
+                ), api));
+            }
+        }
+
+        downloadAll(connectors);
+
+        assertEquals(API_KEYS * ADDRESSES_PER_KEY, wireMockServer.getAllServeEvents().size());
+        for (int key = 0; key < API_KEYS; key++) {
+            assertEquals(BlockchainSolDownloader.REQUESTS_PER_SECOND, requestsInFlight.maxInFlight("solKey" + key));
+            assertWithinRequestRate(
+                requestTimes(getRequestedFor(urlPathMatching("/v1/wallet/.*/history"))
+                    .withQueryParam("api-key", equalTo("solKey" + key))),
+                BlockchainSolDownloader.REQUESTS_PER_SECOND
+            );
+        }
+    }
+
+    private void downloadAll(List<IConnector> connectors) {
+        CompletableFuture.allOf(connectors.stream()
+            .map(connector -> CompletableFuture.runAsync(() -> connector.getTransactions(null), executor))
+            .toArray(CompletableFuture[]::new)
+        ).join();
+    }
+
+    private List<Long> requestTimes(RequestPatternBuilder pattern) {
+        return wireMockServer.findAll(pattern).stream()
+            .sorted(comparing(LoggedRequest::getLoggedDate))
+            .map(request -> request.getLoggedDate().getTime())
+            .collect(Collectors.toList());
+    }
+
+    // the bucket of the API key holds a single permit, so any second takes at most one request above the rate
+    private static void assertWithinRequestRate(List<Long> requestTimes, int requestsPerSecond) {
+        assertTrue(requestTimes.size() > requestsPerSecond, requestTimes.toString());
+        for (int i = 0; i < requestTimes.size(); i++) {
+            long windowStart = requestTimes.get(i);
+            long inSecond = requestTimes.stream().filter(time -> time >= windowStart && time < windowStart + 1000).count();
+            assertTrue(inSecond <= requestsPerSecond + 1, String.format("%d requests in a second: %s", inSecond, requestTimes));
+        }
+    }
+
+    /**
+     * Holds the first requests of every API key until as many of them run at once as the key is allowed to run
+     * downloads, and counts the requests in flight per key. It applies to the stubs naming it only.
+     */
+    private static final class RequestsInFlight extends ResponseDefinitionTransformer {
+        private static final String NAME = "requests-in-flight";
+        private static final String KEY_PARAMETER = "keyParameter";
+        private final Map<String, CountDownLatch> parallel = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+        private volatile int parallelism;
+
+        @Override
+        public ResponseDefinition transform(
+            Request request, ResponseDefinition responseDefinition, FileSource files, Parameters parameters
+        ) {
+            String key = request.queryParameter(parameters.getString(KEY_PARAMETER)).firstValue();
+            var ofKey = inFlight.computeIfAbsent(key, k -> new AtomicInteger());
+            maxInFlight.computeIfAbsent(key, k -> new AtomicInteger()).accumulateAndGet(ofKey.incrementAndGet(), Math::max);
+            var parallelOfKey = parallel.computeIfAbsent(key, k -> new CountDownLatch(parallelism));
+            parallelOfKey.countDown();
+            try {
+                parallelOfKey.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ofKey.decrementAndGet();
+            }
+            return responseDefinition;
+        }
+
+        private int maxInFlight(String key) {
+            return maxInFlight.getOrDefault(key, new AtomicInteger()).get();
+        }
+
+        @Override
+        public boolean applyGlobally() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
 import io.everytrade.server.plugin.api.connector.DownloadResult;
@@ -17,7 +19,14 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static io.everytrade.server.model.Currency.ETH;
 import static io.everytrade.server.model.Currency.USD;
 import static io.everytrade.server.model.TransactionType.BUY;
@@ -44,6 +53,9 @@ class BlockchainEthDownloaderTest {
     private static final String ADDRESS = "address0";
     private static final String FIAT = USD.code();
     private static final BigDecimal ONE_ETH = new BigDecimal(1000000000000000000L);
+    private static final int TRANSFERS = 100_000;
+    private static final int LAST_BLOCK_TRANSFERS = 20_000;
+    private static final long LAST_BLOCK = 2_000_000L;
 
     @Test
     void ethBuySellWithoutFeesTest() throws Exception {
@@ -226,6 +238,89 @@ class BlockchainEthDownloaderTest {
         );
     }
 
+    @Test
+    void erc20LastBlockMergedByHashLogIndexAndContractTest() throws Exception {
+        var wireMockServer = new WireMockServer(wireMockConfig().dynamicPort());
+        wireMockServer.start();
+        try {
+            var objectMapper = new ObjectMapper();
+            List<EtherScanErc20TransactionDto> transfers = transfers();
+            wireMockServer.stubFor(get(urlPathEqualTo("/api")).withQueryParam("action", equalTo("getblocknobytime"))
+                .willReturn(okJson(objectMapper.writeValueAsString(successResponse(LAST_BLOCK + 6)))));
+            wireMockServer.stubFor(get(urlPathEqualTo("/api")).withQueryParam("action", equalTo("tokentx"))
+                .withQueryParam("startblock", equalTo("0"))
+                .willReturn(okJson(objectMapper.writeValueAsString(successResponse(transfers)))));
+            wireMockServer.stubFor(get(urlPathEqualTo("/api")).withQueryParam("action", equalTo("tokentx"))
+                .withQueryParam("startblock", equalTo(String.valueOf(LAST_BLOCK)))
+                .willReturn(okJson(objectMapper.writeValueAsString(successResponse(lastBlockTransfers(transfers))))));
+            var downloader = new BlockchainEthDownloader(
+                ADDRESS, "apiKey", FIAT, false, false, false, false, false, true, new EtherScanClient(wireMockServer.baseUrl())
+            );
+
+            DownloadResult result = downloader.download(null);
+
+            var parseResult = result.getParseResult();
+            assertEquals(TRANSFERS + 1, parseResult.getTransactionClusters().size());
+            assertEquals(emptyList(), parseResult.getParsingProblems());
+            assertEquals(";" + LAST_BLOCK, result.getDownloadStateData());
+        } finally {
+            wireMockServer.stop();
+        }
+    }
+
+    @Test
+    void lastBlockMergeAddsOnlyMissingTransfersTest() {
+        List<EtherScanErc20TransactionDto> transfers = transfers();
+        List<EtherScanErc20TransactionDto> lastBlock = lastBlockTransfers(transfers);
+
+        BlockchainEthDownloader.addMissing(transfers, lastBlock);
+
+        assertEquals(TRANSFERS + 1, transfers.size());
+        assertEquals(2, transfers.get(TRANSFERS).getLogIndex());
+        long distinct = transfers.stream()
+            .map(transfer -> List.of(transfer.getHash(), transfer.getLogIndex(), transfer.getContractAddress()))
+            .distinct()
+            .count();
+        assertEquals(transfers.size(), distinct);
+    }
+
+    // two transfers of different tokens per transaction, the last block is as busy as the rest of the wallet together
+    private List<EtherScanErc20TransactionDto> transfers() {
+        return IntStream.range(0, TRANSFERS)
+            .mapToObj(i -> transfer(i / 2, i % 2, i < TRANSFERS - LAST_BLOCK_TRANSFERS ? 1 + i / 100 : LAST_BLOCK))
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    // the last block downloaded again with one more log of its last transaction
+    private List<EtherScanErc20TransactionDto> lastBlockTransfers(List<EtherScanErc20TransactionDto> transfers) {
+        var lastBlock = new ArrayList<>(transfers.subList(TRANSFERS - LAST_BLOCK_TRANSFERS, TRANSFERS));
+        lastBlock.add(transfer((TRANSFERS - 1) / 2, 2, LAST_BLOCK));
+        return lastBlock;
+    }
+
+    private EtherScanErc20TransactionDto transfer(int transaction, int logIndex, long block) {
+        return EtherScanErc20TransactionDto.builder()
+            .blockNumber(block)
+            .timeStamp(1_700_000_000L + block)
+            .hash("0xhash" + transaction)
+            .blockHash("0xblock" + block)
+            .from("0xsender")
+            .to(ADDRESS)
+            .value(new BigDecimal("1000000"))
+            .gas(new BigDecimal("100000"))
+            .gasUsed(new BigDecimal("50000"))
+            .gasPrice(ONE)
+            .txreceipt_status("")
+            .input("deprecated")
+            .contractAddress("0xtoken" + logIndex % 2)
+            .confirmations(100)
+            .tokenName("Tether USD")
+            .tokenSymbol("USDT")
+            .tokenDecimal(6)
+            .logIndex(logIndex)
+            .build();
+    }
+
     private void assertDepositWithdrawal(TransactionCluster cluster, TransactionType type, BigDecimal volume) {
         assertEquals(0, cluster.getIgnoredFeeTransactionCount());
         assertNull(cluster.getIgnoredFeeReason());
@@ -0,0 +1,123 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadConcurrencyLimiterTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    ExecutorService executor;
+    CountDownLatch release;
+    AtomicInteger running;
+    AtomicInteger maxRunning;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        release = new CountDownLatch(1);
+        running = new AtomicInteger();
+        maxRunning = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testAccountsDownloadInParallel() {
+        var limiter = new DownloadConcurrencyLimiter(4);
+
+        var downloads = startAll(limiter, List.of("apiKey-1", "apiKey-2", "apiKey-3", "apiKey-4"));
+
+        awaitCondition(() -> running.get() == 4);
+        assertEquals(0, limiter.queuedDownloads());
+        release.countDown();
+        downloads.forEach(CompletableFuture::join);
+        assertEquals(4, maxRunning.get());
+        assertEquals(0, limiter.activeKeys());
+    }
+
+    @Test
+    void testSameAccountDownloadsOneAtATime() {
+        var limiter = new DownloadConcurrencyLimiter(4);
+
+        var downloads = startAll(limiter, List.of("apiKey", "apiKey", "apiKey"));
+
+        awaitCondition(() -> running.get() == 1 && limiter.queuedDownloads() == 2);
+        release.countDown();
+        downloads.forEach(CompletableFuture::join);
+        assertEquals(1, maxRunning.get());
+        assertEquals(0, limiter.activeKeys());
+    }
+
+    @Test
+    void testParallelismIsLimited() {
+        var limiter = new DownloadConcurrencyLimiter(2);
+
+        var downloads = startAll(limiter, List.of("apiKey-1", "apiKey-2", "apiKey-3", "apiKey-4", "apiKey-5", "apiKey-6"));
+
+        awaitCondition(() -> running.get() == 2 && limiter.queuedDownloads() == 4);
+        release.countDown();
+        downloads.forEach(CompletableFuture::join);
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, limiter.activeKeys());
+    }
+
+    @Test
+    void testLimitersSharedPerCredential() {
+        var limiter = DownloadConcurrencyLimiter.of("test-shared", "apiKey-1", 2);
+
+        assertSame(limiter, DownloadConcurrencyLimiter.of("test-shared", "apiKey-1", 3));
+        assertEquals(2, limiter.getParallelism());
+        assertNotSame(limiter, DownloadConcurrencyLimiter.of("test-shared", "apiKey-2", 2));
+        assertNotSame(limiter, DownloadConcurrencyLimiter.of("test-shared", null, 2));
+    }
+
+    private List<CompletableFuture<Integer>> startAll(DownloadConcurrencyLimiter limiter, List<String> apiKeys) {
+        List<CompletableFuture<Integer>> downloads = new ArrayList<>();
+        for (String apiKey : apiKeys) {
+            downloads.add(CompletableFuture.supplyAsync(() -> limiter.run(apiKey, this::download), executor));
+        }
+        return downloads;
+    }
+
+    // runs until released, so the downloads admitted by the limiter are counted at once
+    private int download() {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            return release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS) ? 1 : 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "downloads not admitted as expected");
+            Thread.onSpinWait();
+        }
+    }
+}
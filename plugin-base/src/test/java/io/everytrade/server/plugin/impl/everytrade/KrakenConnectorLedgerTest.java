@@ -0,0 +1,215 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.everytrade.server.plugin.api.connector.DownloadResult;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.util.serialization.ConnectorSerialization;
+import io.everytrade.server.util.serialization.DownloadedStatus;
+import io.everytrade.server.util.serialization.Uid;
+import io.everytrade.server.util.serialization.Uids;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.ExchangeFactory;
+import org.knowm.xchange.ExchangeSpecification;
+import org.knowm.xchange.kraken.KrakenExchange;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_DEPOSIT_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_LEDGER_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_SALE_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_STAKING_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_TRADES_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_WITHDRAWAL_ID;
+import static io.everytrade.server.util.serialization.DownloadedStatus.ALL_DATA_DOWNLOADED;
+import static io.everytrade.server.util.serialization.DownloadedStatus.PARTIAL_DATA_DOWNLOADED;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.OFFSET;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.START;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.STATUS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KrakenConnectorLedgerTest {
+
+    private static final String PATH = "/0/private/Ledgers";
+    private static final long FIRST_TIME = 1_600_000_000L;
+    private static final int PAGE_SIZE = 50;
+
+    WireMockServer wireMockServer;
+    List<Entry> ledger;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(wireMockConfig().dynamicPort());
+        wireMockServer.start();
+        ledger = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ledger.add(new Entry("L-TB" + i, "T" + i, "trade", "XXBT", "0.0100000000", "0.0000000000"));
+            ledger.add(new Entry("L-TQ" + i, "T" + i, "trade", "ZUSD", "-300.0000", "0.4800"));
+        }
+        for (int i = 0; i < 15; i++) {
+            ledger.add(new Entry("L-D" + i, "D" + i, "deposit", "XXBT", "0.5000000000", "0.0000000000"));
+            ledger.add(new Entry("L-S" + i, "S" + i, "staking", "XXBT", "0.0001000000", "0.0000000000"));
+        }
+        for (int i = 0; i < 10; i++) {
+            ledger.add(new Entry("L-W" + i, "W" + i, "withdrawal", "XXBT", "-0.2000000000", "0.0005000000"));
+        }
+        stubLedger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testSinglePassDownloadsSameTransactionsWithFewerRequests() {
+        DownloadResult singlePass = connector("apiKey-single").getTransactions(null);
+        int singlePassRequests = requests();
+        wireMockServer.resetRequests();
+        DownloadResult ledgerTypes = connector("apiKey-types").getTransactions(ledgerTypesState(PARTIAL_DATA_DOWNLOADED, "0", "0"));
+        int ledgerTypesRequests = requests();
+
+        // 120 entries in pages of 50 vs. 80 trade entries in 2 pages plus one page per each other ledger type
+        assertEquals(3, singlePassRequests);
+        assertEquals(6, ledgerTypesRequests);
+        assertEquals(80, singlePass.getParseResult().getTransactionClusters().size());
+        assertEquals(transactions(ledgerTypes), transactions(singlePass));
+        assertEquals(
+            ledgerTypes.getParseResult().getParsingProblems().size(),
+            singlePass.getParseResult().getParsingProblems().size()
+        );
+
+        Uids state = ConnectorSerialization.deserialize(singlePass.getDownloadStateData());
+        assertEquals(Set.of(UID_LEDGER_ID), state.getUidS().keySet());
+        assertEquals(ALL_DATA_DOWNLOADED.getCode(), state.getUidS().get(UID_LEDGER_ID).getUid().get(STATUS));
+    }
+
+    @Test
+    void testIncrementalSyncTakesOneRequest() {
+        var connector = connector("apiKey-incremental");
+        String state = connector.getTransactions(null).getDownloadStateData();
+        wireMockServer.resetRequests();
+        ledger.clear();
+        ledger.add(new Entry("L-D100", "D100", "deposit", "XXBT", "0.5000000000", "0.0000000000"));
+        wireMockServer.resetMappings();
+        stubLedger();
+
+        DownloadResult result = connector.getTransactions(state);
+
+        assertEquals(1, requests());
+        assertEquals(1, result.getParseResult().getTransactionClusters().size());
+    }
+
+    @Test
+    void testStateOfLedgerTypesIsContinuedBySinglePass() {
+        String start = String.valueOf(FIRST_TIME);
+        // trades T0..T39 took the first 40 seconds and were downloaded already
+        String tradesStart = String.valueOf(FIRST_TIME + 40);
+
+        DownloadResult result = connector("apiKey-migrated")
+            .getTransactions(ledgerTypesState(ALL_DATA_DOWNLOADED, start, tradesStart));
+
+        assertEquals(3, requests());
+        assertTrue(wireMockServer.findAll(postRequestedFor(urlPathEqualTo(PATH))).get(0).getBodyAsString()
+            .contains("start=" + start));
+        assertEquals(40, result.getParseResult().getTransactionClusters().size());
+        assertTrue(result.getParseResult().getTransactionClusters().stream()
+            .noneMatch(cluster -> cluster.getMain().getAction().isBuyOrSell()));
+        assertEquals(
+            Set.of(UID_LEDGER_ID),
+            ConnectorSerialization.deserialize(result.getDownloadStateData()).getUidS().keySet()
+        );
+    }
+
+    private KrakenConnector connector(String apiKey) {
+        ExchangeSpecification specification = new KrakenExchange().getDefaultExchangeSpecification();
+        specification.setSslUri(wireMockServer.baseUrl());
+        specification.setApiKey(apiKey);
+        specification.setSecretKey(Base64.getEncoder().encodeToString("secret".getBytes(StandardCharsets.UTF_8)));
+        specification.setShouldLoadRemoteMetaData(false);
+        return new KrakenConnector(ExchangeFactory.INSTANCE.createExchange(specification));
+    }
+
+    private static String ledgerTypesState(DownloadedStatus status, String start, String tradesStart) {
+        Uids state = ConnectorSerialization.createDefaultUidMap();
+        for (String uidType : List.of(UID_TRADES_ID, UID_SALE_ID, UID_DEPOSIT_ID, UID_WITHDRAWAL_ID, UID_STAKING_ID)) {
+            String uidStart = uidType.equals(UID_TRADES_ID) ? tradesStart : start;
+            state.addUid(uidType, new Uid(Map.of(START, uidStart, OFFSET, "0", STATUS, status.getCode())));
+        }
+        return ConnectorSerialization.serialize(state);
+    }
+
+    private int requests() {
+        return wireMockServer.findAll(postRequestedFor(urlPathEqualTo(PATH))).size();
+    }
+
+    private static Set<String> transactions(DownloadResult result) {
+        return result.getParseResult().getTransactionClusters().stream()
+            .map(TransactionCluster::getMain)
+            .map(tx -> tx.getUid() + " " + tx.getAction() + " " + tx.getVolume())
+            .collect(Collectors.toSet());
+    }
+
+    // the ledger is returned from the newest entry like by Kraken, entries of one trade share the time
+    private void stubLedger() {
+        for (String type : List.of("all", "trade", "deposit", "withdrawal", "staking", "sale")) {
+            List<Entry> entries = new ArrayList<>();
+            for (int i = ledger.size() - 1; i >= 0; i--) {
+                if (type.equals("all") || type.equals(ledger.get(i).type)) {
+                    entries.add(ledger.get(i));
+                }
+            }
+            for (int offset = 0; offset == 0 || offset < entries.size(); offset += PAGE_SIZE) {
+                StringJoiner page = new StringJoiner(",", "{\"error\":[],\"result\":{\"ledger\":{", "},\"count\":" + entries.size() + "}}");
+                for (Entry entry : entries.subList(offset, Math.min(offset + PAGE_SIZE, entries.size()))) {
+                    page.add(entry.toJson(FIRST_TIME + ledger.indexOf(entry) / 2));
+                }
+                wireMockServer.stubFor(post(urlPathEqualTo(PATH))
+                    .withRequestBody(matching(".*\\btype=" + type + "\\b.*"))
+                    .withRequestBody(matching(".*\\bofs=" + offset + "\\b.*"))
+                    .willReturn(okJson(page.toString())));
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final String refId;
+        private final String type;
+        private final String asset;
+        private final String amount;
+        private final String fee;
+
+        private Entry(String id, String refId, String type, String asset, String amount, String fee) {
+            this.id = id;
+            this.refId = refId;
+            this.type = type;
+            this.asset = asset;
+            this.amount = amount;
+            this.fee = fee;
+        }
+
+        private String toJson(long time) {
+            return String.format(
+                "\"%s\":{\"refid\":\"%s\",\"time\":%d.1234,\"type\":\"%s\",\"subtype\":\"\",\"aclass\":\"currency\","
+                    + "\"asset\":\"%s\",\"amount\":\"%s\",\"fee\":\"%s\",\"balance\":\"0\"}",
+                id, refId, time, type, asset, amount, fee
+            );
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.Exchange;
+import org.knowm.xchange.ExchangeFactory;
+import org.knowm.xchange.ExchangeSpecification;
+import org.knowm.xchange.dto.trade.UserTrade;
+import org.knowm.xchange.kucoin.KucoinExchange;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KuCoinDownloaderTest {
+
+    private static final String FILLS = "/api/v1/fills";
+    private static final long EXCHANGE_START = new GregorianCalendar(2019, 02, 18, 0, 0).getTime().getTime();
+    private static final long WEEK = Duration.ofDays(7).toMillis();
+    private static final int PAGE_LIMIT = 500;
+    private static final int MAX_TRADE_REQUEST_COUNT = 500;
+    private static final int PARALLELISM = 4;
+    private static final String EMPTY_PAGE =
+        "{\"code\":\"200000\",\"data\":{\"currentPage\":1,\"pageSize\":500,\"totalNum\":0,\"totalPage\":0,\"items\":[]}}";
+
+    WireMockServer wireMockServer;
+    WindowsInFlight windowsInFlight;
+    Exchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        windowsInFlight = new WindowsInFlight();
+        wireMockServer = new WireMockServer(wireMockConfig().dynamicPort().containerThreads(20).extensions(windowsInFlight));
+        wireMockServer.start();
+        ExchangeSpecification specification = new KucoinExchange().getDefaultExchangeSpecification();
+        specification.setSslUri(wireMockServer.baseUrl());
+        specification.setApiKey("apiKey");
+        specification.setSecretKey("apiSecret");
+        specification.setExchangeSpecificParametersItem("passphrase", "passPhrase");
+        specification.setShouldLoadRemoteMetaData(false);
+        exchange = ExchangeFactory.INSTANCE.createExchange(specification);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testWindowsDownloadedInParallel() {
+        wireMockServer.stubFor(get(urlPathMatching("/api/v1/(fills|deposits|withdrawals)"))
+            .willReturn(okJson(EMPTY_PAGE).withTransformers(WindowsInFlight.NAME)));
+        long now = EXCHANGE_START + 16 * WEEK + Duration.ofDays(3).toMillis();
+
+        downloader(null, PARALLELISM, now).download();
+
+        // 17 windows of trades, deposits and withdrawals
+        wireMockServer.verify(3 * 17, getRequestedFor(urlPathMatching("/api/v1/(fills|deposits|withdrawals)")));
+        // the first windows of every record type are held until as many are downloaded at once as allowed
+        for (String path : List.of(FILLS, "/api/v1/deposits", "/api/v1/withdrawals")) {
+            assertEquals(PARALLELISM, windowsInFlight.maxInFlight(path), path);
+        }
+    }
+
+    @Test
+    void testRunStoppedByRequestLimitIsResumed() {
+        wireMockServer.stubFor(get(urlPathMatching("/api/v1/(fills|deposits|withdrawals)")).willReturn(okJson(EMPTY_PAGE)));
+        long now = EXCHANGE_START + 520 * WEEK + Duration.ofDays(3).toMillis();
+
+        String state = downloader(null, 4, now).download().getDownloadStateData();
+        String[] partial = state.split("\\|");
+        String finished = downloader(state, 4, now).download().getDownloadStateData();
+
+        assertEquals(String.valueOf(now), partial[0]);
+        assertEquals(String.valueOf(now - 500 * WEEK), partial[2]);
+        assertEquals(String.valueOf(now - 499 * WEEK), partial[1]);
+        assertEquals(String.valueOf(EXCHANGE_START), finished.split("\\|")[1]);
+        assertEquals(String.valueOf(EXCHANGE_START), finished.split("\\|")[2]);
+
+        // windows of both runs follow each other without gaps and overlaps
+        List<long[]> windows = wireMockServer.findAll(getRequestedFor(urlPathEqualTo(FILLS))).stream()
+            .map(request -> new long[]{queryLong(request, "startAt"), queryLong(request, "endAt")})
+            .sorted(Comparator.comparingLong((long[] window) -> window[1]).reversed())
+            .collect(Collectors.toList());
+        assertEquals(521, windows.size());
+        assertEquals(now, windows.get(0)[1]);
+        for (int i = 1; i < windows.size(); i++) {
+            assertEquals(windows.get(i - 1)[0], windows.get(i)[1]);
+        }
+        assertEquals(EXCHANGE_START, windows.get(windows.size() - 1)[0]);
+    }
+
+    @Test
+    void testWindowsAreMergedInOrder() {
+        long now = EXCHANGE_START + 3 * WEEK;
+        wireMockServer.stubFor(get(urlPathEqualTo(FILLS)).withQueryParam("endAt", equalTo(String.valueOf(now)))
+            .willReturn(okJson(fills("T0", now - 1000)).withFixedDelay(300)));
+        wireMockServer.stubFor(get(urlPathEqualTo(FILLS)).withQueryParam("endAt", equalTo(String.valueOf(now - WEEK)))
+            .willReturn(okJson(fills("T1", now - WEEK - 1000)).withFixedDelay(100)));
+        wireMockServer.stubFor(get(urlPathEqualTo(FILLS)).withQueryParam("endAt", equalTo(String.valueOf(now - 2 * WEEK)))
+            .willReturn(okJson(fills("T2", now - 2 * WEEK - 1000))));
+
+        List<UserTrade> trades = downloader(null, 3, now).downloadTrades();
+
+        assertEquals(List.of("T0", "T1", "T2"), trades.stream().map(UserTrade::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFullPageWithOneTimestampIsNotRepeated() {
+        long now = EXCHANGE_START + 3 * WEEK;
+        wireMockServer.stubFor(get(urlPathEqualTo(FILLS)).willReturn(okJson(EMPTY_PAGE)));
+        wireMockServer.stubFor(get(urlPathEqualTo(FILLS)).withQueryParam("endAt", equalTo(String.valueOf(now)))
+            .willReturn(okJson(fullPage(now - 1000))));
+
+        List<UserTrade> trades = downloader(null, 3, now).downloadTrades();
+
+        assertEquals(PAGE_LIMIT, trades.size());
+        assertEquals(PAGE_LIMIT, trades.stream().map(UserTrade::getId).distinct().count());
+        // the rest of the window ends before the timestamp of the full page
+        wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(FILLS))
+            .withQueryParam("startAt", equalTo(String.valueOf(now - WEEK)))
+            .withQueryParam("endAt", equalTo(String.valueOf(now - 1001))));
+        wireMockServer.verify(4, getRequestedFor(urlPathEqualTo(FILLS)));
+    }
+
+    @Test
+    void testPagesCountToRequestLimit() {
+        long now = EXCHANGE_START + 3 * WEEK;
+        // an API ignoring the end of the window returns the same full page forever
+        wireMockServer.stubFor(get(urlPathEqualTo(FILLS)).willReturn(okJson(fullPage(now - 1000))));
+
+        List<UserTrade> trades = downloader(null, 3, now).downloadTrades();
+
+        // a window not downloaded within the limit is not merged
+        assertTrue(trades.isEmpty());
+        int requests = wireMockServer.findAll(getRequestedFor(urlPathEqualTo(FILLS))).size();
+        assertTrue(requests <= MAX_TRADE_REQUEST_COUNT + 3, String.format("%d requests", requests));
+    }
+
+    private KuCoinDownloader downloader(String state, int parallelism, long now) {
+        var rateLimiter = new RequestRateLimiter("test", 1000, Duration.ofSeconds(1), 100, System::nanoTime);
+        return new KuCoinDownloader(exchange, state, rateLimiter, parallelism, now);
+    }
+
+    private static long queryLong(LoggedRequest request, String parameter) {
+        return Long.parseLong(request.queryParameter(parameter).firstValue());
+    }
+
+    private static String fills(String tradeId, long createdAt) {
+        return "{\"code\":\"200000\",\"data\":{\"currentPage\":1,\"pageSize\":500,\"totalNum\":1,\"totalPage\":1,\"items\":["
+            + fill(tradeId, createdAt) + "]}}";
+    }
+
+    private static String fullPage(long createdAt) {
+        return "{\"code\":\"200000\",\"data\":{\"currentPage\":1,\"pageSize\":500,\"totalNum\":" + PAGE_LIMIT
+            + ",\"totalPage\":1,\"items\":["
+            + IntStream.range(0, PAGE_LIMIT).mapToObj(i -> fill("T" + i, createdAt)).collect(Collectors.joining(","))
+            + "]}}";
+    }
+
+    private static String fill(String tradeId, long createdAt) {
+        return "{\"symbol\":\"BTC-USDT\",\"tradeId\":\"" + tradeId + "\",\"orderId\":\"O" + tradeId + "\","
+            + "\"counterOrderId\":\"C" + tradeId + "\",\"side\":\"buy\",\"liquidity\":\"taker\",\"forceTaker\":false,"
+            + "\"price\":\"10000\",\"size\":\"0.1\",\"funds\":\"1000\",\"fee\":\"1\",\"feeRate\":\"0.001\","
+            + "\"feeCurrency\":\"USDT\",\"stop\":\"\",\"type\":\"limit\",\"createdAt\":" + createdAt + ",\"tradeType\":\"TRADE\"}";
+    }
+
+    /**
+     * Holds the first requests of every path until as many of them run at once as the downloader is allowed to run,
+     * and counts the requests in flight per path. It applies to the stubs naming it only.
+     */
+    private static final class WindowsInFlight extends ResponseDefinitionTransformer {
+        private static final String NAME = "windows-in-flight";
+        private final Map<String, CountDownLatch> parallel = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+
+        @Override
+        public ResponseDefinition transform(
+            Request request, ResponseDefinition responseDefinition, FileSource files, Parameters parameters
+        ) {
+            String path = request.getUrl().split("\\?")[0];
+            var ofPath = inFlight.computeIfAbsent(path, p -> new AtomicInteger());
+            maxInFlight.computeIfAbsent(path, p -> new AtomicInteger()).accumulateAndGet(ofPath.incrementAndGet(), Math::max);
+            var parallelOfPath = parallel.computeIfAbsent(path, p -> new CountDownLatch(PARALLELISM));
+            parallelOfPath.countDown();
+            try {
+                parallelOfPath.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ofPath.decrementAndGet();
+            }
+            return responseDefinition;
+        }
+
+        private int maxInFlight(String path) {
+            return maxInFlight.getOrDefault(path, new AtomicInteger()).get();
+        }
+
+        @Override
+        public boolean applyGlobally() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+    }
+}
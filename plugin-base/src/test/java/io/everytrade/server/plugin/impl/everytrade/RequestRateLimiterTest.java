@@ -0,0 +1,178 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.exceptions.RateLimitExceededException;
+import si.mazi.rescu.HttpStatusIOException;
+import si.mazi.rescu.InvocationResult;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestRateLimiterTest {
+
+    private static final String PATH = "/api/v3/myTrades";
+
+    WireMockServer wireMockServer;
+    HttpClient httpClient;
+    AtomicLong clock;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(wireMockConfig().dynamicPort());
+        wireMockServer.start();
+        httpClient = HttpClient.newHttpClient();
+        clock = new AtomicLong();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testBurstThenPacedAtRate() {
+        var limiter = new RequestRateLimiter("test", 10, Duration.ofSeconds(1), 3, clock::get);
+
+        assertEquals(0, limiter.reserve(1));
+        assertEquals(0, limiter.reserve(1));
+        assertEquals(0, limiter.reserve(1));
+        assertEquals(millis(100), limiter.reserve(1));
+        assertEquals(millis(200), limiter.reserve(1));
+
+        clock.addAndGet(millis(1000));
+        assertEquals(0, limiter.reserve(1));
+    }
+
+    @Test
+    void testWeightedRequests() {
+        var limiter = new RequestRateLimiter("test", 6000, Duration.ofMinutes(1), 20, clock::get);
+
+        assertEquals(0, limiter.reserve(20));
+        assertEquals(millis(200), limiter.reserve(20));
+        assertEquals(millis(400), limiter.reserve(20));
+    }
+
+    @Test
+    void testPauseDelaysAllRequests() {
+        var limiter = new RequestRateLimiter("test", 10, Duration.ofSeconds(1), 1, clock::get);
+
+        assertEquals(0, limiter.reserve(1));
+        limiter.pause(Duration.ofSeconds(2));
+        assertEquals(millis(2100), limiter.reserve(1));
+        assertEquals(millis(2200), limiter.reserve(1));
+    }
+
+    @Test
+    void testLimitersSharedPerCredential() {
+        var limiter = RequestRateLimiter.of("test-shared", "apiKey-1", 10, Duration.ofSeconds(1), 1);
+
+        assertSame(limiter, RequestRateLimiter.of("test-shared", "apiKey-1", 10, Duration.ofSeconds(1), 1));
+        assertNotSame(limiter, RequestRateLimiter.of("test-shared", "apiKey-2", 10, Duration.ofSeconds(1), 1));
+        assertNotSame(limiter, RequestRateLimiter.of("test-shared", null, 10, Duration.ofSeconds(1), 1));
+    }
+
+    @Test
+    void testRetriesAfterTooManyRequests() throws Exception {
+        wireMockServer.stubFor(get(urlPathEqualTo(PATH)).inScenario("limit").whenScenarioStateIs(STARTED)
+            .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "1"))
+            .willSetStateTo("retried"));
+        wireMockServer.stubFor(get(urlPathEqualTo(PATH)).inScenario("limit").whenScenarioStateIs("retried")
+            .willReturn(ok("[]")));
+        var limiter = RequestRateLimiter.of("test-429", null, 100, Duration.ofSeconds(1), 1);
+
+        long start = System.nanoTime();
+        String body = limiter.call(this::send);
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals("[]", body);
+        wireMockServer.verify(2, getRequestedFor(urlPathEqualTo(PATH)));
+        assertTrue(elapsed >= millis(1000), "retried after " + elapsed / 1_000_000 + " ms");
+    }
+
+    @Test
+    void testOtherFailuresAreNotRetried() {
+        wireMockServer.stubFor(get(urlPathEqualTo(PATH)).willReturn(aResponse().withStatus(500)));
+        var limiter = new RequestRateLimiter("test", 100, Duration.ofSeconds(1), 1, System::nanoTime);
+
+        var e = assertThrows(HttpStatusIOException.class, () -> limiter.call(this::send));
+
+        assertEquals(500, e.getHttpStatusCode());
+        wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(PATH)));
+    }
+
+    @Test
+    void testLongRetryAfterIsNotWaitedFor() {
+        wireMockServer.stubFor(get(urlPathEqualTo(PATH)).willReturn(aResponse().withStatus(418).withHeader("Retry-After", "3600")));
+        var limiter = new RequestRateLimiter("test", 100, Duration.ofSeconds(1), 1, System::nanoTime);
+        var requests = new AtomicInteger();
+
+        assertThrows(HttpStatusIOException.class, () -> limiter.call(() -> {
+            requests.incrementAndGet();
+            return send();
+        }));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testFindRateLimitRejection() {
+        var xchangeRejection = new IllegalStateException("download failed", new RateLimitExceededException("limit"));
+        assertEquals(Optional.of(Duration.ZERO), RequestRateLimiter.findRateLimitRejection(xchangeRejection));
+
+        var withoutHeader = new HttpStatusIOException("limit", new InvocationResult("", 429));
+        assertEquals(Optional.of(Duration.ZERO), RequestRateLimiter.findRateLimitRejection(withoutHeader));
+
+        var withHeader = new HttpStatusIOException("limit", new InvocationResult("", 429));
+        withHeader.setResponseHeaders(Map.of("retry-after", List.of("7")));
+        assertEquals(Optional.of(Duration.ofSeconds(7)), RequestRateLimiter.findRateLimitRejection(withHeader));
+
+        var serverError = new HttpStatusIOException("failed", new InvocationResult("", 503));
+        assertEquals(Optional.empty(), RequestRateLimiter.findRateLimitRejection(serverError));
+        assertEquals(Optional.empty(), RequestRateLimiter.findRateLimitRejection(new IOException("connection reset")));
+    }
+
+    private String send() throws IOException {
+        var request = HttpRequest.newBuilder(URI.create(wireMockServer.baseUrl() + PATH)).build();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        if (response.statusCode() != 200) {
+            var e = new HttpStatusIOException("HTTP status code was not OK", new InvocationResult(response.body(), response.statusCode()));
+            e.setResponseHeaders(response.headers().map());
+            throw e;
+        }
+        return response.body();
+    }
+
+    private static long millis(long millis) {
+        return Duration.ofMillis(millis).toNanos();
+    }
+}
@@ -0,0 +1,55 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SharedLimitersTest {
+
+    private static final Duration MIN_IDLE = Duration.ofMinutes(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    // the limiters are busy while the flag is set
+    private final SharedLimiters<AtomicBoolean> limiters =
+        new SharedLimiters<>(2, MIN_IDLE, busy -> !busy.get(), clock::get);
+
+    @Test
+    void testLimitersHandedOutRecentlyAreNotEvicted() {
+        var first = limiters.get("test", "apiKey-1", AtomicBoolean::new);
+        limiters.get("test", "apiKey-2", AtomicBoolean::new);
+        limiters.get("test", "apiKey-3", AtomicBoolean::new);
+
+        clock.addAndGet(MIN_IDLE.toNanos() - 1);
+        assertSame(first, limiters.get("test", "apiKey-1", AtomicBoolean::new));
+        assertEquals(3, limiters.size());
+    }
+
+    @Test
+    void testIdleLimitersEvicted() {
+        var idle = limiters.get("test", "apiKey-1", AtomicBoolean::new);
+        var busy = limiters.get("test", "apiKey-2", AtomicBoolean::new);
+        busy.set(true);
+
+        clock.addAndGet(MIN_IDLE.toNanos());
+        limiters.get("test", "apiKey-3", AtomicBoolean::new);
+
+        assertEquals(2, limiters.size());
+        assertSame(busy, limiters.get("test", "apiKey-2", AtomicBoolean::new));
+        assertNotSame(idle, limiters.get("test", "apiKey-1", AtomicBoolean::new));
+    }
+
+    @Test
+    void testLimitersKeyedByNameAndCredential() {
+        var limiter = limiters.get("test", "apiKey-1", AtomicBoolean::new);
+
+        assertSame(limiter, limiters.get("test", "apiKey-1", AtomicBoolean::new));
+        assertNotSame(limiter, limiters.get("test", null, AtomicBoolean::new));
+        assertNotSame(limiter, limiters.get("other", "apiKey-1", AtomicBoolean::new));
+    }
+}
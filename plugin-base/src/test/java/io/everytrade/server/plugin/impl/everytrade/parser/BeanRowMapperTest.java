@@ -0,0 +1,260 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import com.univocity.parsers.annotations.Format;
+import com.univocity.parsers.annotations.Parsed;
+import com.univocity.parsers.annotations.Replace;
+import com.univocity.parsers.common.DataValidationException;
+import com.univocity.parsers.common.ParsingContext;
+import com.univocity.parsers.common.processor.BeanProcessor;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import io.everytrade.server.model.Currency;
+import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.BeanRowMapper;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.CompiledBeanProcessor;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BeanRowMapperTest {
+
+    private static final File PARSER_FILES = new File("../parser-files");
+    private static final String INPUT = String.join("\n",
+        " amount ,Time,currency,TEXT,unknown",
+        "\"1,000.5 $\",2021-01-02 03:04:05,BTC,a,x",
+        ",02.01.2021 03:04,,,",
+        "x,2021-01-02,btc,b,",
+        "2,,ETH,invalid,",
+        "3,,USD,ignored,",
+        "4",
+        "5,2021-01-02 03:04:05,EUR,c,y,z"
+    );
+
+    @Test
+    void testSameBeansAsUnivocity() {
+        assertEquals(parse(TestBean.class, INPUT, false), parse(TestBean.class, INPUT, true));
+        assertEquals(9, parse(TestBean.class, INPUT, true).size());
+    }
+
+    @Test
+    void testPropertyMissingInHeaderGetsValueOfEmptyCell() {
+        List<String> result = parse(TestBean.class, "Amount,Text\n1,a", true);
+        assertEquals(parse(TestBean.class, "Amount,Text\n1,a", false), result);
+        assertEquals("amount=1, date=null, currency=null, text=a, fee=0, ", result.get(0));
+
+        // not once a row has as many columns as the bean has properties
+        String content = "Amount,Text\n1,a\n2,b,,,\n3,c";
+        result = parse(TestBean.class, content, true);
+        assertEquals(parse(TestBean.class, content, false), result);
+        assertEquals("amount=3, date=null, currency=null, text=c, fee=null, ", result.get(2));
+    }
+
+    @Test
+    void testAmbiguousHeaderIsLeftToUnivocity() {
+        assertNotNull(BeanRowMapper.compile(TestBean.class, new String[]{"Amount", "Date"}, null, false));
+        assertNull(BeanRowMapper.compile(TestBean.class, new String[]{"Amount", "Amount"}, null, false));
+        assertEquals(
+            parse(TestBean.class, "Amount,Amount\n1,2", false),
+            parse(TestBean.class, "Amount,Amount\n1,2", true)
+        );
+        // headers differing in case only are matched case-sensitively
+        assertEquals(
+            parse(TestBean.class, "Amount,amount\n1,2", false),
+            parse(TestBean.class, "Amount,amount\n1,2", true)
+        );
+        String content = "Time,Date\n2021-01-02 03:04:05,02.01.2021 03:04";
+        assertEquals(parse(TestBean.class, content, false), parse(TestBean.class, content, true));
+    }
+
+    @Test
+    void testRowFailingCompiledMappingIsMappedByUnivocity() {
+        FlakyBean.failures = 1;
+        List<String> initialized = new ArrayList<>();
+        List<String> result = new ArrayList<>();
+        var settings = new CsvParserSettings();
+        settings.setHeaderExtractionEnabled(true);
+        settings.setProcessorErrorHandler((error, inputRow, context) -> result.add(error.getMessage()));
+        settings.setProcessor(new CompiledBeanProcessor<>(FlakyBean.class) {
+            @Override
+            protected void initializeBean(FlakyBean bean) {
+                initialized.add(bean.text);
+            }
+
+            @Override
+            public void beanProcessed(FlakyBean bean, ParsingContext context) {
+                result.add(describe(bean));
+            }
+        });
+
+        new CsvParser(settings).parse(new StringReader("Text\na\nb"));
+
+        assertEquals(0, FlakyBean.failures);
+        assertEquals(List.of("text=a, ", "text=b, "), result);
+        // before the compiled mapping, after univocity's
+        assertEquals(Arrays.asList(null, "a", null), initialized);
+    }
+
+    @Test
+    void testSameBeansOfExportsAsUnivocity() throws IOException {
+        File[] files = PARSER_FILES.listFiles((dir, name) -> name.endsWith(".csv"));
+        assertNotNull(files);
+        int compared = 0;
+        for (File file : files) {
+            String header = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).get(0);
+            var detail = EverytradeCsvMultiParser.findCsvDetailByHeader(header);
+            if (detail == null) {
+                continue;
+            }
+            List<? extends ExchangeBean> beans = detail.getParserFactory().get().parse(file);
+            if (beans.isEmpty()) {
+                continue;
+            }
+            Class<? extends ExchangeBean> beanClass = beans.get(0).getClass();
+            if (!hasDefaultConstructor(beanClass)) {
+                // not a bean of univocity
+                continue;
+            }
+            String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+            List<String> expected = parse(beanClass, content, false);
+            assertEquals(expected, parse(beanClass, content, true), file.getName());
+            assertFalse(expected.isEmpty(), file.getName());
+            compared++;
+        }
+        assertFalse(compared == 0);
+    }
+
+    private static <T> List<String> parse(Class<T> beanClass, String content, boolean compiled) {
+        List<String> result = new ArrayList<>();
+        var settings = new CsvParserSettings();
+        settings.setHeaderExtractionEnabled(true);
+        settings.setLineSeparatorDetectionEnabled(true);
+        settings.setDelimiterDetectionEnabled(true, ',', ';');
+        settings.setProcessorErrorHandler((error, inputRow, context) -> result.add(
+            String.format("%s %s %s", error.getClass().getSimpleName(), error.getMessage(), inputRow.length)
+        ));
+        if (compiled) {
+            settings.setProcessor(new CompiledBeanProcessor<>(beanClass) {
+                @Override
+                public void beanProcessed(T bean, ParsingContext context) {
+                    result.add(describe(bean));
+                }
+            });
+        } else {
+            settings.setProcessor(new BeanProcessor<>(beanClass) {
+                @Override
+                public void beanProcessed(T bean, ParsingContext context) {
+                    result.add(describe(bean));
+                }
+            });
+        }
+        try (Reader reader = new StringReader(content)) {
+            new CsvParser(settings).parse(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    private static boolean hasDefaultConstructor(Class<?> beanClass) {
+        try {
+            beanClass.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static String describe(Object bean) {
+        var description = new StringBuilder();
+        for (Class<?> type = bean.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                try {
+                    Object value = field.get(bean);
+                    description.append(field.getName()).append('=').append(value instanceof Date ? ((Date) value).toInstant() : value);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                description.append(", ");
+            }
+        }
+        return description.toString();
+    }
+
+    public static class FlakyBean {
+        // setting of the first values fails, as a gap of the compiled mapping would
+        static int failures;
+        private String text;
+
+        @Parsed(field = "Text")
+        public void setText(String text) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Value not set.");
+            }
+            this.text = text;
+        }
+    }
+
+    public static class TestBean {
+        private BigDecimal amount;
+        private Date date;
+        private Currency currency;
+        private String text;
+        private BigDecimal fee;
+
+        @Parsed(field = "Amount")
+        @Replace(expression = ExchangeBean.IGNORED_CHARS_IN_NUMBER, replacement = "")
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        @Parsed(field = {"Date", "Time"})
+        @Format(formats = {"yyyy-MM-dd HH:mm:ss", "dd.MM.yyyy HH:mm"}, options = {"locale=US", "timezone=UTC"})
+        public void setDate(Date date) {
+            this.date = date;
+        }
+
+        @Parsed(field = "Currency")
+        public void setCurrency(Currency currency) {
+            this.currency = currency;
+        }
+
+        @Parsed(field = "Text")
+        public void setText(String text) {
+            if ("invalid".equals(text)) {
+                throw new DataValidationException("Invalid text.");
+            }
+            if ("ignored".equals(text)) {
+                throw new DataIgnoredException("Ignored text.");
+            }
+            this.text = text;
+        }
+
+        @Parsed(field = "Fee", defaultNullRead = "0")
+        public void setFee(BigDecimal fee) {
+            this.fee = fee;
+        }
+    }
+}
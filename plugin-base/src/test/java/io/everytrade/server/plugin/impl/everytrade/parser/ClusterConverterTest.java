@@ -0,0 +1,174 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.IParseResultConsumer;
+import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.ParseResultCollector;
+import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterConverterTest {
+
+    private static final String HEADER = "UID;DATE;SYMBOL;ACTION;QUANTY;PRICE;FEE";
+    private static final int ROWS = 100_000;
+
+    @TempDir
+    Path tempDir;
+    // fewer threads than the parallelism of the converters, as when parses share them
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testParallelParsingGivesSameResults() throws IOException {
+        Path file = writeFile();
+
+        List<String> sequential = describe(new EverytradeCsvMultiParser(1).parse(file.toFile(), HEADER));
+        List<String> parallel = describe(new EverytradeCsvMultiParser(4).parse(file.toFile(), HEADER));
+
+        assertEquals(ROWS, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void testWorkersConvertWithContextOfBeansInOrder() {
+        var collector = new ParseResultCollector();
+        List<String> expected = new ArrayList<>();
+        try (var converter = new ClusterConverter(collector, 3, executor)) {
+            for (int i = 0; i < 10 * ClusterConverter.BATCH_SIZE; i++) {
+                var bean = new ProfileBean(i);
+                bean.setParseContext(ParseContext.of("profile 1"));
+                converter.onBean(bean);
+                expected.add(i + " profile 1");
+                if (i % 1000 == 0) {
+                    converter.onParsingProblem(new ParsingProblem("row", "problem " + i, ROW_PARSING_FAILED));
+                    expected.add("problem " + i);
+                }
+            }
+            converter.finish();
+        }
+
+        List<String> messages = collector.toParseResult().getParsingProblems().stream()
+            .map(ParsingProblem::getMessage)
+            .collect(Collectors.toList());
+        assertEquals(expected, messages);
+    }
+
+    @Test
+    void testConverterHoldsBoundedNumberOfBeans() {
+        for (int parallelism : new int[]{1, 4}) {
+            var consumer = new CountingConsumer();
+            // the batch filled and the batches converted or waiting for the consumer
+            int maxPending = parallelism == 1 ? 0 : (2 * parallelism + 1) * ClusterConverter.BATCH_SIZE;
+            int maxSeen = 0;
+            try (var converter = new ClusterConverter(consumer, parallelism, executor)) {
+                for (int i = 0; i < 20 * ClusterConverter.BATCH_SIZE; i++) {
+                    converter.onBean(new ProfileBean(i));
+                    int pending = i + 1 - consumer.results;
+                    assertTrue(pending <= maxPending, String.format("%d beans pending with parallelism %d", pending, parallelism));
+                    maxSeen = Math.max(maxSeen, pending);
+                }
+                converter.finish();
+            }
+            assertEquals(20 * ClusterConverter.BATCH_SIZE, consumer.results);
+            assertTrue(parallelism == 1 || maxSeen >= ClusterConverter.BATCH_SIZE);
+        }
+    }
+
+    @Test
+    void testWorkerFailureIsRethrown() {
+        var collector = new ParseResultCollector();
+        try (var converter = new ClusterConverter(collector, 2, executor)) {
+            for (int i = 0; i < 3 * ClusterConverter.BATCH_SIZE; i++) {
+                converter.onBean(new ProfileBean(i == ClusterConverter.BATCH_SIZE ? -1 : i));
+            }
+            assertThrows(ExceptionInInitializerError.class, converter::finish);
+        }
+    }
+
+    private Path writeFile() throws IOException {
+        Path file = tempDir.resolve("everytrade.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 0; i < ROWS; i++) {
+                String quantity = i % 97 == 0 ? "N/A" : "0." + (i % 10 + 1);
+                String symbol = i % 89 == 0 ? "BTC/XXX" : "BTC/USD";
+                writer.write("uid-" + i + ";2021-01-01 10:00:00;" + symbol + ";BUY;" + quantity + ";30000;1.5");
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    private static List<String> describe(ParseResult result) {
+        List<String> description = result.getTransactionClusters().stream()
+            .map(TransactionCluster::getMain)
+            .map(tx -> tx.getUid() + " " + tx.getAction() + " " + tx.getVolume() + " " + tx.getExecuted())
+            .collect(Collectors.toList());
+        result.getParsingProblems().stream()
+            .map(problem -> problem.getParsingProblemType() + " " + problem.getRow() + " " + problem.getMessage())
+            .forEach(description::add);
+        return description;
+    }
+
+    private static class CountingConsumer implements IParseResultConsumer {
+        private int results;
+
+        @Override
+        public void onTransactionCluster(TransactionCluster transactionCluster) {
+            results++;
+        }
+
+        @Override
+        public void onParsingProblem(ParsingProblem parsingProblem) {
+            results++;
+        }
+    }
+
+    private static class ProfileBean extends ExchangeBean {
+        private final int index;
+
+        ProfileBean(int index) {
+            this.index = index;
+            setRowValues(new String[]{String.valueOf(index)});
+        }
+
+        @Override
+        public TransactionCluster toTransactionCluster() {
+            if (index < 0) {
+                throw new ExceptionInInitializerError("conversion failed");
+            }
+            throw new DataIgnoredException(index + " " + getParseContext().getProfile());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.csv.CsvHeader;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CsvHeaderIndexTest {
+
+    private static final File PARSER_FILES = new File("../parser-files");
+    private static final int LINES_TO_CHECK = 11;
+
+    @Test
+    void testSameDetailAsLegacyMatchingForParserFiles() throws IOException {
+        File[] files = PARSER_FILES.listFiles((dir, name) -> name.endsWith(".csv"));
+        assertNotNull(files);
+        assertFalse(files.length == 0);
+
+        int detected = 0;
+        for (File file : files) {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            for (String line : lines.subList(0, Math.min(LINES_TO_CHECK, lines.size()))) {
+                var expected = legacyFind(line);
+                assertSame(expected, EverytradeCsvMultiParser.findCsvDetailByHeader(line), file.getName() + ": " + line);
+                if (expected != null) {
+                    detected++;
+                }
+            }
+        }
+        assertFalse(detected == 0);
+    }
+
+    @Test
+    void testSameDetailAsLegacyMatchingForHeaderTemplates() {
+        Set<String> lines = new LinkedHashSet<>();
+        for (ExchangeParseDetail detail : EverytradeCsvMultiParser.getExchangeParseDetails()) {
+            for (CsvHeader header : detail.getHeaders()) {
+                lines.addAll(variants(header.getHeaderValues(), header.getSeparator()));
+            }
+        }
+        lines.add("");
+        lines.add(";");
+        lines.add(",");
+
+        for (String line : lines) {
+            assertSame(legacyFind(line), EverytradeCsvMultiParser.findCsvDetailByHeader(line), line);
+        }
+    }
+
+    @Test
+    void testMatchingSameAsLegacy() {
+        List<CsvHeader> headers = List.of(
+            CsvHeader.of("A", "b", "C").withSeparator(","),
+            new CsvHeader(List.of("A", "b", "C"), ",", false),
+            CsvHeader.of("A", "^B\\d$", "C").withSeparator(","),
+            new CsvHeader(List.of("^(a|b)$"), ",", false),
+            CsvHeader.of("^$")
+        );
+        List<String> lines = List.of(
+            "A,B,C", "a,x,b,y,c", "C,B,A", "\"a\",\uFEFFb,\uFEFF\"c\"", "A,B1,C", "\"A\",\"B2\",C", "A,B", "a,b,a", "", ",", "x"
+        );
+        for (CsvHeader header : headers) {
+            for (String line : lines) {
+                assertEquals(legacyMatching(header, line), header.matching(line), header.getHeaderValues() + " " + line);
+            }
+        }
+    }
+
+    private static List<String> variants(List<String> values, String separator) {
+        List<String> result = new ArrayList<>();
+        result.add(String.join(separator, values));
+        result.add(String.join(separator, values).toUpperCase(Locale.ROOT));
+        result.add("\uFEFF" + String.join(separator, values));
+        result.add("\"" + String.join("\"" + separator + "\"", values) + "\"");
+        result.add("\uFEFF\"" + String.join("\"" + separator + "\"", values) + "\"");
+        result.add(String.join(separator, values) + separator + "Extra");
+        result.add("Extra" + separator + String.join(separator, values));
+        if (values.size() > 1) {
+            result.add(String.join(separator, values.subList(1, values.size())));
+            result.add(String.join(separator, values.subList(0, values.size() - 1)));
+            List<String> reversed = new ArrayList<>(values);
+            Collections.reverse(reversed);
+            result.add(String.join(separator, reversed));
+        }
+        return result;
+    }
+
+    private static ExchangeParseDetail legacyFind(String header) {
+        return EverytradeCsvMultiParser.getExchangeParseDetails().stream()
+            .flatMap(detail ->
+                detail.getHeaders().stream()
+                    .filter(h -> legacyMatching(h, header))
+                    .map(h -> Map.entry(detail, h))
+            )
+            .max(Comparator.comparingInt(e -> e.getValue().getHeaderValues().size()))
+            .map(Map.Entry::getKey)
+            .orElse(null);
+    }
+
+    // matching as implemented before the header index was introduced, exhausted header values do not match
+    // (the original implementation failed with NullPointerException for regex templates)
+    private static boolean legacyMatching(CsvHeader header, String headerLine) {
+        List<String> headerValues = header.getHeaderValues();
+        if (headerLine == null) {
+            return false;
+        }
+        if (headerLine.isEmpty()) {
+            return headerValues.size() == 1
+                && isHeaderTemplateRegex(headerValues.get(0))
+                && Pattern.compile(headerValues.get(0)).matcher("").matches();
+        }
+        List<String> vals = Arrays.asList(headerLine.split(header.getSeparator()));
+
+        if (header.isOrdered()) {
+            Iterator<String> currentIt = vals.iterator();
+            for (String template : headerValues) {
+                String current = null;
+                while (currentIt.hasNext()) {
+                    current = currentIt.next();
+                    if (legacyCompareValues(template, current)) {
+                        break;
+                    }
+                }
+                if (current == null || !legacyCompareValues(template, current)) {
+                    return false;
+                }
+            }
+            return true;
+        } else {
+            return vals.stream().allMatch(val -> headerValues.stream().anyMatch(template -> legacyCompareValues(template, val)));
+        }
+    }
+
+    private static boolean legacyCompareValues(String template, String value) {
+        var templateValueCombinations = Stream.of(
+            template,
+            "\"" + template + "\"",
+            "\uFEFF" + template,
+            "\uFEFF\"" + template + "\""
+        );
+        if (isHeaderTemplateRegex(template)) {
+            return templateValueCombinations
+                .map(t -> t.replace("^", "").replace("$", ""))
+                .map(t -> "^" + t + "$")
+                .map(Pattern::compile)
+                .anyMatch(pattern -> pattern.matcher(value).find());
+        } else {
+            return templateValueCombinations.anyMatch(it -> it.equalsIgnoreCase(value));
+        }
+    }
+
+    private static boolean isHeaderTemplateRegex(String headerTemplate) {
+        Objects.requireNonNull(headerTemplate);
+        return (headerTemplate.startsWith("^") && headerTemplate.endsWith("$"));
+    }
+}
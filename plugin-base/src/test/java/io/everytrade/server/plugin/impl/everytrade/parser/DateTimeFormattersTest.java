@@ -0,0 +1,40 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DateTimeFormattersTest {
+
+    @Test
+    void testFormatterIsReused() {
+        var formatter = DateTimeFormatters.of("MM/dd/yyyy hh:mm a", Locale.US, ZoneOffset.UTC);
+
+        assertSame(formatter, DateTimeFormatters.of("MM/dd/yyyy hh:mm a", Locale.US, ZoneOffset.UTC));
+        assertNotSame(formatter, DateTimeFormatters.of("MM/dd/yyyy hh:mm a", Locale.US));
+        assertNotSame(formatter, DateTimeFormatters.of("MM/dd/yyyy hh:mm a", Locale.GERMANY, ZoneOffset.UTC));
+        assertEquals(Instant.parse("2021-03-04T17:05:00Z"), formatter.parse("03/04/2021 05:05 PM", Instant::from));
+        assertEquals(
+            DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a", Locale.US).withZone(ZoneOffset.UTC).toString(),
+            formatter.toString()
+        );
+    }
+
+    @Test
+    void testRegistryIsBounded() {
+        for (int i = 0; i < DateTimeFormatters.MAX_FORMATTERS + 100; i++) {
+            var formatter = DateTimeFormatters.of("'pattern " + i + "' yyyy-MM-dd", Locale.US);
+            assertEquals("pattern " + i + " 2021-03-04", formatter.format(Instant.parse("2021-03-04T17:05:00Z").atZone(ZoneOffset.UTC)));
+        }
+
+        assertTrue(DateTimeFormatters.size() <= DateTimeFormatters.MAX_FORMATTERS);
+    }
+}
@@ -0,0 +1,138 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DecimalScannerTest {
+
+    private static final List<String> SAMPLES = List.of(
+        "0", "-0", "0.0", "-0.00", "+1", "1", "1.", ".5", "-.5", "12345.67890", "0.00000001", "2,100.00", "-2,100.00",
+        "2100,00", "1,234,567.891", "1.234,5", "0,5", "-0,5", "999999999999999999", "9999999999999999999",
+        "0.123456789012345678", "123456789.123456789", "1E-8", "1.5e+3", "-1,000.5e-3", "1e5", "5-", "1-000", "--5",
+        "+-5", "", " ", "-", ".", ",", "1..2", "1,,2", "1,2,3", "1.2.3", "1 000", "$5", "5 €", "abc", "NaN", "0x10"
+    );
+    private static final String[] PIECES = {
+        "0", "1", "2", "5", "9", "9", "0", "7", ".", ",", "-", "+", "e", "E-", " ", "$"
+    };
+    private static final Pattern LARGE_EXPONENT = Pattern.compile("[eE][-+]?[0-9]{3}");
+
+    @Test
+    void testSameNumbersAsBeforeForSamples() {
+        for (String value : SAMPLES) {
+            assertSameResults(value);
+        }
+    }
+
+    @Test
+    void testSameNumbersAsBeforeForFuzzedInput() {
+        var random = new Random(42);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            values.add(fuzz(random, PIECES.length));
+            // mostly digits, so that the plain numbers are generated often too
+            values.add(fuzz(random, 10));
+        }
+        for (String value : values) {
+            // rescaling of large exponents (also those joined by the removed separators and signs) takes ages
+            if (!LARGE_EXPONENT.matcher(value.replace("-", "").replace(",", "")).find()) {
+                assertSameResults(value);
+            }
+        }
+    }
+
+    @Test
+    void testScan() {
+        assertEquals(new BigDecimal("-2100.00"), DecimalScanner.scan("-2,100.00"));
+        assertEquals(new BigDecimal("2100.00"), DecimalScanner.scan("2100,00"));
+        assertSame(BigDecimal.ZERO, DecimalScanner.scan("0"));
+        assertEquals(
+            new BigDecimal("2100.50000000000000000"),
+            DecimalScanner.scanAbsolute("-2,100.5", ParserUtils.DECIMAL_DIGITS, ParserUtils.ROUNDING_MODE)
+        );
+        assertEquals(
+            new BigDecimal("0.12345678901234568"),
+            DecimalScanner.scanAbsolute("0.123456789012345678", ParserUtils.DECIMAL_DIGITS, RoundingMode.HALF_UP)
+        );
+        assertNull(DecimalScanner.scan("1e5"));
+        assertNull(DecimalScanner.scan("1,2,3"));
+        assertNull(DecimalScanner.scan("9999999999999999999"));
+        assertEquals(new BigDecimal("0.00999999999999999999"), DecimalScanner.scan("0.00999999999999999999"));
+    }
+
+    private static String fuzz(Random random, int pieces) {
+        var value = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            value.append(PIECES[random.nextInt(pieces)]);
+        }
+        return value.toString();
+    }
+
+    private static void assertSameResults(String value) {
+        assertEquals(result(DecimalScannerTest::parserNumber, value), result(EverytradeCSVParserValidator::parserNumber, value), value);
+        assertEquals(result(DecimalScannerTest::setAmountFromString, value), result(AmountBean::amount, value), value);
+    }
+
+    private static String result(Function<String, BigDecimal> parser, String value) {
+        try {
+            BigDecimal number = parser.apply(value);
+            return number.unscaledValue() + "E-" + number.scale();
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    // the parsing of EverytradeCSVParserValidator before the numbers were scanned
+    private static BigDecimal parserNumber(String value) {
+        if (value.contains(",") && value.contains(".")) {
+            value = value.replace(",", "");
+        }
+        if (value.contains(",")) {
+            value = value.replace(",", ".");
+        }
+        if ("0".equals(value)) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(value);
+    }
+
+    // the parsing of ExchangeBean before the numbers were scanned
+    private static BigDecimal setAmountFromString(String value) {
+        try {
+            if (value.contains(",") && value.contains(".")) {
+                String amount = value.replace(",", "");
+                return new BigDecimal(amount).abs().setScale(ParserUtils.DECIMAL_DIGITS, ParserUtils.ROUNDING_MODE);
+            }
+            String amount = value.replace("-", "").replace(",", ".");
+            return new BigDecimal(amount).abs().setScale(ParserUtils.DECIMAL_DIGITS, ParserUtils.ROUNDING_MODE);
+        } catch (NumberFormatException e) {
+            throw new DataIgnoredException(String.format("Value %s is unsupported. ", value));
+        }
+    }
+
+    private static class AmountBean extends ExchangeBean {
+
+        static BigDecimal amount(String value) {
+            return setAmountFromString(value);
+        }
+
+        @Override
+        public TransactionCluster toTransactionCluster() {
+            return null;
+        }
+    }
+}
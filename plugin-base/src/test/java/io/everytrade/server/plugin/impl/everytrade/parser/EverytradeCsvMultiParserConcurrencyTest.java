@@ -0,0 +1,102 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EverytradeCsvMultiParserConcurrencyTest {
+
+    private static final String HEADER = "Terminal SN,Server Time,Terminal Time,Local Transaction Id,Remote Transaction Id,Type,"
+        + "Cash Amount,Cash Currency,Crypto Amount,Crypto Currency,Used Discount,Actual Discount (%),Destination Address,"
+        + "Related Remote Transaction Id,Identity,Status,Phone Number,Transaction Detail,Transaction Note,Rate Incl. Fee,"
+        + "Rate Without Fee,Fixed Transaction Fee,Expected Profit Percent Setting,Expected Profit Value,Crypto Setting Name,"
+        + "Transaction Scoring Result,Expense,Expense Currency,Classification";
+    // imported by the default profile, by "profile 1" or by both
+    private static final String[] TYPES_AND_STATUSES = {
+        "BUY,COMPLETED (0)", "SELL,COMPLETED (0)", "BUY,IN PROGRESS", "BUY,ERROR (EXCHANGE PURCHASE)",
+        "SELL,ERROR (WITHDRAWAL PROBLEM)", "SELL,PAYMENT ARRIVED"
+    };
+    private static final List<String> PROFILES = List.of("default", "profile 1");
+    private static final int ROWS = 3_000;
+    private static final int THREADS = 8;
+    private static final int PARSES = 64;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testConcurrentParsesWithDifferentProfiles() throws Exception {
+        Path file = writeFile();
+        List<List<String>> expected = new ArrayList<>();
+        for (String profile : PROFILES) {
+            expected.add(describe(new EverytradeCsvMultiParser(1).parse(file.toFile(), HEADER, profile)));
+        }
+        assertNotEquals(expected.get(0), expected.get(1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < PARSES; i++) {
+                String profile = PROFILES.get(i % PROFILES.size());
+                int parallelism = 1 + i % 3;
+                Callable<List<String>> parse =
+                    () -> describe(new EverytradeCsvMultiParser(parallelism).parse(file.toFile(), HEADER, profile));
+                results.add(executor.submit(parse));
+            }
+            for (int i = 0; i < PARSES; i++) {
+                assertEquals(expected.get(i % PROFILES.size()), results.get(i).get(), "parse " + i);
+            }
+            // the parses share the converting threads
+            long converterThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("everytrade-cluster-converter"))
+                .count();
+            assertTrue(converterThreads > 0 && converterThreads <= Runtime.getRuntime().availableProcessors());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Path writeFile() throws IOException {
+        Path file = tempDir.resolve("general_bytes.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("BT1,2025-01-02 11:41:37,2025-01-02 11:41:37,L" + i + ",R" + i + ","
+                    + TYPES_AND_STATUSES[i % TYPES_AND_STATUSES.length].replace(",", ",24000,CZK,0.0100549,BTC,,0.00,,,,")
+                    + ",,,,2386895.941282,2355877.1197,75,1,236.88118812,kvapay_BTC_CZK,,0,BTC,NORMAL");
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    private static List<String> describe(ParseResult result) {
+        List<String> description = result.getTransactionClusters().stream()
+            .map(TransactionCluster::getMain)
+            .map(tx -> tx.getUid() + " " + tx.getAction() + " " + tx.getLabels())
+            .collect(Collectors.toList());
+        result.getParsingProblems().stream()
+            .map(problem -> problem.getParsingProblemType() + " " + problem.getRow() + " " + problem.getMessage())
+            .forEach(description::add);
+        return description;
+    }
+}
@@ -0,0 +1,140 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class EverytradeCsvMultiParserLineSeparatorTest {
+
+    private static final File PARSER_FILES = new File("../parser-files");
+    private static final List<String> LINE_SEPARATORS = List.of("\n", "\r\n", "\r");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameResultForEveryLineSeparator() throws IOException {
+        File[] files = PARSER_FILES.listFiles((dir, name) -> name.endsWith(".csv"));
+        assertNotNull(files);
+        assertFalse(files.length == 0);
+
+        int parsed = 0;
+        for (File file : files) {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || EverytradeCsvMultiParser.findCsvDetailByHeader(lines.get(0)) == null) {
+                continue;
+            }
+            String header = lines.get(0);
+            List<String> expectedResult = null;
+            List<String> expectedRows = null;
+            for (String lineSeparator : LINE_SEPARATORS) {
+                String message = file.getName() + " " + lineSeparator.replace("\r", "\\r").replace("\n", "\\n");
+                Path rewritten = tempDir.resolve(file.getName());
+                String content = String.join(lineSeparator, lines) + lineSeparator;
+                Files.writeString(rewritten, content);
+
+                List<String> result = describe(new EverytradeCsvMultiParser().parse(rewritten.toFile(), header));
+                var exchangeParser = EverytradeCsvMultiParser.findCsvDetailByHeader(header).getParserFactory().get();
+                var reads = new CountingFileOpener();
+                List<? extends ExchangeBean> beans =
+                    exchangeParser.parse(rewritten.toFile(), ParseContext.DEFAULT.withFileOpener(reads));
+                List<String> rows = beans.stream()
+                    .map(bean -> bean.getRowId() + " " + bean.getRowValues())
+                    .collect(Collectors.toList());
+
+                // one read of the whole file, the files with a title are scanned for their header before
+                boolean scannedForHeader = exchangeParser instanceof SkipLineParser
+                    && ((SkipLineParser) exchangeParser).getExpectedHeader() != null;
+                assertEquals(scannedForHeader ? 2 : 1, reads.opened.size(), message);
+                assertEquals(List.of((long) content.length()), reads.fullReads(), message);
+                if (expectedResult == null) {
+                    assertFalse(result.isEmpty(), message);
+                    expectedResult = result;
+                    expectedRows = rows;
+                } else {
+                    assertEquals(expectedResult, result, message);
+                    assertEquals(expectedRows, rows, message);
+                }
+            }
+            parsed++;
+        }
+        assertFalse(parsed == 0);
+    }
+
+    private static List<String> describe(ParseResult result) {
+        List<String> description = result.getTransactionClusters().stream()
+            .map(TransactionCluster::getMain)
+            .map(tx -> tx.getUid() + " " + tx.getAction() + " " + tx.getVolume() + " " + tx.getExecuted())
+            .collect(Collectors.toList());
+        // the position in characters depends on the length of the line separators
+        result.getParsingProblems().stream()
+            .map(problem -> problem.getMessage().replaceAll("charIndex=\\d+", "charIndex"))
+            .forEach(description::add);
+        return description;
+    }
+
+    private static final class CountingFileOpener implements ParseContext.FileOpener {
+        private final List<CountingReader> opened = new ArrayList<>();
+
+        @Override
+        public Reader open(File file) throws IOException {
+            var reader = new CountingReader(new FileReader(file, StandardCharsets.UTF_8));
+            opened.add(reader);
+            return reader;
+        }
+
+        // the characters read by the readers read up to the end of the file
+        private List<Long> fullReads() {
+            return opened.stream().filter(reader -> reader.ended).map(reader -> reader.chars).collect(Collectors.toList());
+        }
+    }
+
+    private static final class CountingReader extends FilterReader {
+        private long chars;
+        private boolean ended;
+
+        private CountingReader(Reader reader) {
+            super(reader);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            count(read < 0 ? -1 : 1);
+            return read;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            count(read);
+            return read;
+        }
+
+        private void count(int read) {
+            if (read < 0) {
+                ended = true;
+            } else {
+                chars += read;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class EverytradeCsvMultiParserPrefixRowsTest {
+
+    private static final File PARSER_FILES = new File("../parser-files");
+    private static final List<String> PREFIX_ROWS = List.of("Transaction history", "Exported 2024-01-31 10:00:00 UTC", "");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameResultWithPrefixRowsWithoutTempFiles() throws IOException {
+        File[] files = PARSER_FILES.listFiles((dir, name) -> name.endsWith(".csv"));
+        assertNotNull(files);
+        assertFalse(files.length == 0);
+
+        Path original = Files.createDirectory(tempDir.resolve("original"));
+        Path prefixed = Files.createDirectory(tempDir.resolve("prefixed"));
+        Path systemTempDir = Path.of(System.getProperty("java.io.tmpdir"));
+        int parsed = 0;
+        for (File file : files) {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || EverytradeCsvMultiParser.findCsvDetailByHeader(lines.get(0)) == null) {
+                continue;
+            }
+            String header = lines.get(0);
+            Path originalFile = original.resolve(file.getName());
+            Files.write(originalFile, lines, StandardCharsets.UTF_8);
+            List<String> prefixedLines = new ArrayList<>(PREFIX_ROWS);
+            prefixedLines.addAll(lines);
+            Path prefixedFile = prefixed.resolve(file.getName());
+            Files.write(prefixedFile, prefixedLines, StandardCharsets.UTF_8);
+
+            Set<Path> systemTempFiles = list(systemTempDir);
+            List<String> expected = describe(new EverytradeCsvMultiParser().parse(originalFile.toFile(), header));
+            List<String> result = describe(new EverytradeCsvMultiParser().parse(prefixedFile.toFile(), header));
+
+            assertFalse(expected.isEmpty(), file.getName());
+            assertEquals(expected, result, file.getName());
+            assertEquals(systemTempFiles, list(systemTempDir), file.getName());
+            assertEquals(Set.of(prefixedFile), list(prefixed), file.getName());
+            assertEquals(prefixedLines, Files.readAllLines(prefixedFile, StandardCharsets.UTF_8), file.getName());
+            Files.delete(prefixedFile);
+            parsed++;
+        }
+        assertFalse(parsed == 0);
+    }
+
+    private static Set<Path> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.collect(Collectors.toSet());
+        }
+    }
+
+    private static List<String> describe(ParseResult result) {
+        List<String> description = result.getTransactionClusters().stream()
+            .map(TransactionCluster::getMain)
+            .map(tx -> tx.getUid() + " " + tx.getAction() + " " + tx.getVolume() + " " + tx.getExecuted())
+            .collect(Collectors.toList());
+        result.getParsingProblems().stream()
+            .map(problem -> problem.getParsingProblemType() + " " + problem.getMessage())
+            .forEach(description::add);
+        return description;
+    }
+}
@@ -0,0 +1,207 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.IParseResultConsumer;
+import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EverytradeCsvMultiParserStreamingTest {
+
+    private static final String HEADER = "UID;DATE;SYMBOL;ACTION;QUANTY;PRICE;FEE";
+    private static final String BINANCE_HEADER = "User_ID,UTC_Time,Account,Operation,Coin,Change,Remark";
+    private static final Instant BINANCE_START = Instant.parse("2021-01-05T02:37:59Z");
+    private static final DateTimeFormatter BINANCE_TIME =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+    private static final int ROWS = 200_000;
+    private static final int PARALLELISM = 4;
+    // chars returned by a read of the file, univocity reads a few reads ahead of the parsed row on its own thread
+    private static final int READ_SIZE = 4096;
+    private static final int SHORTEST_ROW = 50;
+    private static final int READ_AHEAD_ROWS = 16 * READ_SIZE / SHORTEST_ROW;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testCollectingAdapterReturnsStreamedResults() throws IOException {
+        Path file = writeFile(1_000, 10);
+        var consumer = new CountingConsumer();
+
+        new EverytradeCsvMultiParser().parse(file.toFile(), HEADER, null, consumer);
+        var result = new EverytradeCsvMultiParser().parse(file.toFile(), HEADER);
+
+        assertEquals(990, consumer.transactionClusters);
+        assertEquals(10, consumer.parsingProblems);
+        assertEquals(consumer.transactionClusters, result.getTransactionClusters().size());
+        assertEquals(consumer.parsingProblems, result.getParsingProblems().size());
+    }
+
+    @Test
+    void testParserHoldsBoundedNumberOfRows() throws IOException {
+        Path file = writeFile(ROWS, 0);
+        var rowsRead = new AtomicLong();
+        var consumer = new CountingConsumer() {
+            private long maxPending;
+
+            @Override
+            public void onTransactionCluster(TransactionCluster transactionCluster) {
+                super.onTransactionCluster(transactionCluster);
+                // the rows read from the file, not passed to the consumer yet
+                maxPending = Math.max(maxPending, rowsRead.get() - transactionClusters);
+            }
+        };
+
+        new EverytradeCsvMultiParser(PARALLELISM, opened -> new RowCountingReader(opened, rowsRead))
+            .parse(file.toFile(), HEADER, null, consumer);
+
+        assertEquals(ROWS, consumer.transactionClusters);
+        // the batch filled, the batches converted or waiting for the consumer and the rows read ahead
+        long maxPending = (2L * PARALLELISM + 1) * ClusterConverter.BATCH_SIZE + READ_AHEAD_ROWS;
+        assertTrue(consumer.maxPending <= maxPending, String.format("%d rows pending", consumer.maxPending));
+    }
+
+    @Test
+    void testBinanceParserHoldsBoundedNumberOfRows() throws IOException {
+        Path file = writeBinanceFile(binanceTrades(ROWS / 2));
+        var rowsRead = new AtomicLong();
+        var consumer = new CountingConsumer() {
+            private long maxPending;
+
+            @Override
+            public void onTransactionCluster(TransactionCluster transactionCluster) {
+                super.onTransactionCluster(transactionCluster);
+                // the rows read from the file, not passed to the consumer yet, a trade has two rows
+                maxPending = Math.max(maxPending, rowsRead.get() - 2L * transactionClusters);
+            }
+        };
+
+        new EverytradeCsvMultiParser(PARALLELISM, opened -> new RowCountingReader(opened, rowsRead))
+            .parse(file.toFile(), BINANCE_HEADER, null, consumer);
+
+        assertEquals(ROWS / 2, consumer.transactionClusters);
+        assertEquals(0, consumer.parsingProblems);
+        // the trades converted as in the single-row parse, the rows read ahead and the open groups of the window
+        long maxPending = 2L * (2L * PARALLELISM + 1) * ClusterConverter.BATCH_SIZE + READ_AHEAD_ROWS + 4;
+        assertTrue(consumer.maxPending <= maxPending, String.format("%d rows pending", consumer.maxPending));
+    }
+
+    @Test
+    void testBinanceRowsNotOrderedByTimeGroupedAsOrdered() throws IOException {
+        List<String> trades = binanceTrades(100);
+        List<String> reversed = new ArrayList<>(trades);
+        Collections.reverse(reversed);
+
+        var ordered = new EverytradeCsvMultiParser().parse(writeBinanceFile(trades).toFile(), BINANCE_HEADER);
+        var unordered = new EverytradeCsvMultiParser().parse(writeBinanceFile(reversed).toFile(), BINANCE_HEADER);
+
+        assertEquals(100, ordered.getTransactionClusters().size());
+        assertEquals(describe(ordered.getTransactionClusters()), describe(unordered.getTransactionClusters()));
+    }
+
+    // a trade every two seconds, beyond the tolerance the groups of rows are merged within
+    private static List<String> binanceTrades(int trades) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < trades; i++) {
+            String time = BINANCE_TIME.format(BINANCE_START.plusSeconds(2L * i));
+            rows.add("63676019," + time + ",Spot,Buy,BTC,0.00100000,");
+            rows.add("63676019," + time + ",Spot,Transaction Related,USDT,-30.00000000,");
+        }
+        return rows;
+    }
+
+    private static List<String> describe(List<TransactionCluster> clusters) {
+        return clusters.stream().map(cluster -> cluster.getMain().toString()).collect(Collectors.toList());
+    }
+
+    private Path writeBinanceFile(List<String> rows) throws IOException {
+        Path file = Files.createTempFile(tempDir, "binance", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(BINANCE_HEADER);
+            writer.newLine();
+            for (String row : rows) {
+                writer.write(row);
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    private Path writeFile(int rows, int invalidRows) throws IOException {
+        Path file = tempDir.resolve("everytrade.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                String quantity = i < invalidRows ? "N/A" : "0.5";
+                writer.write("uid-" + i + ";2021-01-01 10:00:00;BTC/USD;BUY;" + quantity + ";30000;1.5");
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    private static class RowCountingReader extends FilterReader {
+        private final AtomicLong rows;
+
+        private RowCountingReader(File file, AtomicLong rows) throws IOException {
+            super(new FileReader(file, StandardCharsets.UTF_8));
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read == '\n') {
+                rows.incrementAndGet();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, Math.min(length, READ_SIZE));
+            for (int i = offset; i < offset + read; i++) {
+                if (buffer[i] == '\n') {
+                    rows.incrementAndGet();
+                }
+            }
+            return read;
+        }
+    }
+
+    private static class CountingConsumer implements IParseResultConsumer {
+        int transactionClusters;
+        int parsingProblems;
+
+        @Override
+        public void onTransactionCluster(TransactionCluster transactionCluster) {
+            transactionClusters++;
+        }
+
+        @Override
+        public void onParsingProblem(ParsingProblem parsingProblem) {
+            parsingProblems++;
+        }
+    }
+}
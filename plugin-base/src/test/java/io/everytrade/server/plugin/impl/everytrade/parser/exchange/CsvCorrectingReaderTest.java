@@ -0,0 +1,107 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.KrakenBeanV4;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvCorrectingReaderTest {
+
+    private static final List<String> CONTENTS = List.of(
+        "",
+        "\n",
+        "\n\n",
+        "\"",
+        "a\n\"",
+        "\"\"\n\"\"\n",
+        "header\r\nrow 1\r\nrow 2\r\n",
+        "header\rrow 1\r\rrow 2",
+        "header\nrow 1\r\n\nrow 2\n\n",
+        "\uFEFF\"User_ID,\"\"UTC_Time\"\"\"\n\"1,\"\"2023-01-04 05:43:39\"\",\"\"IOTX\"\"\"\n"
+    );
+    private static final String KRAKEN_HEADER = "\"txid,\"\"ordertxid\"\",\"\"pair\"\",\"\"time\"\",\"\"type\"\",\"\"ordertype\"\","
+        + "\"\"price\"\",\"\"cost\"\",\"\"fee\"\",\"\"vol\"\",\"\"ledgers\"\"\"";
+    private static final String KRAKEN_ROW = "\"T%d,\"\"O%d\"\",\"\"XXBTZUSD\"\",\"\"2021-03-0%d 10:00:00\"\",\"\"buy\"\","
+        + "\"\"limit\"\",\"\"50000.0\"\",\"\"500.0\"\",\"\"0.8\"\",\"\"0.01\"\",\"\"L%d\"\"\"";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testStrippedContentEqualsRewrittenFile() throws IOException {
+        for (String content : CONTENTS) {
+            Path file = tempDir.resolve("input.csv");
+            Files.writeString(file, content);
+            String rewritten = rewriteWithoutQuotes(file);
+
+            for (int chunk : List.of(1, 3, 8192)) {
+                try (Reader reader = CsvCorrectingReader.stripQuotes(new FileReader(file.toFile(), StandardCharsets.UTF_8))) {
+                    assertEquals(rewritten, read(reader, chunk), String.format("content '%s', chunk %d", content, chunk));
+                }
+            }
+            assertEquals(content, Files.readString(file));
+        }
+    }
+
+    @Test
+    void testHeaderIsReplaced() throws IOException {
+        assertEquals("a,b\n1,2\n3,4", read(CsvCorrectingReader.replaceHeader(new StringReader("A B\r\n1,2\r\n3,4\r\n"), "a,b"), 2));
+        assertEquals("a,b", read(CsvCorrectingReader.replaceHeader(new StringReader("A B"), "a,b"), 8192));
+        assertEquals("a,b", read(CsvCorrectingReader.replaceHeader(new StringReader(""), "a,b"), 8192));
+    }
+
+    @Test
+    void testParsedRowsEqualRowsOfRewrittenFile() throws IOException {
+        List<String> lines = new ArrayList<>(List.of(KRAKEN_HEADER));
+        for (int i = 1; i <= 5; i++) {
+            lines.add(String.format(KRAKEN_ROW, i, i, i, i));
+        }
+        Path file = tempDir.resolve("kraken.csv");
+        Files.writeString(file, String.join("\r\n", lines) + "\r\n");
+        byte[] original = Files.readAllBytes(file);
+        Path rewritten = tempDir.resolve("kraken-rewritten.csv");
+        Files.writeString(rewritten, rewriteWithoutQuotes(file));
+
+        var parser = new KrakenDoubleQuotesUnivocitySpecificParserV1(KrakenBeanV4.class, ",");
+        var expectedParser = new DefaultUnivocityExchangeSpecificParser(KrakenBeanV4.class, ",");
+        List<? extends ExchangeBean> beans = parser.parse(file.toFile());
+        List<? extends ExchangeBean> expectedBeans = expectedParser.parse(rewritten.toFile());
+
+        assertEquals(5, beans.size());
+        assertEquals(rows(expectedBeans), rows(beans));
+        assertEquals(expectedParser.getParsingProblems().size(), parser.getParsingProblems().size());
+        assertArrayEquals(original, Files.readAllBytes(file));
+    }
+
+    // the correction made by rewriting the uploaded file before it was parsed
+    private static String rewriteWithoutQuotes(Path file) throws IOException {
+        return Files.lines(file, StandardCharsets.UTF_8).collect(Collectors.joining("\n")).replace("\"", "");
+    }
+
+    private static String read(Reader reader, int chunk) throws IOException {
+        var result = new StringBuilder();
+        char[] buffer = new char[chunk];
+        int read;
+        while ((read = reader.read(buffer, 0, chunk)) >= 0) {
+            result.append(buffer, 0, read);
+        }
+        return result.toString();
+    }
+
+    private static List<String> rows(List<? extends ExchangeBean> beans) {
+        return beans.stream().map(bean -> bean.getRowId() + " " + bean.getRowValues()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,85 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.KrakenBeanV4;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DefaultUnivocityExchangeSpecificParserTest {
+
+    private static final String HEADER = "txid,ordertxid,pair,time,type,ordertype,price,cost,fee,vol,ledgers";
+    private static final String ROW = "T%d,O%d,XXBTZUSD,2021-03-0%d 10:00:00,buy,limit,50000.0,500.0,0.8,0.01,L%d";
+    private static final int ROWS = 5;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testListedBeansKeepCompactRows() throws Exception {
+        File file = writeRows();
+        var parser = new DefaultUnivocityExchangeSpecificParser(KrakenBeanV4.class, ",");
+        List<? extends ExchangeBean> beans = parser.parse(file);
+
+        Files.delete(file.toPath());
+        assertEquals(ROWS, beans.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertNull(keptRowValues(beans.get(i)));
+            // the ids are changed by grouping of the rows
+            beans.get(i).setRowId(100 + i);
+            assertEquals(List.of(row(i + 1).split(",")), beans.get(i).getRowValues());
+        }
+    }
+
+    @Test
+    void testEmptyValuesOfCompactRowsAreNull() {
+        var bean = new KrakenBeanV4();
+        bean.setCompactRowValues(new String[]{"T1", null, "", "XXBTZUSD"});
+
+        assertEquals(Arrays.asList("T1", null, "", "XXBTZUSD"), bean.getRowValues());
+        assertEquals("line=0, T1, null, , XXBTZUSD", bean.rowToString());
+        assertEquals("line=0", new KrakenBeanV4().rowToString());
+    }
+
+    @Test
+    void testStreamedBeansKeepTheirRows() throws IOException {
+        File file = writeRows();
+        var parser = new DefaultUnivocityExchangeSpecificParser(KrakenBeanV4.class, ",");
+        List<ExchangeBean> beans = new ArrayList<>();
+        parser.parse(file, beans::add, problem -> {});
+
+        Files.delete(file.toPath());
+        assertEquals(ROWS, beans.size());
+        assertEquals(List.of(row(1).split(",")), beans.get(0).getRowValues());
+    }
+
+    private File writeRows() throws IOException {
+        List<String> lines = new ArrayList<>(List.of(HEADER));
+        for (int i = 1; i <= ROWS; i++) {
+            lines.add(row(i));
+        }
+        Path file = tempDir.resolve("kraken.csv");
+        Files.writeString(file, String.join("\n", lines) + "\n");
+        return file.toFile();
+    }
+
+    private static String row(int index) {
+        return String.format(ROW, index, index, index, index);
+    }
+
+    private static Object keptRowValues(ExchangeBean bean) throws ReflectiveOperationException {
+        Field field = ExchangeBean.class.getDeclaredField("rowValues");
+        field.setAccessible(true);
+        return field.get(bean);
+    }
+}
@@ -0,0 +1,149 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.ParseContext;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DateTimeFormatDetectorTest {
+
+    private static final List<String> DATES = List.of(
+        "20-5-8", "2020-05-28", "8.5.20", "28.05.2020", "5/8/20", "05/28/2020", "May. 8, 2020,", "Dec. 31, 19,", "2020-13-01",
+        "31.2.2020"
+    );
+    private static final List<String> TIMES = List.of(
+        "3:1", "15:03:21", "15:3:1.5", "15:03:21.25", "23:59:59.9999", "3:1 AM", "11:59:59 PM", "25:00", "1:2:3:4"
+    );
+    private static final List<DateTimeFormatter> FORMATTERS = List.of(
+        DateTimeFormatter.ofPattern("d.M.yyyy H:m:s").withZone(ZoneOffset.UTC),
+        DateTimeFormatter.ofPattern("yyyy-M-d H:m:s").withZone(ZoneOffset.UTC),
+        DateTimeFormatter.ofPattern("d.M.yyyy H:m").withZone(ZoneOffset.UTC),
+        DateTimeFormatter.ofPattern("yyyy-M-d H:m").withZone(ZoneOffset.UTC),
+        DateTimeFormatter.ofPattern("d.M.yyyy").withZone(ZoneOffset.UTC),
+        DateTimeFormatter.ofPattern("yyyy-M-d").withZone(ZoneOffset.UTC)
+    );
+
+    @Test
+    void testSameResultAsFormatFinder() {
+        List<String> values = new ArrayList<>();
+        for (String date : DATES) {
+            for (String time : TIMES) {
+                values.add(date + " " + time);
+                values.add(date + "T" + time);
+            }
+        }
+        values.addAll(List.of("", " ", "T", "2020-05-28", "15:03:21", "abc def"));
+
+        // the same detector for all values, the cached format changes between the rows
+        var detector = DateTimeFormatDetector.ofFormatFinder();
+        for (int round = 0; round < 2; round++) {
+            for (String value : values) {
+                assertEquals(parseByFormatFinder(value), detector.parse(value, Instant::from), value);
+            }
+        }
+    }
+
+    @Test
+    void testSameResultAsFirstMatchingFormatter() {
+        List<String> values = List.of(
+            "1.2.2020 10:15:30", "2020-02-01 10:15:30", "1.2.2020 10:15", "1.2.2020", "2020-2-1", "2020-2-1 1:2",
+            "1.2.2020 10:15:30", "2020-02-30", "1.2.20", "2.1.2020 24:00", "2020-2-1 10:15:30 ", "2020-2-1"
+        );
+        var detector = DateTimeFormatDetector.of(FORMATTERS);
+        for (String value : values) {
+            assertEquals(parseByFirstMatch(value), detector.parse(value, DateTimeFormatDetectorTest::toInstant), value);
+        }
+    }
+
+    @Test
+    void testCandidatesAreTriedOnlyWhenFormatChanges() {
+        var lookups = new AtomicInteger();
+        var detector = new DateTimeFormatDetector(value -> {
+            lookups.incrementAndGet();
+            return FORMATTERS;
+        });
+
+        for (int day = 1; day <= 28; day++) {
+            assertEquals(
+                Instant.parse(String.format("2020-02-%02dT10:15:30Z", day)),
+                detector.parse(String.format("%d.2.2020 10:15:30", day), DateTimeFormatDetectorTest::toInstant)
+            );
+        }
+        assertEquals(1, lookups.get());
+
+        assertEquals(
+            Instant.parse("2020-02-01T00:00:00Z"),
+            detector.parse("2020-2-1", DateTimeFormatDetectorTest::toInstant)
+        );
+        assertEquals(
+            Instant.parse("2020-02-02T00:00:00Z"),
+            detector.parse("2020-2-2", DateTimeFormatDetectorTest::toInstant)
+        );
+        assertEquals(2, lookups.get());
+
+        assertNull(detector.parse("2020-13-1", DateTimeFormatDetectorTest::toInstant));
+        assertNull(detector.parse(null, DateTimeFormatDetectorTest::toInstant));
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    void testDetectorPerParse() {
+        Supplier<DateTimeFormatDetector> factory = () -> DateTimeFormatDetector.of(FORMATTERS);
+        var parse = ParseContext.of(null);
+        var detector = parse.dateFormatDetector(factory);
+        assertEquals(Instant.parse("2020-02-01T10:15:30Z"), detector.parse("1.2.2020 10:15:30", Instant::from));
+
+        assertSame(detector, parse.withPrefixRows(1).dateFormatDetector(factory));
+        assertNotSame(detector, ParseContext.of(null).dateFormatDetector(factory));
+        assertNotSame(
+            ParseContext.DEFAULT.dateFormatDetector(factory), ParseContext.DEFAULT.dateFormatDetector(factory)
+        );
+    }
+
+    // the parsing of General Bytes dates before the formats were detected
+    private static Instant parseByFormatFinder(String value) {
+        try {
+            return ParserUtils.parse(new DateTimeFormatFinder().findFormatPattern(value), value);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // the parsing of EveryTrade dates before the formats were detected
+    private static Instant parseByFirstMatch(String value) {
+        for (DateTimeFormatter formatter : FORMATTERS) {
+            try {
+                TemporalAccessor temporal = formatter.parseBest(value, Instant::from, LocalDate::from);
+                if (temporal instanceof Instant) {
+                    return (Instant) temporal;
+                }
+                return ((LocalDate) temporal).atStartOfDay(ZoneOffset.UTC).toInstant();
+            } catch (RuntimeException e) {
+                // next formatter
+            }
+        }
+        return null;
+    }
+
+    private static Instant toInstant(TemporalAccessor temporal) {
+        if (temporal.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return Instant.from(temporal);
+        }
+        return LocalDate.from(temporal).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
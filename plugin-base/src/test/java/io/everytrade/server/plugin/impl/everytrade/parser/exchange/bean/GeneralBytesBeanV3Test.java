@@ -7,6 +7,7 @@ import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.BeanRowMapper;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import org.junit.jupiter.api.Test;
 
@@ -17,6 +18,7 @@ import java.util.List;
 import static io.everytrade.server.model.Currency.BTC;
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean.FEE_UID_PART;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -69,6 +71,20 @@ class GeneralBytesBeanV3Test {
         assertEquals(11, actual.size());
     }
 
+    @Test
+    void testImportingByStatusOfProfileWhenRowsMappedByUnivocity() {
+        // the duplicate status column leaves the rows to univocity, the status is still checked by the rules of the profile
+        final String header = HEADER_CORRECT.replace("\n", ";Status\n");
+        assertNull(BeanRowMapper.compile(GeneralBytesBeanV3.class, header.trim().split(";"), null, false));
+        final String row = "BT401084;2025-06-25 11:16:52;2025-06-25 11:16:52;LMVHRV;RWNX9I;BUY;22000;CZK;0.00908924;BTC;;null;;;;" +
+            "ERROR (NO ERROR);;;;2420444.393591;;;;;;;0;BTC;NORMAL;ERROR (NO ERROR)\n";
+
+        final List<TransactionCluster> actual = ParserTestUtils.getTransactionClusters(header + row, "profile 1");
+
+        assertEquals(1, actual.size());
+        assertEquals("ERROR (NO ERROR)", actual.get(0).getMain().getLabels());
+    }
+
     @Test
     void testWrongHeader() {
         final String headerWrong = "Server Time;Terminal Time;Local Transaction Id;" +
@@ -0,0 +1,223 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_BUY_CRYPTO;
+import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceOperationTypeV4.OPERATION_TYPE_TRANSACTION_REVENUE;
+import static java.util.stream.Collectors.groupingBy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinanceGroupWindowV4Test {
+
+    private static final long TOLERANCE_MS = 1000;
+    private static final Instant START = Instant.parse("2023-01-04T05:43:39Z");
+    private static final int GROUPS = 50_000;
+    private static final String[] OPERATIONS = {
+        "Buy", "Sell", "Transaction Related", "Transaction Revenue", "Fee", "Buy Crypto", "Deposit"
+    };
+    private static final String[] COINS = {"BTC", "USDT", "BNB", "EUR", "CZK"};
+
+    @Test
+    void testRunsOfTradesMergedWithinTolerance() {
+        List<Integer> groupSizes = new ArrayList<>();
+        var window = new BinanceGroupWindowV4(TOLERANCE_MS, group -> true, (time, group) -> groupSizes.add(group.size()));
+        // a trade every 500 ms, trades within the tolerance of the first trade of a run are merged
+        for (int i = 0; i < GROUPS; i++) {
+            Instant time = START.plusMillis(500L * i);
+            window.add(row(time, "Buy", "BTC"));
+            window.add(row(time, "Transaction Related", "USDT"));
+        }
+        window.finish();
+
+        assertEquals(2 * GROUPS, groupSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(groupSizes.stream().allMatch(size -> size <= 6), groupSizes.toString());
+    }
+
+    @Test
+    void testGroupsPassedInOrderOfTime() {
+        List<String> groups = new ArrayList<>();
+        var window = new BinanceGroupWindowV4(
+            TOLERANCE_MS,
+            group -> group.stream().noneMatch(BinanceBeanV4::isUnsupportedRow),
+            (time, group) -> groups.add(time + " " + group.stream().map(BinanceBeanV4::getOriginalOperation).collect(Collectors.toList()))
+        );
+        window.add(row(START, "Buy", "BTC"));
+        window.add(row(START.plusMillis(1000), "Transaction Related", "USDT"));
+        window.add(row(START.plusMillis(1500), "Transaction Revenue", "USDT"));
+        window.add(row(START.plusMillis(1800), "Fee", "BNB"));
+        window.add(row(START.plusMillis(5000), "Sell", "XXX123"));
+        window.add(row(START.plusMillis(9000), "Deposit", "BTC"));
+        window.finish();
+
+        assertEquals(
+            List.of(
+                START.plusMillis(1500) + " [TRANSACTION REVENUE]",
+                START + " [TRANSACTION RELATED, BUY]",
+                START.plusMillis(1800) + " [FEE]",
+                START.plusMillis(9000) + " [DEPOSIT]"
+            ),
+            groups
+        );
+    }
+
+    @Test
+    void testSameGroupsAsBeforeForRandomStatements() {
+        var random = new Random(42);
+        Predicate<List<BinanceBeanV4>> supported = group -> group.stream().noneMatch(BinanceBeanV4::isUnsupportedRow);
+        for (int statement = 0; statement < 2_000; statement++) {
+            List<String[]> rowValues = randomStatement(random);
+
+            List<BinanceBeanV4> legacyRows = rows(rowValues);
+            Map<Instant, List<BinanceBeanV4>> legacyGroups = new TreeMap<>(legacyRows.stream().collect(groupingBy(BinanceBeanV4::getDate)));
+            legacyGroups.values().removeIf(supported.negate());
+            Map<Instant, String> expected = describe(mergeGroupsInTimeWithinTolerance(legacyGroups));
+
+            Map<Instant, List<BinanceBeanV4>> groups = new LinkedHashMap<>();
+            List<Instant> times = new ArrayList<>();
+            var window = new BinanceGroupWindowV4(TOLERANCE_MS, supported, (time, group) -> {
+                times.add(time);
+                groups.put(time, group);
+            });
+            rows(rowValues).forEach(window::add);
+            window.finish();
+
+            String statementValues = rowValues.stream().map(values -> String.join("|", values)).collect(Collectors.joining(" "));
+            assertEquals(expected, describe(groups), statementValues);
+            assertEquals(groups.size(), times.size(), statementValues);
+        }
+    }
+
+    @Test
+    void testRowsNotOrderedByTimeRejected() {
+        var window = new BinanceGroupWindowV4(TOLERANCE_MS, group -> true, (time, group) -> { });
+        window.add(row(START, "Buy", "BTC"));
+        assertThrows(IllegalArgumentException.class, () -> window.add(row(START.minusSeconds(1), "Buy", "BTC")));
+    }
+
+    @Test
+    void testRowsRemovedUntilGroupClosed() {
+        List<Instant> times = new ArrayList<>();
+        var window = new BinanceGroupWindowV4(TOLERANCE_MS, group -> true, (time, group) -> times.add(time));
+        window.add(row(START, "Buy", "BTC"));
+        window.add(row(START, "Transaction Related", "USDT"));
+        var older = row(START.minusSeconds(5), "Buy", "BTC");
+        assertFalse(window.isInOrder(older));
+        assertEquals(2, window.removeRowsIfNoGroupClosed().size());
+
+        assertTrue(window.isInOrder(older));
+        window.add(older);
+        window.add(row(START, "Buy", "BTC"));
+        assertNull(window.removeRowsIfNoGroupClosed());
+        window.finish();
+        assertEquals(List.of(START.minusSeconds(5), START), times);
+    }
+
+    // rows of mixed operations, many of the same time or within the tolerance, as time, operation, coin and whether
+    // the row is unsupported
+    private static List<String[]> randomStatement(Random random) {
+        List<String[]> rowValues = new ArrayList<>();
+        long time = START.toEpochMilli();
+        int rows = 1 + random.nextInt(40);
+        for (int i = 0; i < rows; i++) {
+            if (random.nextInt(3) > 0) {
+                time += random.nextBoolean() ? random.nextInt(2 * (int) TOLERANCE_MS) : 500L * random.nextInt(4);
+            }
+            rowValues.add(new String[]{
+                String.valueOf(time),
+                OPERATIONS[random.nextInt(OPERATIONS.length)],
+                COINS[random.nextInt(COINS.length)],
+                String.valueOf(random.nextInt(20) == 0)
+            });
+        }
+        return rowValues;
+    }
+
+    private static List<BinanceBeanV4> rows(List<String[]> rowValues) {
+        List<BinanceBeanV4> rows = new ArrayList<>();
+        for (String[] values : rowValues) {
+            var row = row(Instant.ofEpochMilli(Long.parseLong(values[0])), values[1], values[2]);
+            row.setRowId(rows.size());
+            row.setUnsupportedRow(Boolean.parseBoolean(values[3]));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Map<Instant, String> describe(Map<Instant, List<BinanceBeanV4>> groups) {
+        Map<Instant, String> description = new HashMap<>();
+        groups.forEach((time, group) -> description.put(time, group.stream()
+            .map(row -> row.getRowId() + (row.isMergedWithAnotherGroup() ? "m" : "") + (row.getDate() == null ? "n" : ""))
+            .collect(Collectors.joining(","))
+        ));
+        return description;
+    }
+
+    // the merging of the groups preceding BinanceGroupWindowV4
+    private static Map<Instant, List<BinanceBeanV4>> mergeGroupsInTimeWithinTolerance(Map<Instant, List<BinanceBeanV4>> groups) {
+        Map<Instant, List<BinanceBeanV4>> result = new HashMap<>();
+        Map<Instant, List<BinanceBeanV4>> sortedMap = groups.entrySet()
+            .stream()
+            .sorted(Comparator.comparing(Map.Entry::getKey))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                (oldValue, newValue) -> oldValue, LinkedHashMap::new));
+
+        Instant previousKey = Instant.EPOCH;
+        List<BinanceBeanV4> previousValues = new ArrayList<>();
+        for (Map.Entry<Instant, List<BinanceBeanV4>> entry : sortedMap.entrySet()) {
+            var currentKey = entry.getKey();
+            var currentValues = entry.getValue();
+            if (currentValues.stream().anyMatch(op -> op.getOperationType().equals(OPERATION_TYPE_TRANSACTION_REVENUE))) {
+                result.put(currentKey, currentValues);
+                continue;
+            } else if ((currentKey.minusMillis(TOLERANCE_MS).equals(previousKey)
+                || currentKey.minusMillis(TOLERANCE_MS).isBefore(previousKey))) {
+
+                if (currentValues.get(0).getCoin().isFiat()
+                    && previousValues.get(0).getCoin().isFiat()
+                    && currentValues.get(0).getOperationType().equals(OPERATION_TYPE_BUY_CRYPTO)
+                ) {
+                    previousValues = currentValues;
+                    previousKey = currentKey;
+                    previousValues.forEach(r -> r.setDate((Instant) null));
+                    continue;
+                }
+                List<BinanceBeanV4> all = currentValues;
+                all.addAll(previousValues);
+                all.forEach(r -> r.setMergedWithAnotherGroup(true));
+                result.put(previousKey, all);
+                currentKey = previousKey;
+                currentValues = all;
+            } else {
+                result.put(currentKey, currentValues);
+            }
+            previousKey = currentKey;
+            previousValues = currentValues;
+        }
+        return result;
+    }
+
+    private static BinanceBeanV4 row(Instant time, String operation, String coin) {
+        var row = new BinanceBeanV4();
+        row.setDate(time);
+        row.setOriginalOperation(operation);
+        row.setCoin(coin);
+        return row;
+    }
+}
@@ -0,0 +1,118 @@
+package io.everytrade.server.plugin.impl.everytrade.rateprovider;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.everytrade.server.model.Currency;
+import io.everytrade.server.plugin.api.rateprovider.CachingStrategy;
+import io.everytrade.server.plugin.api.rateprovider.Rate;
+import io.everytrade.server.plugin.api.rateprovider.RateSourceType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CoinPaprikaRateProviderTest {
+
+    private static final String PATH = "/v1/tickers/btc-bitcoin/historical";
+    private static final Instant TICKS_START = Instant.parse("2022-01-01T00:00:00Z");
+    private static final Duration TICK = Duration.ofMinutes(15);
+    private static final int TICKS = 960;
+
+    WireMockServer wireMockServer;
+    CoinPaprikaRateProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(wireMockConfig().dynamicPort());
+        wireMockServer.start();
+        wireMockServer.stubFor(get(urlPathEqualTo(PATH)).willReturn(okJson(ticks())));
+        provider = new CoinPaprikaRateProvider(wireMockServer.baseUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void testDenseInstantsAreFetchedInOneCall() {
+        List<Instant> instants = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            instants.add(Instant.parse("2022-01-03T00:00:00Z").plusSeconds(60L * i));
+        }
+
+        List<Rate> rates = provider.getRates(Currency.BTC, Currency.USD, instants);
+
+        wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(PATH)));
+        assertEquals(instants.size(), rates.size());
+        for (int i = 0; i < instants.size(); i++) {
+            Rate rate = rates.get(i);
+            Instant validityStart = Instant.parse("2022-01-03T00:00:00Z").plus(TICK.multipliedBy(i / 15));
+            assertEquals(validityStart, rate.getValidityStartIncl());
+            assertEquals(validityStart.plus(TICK), rate.getValidityEndExcl());
+            assertEquals(price(tickIndex(validityStart)), rate.getValue());
+            assertEquals(RateSourceType.MARKET, rate.getSourceType());
+            assertEquals(CachingStrategy.LONG_TERM, rate.getCachingStrategy());
+        }
+    }
+
+    @Test
+    void testCachedRatesAreReused() {
+        Instant instant = Instant.parse("2022-01-05T10:07:00Z");
+
+        Rate rate = provider.getRate(Currency.BTC, Currency.USD, instant);
+        Rate sameInterval = provider.getRate(Currency.BTC, Currency.USD, Instant.parse("2022-01-05T10:14:59Z"));
+        Rate surrounding = provider.getRate(Currency.BTC, Currency.USD, Instant.parse("2022-01-02T23:59:00Z"));
+
+        wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(PATH)));
+        assertEquals(price(tickIndex(Instant.parse("2022-01-05T10:00:00Z"))), rate.getValue());
+        assertSame(rate, sameInterval);
+        assertEquals(price(tickIndex(Instant.parse("2022-01-02T23:45:00Z"))), surrounding.getValue());
+    }
+
+    @Test
+    void testFactAndUnlistedRatesNeedNoCall() {
+        Instant instant = Instant.parse("2022-01-05T10:07:00Z");
+
+        provider.getRate(Currency.BTC, Currency.USD, instant);
+        provider.getRate(Currency.BTC, Currency.BTC, instant);
+        provider.getRate(Currency.BTC, Currency.USD, instant);
+
+        wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(PATH)));
+        assertNull(provider.getRate(Currency.BTC, Currency.USD, Instant.parse("2009-01-01T00:00:00Z")));
+    }
+
+    private static int tickIndex(Instant validityStart) {
+        return (int) Duration.between(TICKS_START, validityStart).dividedBy(TICK);
+    }
+
+    private static BigDecimal price(int tickIndex) {
+        return new BigDecimal("40000.5").add(BigDecimal.valueOf(tickIndex));
+    }
+
+    private static String ticks() {
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < TICKS; i++) {
+            json.add(String.format(
+                "{\"timestamp\":\"%s\",\"price\":%s,\"volume_24h\":29735000000,\"market_cap\":760000000000}",
+                TICKS_START.plus(TICK.multipliedBy(i)),
+                price(i)
+            ));
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package io.everytrade.server.util;
+
+import io.everytrade.server.model.Currency;
+import io.everytrade.server.model.CurrencyPair;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KrakenCurrencyUtilTest {
+
+    @Test
+    void testFindCurrencyByCode() {
+        assertEquals(Currency.BTC, KrakenCurrencyUtil.findCurrencyByCode("XXBT"));
+        assertEquals(Currency.BTC, KrakenCurrencyUtil.findCurrencyByCode("XBT.M"));
+        assertEquals(Currency.EUR, KrakenCurrencyUtil.findCurrencyByCode("ZEUR"));
+        assertEquals(Currency.EUR, KrakenCurrencyUtil.findCurrencyByCode("EUR.HOLD"));
+        assertEquals(Currency.ETH, KrakenCurrencyUtil.findCurrencyByCode("ETH2.S"));
+        assertEquals(Currency.ETH, KrakenCurrencyUtil.findCurrencyByCode("ETHW"));
+        assertEquals(Currency.DOT, KrakenCurrencyUtil.findCurrencyByCode("DOT28.S"));
+        assertEquals(Currency.ADA, KrakenCurrencyUtil.findCurrencyByCode("ada"));
+        assertEquals(Currency.ADA, KrakenCurrencyUtil.findCurrencyByCode("ADA04"));
+        assertEquals(Currency.ZRX, KrakenCurrencyUtil.findCurrencyByCode("ZRX"));
+        var e = assertThrows(IllegalStateException.class, () -> KrakenCurrencyUtil.findCurrencyByCode("UNKNOWN123"));
+        assertEquals("Currency not found for code UNKNOWN.", e.getMessage());
+    }
+
+    @Test
+    void testCurrencyUtilAliases() {
+        assertEquals(Currency.DOGE, CurrencyUtil.fromString("XDG"));
+        assertEquals(Currency.BTC, CurrencyUtil.fromString("BTC"));
+        assertEquals(Currency.BTC, CurrencyUtil.fromString("btc"));
+        assertEquals("RENDER", CurrencyUtil.fromStringToString("RNDR"));
+        assertEquals("btc", CurrencyUtil.fromStringToString("btc"));
+    }
+
+    @Test
+    void testFindStandardPair() {
+        assertEquals(new CurrencyPair(Currency.ETH, Currency.EUR), KrakenCurrencyUtil.findStandardPair("ETHEUR"));
+        assertEquals(new CurrencyPair(Currency.ADA, Currency.USD), KrakenCurrencyUtil.findStandardPair("adausd"));
+    }
+}
@@ -0,0 +1,94 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import io.everytrade.server.plugin.impl.everytrade.etherscan.EtherScanErc20TransactionDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Merge of the ERC20 transfers of the last block downloaded again into the downloaded ones - by the transfer keys of
+ * the downloader and by List.contains for every transfer of the last block, as the downloader did before. A fifth of
+ * the transfers are in the last block, two transfers of different tokens per transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class EthLastBlockMergeBenchmark {
+
+    private static final long LAST_BLOCK = 2_000_000L;
+
+    @Param({"1000", "100000"})
+    public int transfers;
+
+    private List<EtherScanErc20TransactionDto> downloaded;
+    private List<EtherScanErc20TransactionDto> lastBlock;
+
+    @Setup
+    public void setUp() {
+        int lastBlockTransfers = transfers / 5;
+        downloaded = IntStream.range(0, transfers)
+            .mapToObj(i -> transfer(i / 2, i % 2, i < transfers - lastBlockTransfers ? 1 + i / 100 : LAST_BLOCK))
+            .collect(Collectors.toList());
+        lastBlock = new ArrayList<>(downloaded.subList(transfers - lastBlockTransfers, transfers));
+        lastBlock.add(transfer((transfers - 1) / 2, 2, LAST_BLOCK));
+    }
+
+    @Benchmark
+    public int addMissing() {
+        var txs = new ArrayList<>(downloaded);
+        BlockchainEthDownloader.addMissing(txs, lastBlock);
+        return txs.size();
+    }
+
+    @Benchmark
+    public int listContains() {
+        var txs = new ArrayList<>(downloaded);
+        lastBlock.forEach(lastBlockTx -> {
+            if (!txs.contains(lastBlockTx)) {
+                txs.add(lastBlockTx);
+            }
+        });
+        return txs.size();
+    }
+
+    private static EtherScanErc20TransactionDto transfer(int transaction, int logIndex, long block) {
+        return EtherScanErc20TransactionDto.builder()
+            .blockNumber(block)
+            .timeStamp(1_700_000_000L + block)
+            .hash("0xhash" + transaction)
+            .blockHash("0xblock" + block)
+            .from("0xsender")
+            .to("address0")
+            .value(new BigDecimal("1000000"))
+            .gas(new BigDecimal("100000"))
+            .gasUsed(new BigDecimal("50000"))
+            .gasPrice(BigDecimal.ONE)
+            .txreceipt_status("")
+            .input("deprecated")
+            .contractAddress("0xtoken" + logIndex % 2)
+            .confirmations(100)
+            .tokenName("Tether USD")
+            .tokenSymbol("USDT")
+            .tokenDecimal(6)
+            .logIndex(logIndex)
+            .build();
+    }
+}
@@ -0,0 +1,100 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import com.univocity.parsers.common.ParsingContext;
+import com.univocity.parsers.common.processor.BeanListProcessor;
+import com.univocity.parsers.common.processor.core.Processor;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.CompiledBeanProcessor;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the rows of synthetic exports to their exchange beans - by univocity's reflective bean processor and by
+ * the compiled one the parsers use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BeanMappingBenchmark {
+
+    @Param({"KRAKEN", "GENERAL_BYTES", "EVERYTRADE_V3_2"})
+    public SyntheticCsv shape;
+
+    @Param({"100000"})
+    public int rows;
+
+    private File file;
+    private String delimiter;
+    private Class<? extends ExchangeBean> beanClass;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = shape.write(rows);
+        String header = shape.getHeader();
+        delimiter = header.contains(";") ? ";" : ",";
+        ExchangeParseDetail detail = EverytradeCsvMultiParser.findCsvDetailByHeader(header);
+        if (detail == null) {
+            throw new IllegalStateException(String.format("Unknown header of %s: '%s'", shape, header));
+        }
+        List<? extends ExchangeBean> beans = detail.getParserFactory().get().parse(file);
+        if (beans.size() != rows) {
+            throw new IllegalStateException(String.format("Synthetic %s rows not parsed: %d of %d", shape, beans.size(), rows));
+        }
+        beanClass = beans.get(0).getClass();
+    }
+
+    @Benchmark
+    public List<? extends ExchangeBean> beanListProcessor(RowCounter counter) {
+        var processor = new BeanListProcessor<>(beanClass);
+        parse(processor);
+        counter.rows += rows;
+        return processor.getBeans();
+    }
+
+    @Benchmark
+    public List<? extends ExchangeBean> compiledBeanProcessor(RowCounter counter) {
+        List<ExchangeBean> beans = new ArrayList<>();
+        parse(new CompiledBeanProcessor<ExchangeBean>(castBeanClass()) {
+            @Override
+            public void beanProcessed(ExchangeBean bean, ParsingContext context) {
+                beans.add(bean);
+            }
+        });
+        counter.rows += rows;
+        return beans;
+    }
+
+    private void parse(Processor<ParsingContext> processor) {
+        var settings = new CsvParserSettings();
+        settings.setHeaderExtractionEnabled(true);
+        settings.setLineSeparatorDetectionEnabled(true);
+        settings.getFormat().setDelimiter(delimiter);
+        settings.setProcessor(processor);
+        new CsvParser(settings).parse(file);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<ExchangeBean> castBeanClass() {
+        return (Class<ExchangeBean>) beanClass;
+    }
+}
@@ -0,0 +1,95 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IMultiExchangeSpecificParser;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.ClusterValidator;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.ImportValidation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of synthetic exports - end to end and its stages separately: mapping rows to exchange beans (including
+ * grouping of multi-row transactions) and validation of the transaction clusters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvParserBenchmark {
+
+    @Param({"BINANCE_V4", "KRAKEN", "COINBASE", "GENERAL_BYTES", "EVERYTRADE_V3_2"})
+    public SyntheticCsv shape;
+
+    @Param({"100000"})
+    public int rows;
+
+    private File file;
+    private String header;
+    private ExchangeParseDetail detail;
+    private List<TransactionCluster> transactionClusters;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = shape.write(rows);
+        header = shape.getHeader();
+        detail = EverytradeCsvMultiParser.findCsvDetailByHeader(header);
+        if (detail == null) {
+            throw new IllegalStateException(String.format("Unknown header of %s: '%s'", shape, header));
+        }
+        var result = new EverytradeCsvMultiParser().parse(file, header);
+        if (!result.getParsingProblems().isEmpty()) {
+            throw new IllegalStateException(String.format("Synthetic %s rows not parsed: %s", shape, result.getParsingProblems().get(0)));
+        }
+        transactionClusters = result.getTransactionClusters();
+    }
+
+    @Benchmark
+    public ParseResult parse(RowCounter counter) {
+        counter.rows += rows;
+        return new EverytradeCsvMultiParser().parse(file, header);
+    }
+
+    @Benchmark
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<? extends ExchangeBean> mapRows(RowCounter counter) {
+        counter.rows += rows;
+        var exchangeParser = detail.getParserFactory().get();
+        if (exchangeParser instanceof IMultiExchangeSpecificParser) {
+            var beans = exchangeParser.parse(file);
+            return ((IMultiExchangeSpecificParser) exchangeParser).convertMultipleRowsToTransactions(beans);
+        }
+        // the path of the multi parser, the Binance v4 parser groups the rows as they are read
+        List<ExchangeBean> beans = new ArrayList<>();
+        exchangeParser.parse(file, beans::add, problem -> { });
+        return beans;
+    }
+
+    @Benchmark
+    public int validateClusters(RowCounter counter) {
+        counter.rows += rows;
+        for (TransactionCluster cluster : transactionClusters) {
+            ImportValidation.validateClusterOrThrow(cluster);
+            ClusterValidator.clusterValidator(cluster);
+        }
+        return transactionClusters.size();
+    }
+}
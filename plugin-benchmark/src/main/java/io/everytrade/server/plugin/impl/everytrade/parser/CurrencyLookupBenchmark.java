@@ -0,0 +1,103 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.model.Currency;
+import io.everytrade.server.model.CurrencyPair;
+import io.everytrade.server.util.CurrencyUtil;
+import io.everytrade.server.util.KrakenCurrencyUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the currency symbols of a row, as done for every row by the parsers - the score is per symbol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyLookupBenchmark {
+
+    private static final int SYMBOLS = 6;
+
+    private final String[] codes = {"BTC", "ETH", "USDT", "EUR", "ADA", "SOL"};
+    private final String[] lowerCaseCodes = {"btc", "eth", "usdt", "eur", "ada", "sol"};
+    private final String[] aliases = {"BTC", "XDG", "USDT", "RNDR", "eur", "BEAMX"};
+    private final String[] krakenCodes = {"XXBT", "ZEUR", "ETH2.S", "DOT.S", "ADA", "SOL03"};
+    private final String[] krakenPairs = {"ETHEUR", "ADAUSD", "SOLUSDT", "BTCCZK", "DOTEUR", "USDTUSD"};
+    private final String[] pairSymbols = {"ETHEUR", "ADAUSD", "SOLUSDT", "BTCCZK", "1INCHEUR", "USDTUSD"};
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void fromCode(Blackhole blackhole) {
+        for (String code : codes) {
+            blackhole.consume(Currency.fromCode(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void fromLowerCaseCode(Blackhole blackhole) {
+        for (String code : lowerCaseCodes) {
+            blackhole.consume(Currency.fromCode(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void fromAlias(Blackhole blackhole) {
+        for (String code : aliases) {
+            blackhole.consume(CurrencyUtil.fromString(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void fromKrakenCode(Blackhole blackhole) {
+        for (String code : krakenCodes) {
+            blackhole.consume(KrakenCurrencyUtil.findCurrencyByCode(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void fromKrakenPair(Blackhole blackhole) {
+        for (String pair : krakenPairs) {
+            blackhole.consume(KrakenCurrencyUtil.findStandardPair(pair));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public void fromPairSymbol(Blackhole blackhole) {
+        for (String symbol : pairSymbols) {
+            blackhole.consume(CurrencyPair.findBySymbol(symbol, ""));
+        }
+    }
+
+    /**
+     * The map of all pair symbols the beans built in their static initializers before resolving them on demand.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public Map<String, CurrencyPair> materializedPairSymbols() {
+        Map<String, CurrencyPair> symbols = new HashMap<>();
+        CurrencyPair.getTradeablePairs().forEach(pair -> symbols.put(pair.getBase().code() + pair.getQuote().code(), pair));
+        return symbols;
+    }
+}
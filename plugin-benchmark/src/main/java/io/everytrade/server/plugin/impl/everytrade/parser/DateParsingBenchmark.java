@@ -0,0 +1,58 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date parsing of one row, with the formatter built for every row as before and taken from {@link DateTimeFormatters}.
+ * Run with the GC profiler (the default of the jmh task) to compare the allocations per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateParsingBenchmark {
+
+    @Param({"GENERAL_BYTES", "BINANCE", "OPEN_NODE"})
+    public DateSample sample;
+
+    @Benchmark
+    public Instant ofPatternPerRow() {
+        return DateTimeFormatter.ofPattern(sample.pattern, Locale.US).withZone(ZoneOffset.UTC).parse(sample.value, Instant::from);
+    }
+
+    @Benchmark
+    public Instant registry() {
+        return ParserUtils.parse(sample.pattern, sample.value);
+    }
+
+    public enum DateSample {
+        GENERAL_BYTES("yyyy-MM-dd HH:mm:ss.S", "2021-05-10 10:15:30.0"),
+        BINANCE("yyyy-MM-dd HH:mm:ss", "2021-05-10 10:15:30"),
+        OPEN_NODE("MM/dd/yyyy hh:mm a", "05/10/2021 10:15 AM");
+
+        private final String pattern;
+        private final String value;
+
+        DateSample(String pattern, String value) {
+            this.pattern = pattern;
+            this.value = value;
+        }
+    }
+}
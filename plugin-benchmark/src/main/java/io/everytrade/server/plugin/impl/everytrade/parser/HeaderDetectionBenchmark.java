@@ -0,0 +1,34 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detection of the file format by its header line, as done for every uploaded file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeaderDetectionBenchmark {
+
+    @Param({"BINANCE_V4", "KRAKEN", "COINBASE", "GENERAL_BYTES", "EVERYTRADE_V3_2"})
+    public SyntheticCsv shape;
+
+    @Benchmark
+    public ExchangeParseDetail detectHeader() {
+        return EverytradeCsvMultiParser.findCsvDetailByHeader(shape.getHeader());
+    }
+}
@@ -0,0 +1,61 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.ParseResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end parsing of synthetic exports with the transaction clusters converted and validated by a number of
+ * threads - the scaling needs as many cores as threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelParsingBenchmark {
+
+    @Param({"BINANCE_V4", "COINBASE", "EVERYTRADE_V3_2"})
+    public SyntheticCsv shape;
+
+    @Param({"1", "2", "4"})
+    public int parallelism;
+
+    @Param({"100000"})
+    public int rows;
+
+    private File file;
+    private String header;
+    private EverytradeCsvMultiParser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = shape.write(rows);
+        header = shape.getHeader();
+        parser = new EverytradeCsvMultiParser(parallelism);
+        var result = parser.parse(file, header);
+        if (!result.getParsingProblems().isEmpty()) {
+            throw new IllegalStateException(String.format("Synthetic %s rows not parsed: %s", shape, result.getParsingProblems().get(0)));
+        }
+    }
+
+    @Benchmark
+    public ParseResult parse(RowCounter counter) {
+        counter.rows += rows;
+        return parser.parse(file, header);
+    }
+}
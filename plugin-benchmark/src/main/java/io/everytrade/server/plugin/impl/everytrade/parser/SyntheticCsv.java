@@ -0,0 +1,106 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Synthetic exports of configurable size. Every shape repeats rows in the format of the real exports
+ * (see {@code parser-files/} and parser tests), only ids and timestamps differ, so that no network or private data
+ * is needed to run the benchmarks.
+ */
+public enum SyntheticCsv {
+
+    BINANCE_V4("\uFEFFUser_ID,UTC_Time,Account,Operation,Coin,Change,Remark") {
+        @Override
+        String row(int index) {
+            String time = SPACED.format(timestamp(index / 2));
+            return index % 2 == 0
+                ? "63676019," + time + ",Spot,Buy,BTC,0.00100000,"
+                : "63676019," + time + ",Spot,Transaction Related,USDT,-30.00000000,";
+        }
+    },
+
+    KRAKEN("txid,refid,time,type,subtype,aclass,asset,amount,fee,balance") {
+        @Override
+        String row(int index) {
+            String prefix = "\"L" + index + "\",\"T" + index / 2 + "\",\"" + SPACED.format(timestamp(index / 2)) + "\",";
+            return index % 2 == 0
+                ? prefix + "\"spend\",\"\",\"currency\",\"ZEUR\",-30.0000,0.0500,1000.0000"
+                : prefix + "\"receive\",\"\",\"currency\",\"XXBT\",0.0010000000,0.0000000000,0.0010000000";
+        }
+    },
+
+    COINBASE("Timestamp,Transaction Type,Asset,Quantity Transacted,EUR Spot Price at Transaction,EUR Subtotal,"
+        + "EUR Total (inclusive of fees),EUR Fees,Notes") {
+        @Override
+        String row(int index) {
+            String time = DateTimeFormatter.ISO_INSTANT.format(timestamp(index));
+            return index % 2 == 0
+                ? time + ",Buy,BTC,0.03182812,9287.38,295.60,300.00,4.40,Bought 0.03182812 BTC for € 300.00 EUR"
+                : time + ",Sell,BTC,0.03517833,6831.48,240.32,236.74,3.58,Sold 0.03517833 BTC for €236.74 EUR";
+        }
+    },
+
+    GENERAL_BYTES("Terminal SN;Server Time;Terminal Time;Local Transaction Id;Remote Transaction Id;Type;Cash Amount;"
+        + "Cash Currency;Crypto Amount;Crypto Currency;Used Discount;Actual Discount (%);Destination address;"
+        + "Related Remote Transaction Id;Identity;Status;Phone Number;Transaction Detail;") {
+        @Override
+        String row(int index) {
+            String time = SPACED.format(timestamp(index)) + ".0";
+            String type = index % 2 == 0 ? "BUY;5000;CZK;0.031637" : "SELL;8000;CZK;0.052674";
+            return "BT1;" + time + ";" + time + ";L" + index + ";R" + index + ";" + type + ";BTC;;0.00;1Gz;;IC;COMPLETED (0);;76;";
+        }
+    },
+
+    EVERYTRADE_V3_2("UID;DATE;SYMBOL;ACTION;QUANTITY;UNIT_PRICE;VOLUME_QUOTE;FEE;FEE_CURRENCY;REBATE;REBATE_CURRENCY;"
+        + "ADDRESS_FROM;ADDRESS_TO;NOTE;LABELS") {
+        @Override
+        String row(int index) {
+            String action = index % 2 == 0 ? "BUY" : "SELL";
+            return index + ";" + DOTTED.format(timestamp(index)) + ";BTC/EUR;" + action + ";0.066506;21050.3226;;1.4;EUR;;;;;;";
+        }
+    };
+
+    private static final Instant START = Instant.parse("2021-01-01T00:00:00Z");
+    private static final DateTimeFormatter SPACED = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DOTTED = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private final String header;
+
+    SyntheticCsv(String header) {
+        this.header = header;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * Writes a temporary file with the header and given number of data rows, the file is deleted on JVM exit.
+     */
+    public File write(int rows) throws IOException {
+        File file = File.createTempFile("benchmark_" + name().toLowerCase() + "_", ".csv");
+        file.deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(header);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                writer.write(row(i));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    abstract String row(int index);
+
+    private static Instant timestamp(int index) {
+        return START.plusSeconds(60L * index);
+    }
+}